@@ -0,0 +1,93 @@
+package paxel.sunshine.api.datatypes;
+
+/**
+ * A reusable holder of an unsigned long, that can be refilled instead of
+ * allocating a new {@link ULong} for each read value. Not thread-safe.
+ */
+public class MutableULong implements Comparable<MutableULong> {
+    private long signedValue;
+
+    public MutableULong() {
+    }
+
+    public MutableULong(long value) {
+        this.signedValue = value;
+    }
+
+    public long getSignedValue() {
+        return signedValue;
+    }
+
+    /**
+     * Replaces the value.
+     *
+     * @param value The bits of the unsigned value.
+     * @return this.
+     */
+    public MutableULong setSignedValue(long value) {
+        this.signedValue = value;
+        return this;
+    }
+
+    /**
+     * Replaces the value with the value of the ULong.
+     *
+     * @param value The value.
+     * @return this.
+     */
+    public MutableULong set(ULong value) {
+        this.signedValue = value.getSignedValue();
+        return this;
+    }
+
+    /**
+     * Checks if the wrapped value is {@code < 0} (and therefore can not be represented by a signed value)
+     *
+     * @return {@code false} if the unsigned value can be represented by a signed value.
+     */
+    public boolean isSignedValueLessThanZero() {
+        return signedValue < 0;
+    }
+
+    /**
+     * Creates an immutable copy of the current value.
+     *
+     * @return the ULong.
+     */
+    public ULong toULong() {
+        return new ULong(signedValue);
+    }
+
+    /**
+     * Appends the decimal representation of the unsigned value without creating a String.
+     *
+     * @param builder The destination.
+     * @return the builder.
+     */
+    public StringBuilder appendTo(StringBuilder builder) {
+        return ULong.appendTo(builder, signedValue);
+    }
+
+    @Override
+    public int compareTo(MutableULong o) {
+        return Long.compareUnsigned(signedValue, o.signedValue);
+    }
+
+    @Override
+    public String toString() {
+        return Long.toUnsignedString(signedValue);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        MutableULong that = (MutableULong) o;
+        return signedValue == that.signedValue;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(signedValue);
+    }
+}
@@ -4,8 +4,15 @@ import java.util.Objects;
 
 /**
  * This represents the missing datatype of an unsigned long using a signed long.
+ * The static methods work on the bits of the unsigned value in a primitive long,
+ * so that hot paths don't need to box the values.
  */
 public class ULong implements Comparable<ULong> {
+    /**
+     * The biggest value that can be multiplied by 10 without overflow.
+     */
+    private static final long MAX_DIV_10 = 0x1999_9999_9999_9999L;
+
     private final long signedValue;
 
     public static ULong fromUnsignedString(String unsignedValue) {
@@ -32,7 +39,7 @@ public class ULong implements Comparable<ULong> {
     }
 
     /**
-     * Checks if the wrapped value is < 0 (and therefore can not be represented by a signed value)
+     * Checks if the wrapped value is {@code < 0} (and therefore can not be represented by a signed value)
      *
      * @return {@code false} if the unsigned value can be represented by a signed value.
      */
@@ -40,6 +47,122 @@ public class ULong implements Comparable<ULong> {
         return signedValue < 0;
     }
 
+    /**
+     * Compares two unsigned values.
+     *
+     * @param a The first unsigned value.
+     * @param b The second unsigned value.
+     * @return a negative value, zero or a positive value if a is less than, equal or greater than b.
+     */
+    public static int compare(long a, long b) {
+        return Long.compare(a + Long.MIN_VALUE, b + Long.MIN_VALUE);
+    }
+
+    /**
+     * Divides two unsigned values. In contrast to {@link Long#divideUnsigned(long, long)}
+     * of Java 8, this never creates BigIntegers.
+     *
+     * @param dividend The unsigned dividend.
+     * @param divisor  The unsigned divisor.
+     * @return the unsigned quotient.
+     * @throws ArithmeticException if the divisor is 0.
+     */
+    public static long divide(long dividend, long divisor) {
+        if (divisor < 0) {
+            // the divisor is >= 2^63, so the quotient is either 0 or 1
+            return compare(dividend, divisor) < 0 ? 0 : 1;
+        }
+        if (dividend >= 0) {
+            return dividend / divisor;
+        }
+        long quotient = ((dividend >>> 1) / divisor) << 1;
+        long remainder = dividend - quotient * divisor;
+        return quotient + (compare(remainder, divisor) >= 0 ? 1 : 0);
+    }
+
+    /**
+     * Calculates the remainder of the division of two unsigned values.
+     *
+     * @param dividend The unsigned dividend.
+     * @param divisor  The unsigned divisor.
+     * @return the unsigned remainder.
+     * @throws ArithmeticException if the divisor is 0.
+     */
+    public static long remainder(long dividend, long divisor) {
+        return dividend - divide(dividend, divisor) * divisor;
+    }
+
+    /**
+     * Creates the decimal representation of an unsigned value.
+     *
+     * @param unsignedValue The unsigned value.
+     * @return the String.
+     */
+    public static String toString(long unsignedValue) {
+        return Long.toUnsignedString(unsignedValue);
+    }
+
+    /**
+     * Appends the decimal representation of an unsigned value without creating
+     * a String.
+     *
+     * @param builder       The destination.
+     * @param unsignedValue The unsigned value.
+     * @return the builder.
+     */
+    public static StringBuilder appendTo(StringBuilder builder, long unsignedValue) {
+        if (unsignedValue >= 0) {
+            return builder.append(unsignedValue);
+        }
+        long quotient = (unsignedValue >>> 1) / 5;
+        long lastDigit = unsignedValue - quotient * 10;
+        return builder.append(quotient).append((char) ('0' + lastDigit));
+    }
+
+    /**
+     * Parses the decimal representation of an unsigned value without creating
+     * a String.
+     *
+     * @param value The characters.
+     * @return the unsigned value.
+     * @throws NumberFormatException if the value contains no digits, other characters or is too big.
+     */
+    public static long parse(CharSequence value) {
+        return parse(value, 0, value.length());
+    }
+
+    /**
+     * Parses the decimal representation of an unsigned value in a part of the
+     * characters without creating a String.
+     *
+     * @param value  The characters.
+     * @param offset The index of the first character.
+     * @param length The number of characters.
+     * @return the unsigned value.
+     * @throws NumberFormatException if the range contains no digits, other characters or the value is too big.
+     */
+    public static long parse(CharSequence value, int offset, int length) {
+        if (length <= 0 || offset < 0 || offset + length > value.length()) {
+            throw new NumberFormatException("No unsigned value at " + offset + " length " + length);
+        }
+        long result = 0;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            int digit = value.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("Invalid digit '" + value.charAt(i) + "' at " + i);
+            }
+            if (compare(result, MAX_DIV_10) > 0) {
+                throw new NumberFormatException("Unsigned value too big at " + i);
+            }
+            long next = result * 10 + digit;
+            if (compare(next, result * 10) < 0) {
+                throw new NumberFormatException("Unsigned value too big at " + i);
+            }
+            result = next;
+        }
+        return result;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -0,0 +1,24 @@
+package paxel.sunshine.api.memory;
+
+/**
+ * A RAM that can extend the memory in use, if not enough memory is allocated.
+ */
+public interface GrowableRandomAccessMemory extends ReadWriteRandomAccessMemory {
+
+    /**
+     * Extends the memory in use by the given number of bytes. The new bytes are
+     * appended at the end, all existing bytes keep their index.
+     *
+     * @param size The number of bytes to add.
+     * @return the number of bytes in use after the allocation, which is the new {@link #size()}.
+     * @throws IllegalArgumentException in case the size is less than 0.
+     */
+    long allocate(long size);
+
+    /**
+     * Retrieve the number of bytes that can be used without acquiring new memory.
+     *
+     * @return the capacity, which is at least the {@link #size()}.
+     */
+    long capacity();
+}
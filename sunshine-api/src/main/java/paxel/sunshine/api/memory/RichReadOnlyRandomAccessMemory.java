@@ -1,5 +1,8 @@
 package paxel.sunshine.api.memory;
 
+import java.nio.CharBuffer;
+
+import paxel.sunshine.api.datatypes.MutableULong;
 import paxel.sunshine.api.datatypes.ULong;
 
 public interface RichReadOnlyRandomAccessMemory extends ReadOnlyRandomAccessMemory {
@@ -60,6 +63,25 @@ public interface RichReadOnlyRandomAccessMemory extends ReadOnlyRandomAccessMemo
 	 */
 	ULong getUInt64At(long index);
 
+	/**
+	 * Get the eight bytes at index as unsigned value in the bits of a long,
+	 * without creating a ULong. Use the static methods of {@link ULong} to
+	 * compare, divide or format it.
+	 * 
+	 * @param index The index.
+	 * @return the unsigned value as long.
+	 */
+	long getUInt64BitsAt(long index);
+
+	/**
+	 * Get the eight bytes at index as unsigned value into the given holder.
+	 * 
+	 * @param index  The index.
+	 * @param target The reused holder.
+	 * @return the target.
+	 */
+	MutableULong getUInt64At(long index, MutableULong target);
+
 	/**
 	 * Get the four bytes at index as normal precession value.
 	 * 
@@ -76,6 +98,56 @@ public interface RichReadOnlyRandomAccessMemory extends ReadOnlyRandomAccessMemo
 	 */
 	double getDoubleAt(long index);
 
+	/**
+	 * Copies count two byte signed values starting at index into the destination array.
+	 * 
+	 * @param index             The index of the first value.
+	 * @param destination       The destination.
+	 * @param destinationOffset The index of the first value in the destination.
+	 * @param count             The number of values.
+	 */
+	void getInt16sAt(long index, short[] destination, int destinationOffset, int count);
+
+	/**
+	 * Copies count four byte signed values starting at index into the destination array.
+	 * 
+	 * @param index             The index of the first value.
+	 * @param destination       The destination.
+	 * @param destinationOffset The index of the first value in the destination.
+	 * @param count             The number of values.
+	 */
+	void getInt32sAt(long index, int[] destination, int destinationOffset, int count);
+
+	/**
+	 * Copies count eight byte signed values starting at index into the destination array.
+	 * 
+	 * @param index             The index of the first value.
+	 * @param destination       The destination.
+	 * @param destinationOffset The index of the first value in the destination.
+	 * @param count             The number of values.
+	 */
+	void getInt64sAt(long index, long[] destination, int destinationOffset, int count);
+
+	/**
+	 * Copies count four byte normal precession values starting at index into the destination array.
+	 * 
+	 * @param index             The index of the first value.
+	 * @param destination       The destination.
+	 * @param destinationOffset The index of the first value in the destination.
+	 * @param count             The number of values.
+	 */
+	void getFloatsAt(long index, float[] destination, int destinationOffset, int count);
+
+	/**
+	 * Copies count eight byte double precession values starting at index into the destination array.
+	 * 
+	 * @param index             The index of the first value.
+	 * @param destination       The destination.
+	 * @param destinationOffset The index of the first value in the destination.
+	 * @param count             The number of values.
+	 */
+	void getDoublesAt(long index, double[] destination, int destinationOffset, int count);
+
 	/**
 	 * Get the given number of bytes at index as String.
 	 * 
@@ -85,6 +157,51 @@ public interface RichReadOnlyRandomAccessMemory extends ReadOnlyRandomAccessMemo
 	 */
 	String getStringAt(long index, int length);
 
+	/**
+	 * Decode the given number of bytes at index as UTF-8 and append the characters
+	 * to the destination. No temporary arrays are allocated.
+	 * 
+	 * @param index       The index.
+	 * @param length      The number of bytes.
+	 * @param destination The destination.
+	 * @return the destination.
+	 */
+	StringBuilder getStringAt(long index, int length, StringBuilder destination);
+
+	/**
+	 * Decode the given number of bytes at index as UTF-8 and put the characters
+	 * into the destination. No temporary arrays are allocated.
+	 * 
+	 * @param index       The index.
+	 * @param length      The number of bytes.
+	 * @param destination The destination.
+	 * @return the destination.
+	 * @throws java.nio.BufferOverflowException in case the destination is too
+	 *                                          small.
+	 */
+	CharBuffer getStringAt(long index, int length, CharBuffer destination);
+
+	/**
+	 * Get the given number of bytes at index as lazily decoded
+	 * {@link CharSequence}. The view is only valid as long as the bytes are not
+	 * changed.
+	 * 
+	 * @param index  The index.
+	 * @param length The number of bytes.
+	 * @return the view.
+	 */
+	CharSequence getCharSequenceAt(long index, int length);
+
+	/**
+	 * Get the given number of bytes at index as FixString. The 0x00 padding at the
+	 * end is not part of the result.
+	 * 
+	 * @param index  The index.
+	 * @param length The fixed size of the String in bytes.
+	 * @return the String.
+	 */
+	String getFixStringAt(long index, int length);
+
 	/**
 	 * Get the given number of bytes at index as {@link ReadOnlyRandomAccessMemory}.
 	 * The implementation should avoid copying data if possible.
@@ -1,5 +1,6 @@
 package paxel.sunshine.api.memory;
 
+import paxel.sunshine.api.datatypes.MutableULong;
 import paxel.sunshine.api.datatypes.ULong;
 
 public interface RichReadWriteRandomAccessMemory extends ReadWriteRandomAccessMemory {
@@ -17,10 +18,24 @@ public interface RichReadWriteRandomAccessMemory extends ReadWriteRandomAccessMe
 
     void putUInt64At(long index, ULong value);
 
+    void putUInt64At(long index, MutableULong value);
+
+    void putUInt64BitsAt(long index, long value);
+
     void putFloatAt(long index, float value);
 
     void putDoubleAt(long index, double value);
 
+    void putInt16sAt(long index, short[] source, int sourceOffset, int count);
+
+    void putInt32sAt(long index, int[] source, int sourceOffset, int count);
+
+    void putInt64sAt(long index, long[] source, int sourceOffset, int count);
+
+    void putFloatsAt(long index, float[] source, int sourceOffset, int count);
+
+    void putDoublesAt(long index, double[] source, int sourceOffset, int count);
+
     void putStringAt(long index, CharSequence value);
 
     void putStringAt(long index, CharSequence value, int offset, int length);
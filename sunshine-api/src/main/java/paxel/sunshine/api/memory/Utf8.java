@@ -0,0 +1,491 @@
+package paxel.sunshine.api.memory;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * UTF-8 decoding and encoding of RAM content without temporary arrays. The
+ * bytes are copied in chunks into a small per thread buffer and decoded from
+ * there, with a fast path for ASCII. Malformed input is replaced by U+FFFD when
+ * decoding and by '?' when encoding, like the JDK does. Each maximal subpart of
+ * an ill-formed sequence and each encoded surrogate becomes a single U+FFFD, so
+ * the result is the same as the one of {@code new String(bytes, UTF_8)}.
+ */
+public final class Utf8 {
+
+    private static final int CHUNK = 4096;
+    private static final char REPLACEMENT = '\uFFFD';
+    private static final byte UNMAPPABLE = '?';
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    private Utf8() {
+    }
+
+    /**
+     * Decodes the bytes into a new String. Only the String itself is allocated if
+     * the length is not bigger than 4 KB.
+     *
+     * @param ram    The RAM.
+     * @param index  The index of the first byte.
+     * @param length The number of bytes.
+     * @return the String.
+     */
+    public static String toString(ReadOnlyRandomAccessMemory ram, long index, int length) {
+        if (length > CHUNK) {
+            return new String(ram.getBytesAt(index, length), StandardCharsets.UTF_8);
+        }
+        if (length == 0) {
+            return "";
+        }
+        byte[] bytes = SCRATCH.get().bytes;
+        ram.copyToDestination(index, bytes, 0, length);
+        return new String(bytes, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Decodes the bytes and appends the characters to the destination.
+     *
+     * @param ram         The RAM.
+     * @param index       The index of the first byte.
+     * @param length      The number of bytes.
+     * @param destination The destination.
+     * @return the destination.
+     */
+    public static StringBuilder decode(ReadOnlyRandomAccessMemory ram, long index, int length, StringBuilder destination) {
+        Scratch scratch = SCRATCH.get();
+        while (length > 0) {
+            int chunk = Math.min(length, CHUNK);
+            ram.copyToDestination(index, scratch.bytes, 0, chunk);
+            int consumed = decode(scratch.bytes, 0, chunk, chunk == length, scratch);
+            destination.append(scratch.chars, 0, scratch.decoded);
+            index += consumed;
+            length -= consumed;
+        }
+        return destination;
+    }
+
+    /**
+     * Decodes the bytes and puts the characters into the destination.
+     *
+     * @param ram         The RAM.
+     * @param index       The index of the first byte.
+     * @param length      The number of bytes.
+     * @param destination The destination.
+     * @return the destination.
+     * @throws java.nio.BufferOverflowException in case the destination is too small.
+     */
+    public static CharBuffer decode(ReadOnlyRandomAccessMemory ram, long index, int length, CharBuffer destination) {
+        Scratch scratch = SCRATCH.get();
+        while (length > 0) {
+            int chunk = Math.min(length, CHUNK);
+            ram.copyToDestination(index, scratch.bytes, 0, chunk);
+            int consumed = decode(scratch.bytes, 0, chunk, chunk == length, scratch);
+            destination.put(scratch.chars, 0, scratch.decoded);
+            index += consumed;
+            length -= consumed;
+        }
+        return destination;
+    }
+
+    /**
+     * Decodes the bytes of the array and appends the characters to the destination.
+     *
+     * @param bytes       The UTF-8 bytes.
+     * @param offset      The offset of the first byte.
+     * @param length      The number of bytes.
+     * @param destination The destination.
+     * @return the destination.
+     */
+    public static StringBuilder decode(byte[] bytes, int offset, int length, StringBuilder destination) {
+        Scratch scratch = SCRATCH.get();
+        while (length > 0) {
+            int chunk = Math.min(length, CHUNK);
+            int consumed = decode(bytes, offset, chunk, chunk == length, scratch);
+            destination.append(scratch.chars, 0, scratch.decoded);
+            offset += consumed;
+            length -= consumed;
+        }
+        return destination;
+    }
+
+    /**
+     * Decodes the bytes of the array and puts the characters into the destination.
+     *
+     * @param bytes       The UTF-8 bytes.
+     * @param offset      The offset of the first byte.
+     * @param length      The number of bytes.
+     * @param destination The destination.
+     * @return the destination.
+     * @throws java.nio.BufferOverflowException in case the destination is too small.
+     */
+    public static CharBuffer decode(byte[] bytes, int offset, int length, CharBuffer destination) {
+        Scratch scratch = SCRATCH.get();
+        while (length > 0) {
+            int chunk = Math.min(length, CHUNK);
+            int consumed = decode(bytes, offset, chunk, chunk == length, scratch);
+            destination.put(scratch.chars, 0, scratch.decoded);
+            offset += consumed;
+            length -= consumed;
+        }
+        return destination;
+    }
+
+    /**
+     * Calculates the length of a FixString without its 0x00 padding at the end.
+     *
+     * @param ram    The RAM.
+     * @param index  The index of the first byte.
+     * @param length The fixed length.
+     * @return the number of bytes without the padding.
+     */
+    public static int fixStringLength(ReadOnlyRandomAccessMemory ram, long index, int length) {
+        while (length > 0 && ram.getByteAt(index + length - 1) == 0) {
+            length--;
+        }
+        return length;
+    }
+
+    /**
+     * Calculates the length of a FixString without its 0x00 padding at the end.
+     *
+     * @param bytes  The bytes.
+     * @param offset The offset of the first byte.
+     * @param length The fixed length.
+     * @return the number of bytes without the padding.
+     */
+    public static int fixStringLength(byte[] bytes, int offset, int length) {
+        while (length > 0 && bytes[offset + length - 1] == 0) {
+            length--;
+        }
+        return length;
+    }
+
+    /**
+     * Checks if all the bytes are ASCII characters.
+     *
+     * @param ram    The RAM.
+     * @param index  The index of the first byte.
+     * @param length The number of bytes.
+     * @return {@code true} if each byte is one character.
+     */
+    public static boolean isAscii(ReadOnlyRandomAccessMemory ram, long index, int length) {
+        for (int i = 0; i < length; i++) {
+            if (ram.getByteAt(index + i) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Calculates the number of bytes the UTF-8 representation of the value has.
+     *
+     * @param value The characters.
+     * @return the number of bytes.
+     */
+    public static int encodedLength(CharSequence value) {
+        return encodedLength(value, 0, value.length());
+    }
+
+    /**
+     * Calculates the number of bytes the UTF-8 representation of a part of the
+     * value has.
+     *
+     * @param value  The characters.
+     * @param offset The index of the first character.
+     * @param length The number of characters.
+     * @return the number of bytes.
+     * @throws IndexOutOfBoundsException in case the range is outside of the value.
+     */
+    public static int encodedLength(CharSequence value, int offset, int length) {
+        checkRange(value, offset, length);
+        int end = offset + length;
+        int bytes = length;
+        for (int i = offset; i < end; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                continue;
+            }
+            if (c < 0x800) {
+                bytes += 1;
+            } else if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(value.charAt(i + 1))) {
+                // 2 chars result in 4 bytes
+                bytes += 2;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                // replaced by a single byte
+                continue;
+            } else {
+                bytes += 2;
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Encodes a part of the value into the destination array.
+     *
+     * @param value             The characters.
+     * @param offset            The index of the first character.
+     * @param length            The number of characters.
+     * @param destination       The destination.
+     * @param destinationOffset The index of the first byte in the destination.
+     * @return the number of bytes written.
+     * @throws IndexOutOfBoundsException in case the range is outside of the value
+     *                                   or the bytes don't fit into the destination.
+     */
+    public static int encode(CharSequence value, int offset, int length, byte[] destination, int destinationOffset) {
+        checkRange(value, offset, length);
+        Scratch scratch = SCRATCH.get();
+        int end = offset + length;
+        int consumed = encode(value, offset, end, destination, destinationOffset, destination.length, scratch);
+        if (consumed < end) {
+            throw new IndexOutOfBoundsException("the encoded value does not fit into the destination at " + destinationOffset);
+        }
+        return scratch.encoded - destinationOffset;
+    }
+
+    /**
+     * Encodes a part of the value into the ByteBuffer. The bytes are encoded in
+     * chunks into a per thread buffer and bulk copied from there through a
+     * duplicate, so the position of the buffer is not changed.
+     *
+     * @param value       The characters.
+     * @param offset      The index of the first character.
+     * @param length      The number of characters.
+     * @param destination The destination.
+     * @param index       The index of the first byte in the destination.
+     * @return the number of bytes written.
+     * @throws IndexOutOfBoundsException in case the range is outside of the value
+     *                                   or the bytes don't fit into the destination.
+     */
+    public static int encode(CharSequence value, int offset, int length, ByteBuffer destination, int index) {
+        checkRange(value, offset, length);
+        Scratch scratch = SCRATCH.get();
+        if (index < 0 || index > destination.limit()) {
+            throw new IndexOutOfBoundsException("index " + index + " is outside of the destination with limit " + destination.limit());
+        }
+        ByteBuffer target = destination.duplicate();
+        target.position(index);
+        int end = offset + length;
+        while (offset < end) {
+            offset = encode(value, offset, end, scratch.bytes, 0, CHUNK, scratch);
+            if (scratch.encoded > target.remaining()) {
+                throw new IndexOutOfBoundsException("the encoded value does not fit into the destination at " + index);
+            }
+            target.put(scratch.bytes, 0, scratch.encoded);
+        }
+        return target.position() - index;
+    }
+
+    /**
+     * Encodes a part of the value into the RAM. The bytes are encoded in chunks into
+     * a per thread buffer and copied from there.
+     *
+     * @param value  The characters.
+     * @param offset The index of the first character.
+     * @param length The number of characters.
+     * @param ram    The destination.
+     * @param index  The index of the first byte in the RAM.
+     * @return the number of bytes written.
+     * @throws IndexOutOfBoundsException in case the range is outside of the value.
+     */
+    public static long encode(CharSequence value, int offset, int length, ReadWriteRandomAccessMemory ram, long index) {
+        checkRange(value, offset, length);
+        Scratch scratch = SCRATCH.get();
+        int end = offset + length;
+        long start = index;
+        while (offset < end) {
+            offset = encode(value, offset, end, scratch.bytes, 0, CHUNK, scratch);
+            ram.copyFromSource(index, scratch.bytes, 0, scratch.encoded);
+            index += scratch.encoded;
+        }
+        return index - start;
+    }
+
+    /**
+     * Encodes the characters from offset to end into the bytes until the end or
+     * the limit is reached. The position after the last byte is stored in the scratch.
+     *
+     * @return the index of the first character that was not encoded.
+     */
+    private static int encode(CharSequence value, int offset, int end, byte[] bytes, int position, int limit, Scratch scratch) {
+        int i = offset;
+        // ASCII fast path
+        int asciiEnd = Math.min(end, i + limit - position);
+        while (i < asciiEnd) {
+            char c = value.charAt(i);
+            if (c >= 0x80) {
+                break;
+            }
+            bytes[position++] = (byte) c;
+            i++;
+        }
+        while (i < end) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                if (position + 1 > limit) {
+                    break;
+                }
+                bytes[position++] = (byte) c;
+            } else if (c < 0x800) {
+                if (position + 2 > limit) {
+                    break;
+                }
+                bytes[position++] = (byte) (0xc0 | (c >> 6));
+                bytes[position++] = (byte) (0x80 | (c & 0x3f));
+            } else if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(value.charAt(i + 1))) {
+                if (position + 4 > limit) {
+                    break;
+                }
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                bytes[position++] = (byte) (0xf0 | (codePoint >> 18));
+                bytes[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+                bytes[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+                bytes[position++] = (byte) (0x80 | (codePoint & 0x3f));
+            } else if (Character.isSurrogate(c)) {
+                if (position + 1 > limit) {
+                    break;
+                }
+                bytes[position++] = UNMAPPABLE;
+            } else {
+                if (position + 3 > limit) {
+                    break;
+                }
+                bytes[position++] = (byte) (0xe0 | (c >> 12));
+                bytes[position++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                bytes[position++] = (byte) (0x80 | (c & 0x3f));
+            }
+            i++;
+        }
+        scratch.encoded = position;
+        return i;
+    }
+
+    private static void checkRange(CharSequence value, int offset, int length) {
+        if (offset < 0 || length < 0 || offset + length > value.length()) {
+            throw new IndexOutOfBoundsException("offset " + offset + " length " + length + " value length " + value.length());
+        }
+    }
+
+    /**
+     * Decodes the bytes into the chars of the scratch.
+     *
+     * @return the number of bytes consumed. This is less than the length if the
+     * chunk ends inside of a character and it is not the last chunk.
+     */
+    private static int decode(byte[] bytes, int offset, int length, boolean last, Scratch scratch) {
+        char[] chars = scratch.chars;
+        int i = offset;
+        int end = offset + length;
+        int c = 0;
+        // ASCII fast path
+        while (i < end && bytes[i] >= 0) {
+            chars[c++] = (char) bytes[i++];
+        }
+        while (i < end) {
+            int b0 = bytes[i];
+            if (b0 >= 0) {
+                chars[c++] = (char) b0;
+                i++;
+                continue;
+            }
+            int needed = sequenceLength(b0);
+            if (needed == 0) {
+                chars[c++] = REPLACEMENT;
+                i++;
+                continue;
+            }
+            if (i + needed > end && !last) {
+                break;
+            }
+            int valid = validLength(bytes, i, end, needed);
+            if (valid < needed) {
+                // the maximal subpart of an ill-formed sequence is one replacement
+                chars[c++] = REPLACEMENT;
+                i += valid;
+                continue;
+            }
+            int b1 = bytes[i + 1];
+            if (needed == 2) {
+                chars[c++] = (char) (((b0 & 0x1f) << 6) | (b1 & 0x3f));
+            } else if (needed == 3) {
+                int b2 = bytes[i + 2];
+                char decoded = (char) (((b0 & 0x0f) << 12) | ((b1 & 0x3f) << 6) | (b2 & 0x3f));
+                // an encoded surrogate is replaced as a whole, like the JDK does
+                chars[c++] = Character.isSurrogate(decoded) ? REPLACEMENT : decoded;
+            } else {
+                int b2 = bytes[i + 2];
+                int b3 = bytes[i + 3];
+                int codePoint = ((b0 & 0x07) << 18) | ((b1 & 0x3f) << 12) | ((b2 & 0x3f) << 6) | (b3 & 0x3f);
+                chars[c++] = Character.highSurrogate(codePoint);
+                chars[c++] = Character.lowSurrogate(codePoint);
+            }
+            i += needed;
+        }
+        scratch.decoded = c;
+        return i - offset;
+    }
+
+    /**
+     * Counts the bytes of the sequence starting at i that are well-formed: the
+     * lead byte and the following valid continuation bytes.
+     *
+     * @return the needed length if the sequence is complete, else the length of
+     * its maximal subpart, at least 1.
+     */
+    private static int validLength(byte[] bytes, int i, int end, int needed) {
+        if (i + 1 >= end || !isContinuation(bytes[i + 1]) || !isValidSecondByte(bytes[i] & 0xff, bytes[i + 1] & 0xff)) {
+            return 1;
+        }
+        int length = 2;
+        while (length < needed && i + length < end && isContinuation(bytes[i + length])) {
+            length++;
+        }
+        return length;
+    }
+
+    private static int sequenceLength(int b0) {
+        int unsigned = b0 & 0xff;
+        if (unsigned >= 0xc2 && unsigned <= 0xdf) {
+            return 2;
+        }
+        if (unsigned >= 0xe0 && unsigned <= 0xef) {
+            return 3;
+        }
+        if (unsigned >= 0xf0 && unsigned <= 0xf4) {
+            return 4;
+        }
+        return 0;
+    }
+
+    private static boolean isContinuation(int b) {
+        return (b & 0xc0) == 0x80;
+    }
+
+    /**
+     * Rejects overlong encodings and code points above U+10FFFF. Encoded
+     * surrogates are rejected after decoding, like the JDK does.
+     */
+    private static boolean isValidSecondByte(int b0, int b1) {
+        switch (b0) {
+            case 0xe0:
+                return b1 >= 0xa0;
+            case 0xf0:
+                return b1 >= 0x90;
+            case 0xf4:
+                return b1 < 0x90;
+            default:
+                return true;
+        }
+    }
+
+    private static final class Scratch {
+        private final byte[] bytes = new byte[CHUNK];
+        // a 4 byte sequence results in 2 chars, so there are never more chars than bytes
+        private final char[] chars = new char[CHUNK];
+        private int decoded;
+        private int encoded;
+    }
+}
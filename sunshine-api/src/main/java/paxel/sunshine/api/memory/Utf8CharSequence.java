@@ -0,0 +1,83 @@
+package paxel.sunshine.api.memory;
+
+/**
+ * A CharSequence view of UTF-8 bytes in a RAM. Nothing is decoded on creation.
+ * If all bytes are ASCII, the characters are read directly from the RAM and
+ * nothing is ever allocated. Otherwise the bytes are decoded once on the first
+ * access.
+ * <p>
+ * The view reflects the RAM, so it must not be used after the RAM content was
+ * changed.
+ */
+public final class Utf8CharSequence implements CharSequence {
+
+    private final ReadOnlyRandomAccessMemory ram;
+    private final long index;
+    private final int length;
+    private int ascii = -1;
+    private String decoded;
+
+    /**
+     * Creates the view.
+     *
+     * @param ram    The RAM.
+     * @param index  The index of the first byte.
+     * @param length The number of bytes.
+     */
+    public Utf8CharSequence(ReadOnlyRandomAccessMemory ram, long index, int length) {
+        this.ram = ram;
+        this.index = index;
+        this.length = length;
+    }
+
+    /**
+     * Checks if the bytes are all ASCII characters.
+     *
+     * @return {@code true} if the characters are read directly from the RAM.
+     */
+    public boolean isAscii() {
+        if (ascii < 0) {
+            ascii = Utf8.isAscii(ram, index, length) ? 1 : 0;
+        }
+        return ascii == 1;
+    }
+
+    @Override
+    public int length() {
+        return isAscii() ? length : decoded().length();
+    }
+
+    @Override
+    public char charAt(int i) {
+        if (isAscii()) {
+            if (i < 0 || i >= length) {
+                throw new IndexOutOfBoundsException("index " + i + " length " + length);
+            }
+            return (char) ram.getByteAt(index + i);
+        }
+        return decoded().charAt(i);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        if (isAscii()) {
+            if (start < 0 || end > length || start > end) {
+                throw new IndexOutOfBoundsException("start " + start + " end " + end + " length " + length);
+            }
+            return new Utf8CharSequence(ram, index + start, end - start);
+        }
+        return decoded().subSequence(start, end);
+    }
+
+    @Override
+    public String toString() {
+        return decoded();
+    }
+
+    private String decoded() {
+        if (decoded == null) {
+            decoded = Utf8.toString(ram, index, length);
+        }
+        return decoded;
+    }
+}
@@ -5,14 +5,16 @@ import static java.util.Objects.requireNonNull;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
 import java.nio.channels.Channels;
 import java.nio.channels.ReadableByteChannel;
-import java.nio.charset.StandardCharsets;
 
+import paxel.sunshine.api.datatypes.MutableULong;
 import paxel.sunshine.api.datatypes.ULong;
 import paxel.sunshine.api.memory.ReadOnlyRandomAccessMemory;
 import paxel.sunshine.api.memory.RichReadOnlyRandomAccessMemory;
 import paxel.sunshine.api.memory.RichReadWriteRandomAccessMemory;
+import paxel.sunshine.api.memory.Utf8;
 
 public class ByteBufferRam implements RichReadWriteRandomAccessMemory, RichReadOnlyRandomAccessMemory {
 
@@ -74,8 +76,9 @@ public class ByteBufferRam implements RichReadWriteRandomAccessMemory, RichReadO
     public void copyFromSource(long index, byte[] source, int offsetInArray, int length) {
         requireNonNull(source);
         validate(index);
-        byteBuffer.position((int) index);
-        byteBuffer.put(source, offsetInArray, length);
+        ByteBuffer view = byteBuffer.duplicate();
+        view.position((int) index);
+        view.put(source, offsetInArray, length);
     }
 
     @Override
@@ -96,22 +99,44 @@ public class ByteBufferRam implements RichReadWriteRandomAccessMemory, RichReadO
         requireNonNull(source);
         validate(index);
         if (source instanceof ByteBuffer) {
-            byteBuffer.position((int) index);
-            byteBuffer.put((ByteBuffer) source);
-            int position = byteBuffer.position();
-            return position - index;
+            ByteBuffer view = byteBuffer.duplicate();
+            view.position((int) index);
+            view.put((ByteBuffer) source);
+            return view.position() - index;
         } else if (source instanceof InputStream) {
             ReadableByteChannel readableByteChannel = Channels.newChannel((InputStream) source);
             return copyFromSource(index, readableByteChannel);
         } else if (source instanceof ReadableByteChannel) {
-            byteBuffer.position((int) index);
-            ((ReadableByteChannel) source).read(byteBuffer);
-            int position = byteBuffer.position();
-            return position - index;
+            ByteBuffer view = byteBuffer.duplicate();
+            view.position((int) index);
+            ((ReadableByteChannel) source).read(view);
+            return view.position() - index;
         }
         throw new IllegalArgumentException("Unsupported source type " + source.getClass());
     }
 
+    /**
+     * Validates the range of count values and creates a view of their bytes in the
+     * byte order of the ByteBuffer, that can be written with a single typed bulk
+     * operation.
+     */
+    private ByteBuffer values(long index, int count, int bytes, int arrayLength, int arrayOffset) {
+        validate(index);
+        if (arrayOffset < 0 || count < 0 || arrayOffset + count > arrayLength) {
+            throw new IllegalArgumentException(
+                    String.format("offset %d and count %d exceed the array %d", arrayOffset, count, arrayLength));
+        }
+        long length = (long) count * bytes;
+        if (index + length > byteBuffer.limit()) {
+            throw new IllegalArgumentException(
+                    String.format("length %d after index was > limit %d :%d", length, byteBuffer.limit(), index));
+        }
+        ByteBuffer view = byteBuffer.duplicate().order(byteBuffer.order());
+        view.limit((int) (index + length));
+        view.position((int) index);
+        return view;
+    }
+
     private void validate(long index) {
         if (index > Integer.MAX_VALUE) {
             throw new IllegalArgumentException("index was > Integer.MAX_VALUE (unsupported for ByteBuffer) :" + index);
@@ -168,6 +193,16 @@ public class ByteBufferRam implements RichReadWriteRandomAccessMemory, RichReadO
         byteBuffer.putLong((int) index, value.getSignedValue());
     }
 
+    @Override
+    public void putUInt64At(long index, MutableULong value) {
+        byteBuffer.putLong((int) index, value.getSignedValue());
+    }
+
+    @Override
+    public void putUInt64BitsAt(long index, long value) {
+        byteBuffer.putLong((int) index, value);
+    }
+
     @Override
     public void putFloatAt(long index, float value) {
         byteBuffer.putFloat((int) index, value);
@@ -178,16 +213,55 @@ public class ByteBufferRam implements RichReadWriteRandomAccessMemory, RichReadO
         byteBuffer.putDouble((int) index, value);
     }
 
+    @Override
+    public void putInt16sAt(long index, short[] source, int sourceOffset, int count) {
+        values(index, count, Short.BYTES, source.length, sourceOffset).asShortBuffer().put(source, sourceOffset, count);
+    }
+
+    @Override
+    public void putInt32sAt(long index, int[] source, int sourceOffset, int count) {
+        values(index, count, Integer.BYTES, source.length, sourceOffset).asIntBuffer().put(source, sourceOffset, count);
+    }
+
+    @Override
+    public void putInt64sAt(long index, long[] source, int sourceOffset, int count) {
+        values(index, count, Long.BYTES, source.length, sourceOffset).asLongBuffer().put(source, sourceOffset, count);
+    }
+
+    @Override
+    public void putFloatsAt(long index, float[] source, int sourceOffset, int count) {
+        values(index, count, Float.BYTES, source.length, sourceOffset).asFloatBuffer().put(source, sourceOffset, count);
+    }
+
+    @Override
+    public void putDoublesAt(long index, double[] source, int sourceOffset, int count) {
+        values(index, count, Double.BYTES, source.length, sourceOffset).asDoubleBuffer().put(source, sourceOffset, count);
+    }
+
     @Override
     public void putStringAt(long index, CharSequence value) {
-        byteBuffer.position((int) index);
-        byteBuffer.put(value.toString().getBytes(StandardCharsets.UTF_8));
+        putStringAt(index, value, 0, value.length());
     }
 
+    /**
+     * Encodes the characters directly into the ByteBuffer without temporary
+     * arrays. Use {@link Utf8#encodedLength(CharSequence, int, int)} to calculate
+     * the number of bytes that are written.
+     */
     @Override
     public void putStringAt(long index, CharSequence value, int offset, int length) {
-        byteBuffer.position((int) index);
-        byteBuffer.put(value.toString().substring(offset, offset + length).getBytes(StandardCharsets.UTF_8));
+        requireNonNull(value);
+        validate(index);
+        // the encoded length is only calculated if the worst case does not fit
+        if (3L * length > byteBuffer.limit() - index && Utf8.encodedLength(value, offset, length) > byteBuffer.limit() - index) {
+            throw new IllegalArgumentException(
+                    String.format("encoded length of %d chars after index was > limit %d :%d", length, byteBuffer.limit(), index));
+        }
+        if (byteBuffer.hasArray()) {
+            Utf8.encode(value, offset, length, byteBuffer.array(), byteBuffer.arrayOffset() + (int) index);
+        } else {
+            Utf8.encode(value, offset, length, byteBuffer, (int) index);
+        }
     }
 
     @Override
@@ -235,6 +309,16 @@ public class ByteBufferRam implements RichReadWriteRandomAccessMemory, RichReadO
         return new ULong(byteBuffer.getLong((int) index));
     }
 
+    @Override
+    public long getUInt64BitsAt(long index) {
+        return byteBuffer.getLong((int) index);
+    }
+
+    @Override
+    public MutableULong getUInt64At(long index, MutableULong target) {
+        return target.setSignedValue(byteBuffer.getLong((int) index));
+    }
+
     @Override
     public float getFloatAt(long index) {
         return byteBuffer.getFloat((int) index);
@@ -245,20 +329,59 @@ public class ByteBufferRam implements RichReadWriteRandomAccessMemory, RichReadO
         return byteBuffer.getDouble((int) index);
     }
 
+    @Override
+    public void getInt16sAt(long index, short[] destination, int destinationOffset, int count) {
+        roRam.getInt16sAt(index, destination, destinationOffset, count);
+    }
+
+    @Override
+    public void getInt32sAt(long index, int[] destination, int destinationOffset, int count) {
+        roRam.getInt32sAt(index, destination, destinationOffset, count);
+    }
+
+    @Override
+    public void getInt64sAt(long index, long[] destination, int destinationOffset, int count) {
+        roRam.getInt64sAt(index, destination, destinationOffset, count);
+    }
+
+    @Override
+    public void getFloatsAt(long index, float[] destination, int destinationOffset, int count) {
+        roRam.getFloatsAt(index, destination, destinationOffset, count);
+    }
+
+    @Override
+    public void getDoublesAt(long index, double[] destination, int destinationOffset, int count) {
+        roRam.getDoublesAt(index, destination, destinationOffset, count);
+    }
+
     @Override
     public String getStringAt(long index, int length) {
-        byte[] bytes = new byte[length];
-        byteBuffer.position((int) index);
-        byteBuffer.get(bytes);
-        return new String(bytes, StandardCharsets.UTF_8);
+        return roRam.getStringAt(index, length);
+    }
+
+    @Override
+    public StringBuilder getStringAt(long index, int length, StringBuilder destination) {
+        return roRam.getStringAt(index, length, destination);
+    }
+
+    @Override
+    public CharBuffer getStringAt(long index, int length, CharBuffer destination) {
+        return roRam.getStringAt(index, length, destination);
+    }
+
+    @Override
+    public CharSequence getCharSequenceAt(long index, int length) {
+        return roRam.getCharSequenceAt(index, length);
+    }
+
+    @Override
+    public String getFixStringAt(long index, int length) {
+        return roRam.getFixStringAt(index, length);
     }
 
     @Override
     public ReadOnlyRandomAccessMemory getDataAt(long index, int length) {
-        byteBuffer.position((int) index);
-        ByteBuffer slice = byteBuffer.slice();
-        slice.limit(length);
-        return new ByteBufferRoRam(slice);
+        return roRam.getDataAt(index, length);
     }
 
 }
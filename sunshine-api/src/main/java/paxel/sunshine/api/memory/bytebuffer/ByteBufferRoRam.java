@@ -5,13 +5,17 @@ import static java.util.Objects.requireNonNull;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
 import java.nio.channels.Channels;
 import java.nio.channels.WritableByteChannel;
 import java.nio.charset.StandardCharsets;
 
+import paxel.sunshine.api.datatypes.MutableULong;
 import paxel.sunshine.api.datatypes.ULong;
 import paxel.sunshine.api.memory.ReadOnlyRandomAccessMemory;
 import paxel.sunshine.api.memory.RichReadOnlyRandomAccessMemory;
+import paxel.sunshine.api.memory.Utf8;
+import paxel.sunshine.api.memory.Utf8CharSequence;
 
 public class ByteBufferRoRam implements RichReadOnlyRandomAccessMemory {
 
@@ -19,14 +23,16 @@ public class ByteBufferRoRam implements RichReadOnlyRandomAccessMemory {
 
 	/**
 	 * This will construct a new instance using the given ByteBuffer. This class
-	 * will use the given ByteBuffer from position 0 to limit and change the position if
-	 * needed. But it will not change the content of the ByteBuffer (and its slices)
+	 * will use the given ByteBuffer from index 0 to limit. It only uses absolute
+	 * indices or private duplicates of the ByteBuffer and never changes its position
+	 * or content. Therefore any number of threads can read from the same instance
+	 * without locking, as long as nobody changes the limit or the content of the
+	 * ByteBuffer meanwhile.
 	 *
 	 * @param byteBuffer The Ram.
 	 */
 	public ByteBufferRoRam(ByteBuffer byteBuffer) {
 		requireNonNull(byteBuffer);
-		byteBuffer.position(0);
 		this.byteBuffer = byteBuffer;
 	}
 
@@ -47,8 +53,11 @@ public class ByteBufferRoRam implements RichReadOnlyRandomAccessMemory {
 		requireNonNull(destination);
 		validate(index, length);
 		validate(destination, destinationOffset, length);
-		byteBuffer.position((int) index);
-		byteBuffer.get(destination, destinationOffset, length);
+		if (byteBuffer.hasArray())
+			System.arraycopy(byteBuffer.array(), byteBuffer.arrayOffset() + (int) index, destination,
+					destinationOffset, length);
+		else
+			view(index, length).get(destination, destinationOffset, length);
 	}
 
 	private void validate(byte[] destination, int index, int length) {
@@ -65,8 +74,10 @@ public class ByteBufferRoRam implements RichReadOnlyRandomAccessMemory {
 	public byte[] getBytesAt(long index, int length) {
 		validate(index, length);
 		byte[] result = new byte[length];
-		byteBuffer.position((int) index);
-		byteBuffer.get(result, 0, length);
+		if (byteBuffer.hasArray())
+			System.arraycopy(byteBuffer.array(), byteBuffer.arrayOffset() + (int) index, result, 0, length);
+		else
+			view(index, length).get(result, 0, length);
 		return result;
 	}
 
@@ -91,26 +102,57 @@ public class ByteBufferRoRam implements RichReadOnlyRandomAccessMemory {
 		requireNonNull(destination);
 		validate(index, length);
 		if (destination instanceof ByteBuffer) {
-			byteBuffer.position(0);
-			ByteBuffer slice = byteBuffer.slice();
-			slice.position((int) index);
-			slice.limit((int) (index + length));
-			((ByteBuffer) destination).put(slice);
+			((ByteBuffer) destination).put(view(index, length));
 			return length;
 		} else if (destination instanceof OutputStream) {
 			WritableByteChannel writableByteChannel = Channels.newChannel((OutputStream) destination);
 			return copyToDestination(index, length, writableByteChannel);
 		} else if (destination instanceof WritableByteChannel) {
-			byteBuffer.position(0);
-			ByteBuffer slice = byteBuffer.slice();
-			slice.position((int) index);
-			slice.limit((int) (index + length));
-			((WritableByteChannel) destination).write(slice);
-			return length;
+			ByteBuffer view = view(index, length);
+			long written = 0;
+			while (view.hasRemaining()) {
+				int count = ((WritableByteChannel) destination).write(view);
+				if (count == 0)
+					// a non-blocking channel is full
+					return written;
+				written += count;
+			}
+			return written;
 		}
 		throw new IllegalArgumentException("Unsupported destination type " + destination.getClass());
 	}
 
+	/**
+	 * Creates a private duplicate of the ByteBuffer with position and limit set to
+	 * the given range. The shared ByteBuffer is not modified.
+	 *
+	 * @param index  The index of the first byte.
+	 * @param length The number of bytes.
+	 * @return the duplicate.
+	 */
+	private ByteBuffer view(long index, int length) {
+		ByteBuffer view = byteBuffer.duplicate();
+		view.limit((int) index + length);
+		view.position((int) index);
+		return view;
+	}
+
+	/**
+	 * Validates the range of count values and creates a view of their bytes in the
+	 * byte order of the ByteBuffer, that can be copied with a single typed bulk
+	 * operation.
+	 */
+	private ByteBuffer values(long index, int count, int bytes, int arrayLength, int arrayOffset) {
+		if (arrayOffset < 0 || count < 0 || arrayOffset + count > arrayLength)
+			throw new IllegalArgumentException(
+					String.format("offset %d and count %d exceed the array %d", arrayOffset, count, arrayLength));
+		long length = (long) count * bytes;
+		if (length > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("length was > Integer.MAX_VALUE :" + length);
+		validate(index, (int) length);
+		return view(index, (int) length).order(byteBuffer.order());
+	}
+
 	private void validate(long index, int length) {
 		if (index > Integer.MAX_VALUE)
 			throw new IllegalArgumentException("index was > Integer.MAX_VALUE (unsupported for ByteBuffer) :" + index);
@@ -163,6 +205,16 @@ public class ByteBufferRoRam implements RichReadOnlyRandomAccessMemory {
 		return new ULong(byteBuffer.getLong((int) index));
 	}
 
+	@Override
+	public long getUInt64BitsAt(long index) {
+		return byteBuffer.getLong((int) index);
+	}
+
+	@Override
+	public MutableULong getUInt64At(long index, MutableULong target) {
+		return target.setSignedValue(byteBuffer.getLong((int) index));
+	}
+
 	@Override
 	public float getFloatAt(long index) {
 		return byteBuffer.getFloat((int) index);
@@ -173,20 +225,82 @@ public class ByteBufferRoRam implements RichReadOnlyRandomAccessMemory {
 		return byteBuffer.getDouble((int) index);
 	}
 
+	@Override
+	public void getInt16sAt(long index, short[] destination, int destinationOffset, int count) {
+		values(index, count, Short.BYTES, destination.length, destinationOffset).asShortBuffer().get(destination,
+				destinationOffset, count);
+	}
+
+	@Override
+	public void getInt32sAt(long index, int[] destination, int destinationOffset, int count) {
+		values(index, count, Integer.BYTES, destination.length, destinationOffset).asIntBuffer().get(destination,
+				destinationOffset, count);
+	}
+
+	@Override
+	public void getInt64sAt(long index, long[] destination, int destinationOffset, int count) {
+		values(index, count, Long.BYTES, destination.length, destinationOffset).asLongBuffer().get(destination,
+				destinationOffset, count);
+	}
+
+	@Override
+	public void getFloatsAt(long index, float[] destination, int destinationOffset, int count) {
+		values(index, count, Float.BYTES, destination.length, destinationOffset).asFloatBuffer().get(destination,
+				destinationOffset, count);
+	}
+
+	@Override
+	public void getDoublesAt(long index, double[] destination, int destinationOffset, int count) {
+		values(index, count, Double.BYTES, destination.length, destinationOffset).asDoubleBuffer().get(destination,
+				destinationOffset, count);
+	}
+
 	@Override
 	public String getStringAt(long index, int length) {
-		byte[] bytes = new byte[length];
-		byteBuffer.position((int) index);
-		byteBuffer.get(bytes);
-		return new String(bytes, StandardCharsets.UTF_8);
+		validate(index, length);
+		if (byteBuffer.hasArray())
+			return new String(byteBuffer.array(), byteBuffer.arrayOffset() + (int) index, length,
+					StandardCharsets.UTF_8);
+		return Utf8.toString(this, index, length);
+	}
+
+	@Override
+	public StringBuilder getStringAt(long index, int length, StringBuilder destination) {
+		requireNonNull(destination);
+		validate(index, length);
+		if (byteBuffer.hasArray())
+			return Utf8.decode(byteBuffer.array(), byteBuffer.arrayOffset() + (int) index, length, destination);
+		return Utf8.decode(this, index, length, destination);
+	}
+
+	@Override
+	public CharBuffer getStringAt(long index, int length, CharBuffer destination) {
+		requireNonNull(destination);
+		validate(index, length);
+		if (byteBuffer.hasArray())
+			return Utf8.decode(byteBuffer.array(), byteBuffer.arrayOffset() + (int) index, length, destination);
+		return Utf8.decode(this, index, length, destination);
+	}
+
+	@Override
+	public CharSequence getCharSequenceAt(long index, int length) {
+		validate(index, length);
+		return new Utf8CharSequence(this, index, length);
+	}
+
+	@Override
+	public String getFixStringAt(long index, int length) {
+		validate(index, length);
+		if (byteBuffer.hasArray())
+			return getStringAt(index,
+					Utf8.fixStringLength(byteBuffer.array(), byteBuffer.arrayOffset() + (int) index, length));
+		return getStringAt(index, Utf8.fixStringLength(this, index, length));
 	}
 
 	@Override
 	public ReadOnlyRandomAccessMemory getDataAt(long index, int length) {
-		byteBuffer.position((int) index);
-		ByteBuffer slice = byteBuffer.slice();
-		slice.limit(length);
-		return new ByteBufferRoRam(slice);
+		validate(index, length);
+		return new ByteBufferRoRam(view(index, length).slice());
 	}
 
 }
@@ -0,0 +1,80 @@
+package paxel.sunshine.api.memory.bytebuffer;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+
+/**
+ * Releases the native memory of direct and mapped ByteBuffers immediately
+ * instead of waiting for the garbage collector. The JDK has no public API for
+ * this, so the cleaner is looked up reflectively once: on Java 9+ via
+ * {@code sun.misc.Unsafe.invokeCleaner}, on Java 8 via
+ * {@code DirectBuffer.cleaner().clean()}. If neither is available the release is
+ * left to the garbage collector.
+ * <p>
+ * A released ByteBuffer (and all its duplicates and slices) must never be
+ * accessed again. This will most probably crash the JVM.
+ */
+public final class DirectBuffers {
+
+    private static final Cleaner CLEANER = findCleaner();
+
+    private DirectBuffers() {
+    }
+
+    /**
+     * Releases the native memory of the given buffer.
+     *
+     * @param buffer The direct or mapped ByteBuffer. Must not be a duplicate or slice.
+     * @return {@code true} if the memory was released, {@code false} if the buffer
+     * is not direct or the cleaner is not available.
+     */
+    public static boolean free(ByteBuffer buffer) {
+        if (buffer == null || !buffer.isDirect()) {
+            return false;
+        }
+        return CLEANER.clean(buffer);
+    }
+
+    private interface Cleaner {
+        boolean clean(ByteBuffer buffer);
+    }
+
+    private static Cleaner findCleaner() {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            Object unsafe = theUnsafe.get(null);
+            return buffer -> {
+                try {
+                    invokeCleaner.invoke(unsafe, buffer);
+                    return true;
+                } catch (ReflectiveOperationException | IllegalArgumentException e) {
+                    return false;
+                }
+            };
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // not Java 9+, try the Java 8 way
+        }
+        try {
+            Method cleanerMethod = Class.forName("sun.nio.ch.DirectBuffer").getMethod("cleaner");
+            Method cleanMethod = Class.forName("sun.misc.Cleaner").getMethod("clean");
+            return buffer -> {
+                try {
+                    Object cleaner = cleanerMethod.invoke(buffer);
+                    if (cleaner == null) {
+                        return false;
+                    }
+                    cleanMethod.invoke(cleaner);
+                    return true;
+                } catch (ReflectiveOperationException | IllegalArgumentException e) {
+                    return false;
+                }
+            };
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return buffer -> false;
+        }
+    }
+}
@@ -0,0 +1,312 @@
+package paxel.sunshine.api.memory.bytebuffer;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+
+import paxel.sunshine.api.datatypes.MutableULong;
+import paxel.sunshine.api.datatypes.ULong;
+import paxel.sunshine.api.memory.ReadOnlyRandomAccessMemory;
+import paxel.sunshine.api.memory.RichReadWriteRandomAccessMemory;
+import paxel.sunshine.api.memory.Utf8;
+
+/**
+ * The writable variant of the {@link MultiByteBufferRoRam}. Typed values that
+ * cross the border between two regions are written byte by byte, all others
+ * with a single ByteBuffer access.
+ */
+public class MultiByteBufferRam extends MultiByteBufferRoRam implements RichReadWriteRandomAccessMemory {
+
+    /**
+     * Constructs a new instance using the given regions from index 0 to limit.
+     * All regions except the last need a limit of exactly {@code 1 << regionShift}.
+     *
+     * @param regions     The regions.
+     * @param regionShift The binary logarithm of the region size.
+     * @throws IllegalArgumentException in case a region has the wrong size.
+     */
+    public MultiByteBufferRam(ByteBuffer[] regions, int regionShift) {
+        super(regions, regionShift);
+    }
+
+    /**
+     * Constructs a view of the given regions.
+     *
+     * @param regions     The regions.
+     * @param regionShift The binary logarithm of the region size.
+     * @param offset      The absolute index of the first byte of this RAM.
+     * @param size        The size of this RAM.
+     */
+    protected MultiByteBufferRam(ByteBuffer[] regions, int regionShift, long offset, long size) {
+        super(regions, regionShift, offset, size);
+    }
+
+    @Override
+    public void putByteAt(long index, byte value) {
+        validate(index, 1);
+        long absolute = offset + index;
+        region(absolute).put(position(absolute), value);
+    }
+
+    @Override
+    public void copyFromSource(long index, byte[] source, int offsetInArray, int length) {
+        requireNonNull(source);
+        validate(index, length);
+        if (offsetInArray < 0 || length < 0 || offsetInArray + length > source.length) {
+            throw new IllegalArgumentException(
+                    String.format("offset %d and length %d exceed the source %d", offsetInArray, length, source.length));
+        }
+        for (long absolute = offset + index, end = absolute + length; absolute < end; ) {
+            ByteBuffer view = view(absolute, end);
+            int chunk = view.remaining();
+            view.put(source, offsetInArray, chunk);
+            absolute += chunk;
+            offsetInArray += chunk;
+        }
+    }
+
+    @Override
+    public boolean supportsSource(Class<?> source) {
+        requireNonNull(source);
+        if (source.isAssignableFrom(ByteBuffer.class)) {
+            return true;
+        } else if (source.isAssignableFrom(ReadableByteChannel.class)) {
+            return true;
+        }
+        return source.isAssignableFrom(InputStream.class);
+    }
+
+    /**
+     * Reads Bytes into the RAM until the source is exhausted or the RAM is full.
+     * A non-blocking channel is read until it returns no more bytes.
+     */
+    @Override
+    public <T> long copyFromSource(long index, T source) throws IOException {
+        requireNonNull(source);
+        validate(index, 0);
+        long start = offset + index;
+        long end = offset + size;
+        if (source instanceof ByteBuffer) {
+            ByteBuffer input = (ByteBuffer) source;
+            long absolute = start;
+            while (absolute < end && input.hasRemaining()) {
+                ByteBuffer view = view(absolute, end);
+                int chunk = Math.min(view.remaining(), input.remaining());
+                ByteBuffer part = input.duplicate();
+                part.limit(part.position() + chunk);
+                view.put(part);
+                input.position(input.position() + chunk);
+                absolute += chunk;
+            }
+            return absolute - start;
+        } else if (source instanceof InputStream) {
+            ReadableByteChannel readableByteChannel = Channels.newChannel((InputStream) source);
+            return copyFromSource(index, readableByteChannel);
+        } else if (source instanceof ReadableByteChannel) {
+            ReadableByteChannel input = (ReadableByteChannel) source;
+            long absolute = start;
+            while (absolute < end) {
+                ByteBuffer view = view(absolute, end);
+                int read = input.read(view);
+                if (read <= 0) {
+                    break;
+                }
+                absolute += read;
+            }
+            return absolute - start;
+        }
+        throw new IllegalArgumentException("Unsupported source type " + source.getClass());
+    }
+
+    @Override
+    public void putUByteAt(long index, short value) {
+        if (value > (short) 0xff || value < 0) {
+            throw new IllegalArgumentException("Invalid UByte value " + value);
+        }
+        putByteAt(index, (byte) value);
+    }
+
+    @Override
+    public void putInt16At(long index, short value) {
+        checkIndex(index, Short.BYTES);
+        long absolute = offset + index;
+        int position = position(absolute);
+        if (position + Short.BYTES <= regionSize) {
+            region(absolute).putShort(position, value);
+        } else {
+            putStraddling(absolute, Short.BYTES, value);
+        }
+    }
+
+    @Override
+    public void putUInt16At(long index, int value) {
+        if (value > 0xffff || value < 0) {
+            throw new IllegalArgumentException("Invalid UInt16 value " + value);
+        }
+        putInt16At(index, (short) value);
+    }
+
+    @Override
+    public void putInt32At(long index, int value) {
+        checkIndex(index, Integer.BYTES);
+        long absolute = offset + index;
+        int position = position(absolute);
+        if (position + Integer.BYTES <= regionSize) {
+            region(absolute).putInt(position, value);
+        } else {
+            putStraddling(absolute, Integer.BYTES, value);
+        }
+    }
+
+    @Override
+    public void putUInt32At(long index, long value) {
+        if (value > 0xffff_ffffL || value < 0) {
+            throw new IllegalArgumentException("Invalid UInt32 value " + value);
+        }
+        putInt32At(index, (int) value);
+    }
+
+    @Override
+    public void putInt64At(long index, long value) {
+        checkIndex(index, Long.BYTES);
+        long absolute = offset + index;
+        int position = position(absolute);
+        if (position + Long.BYTES <= regionSize) {
+            region(absolute).putLong(position, value);
+        } else {
+            putStraddling(absolute, Long.BYTES, value);
+        }
+    }
+
+    @Override
+    public void putUInt64At(long index, ULong value) {
+        putInt64At(index, value.getSignedValue());
+    }
+
+    @Override
+    public void putUInt64At(long index, MutableULong value) {
+        putInt64At(index, value.getSignedValue());
+    }
+
+    @Override
+    public void putUInt64BitsAt(long index, long value) {
+        putInt64At(index, value);
+    }
+
+    @Override
+    public void putFloatAt(long index, float value) {
+        putInt32At(index, Float.floatToRawIntBits(value));
+    }
+
+    @Override
+    public void putDoubleAt(long index, double value) {
+        putInt64At(index, Double.doubleToRawLongBits(value));
+    }
+
+    @Override
+    public void putInt16sAt(long index, short[] source, int sourceOffset, int count) {
+        validateValues(index, count, Short.BYTES, source.length, sourceOffset);
+        transferValues(offset + index, Short.BYTES, sourceOffset, count, true,
+                (view, arrayOffset, values) -> view.asShortBuffer().put(source, arrayOffset, values));
+    }
+
+    @Override
+    public void putInt32sAt(long index, int[] source, int sourceOffset, int count) {
+        validateValues(index, count, Integer.BYTES, source.length, sourceOffset);
+        transferValues(offset + index, Integer.BYTES, sourceOffset, count, true,
+                (view, arrayOffset, values) -> view.asIntBuffer().put(source, arrayOffset, values));
+    }
+
+    @Override
+    public void putInt64sAt(long index, long[] source, int sourceOffset, int count) {
+        validateValues(index, count, Long.BYTES, source.length, sourceOffset);
+        transferValues(offset + index, Long.BYTES, sourceOffset, count, true,
+                (view, arrayOffset, values) -> view.asLongBuffer().put(source, arrayOffset, values));
+    }
+
+    @Override
+    public void putFloatsAt(long index, float[] source, int sourceOffset, int count) {
+        validateValues(index, count, Float.BYTES, source.length, sourceOffset);
+        transferValues(offset + index, Float.BYTES, sourceOffset, count, true,
+                (view, arrayOffset, values) -> view.asFloatBuffer().put(source, arrayOffset, values));
+    }
+
+    @Override
+    public void putDoublesAt(long index, double[] source, int sourceOffset, int count) {
+        validateValues(index, count, Double.BYTES, source.length, sourceOffset);
+        transferValues(offset + index, Double.BYTES, sourceOffset, count, true,
+                (view, arrayOffset, values) -> view.asDoubleBuffer().put(source, arrayOffset, values));
+    }
+
+    @Override
+    public void putStringAt(long index, CharSequence value) {
+        putStringAt(index, value, 0, value.length());
+    }
+
+    /**
+     * Encodes the characters in chunks into the regions without temporary
+     * arrays. Use {@link Utf8#encodedLength(CharSequence, int, int)} to calculate
+     * the number of bytes that are written.
+     */
+    @Override
+    public void putStringAt(long index, CharSequence value, int offset, int length) {
+        requireNonNull(value);
+        validate(index, 0);
+        // the encoded length is only calculated if the worst case does not fit
+        if (3L * length > size - index) {
+            validate(index, Utf8.encodedLength(value, offset, length));
+        }
+        Utf8.encode(value, offset, length, this, index);
+    }
+
+    @Override
+    public void putDataAt(long index, ReadOnlyRandomAccessMemory value) {
+        requireNonNull(value);
+        if (value.size() > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("data size " + value.size() + " > Integer.MAX_VALUE");
+        }
+        putDataAt(index, value, 0, (int) value.size());
+    }
+
+    @Override
+    public void putDataAt(long index, ReadOnlyRandomAccessMemory value, int offset, int length) {
+        requireNonNull(value);
+        validate(index, length);
+        boolean byteBuffers = value.supportsDestination(ByteBuffer.class);
+        long source = offset;
+        for (long absolute = this.offset + index, end = absolute + length; absolute < end; ) {
+            ByteBuffer view = view(absolute, end);
+            int chunk = view.remaining();
+            if (byteBuffers) {
+                try {
+                    value.copyToDestination(source, chunk, view);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            } else {
+                view.put(value.getBytesAt(source, chunk));
+            }
+            absolute += chunk;
+            source += chunk;
+        }
+    }
+
+    /**
+     * Writes the value of the given number of bytes, that is spread over two
+     * regions, in the byte order of the region of the first byte.
+     */
+    protected final void putStraddling(long absolute, int bytes, long value) {
+        boolean bigEndian = region(absolute).order() == ByteOrder.BIG_ENDIAN;
+        for (int i = bytes - 1; i >= 0; i--) {
+            long current = absolute + (bigEndian ? i : bytes - 1 - i);
+            region(current).put(position(current), (byte) value);
+            value >>>= 8;
+        }
+    }
+}
@@ -0,0 +1,594 @@
+package paxel.sunshine.api.memory.bytebuffer;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import paxel.sunshine.api.datatypes.MutableULong;
+import paxel.sunshine.api.datatypes.ULong;
+import paxel.sunshine.api.memory.ReadOnlyRandomAccessMemory;
+import paxel.sunshine.api.memory.RichReadOnlyRandomAccessMemory;
+import paxel.sunshine.api.memory.Utf8;
+import paxel.sunshine.api.memory.Utf8CharSequence;
+
+/**
+ * A RAM that uses a sequence of ByteBuffers (regions) as one contiguous memory
+ * with 64 bit indices. This way the RAM is not limited to the 2 GB of a single
+ * ByteBuffer. All regions have the same power of two size, only the last one may
+ * be shorter. Typed values that cross the border between two regions are
+ * assembled byte by byte, all others are read with a single ByteBuffer access.
+ * All typed values, single or bulk, use the byte order of the regions.
+ * <p>
+ * Like {@link ByteBufferRoRam} this class only uses absolute indices and private
+ * duplicates, so it can be read by many threads concurrently.
+ * <p>
+ * Subclasses that free their regions, like the off-heap and the memory mapped
+ * RAMs, use {@link #releaseRegions()}: the RAM and all views created with
+ * {@link #sharedView(long, int)} then fail with an exception instead of
+ * touching the freed memory. This only covers accesses that happen after the
+ * release. The owner must make sure that no other thread is still accessing the
+ * RAM or its views while it is released.
+ */
+public class MultiByteBufferRoRam implements RichReadOnlyRandomAccessMemory {
+
+    protected volatile ByteBuffer[] regions;
+    protected final int regionShift;
+    protected final int regionSize;
+    protected final long regionMask;
+    protected final long offset;
+    protected volatile long size;
+
+    /**
+     * Constructs a new instance using the given regions from index 0 to limit.
+     * All regions except the last need a limit of exactly {@code 1 << regionShift}.
+     *
+     * @param regions     The regions.
+     * @param regionShift The binary logarithm of the region size.
+     * @throws IllegalArgumentException in case a region has the wrong size.
+     */
+    public MultiByteBufferRoRam(ByteBuffer[] regions, int regionShift) {
+        this(regions, regionShift, 0, validateRegions(regions, regionShift));
+    }
+
+    /**
+     * Constructs a view of the given regions.
+     *
+     * @param regions     The regions.
+     * @param regionShift The binary logarithm of the region size.
+     * @param offset      The absolute index of the first byte of this RAM.
+     * @param size        The size of this RAM.
+     */
+    protected MultiByteBufferRoRam(ByteBuffer[] regions, int regionShift, long offset, long size) {
+        requireNonNull(regions);
+        if (regionShift < 0 || regionShift > 30) {
+            throw new IllegalArgumentException("regionShift must be between 0 and 30 :" + regionShift);
+        }
+        this.regions = regions;
+        this.regionShift = regionShift;
+        this.regionSize = 1 << regionShift;
+        this.regionMask = regionSize - 1;
+        this.offset = offset;
+        this.size = size;
+    }
+
+    private static long validateRegions(ByteBuffer[] regions, int regionShift) {
+        long size = 0;
+        for (int i = 0; i < regions.length; i++) {
+            int limit = regions[i].limit();
+            if (i < regions.length - 1 && limit != 1 << regionShift) {
+                throw new IllegalArgumentException("region " + i + " has limit " + limit + " instead of " + (1 << regionShift));
+            }
+            if (limit > 1 << regionShift) {
+                throw new IllegalArgumentException("last region has limit " + limit + " > " + (1 << regionShift));
+            }
+            size += limit;
+        }
+        return size;
+    }
+
+    @Override
+    public byte getByteAt(long index) {
+        validate(index, 1);
+        long absolute = offset + index;
+        return region(absolute).get(position(absolute));
+    }
+
+    @Override
+    public byte[] getBytesAt(long index, int length) {
+        validate(index, length);
+        byte[] result = new byte[length];
+        copyRange(offset + index, result, 0, length);
+        return result;
+    }
+
+    @Override
+    public byte[] getBytes() {
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalStateException("size " + size + " does not fit into a byte array");
+        }
+        return getBytesAt(0, (int) size);
+    }
+
+    @Override
+    public void copyToDestination(long index, byte[] destination) {
+        requireNonNull(destination);
+        copyToDestination(index, destination, 0, destination.length);
+    }
+
+    @Override
+    public void copyToDestination(long index, byte[] destination, int destinationOffset, int length) {
+        requireNonNull(destination);
+        validate(index, length);
+        validate(destination, destinationOffset, length);
+        copyRange(offset + index, destination, destinationOffset, length);
+    }
+
+    @Override
+    public boolean supportsDestination(Class<?> destinationClass) {
+        if (destinationClass.isAssignableFrom(ByteBuffer.class)) {
+            return true;
+        }
+        if (destinationClass.isAssignableFrom(OutputStream.class)) {
+            return true;
+        }
+        return destinationClass.isAssignableFrom(WritableByteChannel.class);
+    }
+
+    /**
+     * Copies the bytes into a ByteBuffer, OutputStream or WritableByteChannel. A
+     * non-blocking channel that accepts no more bytes ends the copy, the result
+     * is then less than the length.
+     */
+    @Override
+    public <T> long copyToDestination(long index, int length, T destination) throws IOException {
+        requireNonNull(destination);
+        validate(index, length);
+        if (destination instanceof ByteBuffer) {
+            ByteBuffer target = (ByteBuffer) destination;
+            for (long absolute = offset + index, end = absolute + length; absolute < end; ) {
+                ByteBuffer view = view(absolute, end);
+                absolute += view.remaining();
+                target.put(view);
+            }
+            return length;
+        } else if (destination instanceof OutputStream) {
+            WritableByteChannel writableByteChannel = Channels.newChannel((OutputStream) destination);
+            return copyToDestination(index, length, writableByteChannel);
+        } else if (destination instanceof GatheringByteChannel) {
+            return gatherTo((GatheringByteChannel) destination, offset + index, length);
+        } else if (destination instanceof WritableByteChannel) {
+            WritableByteChannel target = (WritableByteChannel) destination;
+            long written = 0;
+            for (long absolute = offset + index, end = absolute + length; absolute < end; ) {
+                ByteBuffer view = view(absolute, end);
+                absolute += view.remaining();
+                while (view.hasRemaining()) {
+                    int count = target.write(view);
+                    if (count == 0) {
+                        // a non-blocking channel is full
+                        return written;
+                    }
+                    written += count;
+                }
+            }
+            return written;
+        }
+        throw new IllegalArgumentException("Unsupported destination type " + destination.getClass());
+    }
+
+    @Override
+    public long size() {
+        return size;
+    }
+
+    @Override
+    public short getUByteAt(long index) {
+        return (short) (getByteAt(index) & 0xff);
+    }
+
+    @Override
+    public short getInt16At(long index) {
+        checkIndex(index, Short.BYTES);
+        long absolute = offset + index;
+        int position = position(absolute);
+        if (position + Short.BYTES <= regionSize) {
+            return region(absolute).getShort(position);
+        }
+        return (short) getStraddling(absolute, Short.BYTES);
+    }
+
+    @Override
+    public int getUInt16At(long index) {
+        return getInt16At(index) & 0xffff;
+    }
+
+    @Override
+    public int getInt32At(long index) {
+        checkIndex(index, Integer.BYTES);
+        long absolute = offset + index;
+        int position = position(absolute);
+        if (position + Integer.BYTES <= regionSize) {
+            return region(absolute).getInt(position);
+        }
+        return (int) getStraddling(absolute, Integer.BYTES);
+    }
+
+    @Override
+    public long getUInt32At(long index) {
+        return Integer.toUnsignedLong(getInt32At(index));
+    }
+
+    @Override
+    public long getInt64At(long index) {
+        checkIndex(index, Long.BYTES);
+        long absolute = offset + index;
+        int position = position(absolute);
+        if (position + Long.BYTES <= regionSize) {
+            return region(absolute).getLong(position);
+        }
+        return getStraddling(absolute, Long.BYTES);
+    }
+
+    @Override
+    public ULong getUInt64At(long index) {
+        return new ULong(getInt64At(index));
+    }
+
+    @Override
+    public long getUInt64BitsAt(long index) {
+        return getInt64At(index);
+    }
+
+    @Override
+    public MutableULong getUInt64At(long index, MutableULong target) {
+        return target.setSignedValue(getInt64At(index));
+    }
+
+    @Override
+    public float getFloatAt(long index) {
+        return Float.intBitsToFloat(getInt32At(index));
+    }
+
+    @Override
+    public double getDoubleAt(long index) {
+        return Double.longBitsToDouble(getInt64At(index));
+    }
+
+    @Override
+    public void getInt16sAt(long index, short[] destination, int destinationOffset, int count) {
+        validateValues(index, count, Short.BYTES, destination.length, destinationOffset);
+        transferValues(offset + index, Short.BYTES, destinationOffset, count, false,
+                (view, arrayOffset, values) -> view.asShortBuffer().get(destination, arrayOffset, values));
+    }
+
+    @Override
+    public void getInt32sAt(long index, int[] destination, int destinationOffset, int count) {
+        validateValues(index, count, Integer.BYTES, destination.length, destinationOffset);
+        transferValues(offset + index, Integer.BYTES, destinationOffset, count, false,
+                (view, arrayOffset, values) -> view.asIntBuffer().get(destination, arrayOffset, values));
+    }
+
+    @Override
+    public void getInt64sAt(long index, long[] destination, int destinationOffset, int count) {
+        validateValues(index, count, Long.BYTES, destination.length, destinationOffset);
+        transferValues(offset + index, Long.BYTES, destinationOffset, count, false,
+                (view, arrayOffset, values) -> view.asLongBuffer().get(destination, arrayOffset, values));
+    }
+
+    @Override
+    public void getFloatsAt(long index, float[] destination, int destinationOffset, int count) {
+        validateValues(index, count, Float.BYTES, destination.length, destinationOffset);
+        transferValues(offset + index, Float.BYTES, destinationOffset, count, false,
+                (view, arrayOffset, values) -> view.asFloatBuffer().get(destination, arrayOffset, values));
+    }
+
+    @Override
+    public void getDoublesAt(long index, double[] destination, int destinationOffset, int count) {
+        validateValues(index, count, Double.BYTES, destination.length, destinationOffset);
+        transferValues(offset + index, Double.BYTES, destinationOffset, count, false,
+                (view, arrayOffset, values) -> view.asDoubleBuffer().get(destination, arrayOffset, values));
+    }
+
+    @Override
+    public String getStringAt(long index, int length) {
+        validate(index, length);
+        long absolute = offset + index;
+        ByteBuffer region = region(absolute);
+        int position = position(absolute);
+        if (region.hasArray() && position + length <= regionSize) {
+            return new String(region.array(), region.arrayOffset() + position, length, StandardCharsets.UTF_8);
+        }
+        return Utf8.toString(this, index, length);
+    }
+
+    @Override
+    public StringBuilder getStringAt(long index, int length, StringBuilder destination) {
+        requireNonNull(destination);
+        validate(index, length);
+        return Utf8.decode(this, index, length, destination);
+    }
+
+    @Override
+    public CharBuffer getStringAt(long index, int length, CharBuffer destination) {
+        requireNonNull(destination);
+        validate(index, length);
+        return Utf8.decode(this, index, length, destination);
+    }
+
+    @Override
+    public CharSequence getCharSequenceAt(long index, int length) {
+        validate(index, length);
+        return new Utf8CharSequence(this, index, length);
+    }
+
+    @Override
+    public String getFixStringAt(long index, int length) {
+        validate(index, length);
+        return getStringAt(index, Utf8.fixStringLength(this, index, length));
+    }
+
+    /**
+     * Get the given number of bytes at index as {@link ReadOnlyRandomAccessMemory}.
+     * The result is a view on the same memory. If the range is inside one region,
+     * it is a {@link ByteBufferRoRam}, otherwise a {@link MultiByteBufferRoRam}.
+     *
+     * @param index  The index.
+     * @param length The number of bytes.
+     * @return the view.
+     */
+    @Override
+    public ReadOnlyRandomAccessMemory getDataAt(long index, int length) {
+        validate(index, length);
+        long absolute = offset + index;
+        if (position(absolute) + length <= regionSize) {
+            ByteBuffer view = view(absolute, absolute + length);
+            return new ByteBufferRoRam(view.slice().order(view.order()));
+        }
+        return new MultiByteBufferRoRam(regions, regionShift, absolute, length);
+    }
+
+    /**
+     * Retrieve the size of a region.
+     *
+     * @return the region size in bytes.
+     */
+    public int getRegionSize() {
+        return regionSize;
+    }
+
+    protected final ByteBuffer region(long absolute) {
+        ByteBuffer region = regions[(int) (absolute >>> regionShift)];
+        if (region == null) {
+            throw new IllegalStateException("the memory was released");
+        }
+        return region;
+    }
+
+    /**
+     * Creates a view of the given range that shares the regions array with this
+     * RAM, even if the range is inside one region. Unlike a slice of a region it
+     * fails after {@link #releaseRegions()}.
+     *
+     * @param index  The index.
+     * @param length The number of bytes.
+     * @return the view.
+     */
+    protected final ReadOnlyRandomAccessMemory sharedView(long index, int length) {
+        validate(index, length);
+        return new MultiByteBufferRoRam(regions, regionShift, offset + index, length);
+    }
+
+    /**
+     * Detaches the regions from this RAM and all views sharing them. The size
+     * becomes 0 and subsequent accesses of the views fail with an
+     * {@link IllegalStateException}. The caller frees the returned regions.
+     *
+     * @return the regions.
+     */
+    protected final ByteBuffer[] releaseRegions() {
+        ByteBuffer[] old = regions;
+        ByteBuffer[] detached = Arrays.copyOf(old, old.length);
+        regions = new ByteBuffer[0];
+        size = 0;
+        Arrays.fill(old, null);
+        return detached;
+    }
+
+    protected final int position(long absolute) {
+        return (int) (absolute & regionMask);
+    }
+
+    /**
+     * Creates a private duplicate of the region containing the absolute index with
+     * position set to the index and limit set to the end or the end of the region,
+     * whatever comes first. The duplicate has the byte order of the region.
+     *
+     * @param absolute The absolute index of the first byte.
+     * @param end      The absolute index after the last byte.
+     * @return the duplicate.
+     */
+    protected final ByteBuffer view(long absolute, long end) {
+        int position = position(absolute);
+        ByteBuffer region = region(absolute);
+        ByteBuffer view = region.duplicate().order(region.order());
+        view.limit((int) Math.min(regionSize, position + end - absolute));
+        view.position(position);
+        return view;
+    }
+
+    /**
+     * Reads the value of the given number of bytes, that is spread over two
+     * regions, in the byte order of the region of the first byte.
+     */
+    protected final long getStraddling(long absolute, int bytes) {
+        boolean bigEndian = region(absolute).order() == ByteOrder.BIG_ENDIAN;
+        long result = 0;
+        for (int i = 0; i < bytes; i++) {
+            long current = absolute + (bigEndian ? i : bytes - 1 - i);
+            result = (result << 8) | (region(current).get(position(current)) & 0xff);
+        }
+        return result;
+    }
+
+    /**
+     * Transfers the values between the regions and an array.
+     */
+    @FunctionalInterface
+    protected interface ValueTransfer {
+
+        /**
+         * Transfers the values between the view and the array.
+         *
+         * @param view        The view of the values in the RAM.
+         * @param arrayOffset The index of the first value in the array.
+         * @param count       The number of values.
+         */
+        void transfer(ByteBuffer view, int arrayOffset, int count);
+    }
+
+    /**
+     * Transfers count values between the regions and an array. All values inside
+     * a region are transferred at once with a view in the byte order of the
+     * region. A value that crosses the border between two regions is transferred
+     * with a temporary buffer, that is filled from the regions before a read and
+     * copied into the regions after a write.
+     *
+     * @param absolute    The absolute index of the first value.
+     * @param bytes       The number of bytes of a value.
+     * @param arrayOffset The index of the first value in the array.
+     * @param count       The number of values.
+     * @param write       true if the values are written into the regions.
+     * @param transfer    The bulk transfer of the values.
+     */
+    protected final void transferValues(long absolute, int bytes, int arrayOffset, int count, boolean write, ValueTransfer transfer) {
+        for (int end = arrayOffset + count; arrayOffset < end; ) {
+            int chunk = valuesInRegion(absolute, bytes, end - arrayOffset);
+            if (chunk == 0) {
+                ByteBuffer straddling = ByteBuffer.allocate(bytes).order(region(absolute).order());
+                for (int i = 0; !write && i < bytes; i++) {
+                    straddling.put(i, region(absolute + i).get(position(absolute + i)));
+                }
+                transfer.transfer(straddling, arrayOffset, 1);
+                for (int i = 0; write && i < bytes; i++) {
+                    region(absolute + i).put(position(absolute + i), straddling.get(i));
+                }
+                chunk = 1;
+            } else {
+                transfer.transfer(view(absolute, absolute + (long) chunk * bytes), arrayOffset, chunk);
+            }
+            arrayOffset += chunk;
+            absolute += (long) chunk * bytes;
+        }
+    }
+
+    /**
+     * Writes the given range of the regions with as few gathering writes as possible.
+     * A non-blocking channel that accepts no more bytes ends the write.
+     *
+     * @param channel  The destination.
+     * @param absolute The absolute index of the first byte.
+     * @param length   The number of bytes.
+     * @return the number of bytes written, less than the length if the channel
+     * is full.
+     * @throws IOException in case the channel throws it.
+     */
+    protected final long gatherTo(GatheringByteChannel channel, long absolute, long length) throws IOException {
+        long end = absolute + length;
+        int count = length == 0 ? 0 : (int) (((end - 1) >>> regionShift) - (absolute >>> regionShift) + 1);
+        ByteBuffer[] views = new ByteBuffer[count];
+        for (int i = 0; i < count; i++) {
+            views[i] = view(absolute, end);
+            absolute += views[i].remaining();
+        }
+        long written = 0;
+        int first = 0;
+        while (written < length) {
+            long bytes = channel.write(views, first, count - first);
+            if (bytes == 0) {
+                break;
+            }
+            written += bytes;
+            while (first < count && !views[first].hasRemaining()) {
+                first++;
+            }
+        }
+        return written;
+    }
+
+    private void copyRange(long absolute, byte[] destination, int destinationOffset, int length) {
+        while (length > 0) {
+            ByteBuffer region = region(absolute);
+            int position = position(absolute);
+            int chunk = Math.min(length, regionSize - position);
+            if (region.hasArray()) {
+                System.arraycopy(region.array(), region.arrayOffset() + position, destination, destinationOffset, chunk);
+            } else {
+                view(absolute, absolute + chunk).get(destination, destinationOffset, chunk);
+            }
+            absolute += chunk;
+            destinationOffset += chunk;
+            length -= chunk;
+        }
+    }
+
+    protected final void checkIndex(long index, int length) {
+        if (index < 0 || index > size - length) {
+            throw new IndexOutOfBoundsException("index " + index + " with length " + length + " is outside of size " + size);
+        }
+    }
+
+    protected final void validate(long index, long length) {
+        if (index < 0) {
+            throw new IllegalArgumentException("index was < 0 :" + index);
+        }
+        if (index > size) {
+            throw new IllegalArgumentException("index was > size " + size + " :" + index);
+        }
+        if (length < 0 || index + length > size) {
+            throw new IllegalArgumentException(
+                    String.format("length %d after index was > size %d :%d", length, size, index));
+        }
+    }
+
+    /**
+     * Validates the range of count values in the RAM and in the array.
+     */
+    protected final void validateValues(long index, int count, int bytes, int arrayLength, int arrayOffset) {
+        if (arrayOffset < 0 || count < 0 || arrayOffset + count > arrayLength) {
+            throw new IllegalArgumentException(
+                    String.format("offset %d and count %d exceed the array %d", arrayOffset, count, arrayLength));
+        }
+        validate(index, (long) count * bytes);
+    }
+
+    /**
+     * Calculates how many of the values starting at the absolute index are
+     * completely inside its region. 0 means the first value crosses the border to
+     * the next region.
+     */
+    protected final int valuesInRegion(long absolute, int bytes, int count) {
+        return Math.min(count, (regionSize - position(absolute)) / bytes);
+    }
+
+    protected final void validate(byte[] array, int index, int length) {
+        if (index < 0) {
+            throw new IllegalArgumentException("index was < 0 :" + index);
+        }
+        if (index >= array.length) {
+            throw new IllegalArgumentException("index was > array " + array.length + " :" + index);
+        }
+        if (index + length > array.length) {
+            throw new IllegalArgumentException(
+                    String.format("length %d after index was > array %d :%d", length, array.length, index));
+        }
+    }
+}
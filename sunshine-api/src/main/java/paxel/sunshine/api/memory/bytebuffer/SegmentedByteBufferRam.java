@@ -0,0 +1,112 @@
+package paxel.sunshine.api.memory.bytebuffer;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.util.Arrays;
+import java.util.function.IntFunction;
+
+import paxel.sunshine.api.memory.GrowableRandomAccessMemory;
+
+/**
+ * A growable RAM made of a chain of fixed size segments. The RAM starts empty
+ * and grows with {@link #allocate(long)} by adding new segments. Existing bytes
+ * are never copied or moved, so views created with {@link #getDataAt(long, int)}
+ * stay valid while the RAM grows. Typed values can cross the border between two
+ * segments.
+ * <p>
+ * The content can be written to a channel with one gathering write over all
+ * segments, see {@link #writeTo(GatheringByteChannel)}.
+ */
+public class SegmentedByteBufferRam extends MultiByteBufferRam implements GrowableRandomAccessMemory {
+
+    /**
+     * The default segment size of 64 KB.
+     */
+    public static final int DEFAULT_SEGMENT_SHIFT = 16;
+
+    private final IntFunction<ByteBuffer> segmentAllocator;
+    private int segments;
+
+    /**
+     * Constructs an empty RAM with heap segments of 64 KB.
+     */
+    public SegmentedByteBufferRam() {
+        this(DEFAULT_SEGMENT_SHIFT, ByteBuffer::allocate);
+    }
+
+    /**
+     * Constructs an empty RAM.
+     *
+     * @param segmentShift     The binary logarithm of the segment size.
+     * @param segmentAllocator Creates a new segment of the given size. e.g.
+     *                         {@code ByteBuffer::allocateDirect}
+     */
+    public SegmentedByteBufferRam(int segmentShift, IntFunction<ByteBuffer> segmentAllocator) {
+        super(new ByteBuffer[4], segmentShift, 0, 0);
+        this.segmentAllocator = requireNonNull(segmentAllocator);
+    }
+
+    @Override
+    public long allocate(long size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("size was < 0 :" + size);
+        }
+        long newSize = this.size + size;
+        while (capacity() < newSize) {
+            addSegment();
+        }
+        this.size = newSize;
+        return newSize;
+    }
+
+    @Override
+    public long capacity() {
+        return (long) segments << regionShift;
+    }
+
+    /**
+     * Retrieve the number of segments.
+     *
+     * @return the number of segments.
+     */
+    public int getSegments() {
+        return segments;
+    }
+
+    /**
+     * Sets the size back to 0 without releasing the segments. The next
+     * allocations reuse them. Views created before must not be used anymore.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Writes all bytes in use to the channel with gathering writes. The segments
+     * are not copied. A non-blocking channel that accepts no more bytes ends the
+     * write.
+     *
+     * @param channel The destination.
+     * @return the number of bytes written, less than the size if the channel is
+     * full.
+     * @throws IOException in case the channel throws it.
+     */
+    public long writeTo(GatheringByteChannel channel) throws IOException {
+        requireNonNull(channel);
+        return gatherTo(channel, offset, size);
+    }
+
+    private void addSegment() {
+        ByteBuffer segment = segmentAllocator.apply(regionSize);
+        if (segment.capacity() != regionSize) {
+            throw new IllegalStateException("segment allocator created " + segment.capacity() + " instead of " + regionSize + " bytes");
+        }
+        if (segments == regions.length) {
+            regions = Arrays.copyOf(regions, segments * 2);
+        }
+        regions[segments++] = segment;
+    }
+}
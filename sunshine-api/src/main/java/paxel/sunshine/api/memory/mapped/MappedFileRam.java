@@ -0,0 +1,122 @@
+package paxel.sunshine.api.memory.mapped;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import paxel.sunshine.api.memory.ReadOnlyRandomAccessMemory;
+import paxel.sunshine.api.memory.bytebuffer.MultiByteBufferRam;
+
+/**
+ * A writable RAM backed by a memory mapped file. The file is mapped in regions
+ * of 1 GB (or the given size). Changes are written back by the operating system
+ * or explicitly with {@link #force()}.
+ * <p>
+ * {@link #close()} unmaps the file immediately. After that every access fails
+ * with an exception, also the access of views created with
+ * {@link #getDataAt(long, int)}. The file must not be closed while other threads
+ * still access the RAM or its views, otherwise the JVM might crash.
+ */
+public class MappedFileRam extends MultiByteBufferRam implements AutoCloseable {
+
+    /**
+     * The default region size of 1 GB.
+     */
+    public static final int DEFAULT_REGION_SHIFT = 30;
+
+    private final Path file;
+    private volatile boolean closed;
+
+    private MappedFileRam(Path file, ByteBuffer[] regions, int regionShift) {
+        super(regions, regionShift);
+        this.file = file;
+    }
+
+    /**
+     * Maps the whole existing file read write in regions of 1 GB.
+     *
+     * @param file The file.
+     * @return the RAM.
+     * @throws IOException in case the file can not be mapped.
+     */
+    public static MappedFileRam open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return map(file, channel, channel.size(), DEFAULT_REGION_SHIFT);
+        }
+    }
+
+    /**
+     * Maps the file read write with the given size in regions of the given size.
+     * The file is created if it does not exist and extended if it is smaller than
+     * the size. A bigger file is not truncated, but only mapped up to the size.
+     *
+     * @param file        The file.
+     * @param size        The number of bytes to map.
+     * @param regionShift The binary logarithm of the region size.
+     * @return the RAM.
+     * @throws IOException in case the file can not be mapped.
+     */
+    public static MappedFileRam open(Path file, long size, int regionShift) throws IOException {
+        if (size < 0) {
+            throw new IllegalArgumentException("size was < 0 :" + size);
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE)) {
+            return map(file, channel, size, regionShift);
+        }
+    }
+
+    private static MappedFileRam map(Path file, FileChannel channel, long size, int regionShift) throws IOException {
+        ByteBuffer[] regions = MappedRegions.map(channel, FileChannel.MapMode.READ_WRITE, size, regionShift);
+        return new MappedFileRam(file, regions, regionShift);
+    }
+
+    /**
+     * Get the given number of bytes at index as view. The view shares the regions
+     * with this RAM, so it fails after {@link #close()} instead of reading the
+     * unmapped file.
+     *
+     * @param index  The index.
+     * @param length The number of bytes.
+     * @return the view.
+     */
+    @Override
+    public ReadOnlyRandomAccessMemory getDataAt(long index, int length) {
+        return sharedView(index, length);
+    }
+
+    /**
+     * Retrieve the mapped file.
+     *
+     * @return the file.
+     */
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Writes all changes to the storage device.
+     */
+    public void force() {
+        for (ByteBuffer region : regions) {
+            ((MappedByteBuffer) region).force();
+        }
+    }
+
+    /**
+     * Writes all changes to the storage device and unmaps the file. Subsequent
+     * calls do nothing.
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        force();
+        closed = true;
+        MappedRegions.unmap(releaseRegions());
+    }
+}
@@ -0,0 +1,98 @@
+package paxel.sunshine.api.memory.mapped;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import paxel.sunshine.api.memory.ReadOnlyRandomAccessMemory;
+import paxel.sunshine.api.memory.bytebuffer.MultiByteBufferRoRam;
+
+/**
+ * A read only RAM backed by a memory mapped file. The file is mapped in regions
+ * of 1 GB (or the given size), so files of any size can be read without copying
+ * them onto the heap. The operating system loads the pages on demand from its
+ * page cache. Values crossing the border between two regions are supported.
+ * <p>
+ * {@link #close()} unmaps the file immediately. After that every access fails
+ * with an exception, also the access of views created with
+ * {@link #getDataAt(long, int)}. The file must not be closed while other threads
+ * still access the RAM or its views, otherwise the JVM might crash.
+ */
+public class MappedFileRoRam extends MultiByteBufferRoRam implements AutoCloseable {
+
+    /**
+     * The default region size of 1 GB.
+     */
+    public static final int DEFAULT_REGION_SHIFT = 30;
+
+    private final Path file;
+    private volatile boolean closed;
+
+    private MappedFileRoRam(Path file, ByteBuffer[] regions, int regionShift) {
+        super(regions, regionShift);
+        this.file = file;
+    }
+
+    /**
+     * Maps the whole file read only in regions of 1 GB.
+     *
+     * @param file The file.
+     * @return the RAM.
+     * @throws IOException in case the file can not be mapped.
+     */
+    public static MappedFileRoRam open(Path file) throws IOException {
+        return open(file, DEFAULT_REGION_SHIFT);
+    }
+
+    /**
+     * Maps the whole file read only in regions of the given size.
+     *
+     * @param file        The file.
+     * @param regionShift The binary logarithm of the region size.
+     * @return the RAM.
+     * @throws IOException in case the file can not be mapped.
+     */
+    public static MappedFileRoRam open(Path file, int regionShift) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer[] regions = MappedRegions.map(channel, FileChannel.MapMode.READ_ONLY, channel.size(), regionShift);
+            return new MappedFileRoRam(file, regions, regionShift);
+        }
+    }
+
+    /**
+     * Get the given number of bytes at index as view. The view shares the regions
+     * with this RAM, so it fails after {@link #close()} instead of reading the
+     * unmapped file.
+     *
+     * @param index  The index.
+     * @param length The number of bytes.
+     * @return the view.
+     */
+    @Override
+    public ReadOnlyRandomAccessMemory getDataAt(long index, int length) {
+        return sharedView(index, length);
+    }
+
+    /**
+     * Retrieve the mapped file.
+     *
+     * @return the file.
+     */
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Unmaps the file. Subsequent calls do nothing.
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        MappedRegions.unmap(releaseRegions());
+    }
+}
@@ -0,0 +1,44 @@
+package paxel.sunshine.api.memory.mapped;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import paxel.sunshine.api.memory.bytebuffer.DirectBuffers;
+
+/**
+ * Maps a file in regions of equal size. Only the last region may be shorter.
+ */
+final class MappedRegions {
+
+    private MappedRegions() {
+    }
+
+    static ByteBuffer[] map(FileChannel channel, FileChannel.MapMode mode, long size, int regionShift) throws IOException {
+        if (regionShift < 0 || regionShift > 30) {
+            throw new IllegalArgumentException("regionShift must be between 0 and 30 :" + regionShift);
+        }
+        long regionSize = 1L << regionShift;
+        long count = (size + regionSize - 1) >>> regionShift;
+        if (count > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("size " + size + " needs too many regions of " + regionSize);
+        }
+        ByteBuffer[] regions = new ByteBuffer[(int) count];
+        try {
+            for (int i = 0; i < regions.length; i++) {
+                long position = i * regionSize;
+                regions[i] = channel.map(mode, position, Math.min(regionSize, size - position));
+            }
+        } catch (IOException | RuntimeException e) {
+            unmap(regions);
+            throw e;
+        }
+        return regions;
+    }
+
+    static void unmap(ByteBuffer[] regions) {
+        for (ByteBuffer region : regions) {
+            DirectBuffers.free(region);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package paxel.sunshine.api.memory.offheap;
+
+import java.nio.ByteBuffer;
+
+import paxel.sunshine.api.memory.ReadOnlyRandomAccessMemory;
+import paxel.sunshine.api.memory.bytebuffer.DirectBuffers;
+import paxel.sunshine.api.memory.bytebuffer.MultiByteBufferRam;
+
+/**
+ * An off-heap RAM with 64 bit indices. The memory is allocated explicitly with
+ * {@link #allocate(long)} as a chain of direct ByteBuffers and released
+ * explicitly with {@link #release()}, so neither the heap nor the garbage
+ * collector are involved. The typed accessors and bounds checks are the same as
+ * in the other ByteBuffer based RAMs.
+ * <p>
+ * After the release every access fails with an exception, also the access of
+ * views created with {@link #getDataAt(long, int)}. The release itself must not
+ * race with other threads still accessing the RAM or its views: the owner
+ * releases the memory once they are done, otherwise the JVM might crash.
+ */
+public class OffHeapRam extends MultiByteBufferRam implements AutoCloseable {
+
+    /**
+     * The default region size of 1 GB.
+     */
+    public static final int DEFAULT_REGION_SHIFT = 30;
+
+    private final long capacity;
+    private volatile boolean released;
+
+    private OffHeapRam(ByteBuffer[] regions, int regionShift, long capacity) {
+        super(regions, regionShift);
+        this.capacity = capacity;
+    }
+
+    /**
+     * Allocates the given number of bytes off heap in regions of 1 GB.
+     *
+     * @param size The size of the RAM.
+     * @return the new RAM.
+     * @throws IllegalArgumentException in case the size is less than 0.
+     * @throws OutOfMemoryError         in case the direct memory is exhausted.
+     */
+    public static OffHeapRam allocate(long size) {
+        return allocate(size, DEFAULT_REGION_SHIFT);
+    }
+
+    /**
+     * Allocates the given number of bytes off heap in regions of the given size.
+     *
+     * @param size        The size of the RAM.
+     * @param regionShift The binary logarithm of the region size.
+     * @return the new RAM.
+     * @throws IllegalArgumentException in case the size is less than 0.
+     * @throws OutOfMemoryError         in case the direct memory is exhausted.
+     */
+    public static OffHeapRam allocate(long size, int regionShift) {
+        if (size < 0) {
+            throw new IllegalArgumentException("size was < 0 :" + size);
+        }
+        if (regionShift < 0 || regionShift > 30) {
+            throw new IllegalArgumentException("regionShift must be between 0 and 30 :" + regionShift);
+        }
+        long regionSize = 1L << regionShift;
+        long count = (size + regionSize - 1) >>> regionShift;
+        if (count > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("size " + size + " needs too many regions of " + regionSize);
+        }
+        ByteBuffer[] regions = new ByteBuffer[(int) count];
+        try {
+            for (int i = 0; i < regions.length; i++) {
+                regions[i] = ByteBuffer.allocateDirect((int) Math.min(regionSize, size - i * regionSize));
+            }
+        } catch (OutOfMemoryError e) {
+            for (ByteBuffer region : regions) {
+                DirectBuffers.free(region);
+            }
+            throw e;
+        }
+        return new OffHeapRam(regions, regionShift, size);
+    }
+
+    /**
+     * Retrieve the number of allocated bytes. This stays the same after the release.
+     *
+     * @return the allocated size.
+     */
+    public long getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Checks if the memory was already released.
+     *
+     * @return {@code true} after {@link #release()}.
+     */
+    public boolean isReleased() {
+        return released;
+    }
+
+    /**
+     * Get the given number of bytes at index as view. The view shares the regions
+     * with this RAM, so it fails after the release instead of reading freed
+     * memory.
+     *
+     * @param index  The index.
+     * @param length The number of bytes.
+     * @return the view.
+     */
+    @Override
+    public ReadOnlyRandomAccessMemory getDataAt(long index, int length) {
+        return sharedView(index, length);
+    }
+
+    /**
+     * Releases the off-heap memory. Subsequent calls do nothing. No other thread
+     * may access the RAM or its views during the release.
+     */
+    public synchronized void release() {
+        if (released) {
+            return;
+        }
+        released = true;
+        for (ByteBuffer region : releaseRegions()) {
+            DirectBuffers.free(region);
+        }
+    }
+
+    @Override
+    public void close() {
+        release();
+    }
+}
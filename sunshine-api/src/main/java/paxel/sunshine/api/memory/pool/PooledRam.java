@@ -0,0 +1,75 @@
+package paxel.sunshine.api.memory.pool;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import paxel.sunshine.api.memory.bytebuffer.ByteBufferRam;
+
+/**
+ * A {@link ByteBufferRam} that is handed out by a {@link RamPool}. The size is
+ * the requested size, the capacity is the size of its size class. The content
+ * is undefined after the acquisition.
+ * <p>
+ * The RAM must be released exactly once, either with {@link #release()} or
+ * {@link #close()}, and must not be used afterwards.
+ */
+public final class PooledRam extends ByteBufferRam implements AutoCloseable {
+
+    private final RamPool pool;
+    private final ByteBuffer buffer;
+    private final int sizeClass;
+    private final AtomicBoolean acquired = new AtomicBoolean();
+    RamPool.LeakTracker tracker;
+
+    PooledRam(RamPool pool, ByteBuffer buffer, int sizeClass) {
+        super(buffer);
+        this.pool = pool;
+        this.buffer = buffer;
+        this.sizeClass = sizeClass;
+    }
+
+    /**
+     * Retrieve the size of the size class of this RAM.
+     *
+     * @return the capacity.
+     */
+    public int getCapacity() {
+        return buffer.capacity();
+    }
+
+    /**
+     * Retrieve if the RAM is currently handed out by the pool.
+     *
+     * @return {@code true} if the RAM is acquired and not yet released.
+     */
+    public boolean isAcquired() {
+        return acquired.get();
+    }
+
+    /**
+     * Gives the RAM back to the pool.
+     *
+     * @throws IllegalStateException in case the RAM was already released.
+     */
+    public void release() {
+        pool.release(this);
+    }
+
+    @Override
+    public void close() {
+        release();
+    }
+
+    int getSizeClass() {
+        return sizeClass;
+    }
+
+    void acquire(int size) {
+        acquired.set(true);
+        buffer.limit(size);
+    }
+
+    boolean markReleased() {
+        return acquired.compareAndSet(true, false);
+    }
+}
@@ -0,0 +1,363 @@
+package paxel.sunshine.api.memory.pool;
+
+import static java.util.Objects.requireNonNull;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+/**
+ * A pool of RAMs in power of two size classes. A request is served by a RAM of
+ * the smallest size class that fits. Released RAMs are kept in a small cache of
+ * the releasing thread and, if that is full, in a bounded cache shared by all
+ * threads. Requests bigger than the biggest size class are served by unpooled
+ * RAMs that are dropped on release.
+ * <p>
+ * Buffers that don't fit into the caches are left to the garbage collector
+ * instead of being freed explicitly, so that a RAM that is used after its
+ * release can't crash the JVM.
+ * <p>
+ * In debug mode every acquisition records its stack trace. RAMs that are
+ * collected by the garbage collector without being released are reported to the
+ * leak listener with that trace.
+ * <p>
+ * The thread caches are referenced by the threads, so they keep the cached RAMs
+ * and the pool reachable as long as the threads live. A pool that is no longer
+ * needed must be closed, which empties the caches of all threads.
+ */
+public class RamPool implements AutoCloseable {
+
+    /**
+     * The default smallest size class of 64 bytes.
+     */
+    public static final int DEFAULT_MIN_SHIFT = 6;
+    /**
+     * The default biggest size class of 1 MB.
+     */
+    public static final int DEFAULT_MAX_SHIFT = 20;
+    /**
+     * The default number of cached RAMs per size class and thread.
+     */
+    public static final int DEFAULT_THREAD_CACHE_SIZE = 8;
+    /**
+     * The default number of cached RAMs per size class shared by all threads.
+     */
+    public static final int DEFAULT_SHARED_CACHE_SIZE = 64;
+
+    private final IntFunction<ByteBuffer> allocator;
+    private final int minShift;
+    private final int maxShift;
+    private final int threadCacheSize;
+    private final ArrayBlockingQueue<PooledRam>[] shared;
+    private final ThreadLocal<ThreadCache> threadCache = ThreadLocal.withInitial(this::newThreadCache);
+    private final Set<ThreadCache> threadCaches = ConcurrentHashMap.newKeySet();
+    private final Consumer<Throwable> leakListener;
+    private final ReferenceQueue<PooledRam> collected = new ReferenceQueue<>();
+    private final Set<LeakTracker> trackers = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder bytesOutstanding = new LongAdder();
+    private final LongAdder leaks = new LongAdder();
+    private volatile boolean closed;
+
+    /**
+     * Constructs a pool with the default size classes and cache sizes and without
+     * leak detection.
+     *
+     * @param allocator Creates a new buffer of the given size. e.g.
+     *                  {@code ByteBuffer::allocateDirect}
+     */
+    public RamPool(IntFunction<ByteBuffer> allocator) {
+        this(allocator, DEFAULT_MIN_SHIFT, DEFAULT_MAX_SHIFT, DEFAULT_THREAD_CACHE_SIZE, DEFAULT_SHARED_CACHE_SIZE, null);
+    }
+
+    /**
+     * Constructs a pool.
+     *
+     * @param allocator       Creates a new buffer of the given size. e.g.
+     *                        {@code ByteBuffer::allocateDirect}
+     * @param minShift        The binary logarithm of the smallest size class.
+     * @param maxShift        The binary logarithm of the biggest size class.
+     * @param threadCacheSize The number of cached RAMs per size class and thread.
+     * @param sharedCacheSize The number of cached RAMs per size class shared by all threads.
+     * @param leakListener    Receives the acquisition stack trace of leaked RAMs.
+     *                        {@code null} disables the leak detection.
+     * @throws IllegalArgumentException in case of invalid shifts or cache sizes.
+     */
+    @SuppressWarnings("unchecked")
+    public RamPool(IntFunction<ByteBuffer> allocator, int minShift, int maxShift, int threadCacheSize, int sharedCacheSize,
+                   Consumer<Throwable> leakListener) {
+        if (minShift < 0 || maxShift > 30 || minShift > maxShift) {
+            throw new IllegalArgumentException(
+                    String.format("shifts must be 0 <= minShift %d <= maxShift %d <= 30", minShift, maxShift));
+        }
+        if (threadCacheSize < 0 || sharedCacheSize < 1) {
+            throw new IllegalArgumentException(
+                    String.format("invalid cache sizes thread %d shared %d", threadCacheSize, sharedCacheSize));
+        }
+        this.allocator = requireNonNull(allocator);
+        this.minShift = minShift;
+        this.maxShift = maxShift;
+        this.threadCacheSize = threadCacheSize;
+        this.leakListener = leakListener;
+        shared = (ArrayBlockingQueue<PooledRam>[]) new ArrayBlockingQueue<?>[maxShift - minShift + 1];
+        for (int i = 0; i < shared.length; i++) {
+            shared[i] = new ArrayBlockingQueue<>(sharedCacheSize);
+        }
+    }
+
+    /**
+     * Creates a pool of heap buffers with the default settings.
+     *
+     * @return the pool.
+     */
+    public static RamPool heap() {
+        return new RamPool(ByteBuffer::allocate);
+    }
+
+    /**
+     * Creates a pool of direct buffers with the default settings.
+     *
+     * @return the pool.
+     */
+    public static RamPool direct() {
+        return new RamPool(ByteBuffer::allocateDirect);
+    }
+
+    /**
+     * Hands out a RAM of the given size. The content is undefined.
+     *
+     * @param size The size of the RAM.
+     * @return the RAM.
+     * @throws IllegalArgumentException in case the size is less than 0.
+     * @throws IllegalStateException    in case the pool was closed.
+     */
+    public PooledRam acquire(int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("size was < 0 :" + size);
+        }
+        if (closed) {
+            throw new IllegalStateException("the pool was closed");
+        }
+        if (leakListener != null) {
+            checkLeaks();
+        }
+        int sizeClass = sizeClass(size);
+        PooledRam ram;
+        if (sizeClass < shared.length) {
+            ram = threadCache.get().poll(sizeClass);
+            if (ram == null) {
+                ram = shared[sizeClass].poll();
+            }
+            if (ram == null) {
+                misses.increment();
+                ram = new PooledRam(this, allocator.apply(1 << (sizeClass + minShift)), sizeClass);
+            } else {
+                hits.increment();
+            }
+        } else {
+            misses.increment();
+            ram = new PooledRam(this, allocator.apply(size), sizeClass);
+        }
+        ram.acquire(size);
+        bytesOutstanding.add(ram.getCapacity());
+        if (leakListener != null) {
+            ram.tracker = new LeakTracker(ram, collected, size);
+            trackers.add(ram.tracker);
+        }
+        return ram;
+    }
+
+    void release(PooledRam ram) {
+        if (!ram.markReleased()) {
+            throw new IllegalStateException("RAM was already released");
+        }
+        bytesOutstanding.add(-ram.getCapacity());
+        if (ram.tracker != null) {
+            trackers.remove(ram.tracker);
+            ram.tracker.clear();
+            ram.tracker = null;
+        }
+        int sizeClass = ram.getSizeClass();
+        if (sizeClass < shared.length && !closed && !threadCache.get().offer(ram)) {
+            shared[sizeClass].offer(ram);
+        }
+    }
+
+    /**
+     * Empties the caches of all threads and the shared caches. RAMs that are
+     * released after the close are dropped. The RAMs that are still acquired
+     * stay valid.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (ThreadCache cache : threadCaches) {
+            cache.close();
+        }
+        threadCaches.clear();
+        threadCache.remove();
+        for (ArrayBlockingQueue<PooledRam> cache : shared) {
+            cache.clear();
+        }
+    }
+
+    private ThreadCache newThreadCache() {
+        ThreadCache cache = new ThreadCache(shared.length, threadCacheSize);
+        threadCaches.add(cache);
+        if (closed) {
+            cache.close();
+            threadCaches.remove(cache);
+        }
+        return cache;
+    }
+
+    /**
+     * Reports all RAMs that were collected since the last check without being
+     * released to the leak listener. This is done automatically on each
+     * acquisition in debug mode.
+     */
+    public void checkLeaks() {
+        for (LeakTracker tracker = (LeakTracker) collected.poll(); tracker != null; tracker = (LeakTracker) collected.poll()) {
+            if (trackers.remove(tracker)) {
+                leaks.increment();
+                bytesOutstanding.add(-tracker.capacity);
+                if (leakListener != null) {
+                    leakListener.accept(tracker.acquisition);
+                }
+            }
+        }
+    }
+
+    /**
+     * Retrieve the number of acquisitions served from a cache.
+     *
+     * @return the hits.
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Retrieve the number of acquisitions that needed a new buffer.
+     *
+     * @return the misses.
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Retrieve the capacity of all acquired RAMs that are not yet released.
+     *
+     * @return the number of bytes.
+     */
+    public long getBytesOutstanding() {
+        return bytesOutstanding.sum();
+    }
+
+    /**
+     * Retrieve the number of detected leaks. Always 0 if the leak detection is
+     * disabled.
+     *
+     * @return the leaks.
+     */
+    public long getLeaks() {
+        return leaks.sum();
+    }
+
+    /**
+     * Retrieve the capacity of the size class that serves the given size.
+     *
+     * @param size The requested size.
+     * @return the capacity, or the size itself if it is bigger than the biggest size class.
+     */
+    public int capacityFor(int size) {
+        int sizeClass = sizeClass(size);
+        return sizeClass < shared.length ? 1 << (sizeClass + minShift) : size;
+    }
+
+    private int sizeClass(int size) {
+        if (size > 1 << maxShift) {
+            return shared.length;
+        }
+        int shift = size <= 1 ? 0 : 32 - Integer.numberOfLeadingZeros(size - 1);
+        return Math.max(0, shift - minShift);
+    }
+
+    @Override
+    public String toString() {
+        return "RamPool{hits=" + getHits() + ", misses=" + getMisses() + ", bytesOutstanding=" + getBytesOutstanding()
+                + ", leaks=" + getLeaks() + '}';
+    }
+
+    /**
+     * The per thread stacks of released RAMs. The lock is only contended while
+     * the pool is closed by another thread. The class is static, so that an
+     * emptied cache doesn't keep the pool reachable.
+     */
+    private static final class ThreadCache {
+        private final PooledRam[][] stacks;
+        private final int[] counts;
+        private final int threadCacheSize;
+        private boolean closed;
+
+        ThreadCache(int sizeClasses, int threadCacheSize) {
+            this.stacks = new PooledRam[sizeClasses][threadCacheSize];
+            this.counts = new int[sizeClasses];
+            this.threadCacheSize = threadCacheSize;
+        }
+
+        synchronized PooledRam poll(int sizeClass) {
+            int count = counts[sizeClass];
+            if (count == 0) {
+                return null;
+            }
+            PooledRam ram = stacks[sizeClass][--count];
+            stacks[sizeClass][count] = null;
+            counts[sizeClass] = count;
+            return ram;
+        }
+
+        synchronized boolean offer(PooledRam ram) {
+            int sizeClass = ram.getSizeClass();
+            int count = counts[sizeClass];
+            if (closed || count == threadCacheSize) {
+                return false;
+            }
+            stacks[sizeClass][count] = ram;
+            counts[sizeClass] = count + 1;
+            return true;
+        }
+
+        synchronized void close() {
+            closed = true;
+            for (PooledRam[] stack : stacks) {
+                Arrays.fill(stack, null);
+            }
+            Arrays.fill(counts, 0);
+        }
+    }
+
+    /**
+     * Tracks an acquired RAM in debug mode.
+     */
+    static final class LeakTracker extends WeakReference<PooledRam> {
+        private final Throwable acquisition;
+        private final int capacity;
+
+        LeakTracker(PooledRam ram, ReferenceQueue<PooledRam> queue, int size) {
+            super(ram, queue);
+            this.capacity = ram.getCapacity();
+            this.acquisition = new Throwable("RAM of " + size + " bytes was acquired here and never released");
+        }
+    }
+}
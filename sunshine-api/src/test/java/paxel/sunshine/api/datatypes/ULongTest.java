@@ -47,4 +47,79 @@ public class ULongTest {
         assertThat(uLong.isSignedValueLessThanZero(), is(true));
         assertThat(new ULong(0).isSignedValueLessThanZero(), is(false));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void compare() {
+        assertThat(ULong.compare(-1L, 1L) > 0, is(true));
+        assertThat(ULong.compare(1L, -1L) < 0, is(true));
+        assertThat(ULong.compare(Long.MIN_VALUE, Long.MAX_VALUE) > 0, is(true));
+        assertThat(ULong.compare(7L, 7L), is(0));
+    }
+
+    @Test
+    public void divideAndRemainder() {
+        long[] values = {0, 1, 7, 10, Long.MAX_VALUE, Long.MIN_VALUE, -1L, -2L, -10L, 0x1234_5678_9abc_def0L, -668966295931762717L};
+        for (long dividend : values) {
+            for (long divisor : values) {
+                if (divisor == 0) {
+                    continue;
+                }
+                assertThat(ULong.divide(dividend, divisor), is(Long.divideUnsigned(dividend, divisor)));
+                assertThat(ULong.remainder(dividend, divisor), is(Long.remainderUnsigned(dividend, divisor)));
+            }
+        }
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void divideByZero() {
+        ULong.divide(-1L, 0L);
+    }
+
+    @Test
+    public void appendTo() {
+        long[] values = {0, 9, 10, Long.MAX_VALUE, Long.MIN_VALUE, -1L, -668966295931762717L};
+        for (long value : values) {
+            assertThat(ULong.appendTo(new StringBuilder("x"), value).toString(), is("x" + Long.toUnsignedString(value)));
+            assertThat(ULong.toString(value), is(Long.toUnsignedString(value)));
+        }
+    }
+
+    @Test
+    public void parse() {
+        assertThat(ULong.parse("0"), is(0L));
+        assertThat(ULong.parse("17777777777777788899"), is(-668966295931762717L));
+        assertThat(ULong.parse("18446744073709551615"), is(-1L));
+        assertThat(ULong.parse(new StringBuilder("id=1234;"), 3, 4), is(1234L));
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void parseTooBig() {
+        ULong.parse("18446744073709551616");
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void parseMuchTooBig() {
+        ULong.parse("184467440737095516150");
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void parseInvalidDigit() {
+        ULong.parse("12a");
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void parseEmpty() {
+        ULong.parse("");
+    }
+
+    @Test
+    public void mutableULong() {
+        MutableULong holder = new MutableULong();
+        assertThat(holder.setSignedValue(-1L).toString(), is("18446744073709551615"));
+        assertThat(holder.isSignedValueLessThanZero(), is(true));
+        assertThat(holder.toULong(), is(new ULong(-1L)));
+        assertThat(holder.appendTo(new StringBuilder()).toString(), is("18446744073709551615"));
+        assertThat(holder.set(new ULong(3L)).getSignedValue(), is(3L));
+        assertThat(holder.compareTo(new MutableULong(-1L)) < 0, is(true));
+    }
+}
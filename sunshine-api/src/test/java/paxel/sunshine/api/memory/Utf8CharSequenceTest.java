@@ -0,0 +1,44 @@
+package paxel.sunshine.api.memory;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+import paxel.sunshine.api.memory.bytebuffer.ByteBufferRoRam;
+
+public class Utf8CharSequenceTest {
+
+    @Test
+    public void asciiIsReadFromRam() {
+        ByteBuffer buffer = ByteBuffer.wrap("ABBA-DOMINO-78".getBytes(StandardCharsets.UTF_8));
+        Utf8CharSequence sequence = new Utf8CharSequence(new ByteBufferRoRam(buffer), 5, 6);
+        assertThat(sequence.isAscii(), is(true));
+        assertThat(sequence.length(), is(6));
+        assertThat(sequence.charAt(0), is('D'));
+        assertThat(sequence.subSequence(2, 4).toString(), is("MI"));
+
+        buffer.put(5, (byte) 'T');
+        assertThat(sequence.charAt(0), is('T'));
+    }
+
+    @Test
+    public void multiByteIsDecoded() {
+        Utf8CharSequence sequence = new Utf8CharSequence(
+                new ByteBufferRoRam(ByteBuffer.wrap("Ölfaß 😀".getBytes(StandardCharsets.UTF_8))), 0, 12);
+        assertThat(sequence.isAscii(), is(false));
+        assertThat(sequence.length(), is(8));
+        assertThat(sequence.charAt(4), is('ß'));
+        assertThat(sequence.subSequence(0, 3).toString(), is("Ölf"));
+        assertThat(sequence.toString(), is("Ölfaß 😀"));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void charAtOutsideOfView() {
+        ByteBuffer buffer = ByteBuffer.wrap("ABBA-DOMINO-78".getBytes(StandardCharsets.UTF_8));
+        new Utf8CharSequence(new ByteBufferRoRam(buffer), 5, 6).charAt(6);
+    }
+}
@@ -0,0 +1,183 @@
+package paxel.sunshine.api.memory;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import paxel.sunshine.api.memory.bytebuffer.ByteBufferRam;
+import paxel.sunshine.api.memory.bytebuffer.ByteBufferRoRam;
+
+public class Utf8Test {
+
+    private static final String MIXED = "sun ☀ Ölfaß 日本 😀 end";
+
+    @Test
+    public void decodeAscii() {
+        assertThat(decode("ABBA-DOMINO-78"), is("ABBA-DOMINO-78"));
+    }
+
+    @Test
+    public void decodeMultiByteCharacters() {
+        assertThat(decode(MIXED), is(MIXED));
+    }
+
+    @Test
+    public void decodeEmpty() {
+        assertThat(decode(""), is(""));
+        assertThat(Utf8.toString(ram(new byte[0]), 0, 0), is(""));
+    }
+
+    @Test
+    public void decodeLongerThanChunk() {
+        StringBuilder text = new StringBuilder();
+        // the odd length of the prefix shifts the multi byte characters over the chunk borders
+        text.append('x');
+        while (text.length() < 10_000) {
+            text.append(MIXED);
+        }
+        String expected = text.toString();
+        assertThat(decode(expected), is(expected));
+        byte[] bytes = expected.getBytes(StandardCharsets.UTF_8);
+        assertThat(Utf8.toString(ram(bytes), 0, bytes.length), is(expected));
+        assertThat(Utf8.decode(bytes, 0, bytes.length, new StringBuilder()).toString(), is(expected));
+    }
+
+    @Test
+    public void decodeIntoCharBuffer() {
+        byte[] bytes = MIXED.getBytes(StandardCharsets.UTF_8);
+        CharBuffer buffer = CharBuffer.allocate(100);
+        Utf8.decode(ram(bytes), 0, bytes.length, buffer);
+        buffer.flip();
+        assertThat(buffer.toString(), is(MIXED));
+
+        buffer.clear();
+        Utf8.decode(bytes, 0, bytes.length, buffer);
+        buffer.flip();
+        assertThat(buffer.toString(), is(MIXED));
+    }
+
+    @Test
+    public void decodeMalformed() {
+        byte[] bytes = {'a', (byte) 0xc0, (byte) 0xaf, 'b', (byte) 0xed, (byte) 0xa0, (byte) 0x80, 'c', (byte) 0xe2, (byte) 0x98};
+        String decoded = Utf8.decode(ram(bytes), 0, bytes.length, new StringBuilder()).toString();
+        // overlong bytes are replaced one by one, the surrogate and the truncated sequence at once
+        assertThat(decoded, is("a\ufffd\ufffdb\ufffdc\ufffd"));
+        assertThat(decoded, is(new String(bytes, StandardCharsets.UTF_8)));
+        assertThat(Utf8.decode(bytes, 0, bytes.length, CharBuffer.allocate(20)).flip().toString(), is(decoded));
+    }
+
+    @Test
+    public void decodeMalformedLikeTheJdk() {
+        Random random = new Random(42);
+        byte[] bytes = new byte[5000];
+        for (int run = 0; run < 100; run++) {
+            for (int i = 0; i < bytes.length; i++) {
+                // mostly lead and continuation bytes
+                bytes[i] = (byte) (random.nextInt(4) == 0 ? random.nextInt(0x80) : 0x80 + random.nextInt(0x80));
+            }
+            String expected = new String(bytes, StandardCharsets.UTF_8);
+            assertThat(Utf8.decode(ram(bytes), 0, bytes.length, new StringBuilder()).toString(), is(expected));
+            assertThat(Utf8.decode(bytes, 0, bytes.length, CharBuffer.allocate(bytes.length)).flip().toString(), is(expected));
+        }
+    }
+
+    @Test
+    public void fixStringLength() {
+        byte[] bytes = {'m', 'o', 'n', 'o', 0, 0, 0};
+        assertThat(Utf8.fixStringLength(ram(bytes), 0, 7), is(4));
+        assertThat(Utf8.fixStringLength(bytes, 1, 6), is(3));
+        assertThat(Utf8.fixStringLength(new byte[3], 0, 3), is(0));
+    }
+
+    @Test
+    public void isAscii() {
+        byte[] bytes = MIXED.getBytes(StandardCharsets.UTF_8);
+        assertThat(Utf8.isAscii(ram(bytes), 0, 4), is(true));
+        assertThat(Utf8.isAscii(ram(bytes), 0, bytes.length), is(false));
+    }
+
+    @Test
+    public void encodedLength() {
+        assertThat(Utf8.encodedLength(""), is(0));
+        assertThat(Utf8.encodedLength("ABBA"), is(4));
+        assertThat(Utf8.encodedLength(MIXED), is(MIXED.getBytes(StandardCharsets.UTF_8).length));
+        assertThat(Utf8.encodedLength(MIXED, 4, 1), is(3));
+        // an unpaired surrogate is replaced by '?'
+        assertThat(Utf8.encodedLength("a\ud83d"), is(2));
+    }
+
+    @Test
+    public void encodeIntoArray() {
+        byte[] expected = MIXED.getBytes(StandardCharsets.UTF_8);
+        byte[] bytes = new byte[expected.length + 2];
+        assertThat(Utf8.encode(MIXED, 0, MIXED.length(), bytes, 2), is(expected.length));
+        assertThat(Arrays.copyOfRange(bytes, 2, bytes.length), is(expected));
+    }
+
+    @Test
+    public void encodeLongerThanChunkIntoRam() {
+        StringBuilder text = new StringBuilder();
+        text.append('x');
+        while (text.length() < 10_000) {
+            text.append(MIXED);
+        }
+        byte[] expected = text.toString().getBytes(StandardCharsets.UTF_8);
+        ByteBufferRam ram = new ByteBufferRam(ByteBuffer.allocateDirect(expected.length));
+        assertThat(Utf8.encode(text, 0, text.length(), ram, 0), is((long) expected.length));
+        assertThat(ram.getBytesAt(0, expected.length), is(expected));
+    }
+
+    @Test
+    public void encodeUnpairedSurrogates() {
+        String text = "\ude00a\ud83d";
+        byte[] bytes = new byte[3];
+        Utf8.encode(text, 0, text.length(), bytes, 0);
+        assertThat(bytes, is(text.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void encodeTooLongForArray() {
+        Utf8.encode("ABBA", 0, 4, new byte[3], 0);
+    }
+
+    @Test
+    public void encodeIntoDirectBuffer() {
+        byte[] expected = MIXED.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer direct = ByteBuffer.allocateDirect(expected.length + 2);
+        direct.position(1);
+        assertThat(Utf8.encode(MIXED, 0, MIXED.length(), direct, 2), is(expected.length));
+        assertThat(direct.position(), is(1));
+        byte[] bytes = new byte[expected.length];
+        direct.position(2);
+        direct.get(bytes);
+        assertThat(bytes, is(expected));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void encodeTooLongForDirectBuffer() {
+        Utf8.encode("ABBA", 0, 4, ByteBuffer.allocateDirect(5), 2);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void encodeInvalidRange() {
+        Utf8.encode("ABBA", 2, 3, new byte[8], 0);
+    }
+
+    private static String decode(String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+        direct.put(bytes);
+        return Utf8.decode(new ByteBufferRoRam(direct), 0, bytes.length, new StringBuilder()).toString();
+    }
+
+    private static ReadOnlyRandomAccessMemory ram(byte[] bytes) {
+        return new ByteBufferRoRam(ByteBuffer.wrap(bytes));
+    }
+}
@@ -0,0 +1,159 @@
+package paxel.sunshine.api.memory.bytebuffer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import paxel.sunshine.api.datatypes.ULong;
+import paxel.sunshine.api.memory.ReadOnlyRandomAccessMemory;
+import paxel.sunshine.api.memory.Utf8;
+
+/**
+ * Measures the typed accessors of {@link ByteBufferRam} on heap and direct
+ * buffers with different payload sizes. Run it with the benchmark profile
+ * ({@code mvn -P benchmark verify}) or via {@link #main(String[])}. Both use the
+ * GC profiler, so the allocation per operation is reported next to the time.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ByteBufferRamBenchmark {
+
+    @Param({"false", "true"})
+    public boolean direct;
+
+    @Param({"16", "256", "4096", "65536"})
+    public int payloadSize;
+
+    private ByteBufferRam ram;
+    private byte[] destination;
+    private ByteBuffer destinationBuffer;
+    private String payload;
+    private ULong uLong;
+    private long lastLongIndex;
+    private long lastIntIndex;
+
+    @Setup
+    public void setUp() {
+        ByteBuffer buffer = direct ? ByteBuffer.allocateDirect(payloadSize) : ByteBuffer.allocate(payloadSize);
+        StringBuilder text = new StringBuilder(payloadSize);
+        for (int i = 0; i < payloadSize; i++) {
+            text.append((char) ('A' + i % 26));
+        }
+        payload = text.toString();
+        ram = new ByteBufferRam(buffer);
+        ram.putStringAt(0, payload);
+        destination = new byte[payloadSize];
+        destinationBuffer = direct ? ByteBuffer.allocateDirect(payloadSize) : ByteBuffer.allocate(payloadSize);
+        uLong = ULong.fromUnsignedString("17777777777777788899");
+        lastLongIndex = payloadSize - 8;
+        lastIntIndex = payloadSize - 4;
+    }
+
+    @Benchmark
+    public int getInt32At() {
+        return ram.getInt32At(lastIntIndex);
+    }
+
+    @Benchmark
+    public long getInt64At() {
+        return ram.getInt64At(lastLongIndex);
+    }
+
+    @Benchmark
+    public ULong getUInt64At() {
+        return ram.getUInt64At(lastLongIndex);
+    }
+
+    @Benchmark
+    public String getStringAt() {
+        return ram.getStringAt(0, payloadSize);
+    }
+
+    @Benchmark
+    public byte[] copyToDestination() {
+        ram.copyToDestination(0, destination);
+        return destination;
+    }
+
+    @Benchmark
+    public ByteBuffer copyToByteBufferDestination() throws IOException {
+        destinationBuffer.clear();
+        ram.copyToDestination(0, payloadSize, destinationBuffer);
+        return destinationBuffer;
+    }
+
+    @Benchmark
+    public ReadOnlyRandomAccessMemory getDataAt() {
+        return ram.getDataAt(0, payloadSize);
+    }
+
+    @Benchmark
+    public ByteBufferRam putInt32At() {
+        ram.putInt32At(lastIntIndex, payloadSize);
+        return ram;
+    }
+
+    @Benchmark
+    public ByteBufferRam putUInt64At() {
+        ram.putUInt64At(lastLongIndex, uLong);
+        return ram;
+    }
+
+    @Benchmark
+    public ByteBufferRam putUInt64BitsAt() {
+        ram.putUInt64BitsAt(lastLongIndex, uLong.getSignedValue());
+        return ram;
+    }
+
+    @Benchmark
+    public ByteBufferRam putStringAt() {
+        ram.putStringAt(0, payload);
+        return ram;
+    }
+
+    @Benchmark
+    public ByteBufferRam putStringRangeAt() {
+        ram.putStringAt(0, payload, 1, payloadSize - 1);
+        return ram;
+    }
+
+    @Benchmark
+    public int encodedLength() {
+        return Utf8.encodedLength(payload);
+    }
+
+    @Benchmark
+    public ByteBufferRam copyFromSource() {
+        ram.copyFromSource(0, destination, 0, payloadSize);
+        return ram;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(ByteBufferRamBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -14,6 +14,7 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.core.Is.is;
 
 import org.junit.Test;
+import paxel.sunshine.api.datatypes.MutableULong;
 import paxel.sunshine.api.datatypes.ULong;
 
 public class ByteBufferRamTest {
@@ -345,6 +346,65 @@ public class ByteBufferRamTest {
         assertThat(byteBufferRam.getUInt64At(10), is(new ULong(0L)));
     }
 
+    @Test
+    public void bulkValues() {
+        for (ByteBuffer buffer : new ByteBuffer[]{ByteBuffer.allocate(100), ByteBuffer.allocateDirect(100)}) {
+            ByteBufferRam byteBufferRam = new ByteBufferRam(buffer);
+            byteBufferRam.putInt64sAt(3, new long[]{0, -1L, 0x0102030405060708L, 4}, 1, 2);
+            assertThat(byteBufferRam.getInt64At(3), is(-1L));
+            assertThat(byteBufferRam.getInt64At(11), is(0x0102030405060708L));
+            long[] longs = new long[3];
+            byteBufferRam.getInt64sAt(3, longs, 1, 2);
+            assertThat(longs, is(new long[]{0, -1L, 0x0102030405060708L}));
+
+            byteBufferRam.putInt32sAt(1, new int[]{7, -8}, 0, 2);
+            assertThat(byteBufferRam.getInt32At(5), is(-8));
+            int[] ints = new int[2];
+            byteBufferRam.getInt32sAt(1, ints, 0, 2);
+            assertThat(ints, is(new int[]{7, -8}));
+
+            byteBufferRam.putInt16sAt(0, new short[]{-2, 3}, 0, 2);
+            assertThat(byteBufferRam.getInt16At(2), is((short) 3));
+            short[] shorts = new short[2];
+            byteBufferRam.getInt16sAt(0, shorts, 0, 2);
+            assertThat(shorts, is(new short[]{-2, 3}));
+
+            byteBufferRam.putFloatsAt(50, new float[]{1.5f, -2.25f}, 0, 2);
+            assertThat(byteBufferRam.getFloatAt(54), is(-2.25f));
+            float[] floats = new float[2];
+            byteBufferRam.getFloatsAt(50, floats, 0, 2);
+            assertThat(floats, is(new float[]{1.5f, -2.25f}));
+
+            byteBufferRam.putDoublesAt(84, new double[]{1.5, -2.25}, 0, 2);
+            assertThat(byteBufferRam.getDoubleAt(92), is(-2.25));
+            double[] doubles = new double[2];
+            byteBufferRam.getDoublesAt(84, doubles, 0, 2);
+            assertThat(doubles, is(new double[]{1.5, -2.25}));
+            assertThat(buffer.position(), is(0));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void bulkValuesAfterLimit() {
+        new ByteBufferRam(ByteBuffer.allocate(16)).putDoublesAt(1, new double[2], 0, 2);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void bulkValuesOutsideOfArray() {
+        new ByteBufferRam(ByteBuffer.allocate(16)).getInt32sAt(0, new int[2], 1, 2);
+    }
+
+    @Test
+    public void getUInt64Bits() {
+        ByteBufferRam byteBufferRam = new ByteBufferRam(getByteBuffer());
+        MutableULong holder = new MutableULong();
+        byteBufferRam.putUInt64BitsAt(0, -2L);
+        byteBufferRam.putUInt64At(10, new MutableULong(5L));
+        assertThat(byteBufferRam.getUInt64BitsAt(0), is(-2L));
+        assertThat(byteBufferRam.getUInt64At(0, holder).toString(), is("18446744073709551614"));
+        assertThat(byteBufferRam.getUInt64At(10, holder), is(new MutableULong(5L)));
+    }
+
     @Test
     public void getFloat() throws IOException {
         ByteBuffer b = getByteBuffer();
@@ -381,6 +441,30 @@ public class ByteBufferRamTest {
         assertThat(byteBufferRam.getDataAt(82, 9).getBytes(), is("CDEFGHIJK".getBytes(StandardCharsets.UTF_8)));
     }
 
+    @Test
+    public void putString() {
+        for (ByteBuffer buffer : new ByteBuffer[]{ByteBuffer.allocate(20), ByteBuffer.allocateDirect(20)}) {
+            ByteBufferRam byteBufferRam = new ByteBufferRam(buffer);
+            byteBufferRam.putStringAt(2, "Ölfaß 😀");
+            assertThat(byteBufferRam.getStringAt(2, 12), is("Ölfaß 😀"));
+            byteBufferRam.putStringAt(14, new StringBuilder("xxABBAxx"), 2, 4);
+            assertThat(byteBufferRam.getStringAt(14, 4), is("ABBA"));
+        }
+    }
+
+    @Test
+    public void putStringFillsRam() {
+        ByteBufferRam byteBufferRam = new ByteBufferRam(ByteBuffer.allocate(6));
+        byteBufferRam.putStringAt(0, "日本");
+        assertThat(byteBufferRam.getStringAt(0, 6), is("日本"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void putStringAfterLimit() {
+        ByteBufferRam byteBufferRam = new ByteBufferRam(ByteBuffer.allocate(6));
+        byteBufferRam.putStringAt(1, "日本");
+    }
+
     private ByteBuffer getByteBuffer() {
         ByteBuffer b = ByteBuffer.allocate(100);
         for (int i = 0; i < 80; i++) {
@@ -0,0 +1,170 @@
+package paxel.sunshine.api.memory.bytebuffer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import paxel.sunshine.api.datatypes.MutableULong;
+import paxel.sunshine.api.datatypes.ULong;
+import paxel.sunshine.api.memory.ReadOnlyRandomAccessMemory;
+
+/**
+ * Measures the typed accessors of {@link ByteBufferRoRam} on heap and direct
+ * buffers with different payload sizes. Run it with the benchmark profile
+ * ({@code mvn -P benchmark verify}) or via {@link #main(String[])}. Both use the
+ * GC profiler, so the allocation per operation is reported next to the time.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ByteBufferRoRamBenchmark {
+
+	@Param({ "false", "true" })
+	public boolean direct;
+
+	@Param({ "16", "256", "4096", "65536" })
+	public int payloadSize;
+
+	private ByteBufferRoRam ram;
+	private byte[] destination;
+	private ByteBuffer destinationBuffer;
+	private StringBuilder stringBuilder;
+	private CharBuffer charBuffer;
+	private final MutableULong holder = new MutableULong();
+	private double[] doubles;
+	private long lastLongIndex;
+	private long lastIntIndex;
+
+	@Setup
+	public void setUp() {
+		ByteBuffer buffer = direct ? ByteBuffer.allocateDirect(payloadSize) : ByteBuffer.allocate(payloadSize);
+		for (int i = 0; i < payloadSize; i++)
+			buffer.put(i, (byte) ('A' + i % 26));
+		ram = new ByteBufferRoRam(buffer);
+		destination = new byte[payloadSize];
+		destinationBuffer = direct ? ByteBuffer.allocateDirect(payloadSize) : ByteBuffer.allocate(payloadSize);
+		stringBuilder = new StringBuilder(payloadSize);
+		charBuffer = CharBuffer.allocate(payloadSize);
+		doubles = new double[payloadSize / 8];
+		lastLongIndex = payloadSize - 8;
+		lastIntIndex = payloadSize - 4;
+	}
+
+	@Benchmark
+	public int getInt32At() {
+		return ram.getInt32At(lastIntIndex);
+	}
+
+	@Benchmark
+	public long getInt64At() {
+		return ram.getInt64At(lastLongIndex);
+	}
+
+	@Benchmark
+	public ULong getUInt64At() {
+		return ram.getUInt64At(lastLongIndex);
+	}
+
+	@Benchmark
+	public long getUInt64BitsAt() {
+		return ram.getUInt64BitsAt(lastLongIndex);
+	}
+
+	@Benchmark
+	public MutableULong getUInt64AtHolder() {
+		return ram.getUInt64At(lastLongIndex, holder);
+	}
+
+	@Benchmark
+	public double[] getDoublesAt() {
+		ram.getDoublesAt(0, doubles, 0, doubles.length);
+		return doubles;
+	}
+
+	@Benchmark
+	public double[] getDoublesAtOneByOne() {
+		for (int i = 0; i < doubles.length; i++)
+			doubles[i] = ram.getDoubleAt(i * 8L);
+		return doubles;
+	}
+
+	@Benchmark
+	public String getStringAt() {
+		return ram.getStringAt(0, payloadSize);
+	}
+
+	@Benchmark
+	public StringBuilder getStringAtIntoStringBuilder() {
+		stringBuilder.setLength(0);
+		return ram.getStringAt(0, payloadSize, stringBuilder);
+	}
+
+	@Benchmark
+	public CharBuffer getStringAtIntoCharBuffer() {
+		charBuffer.clear();
+		return ram.getStringAt(0, payloadSize, charBuffer);
+	}
+
+	@Benchmark
+	public char getCharSequenceAt() {
+		CharSequence sequence = ram.getCharSequenceAt(0, payloadSize);
+		return sequence.charAt(sequence.length() - 1);
+	}
+
+	@Benchmark
+	public String getFixStringAt() {
+		return ram.getFixStringAt(0, payloadSize);
+	}
+
+	@Benchmark
+	public byte[] copyToDestination() {
+		ram.copyToDestination(0, destination);
+		return destination;
+	}
+
+	@Benchmark
+	public ByteBuffer copyToByteBufferDestination() throws IOException {
+		destinationBuffer.clear();
+		ram.copyToDestination(0, payloadSize, destinationBuffer);
+		return destinationBuffer;
+	}
+
+	@Benchmark
+	public byte[] getBytesAt() {
+		return ram.getBytesAt(0, payloadSize);
+	}
+
+	@Benchmark
+	public ReadOnlyRandomAccessMemory getDataAt() {
+		return ram.getDataAt(0, payloadSize);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		Options options = new OptionsBuilder()
+				.include(ByteBufferRoRamBenchmark.class.getSimpleName())
+				.addProfiler(GCProfiler.class)
+				.build();
+		new Runner(options).run();
+	}
+}
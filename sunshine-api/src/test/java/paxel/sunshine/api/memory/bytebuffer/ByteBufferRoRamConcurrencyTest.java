@@ -0,0 +1,131 @@
+package paxel.sunshine.api.memory.bytebuffer;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import paxel.sunshine.api.memory.ReadOnlyRandomAccessMemory;
+
+/**
+ * Many threads read different records of one shared {@link ByteBufferRoRam} at
+ * the same time. Any read that depends on the position of the shared ByteBuffer
+ * would return the content of another record.
+ */
+public class ByteBufferRoRamConcurrencyTest {
+
+	private static final int RECORD_SIZE = 16;
+	private static final int RECORDS = 4096;
+	private static final int THREADS = 8;
+	private static final int READS_PER_THREAD = 100_000;
+
+	@Test
+	public void concurrentReadsOnHeapBuffer() throws Exception {
+		assertThat(readConcurrently(ByteBuffer.allocate(RECORD_SIZE * RECORDS)), is(0L));
+	}
+
+	@Test
+	public void concurrentReadsOnDirectBuffer() throws Exception {
+		assertThat(readConcurrently(ByteBuffer.allocateDirect(RECORD_SIZE * RECORDS)), is(0L));
+	}
+
+	@Test
+	public void readsDoNotChangeThePosition() throws IOException {
+		ByteBuffer buffer = fill(ByteBuffer.allocate(RECORD_SIZE * 4));
+		buffer.position(7);
+		ByteBufferRoRam ram = new ByteBufferRoRam(buffer);
+
+		ram.getStringAt(16, 12);
+		ram.getBytesAt(32, 12);
+		ram.copyToDestination(0, new byte[12]);
+		ram.copyToDestination(0, 12, ByteBuffer.allocate(12));
+		ram.copyToDestination(0, 12, new ByteArrayOutputStream());
+		ram.getDataAt(16, 16).getBytes();
+
+		assertThat(buffer.position(), is(7));
+	}
+
+	private long readConcurrently(ByteBuffer buffer) throws Exception {
+		ByteBufferRoRam ram = new ByteBufferRoRam(fill(buffer));
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		try {
+			List<Future<Long>> results = new ArrayList<>();
+			for (int t = 0; t < THREADS; t++)
+				results.add(executor.submit(() -> {
+					start.await();
+					return readRandomRecords(ram);
+				}));
+			start.countDown();
+			long failures = 0;
+			for (Future<Long> result : results)
+				failures += result.get(1, TimeUnit.MINUTES);
+			return failures;
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private long readRandomRecords(ByteBufferRoRam ram) throws IOException {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		byte[] destination = new byte[12];
+		ByteBuffer destinationBuffer = ByteBuffer.allocate(12);
+		long failures = 0;
+		for (int i = 0; i < READS_PER_THREAD; i++) {
+			int record = random.nextInt(RECORDS);
+			long index = (long) record * RECORD_SIZE;
+			String expected = text(record);
+			switch (i % 5) {
+			case 0:
+				if (!expected.equals(ram.getStringAt(index + 4, 12)))
+					failures++;
+				break;
+			case 1:
+				if (!expected.equals(new String(ram.getBytesAt(index + 4, 12), StandardCharsets.UTF_8)))
+					failures++;
+				break;
+			case 2:
+				ram.copyToDestination(index + 4, destination);
+				if (!expected.equals(new String(destination, StandardCharsets.UTF_8)))
+					failures++;
+				break;
+			case 3:
+				destinationBuffer.clear();
+				ram.copyToDestination(index + 4, 12, destinationBuffer);
+				if (!expected.equals(new String(destinationBuffer.array(), StandardCharsets.UTF_8)))
+					failures++;
+				break;
+			default:
+				ReadOnlyRandomAccessMemory data = ram.getDataAt(index, RECORD_SIZE);
+				if (ram.getInt32At(index) != record || !expected.equals(new String(data.getBytesAt(4, 12), StandardCharsets.UTF_8)))
+					failures++;
+			}
+		}
+		return failures;
+	}
+
+	private static ByteBuffer fill(ByteBuffer buffer) {
+		for (int record = 0; record < buffer.capacity() / RECORD_SIZE; record++) {
+			buffer.putInt(record);
+			buffer.put(text(record).getBytes(StandardCharsets.UTF_8));
+		}
+		return buffer;
+	}
+
+	private static String text(int record) {
+		return String.format("record-%05d", record);
+	}
+}
@@ -7,12 +7,15 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
 import java.nio.channels.Channels;
 import java.nio.channels.WritableByteChannel;
 import java.nio.charset.StandardCharsets;
 
 import org.junit.Test;
 
+import paxel.sunshine.api.datatypes.MutableULong;
 import paxel.sunshine.api.datatypes.ULong;
 
 public class ByteBufferRoRamTest {
@@ -73,6 +76,37 @@ public class ByteBufferRoRamTest {
 		assertThat(bytes[5], is((byte) 'O'));
 	}
 
+	@Test
+	public void writeToFullChannel() throws IOException {
+		ByteBufferRoRam byteBufferRam = new ByteBufferRoRam(
+				ByteBuffer.wrap("ABBA-DOMINO-78".getBytes(StandardCharsets.UTF_8)));
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		// like a non-blocking channel, that accepts 4 bytes until it is full
+		WritableByteChannel dst = new WritableByteChannel() {
+			@Override
+			public int write(ByteBuffer src) {
+				int count = Math.min(src.remaining(), 4 - out.size());
+				for (int i = 0; i < count; i++)
+					out.write(src.get());
+				return count;
+			}
+
+			@Override
+			public boolean isOpen() {
+				return true;
+			}
+
+			@Override
+			public void close() {
+			}
+		};
+
+		long written = byteBufferRam.copyToDestination(5, 6, dst);
+
+		assertThat(written, is(4L));
+		assertThat(new String(out.toByteArray(), StandardCharsets.UTF_8), is("DOMI"));
+	}
+
 	@Test
 	public void getByte() throws IOException {
 		ByteBufferRoRam byteBufferRam = new ByteBufferRoRam(
@@ -238,12 +272,54 @@ public class ByteBufferRoRamTest {
 		assertThat(byteBufferRam.getInt64At(10), is(0xffff_ffffffff_ffffL));
 	}
 
+	@Test
+	public void getBulkValues() {
+		for (ByteBuffer b : new ByteBuffer[] { ByteBuffer.allocate(64), ByteBuffer.allocateDirect(64) }) {
+			for (int i = 0; i < 8; i++)
+				b.putDouble(i * 8, i * 1.5);
+			ByteBufferRoRam byteBufferRam = new ByteBufferRoRam(b);
+			double[] doubles = new double[8];
+			byteBufferRam.getDoublesAt(8, doubles, 1, 7);
+			assertThat(doubles, is(new double[] { 0, 1.5, 3, 4.5, 6, 7.5, 9, 10.5 }));
+			long[] longs = new long[1];
+			byteBufferRam.getInt64sAt(16, longs, 0, 1);
+			assertThat(longs[0], is(Double.doubleToRawLongBits(3)));
+			int[] ints = new int[2];
+			byteBufferRam.getInt32sAt(16, ints, 0, 2);
+			assertThat(ints[0], is(byteBufferRam.getInt32At(16)));
+			assertThat(ints[1], is(byteBufferRam.getInt32At(20)));
+			short[] shorts = new short[1];
+			byteBufferRam.getInt16sAt(17, shorts, 0, 1);
+			assertThat(shorts[0], is(byteBufferRam.getInt16At(17)));
+			float[] floats = new float[1];
+			byteBufferRam.getFloatsAt(20, floats, 0, 1);
+			assertThat(floats[0], is(byteBufferRam.getFloatAt(20)));
+		}
+	}
+
+	@Test
+	public void getBulkValuesInByteOrderOfBuffer() {
+		ByteBuffer b = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+		b.putInt(0, 1).putInt(4, 2);
+		int[] ints = new int[2];
+		new ByteBufferRoRam(b).getInt32sAt(0, ints, 0, 2);
+		assertThat(ints, is(new int[] { 1, 2 }));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void getBulkValuesAfterLimit() {
+		new ByteBufferRoRam(ByteBuffer.allocate(16)).getInt64sAt(8, new long[2], 0, 2);
+	}
+
 	@Test
 	public void getUInt64() throws IOException {
 		ByteBuffer b = getByteBuffer();
 		ByteBufferRoRam byteBufferRam = new ByteBufferRoRam(b);
 		assertThat(byteBufferRam.getUInt64At(0), is(new ULong(0xffff_ffffffff_ffffL)));
 		assertThat(byteBufferRam.getUInt64At(10), is(new ULong(0xffff_ffffffff_ffffL)));
+		assertThat(byteBufferRam.getUInt64BitsAt(0), is(0xffff_ffffffff_ffffL));
+		MutableULong holder = new MutableULong();
+		assertThat(byteBufferRam.getUInt64At(10, holder).getSignedValue(), is(0xffff_ffffffff_ffffL));
 	}
 
 	@Test
@@ -274,6 +350,50 @@ public class ByteBufferRoRamTest {
 		assertThat(byteBufferRam.getStringAt(82, 9), is("CDEFGHIJK"));
 	}
 
+	@Test
+	public void getStringIntoStringBuilder() throws IOException {
+		for (ByteBuffer b : new ByteBuffer[] { getByteBuffer(), getDirectByteBuffer() }) {
+			ByteBufferRoRam byteBufferRam = new ByteBufferRoRam(b);
+			StringBuilder builder = new StringBuilder("->");
+			assertThat(byteBufferRam.getStringAt(82, 9, builder).toString(), is("->CDEFGHIJK"));
+			assertThat(byteBufferRam.getStringAt(80, 13), is("ABCDEFGHIJKLM"));
+		}
+	}
+
+	@Test
+	public void getStringIntoCharBuffer() throws IOException {
+		for (ByteBuffer b : new ByteBuffer[] { getByteBuffer(), getDirectByteBuffer() }) {
+			ByteBufferRoRam byteBufferRam = new ByteBufferRoRam(b);
+			CharBuffer chars = byteBufferRam.getStringAt(80, 3, CharBuffer.allocate(3));
+			chars.flip();
+			assertThat(chars.toString(), is("ABC"));
+		}
+	}
+
+	@Test
+	public void getCharSequence() throws IOException {
+		ByteBufferRoRam byteBufferRam = new ByteBufferRoRam(getDirectByteBuffer());
+		CharSequence sequence = byteBufferRam.getCharSequenceAt(82, 9);
+		assertThat(sequence.length(), is(9));
+		assertThat(sequence.charAt(8), is('K'));
+		assertThat(sequence.toString(), is("CDEFGHIJK"));
+	}
+
+	@Test
+	public void getFixString() throws IOException {
+		for (ByteBuffer b : new ByteBuffer[] { getByteBuffer(), getDirectByteBuffer() }) {
+			ByteBufferRoRam byteBufferRam = new ByteBufferRoRam(b);
+			assertThat(byteBufferRam.getFixStringAt(88, 12), is("IJKLM"));
+			assertThat(byteBufferRam.getFixStringAt(93, 7), is(""));
+			assertThat(byteBufferRam.getFixStringAt(80, 4), is("ABCD"));
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void getFixStringOutside() throws IOException {
+		new ByteBufferRoRam(getByteBuffer()).getFixStringAt(90, 12);
+	}
+
 	@Test
 	public void getData() throws IOException {
 		ByteBuffer b = getByteBuffer();
@@ -282,6 +402,12 @@ public class ByteBufferRoRamTest {
 		assertThat(byteBufferRam.getDataAt(82, 9).getBytes(), is("CDEFGHIJK".getBytes(StandardCharsets.UTF_8)));
 	}
 
+	private ByteBuffer getDirectByteBuffer() {
+		ByteBuffer b = ByteBuffer.allocateDirect(100);
+		b.put(getByteBuffer().array());
+		return b;
+	}
+
 	private ByteBuffer getByteBuffer() {
 		ByteBuffer b = ByteBuffer.allocate(100);
 		for (int i = 0; i < 80; i++)
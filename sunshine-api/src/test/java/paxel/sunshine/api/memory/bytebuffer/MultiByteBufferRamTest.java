@@ -0,0 +1,293 @@
+package paxel.sunshine.api.memory.bytebuffer;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsInstanceOf.instanceOf;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+import paxel.sunshine.api.datatypes.MutableULong;
+import paxel.sunshine.api.datatypes.ULong;
+import paxel.sunshine.api.memory.ReadOnlyRandomAccessMemory;
+
+public class MultiByteBufferRamTest {
+
+    private static final byte[] TEXT = "ABBA-DOMINO-78".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    public void sizeIsSumOfRegions() {
+        MultiByteBufferRam ram = textRam();
+        assertThat(ram.size(), is(14L));
+        assertThat(ram.getRegionSize(), is(4));
+        assertThat(ram.getBytes(), is(TEXT));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidRegionSize() {
+        new MultiByteBufferRam(new ByteBuffer[]{ByteBuffer.allocate(3), ByteBuffer.allocate(4)}, 2);
+    }
+
+    @Test
+    public void getByteOverAllRegions() {
+        MultiByteBufferRam ram = textRam();
+        for (int i = 0; i < TEXT.length; i++) {
+            assertThat(ram.getByteAt(i), is(TEXT[i]));
+        }
+    }
+
+    @Test
+    public void getBytesAtCrossingRegions() {
+        MultiByteBufferRam ram = textRam();
+        assertThat(new String(ram.getBytesAt(3, 9), StandardCharsets.UTF_8), is("A-DOMINO-"));
+        assertThat(ram.getStringAt(5, 6), is("DOMINO"));
+    }
+
+    @Test
+    public void copyToDestinationCrossingRegions() throws IOException {
+        MultiByteBufferRam ram = textRam();
+        byte[] dest = new byte[8];
+        ram.copyToDestination(2, dest, 1, 7);
+        assertThat(new String(dest, 1, 7, StandardCharsets.UTF_8), is("BA-DOMI"));
+
+        ByteBuffer buffer = ByteBuffer.allocate(6);
+        assertThat(ram.copyToDestination(5, 6, buffer), is(6L));
+        assertThat(new String(buffer.array(), StandardCharsets.UTF_8), is("DOMINO"));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertThat(ram.copyToDestination(3, 10, out), is(10L));
+        assertThat(new String(out.toByteArray(), StandardCharsets.UTF_8), is("A-DOMINO-7"));
+    }
+
+    @Test
+    public void typedValuesCrossingRegions() {
+        for (int index = 0; index < 9; index++) {
+            MultiByteBufferRam ram = ram(4, 4, 4, 4);
+            ram.putInt64At(index, 0x0102030405060708L);
+            assertThat(ram.getInt64At(index), is(0x0102030405060708L));
+            assertThat(ram.getInt32At(index + 4), is(0x05060708));
+            assertThat(ram.getInt16At(index + 6), is((short) 0x0708));
+
+            ram.putInt32At(index, 0xfedcba98);
+            assertThat(ram.getInt32At(index), is(0xfedcba98));
+            assertThat(ram.getUInt32At(index), is(0xfedcba98L));
+
+            ram.putUInt16At(index + 1, 0xffee);
+            assertThat(ram.getUInt16At(index + 1), is(0xffee));
+
+            ram.putDoubleAt(index, 1.5);
+            assertThat(ram.getDoubleAt(index), is(1.5));
+            ram.putFloatAt(index + 3, 2.5f);
+            assertThat(ram.getFloatAt(index + 3), is(2.5f));
+
+            ram.putUInt64At(index, ULong.fromUnsignedString("17777777777777788899"));
+            assertThat(ram.getUInt64At(index), is(ULong.fromUnsignedString("17777777777777788899")));
+            ram.putUInt64BitsAt(index, -3L);
+            assertThat(ram.getUInt64BitsAt(index), is(-3L));
+            assertThat(ram.getUInt64At(index, new MutableULong()).getSignedValue(), is(-3L));
+        }
+    }
+
+    @Test
+    public void bulkValuesCrossingRegions() {
+        // regions of 16 bytes, so that some values are inside and some cross the borders
+        ByteBuffer[] regions = {ByteBuffer.allocate(16), ByteBuffer.allocateDirect(16), ByteBuffer.allocate(16), ByteBuffer.allocate(16)};
+        MultiByteBufferRam ram = new MultiByteBufferRam(regions, 4);
+        for (int index = 0; index < 4; index++) {
+            long[] longs = {1L, -2L, 0x0102030405060708L, Long.MIN_VALUE, 5L, 6L};
+            ram.putInt64sAt(index, longs, 0, longs.length);
+            long[] readLongs = new long[longs.length + 1];
+            ram.getInt64sAt(index, readLongs, 1, longs.length);
+            for (int i = 0; i < longs.length; i++) {
+                assertThat(ram.getInt64At(index + i * 8), is(longs[i]));
+                assertThat(readLongs[i + 1], is(longs[i]));
+            }
+
+            int[] ints = new int[13];
+            short[] shorts = new short[26];
+            float[] floats = new float[13];
+            double[] doubles = new double[6];
+            for (int i = 0; i < ints.length; i++) {
+                ints[i] = i * 0x01010101;
+                floats[i] = i / 4f;
+            }
+            for (int i = 0; i < shorts.length; i++) {
+                shorts[i] = (short) (i * -0x0101);
+            }
+            for (int i = 0; i < doubles.length; i++) {
+                doubles[i] = i / 3d;
+            }
+
+            ram.putInt32sAt(index, ints, 0, ints.length);
+            int[] readInts = new int[ints.length];
+            ram.getInt32sAt(index, readInts, 0, ints.length);
+            assertThat(readInts, is(ints));
+            assertThat(ram.getInt32At(index + 12 * 4), is(ints[12]));
+
+            ram.putInt16sAt(index, shorts, 0, shorts.length);
+            short[] readShorts = new short[shorts.length];
+            ram.getInt16sAt(index, readShorts, 0, shorts.length);
+            assertThat(readShorts, is(shorts));
+            assertThat(ram.getInt16At(index + 25 * 2), is(shorts[25]));
+
+            ram.putFloatsAt(index, floats, 0, floats.length);
+            float[] readFloats = new float[floats.length];
+            ram.getFloatsAt(index, readFloats, 0, floats.length);
+            assertThat(readFloats, is(floats));
+
+            ram.putDoublesAt(index, doubles, 0, doubles.length);
+            double[] readDoubles = new double[doubles.length];
+            ram.getDoublesAt(index, readDoubles, 0, doubles.length);
+            assertThat(readDoubles, is(doubles));
+            assertThat(ram.getDoubleAt(index + 5 * 8), is(doubles[5]));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void bulkValuesAfterEnd() {
+        textRam().getInt32sAt(4, new int[3], 0, 3);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void bulkValuesOutsideOfArray() {
+        textRam().getInt16sAt(0, new short[3], 1, 3);
+    }
+
+    @Test
+    public void typedValuesMatchByteBuffer() {
+        MultiByteBufferRam ram = ram(4, 4, 4);
+        ram.putInt64At(3, 0x1122334455667788L);
+        ByteBuffer expected = ByteBuffer.allocate(12);
+        expected.putLong(3, 0x1122334455667788L);
+        assertThat(ram.getBytes(), is(expected.array()));
+    }
+
+    @Test
+    public void bulkValuesUseTheOrderOfTheRegions() {
+        ByteBuffer[] regions = {ByteBuffer.allocate(16).order(ByteOrder.LITTLE_ENDIAN), ByteBuffer.allocateDirect(16).order(ByteOrder.LITTLE_ENDIAN)};
+        MultiByteBufferRam ram = new MultiByteBufferRam(regions, 4);
+        // the second value crosses the border
+        ram.putInt64sAt(4, new long[]{0x0102030405060708L, 0x1112131415161718L, 0x2122232425262728L}, 0, 3);
+        ByteBuffer expected = ByteBuffer.allocate(32).order(ByteOrder.LITTLE_ENDIAN);
+        expected.putLong(4, 0x0102030405060708L).putLong(12, 0x1112131415161718L).putLong(20, 0x2122232425262728L);
+        assertThat(ram.getBytes(), is(expected.array()));
+        assertThat(ram.getInt64At(12), is(0x1112131415161718L));
+
+        ram.putInt64At(12, 0x3132333435363738L);
+        long[] longs = new long[3];
+        ram.getInt64sAt(4, longs, 0, 3);
+        assertThat(longs, is(new long[]{0x0102030405060708L, 0x3132333435363738L, 0x2122232425262728L}));
+        assertThat(((ByteBufferRoRam) ram.getDataAt(4, 8)).getInt64At(0), is(0x0102030405060708L));
+    }
+
+    @Test
+    public void getDataInsideOneRegion() {
+        MultiByteBufferRam ram = textRam();
+        ReadOnlyRandomAccessMemory data = ram.getDataAt(4, 4);
+        assertThat(data, instanceOf(ByteBufferRoRam.class));
+        assertThat(new String(data.getBytes(), StandardCharsets.UTF_8), is("-DOM"));
+    }
+
+    @Test
+    public void getDataCrossingRegions() {
+        MultiByteBufferRam ram = textRam();
+        ReadOnlyRandomAccessMemory data = ram.getDataAt(5, 6);
+        assertThat(data, instanceOf(MultiByteBufferRoRam.class));
+        assertThat(data.size(), is(6L));
+        assertThat(new String(data.getBytes(), StandardCharsets.UTF_8), is("DOMINO"));
+        assertThat(((MultiByteBufferRoRam) data).getStringAt(2, 4), is("MINO"));
+    }
+
+    @Test
+    public void copyFromSourceCrossingRegions() throws IOException {
+        MultiByteBufferRam ram = textRam();
+        ram.copyFromSource(2, "xyzuvw".getBytes(StandardCharsets.UTF_8), 1, 5);
+        assertThat(new String(ram.getBytes(), StandardCharsets.UTF_8), is("AByzuvwMINO-78"));
+
+        ByteBuffer source = ByteBuffer.wrap("12345".getBytes(StandardCharsets.UTF_8));
+        assertThat(ram.copyFromSource(10, source), is(4L));
+        assertThat(source.remaining(), is(1));
+        assertThat(new String(ram.getBytes(), StandardCharsets.UTF_8), is("AByzuvwMIN1234"));
+
+        assertThat(ram.copyFromSource(1, new ByteArrayInputStream("abcdefg".getBytes(StandardCharsets.UTF_8))), is(7L));
+        assertThat(new String(ram.getBytes(), StandardCharsets.UTF_8), is("AabcdefgIN1234"));
+
+        assertThat(ram.copyFromSource(0, Channels.newChannel(new ByteArrayInputStream("__".getBytes(StandardCharsets.UTF_8)))), is(2L));
+        assertThat(new String(ram.getBytes(), StandardCharsets.UTF_8), is("__bcdefgIN1234"));
+    }
+
+    @Test
+    public void putDataCrossingRegions() {
+        MultiByteBufferRam ram = textRam();
+        ram.putDataAt(3, new ByteBufferRoRam(ByteBuffer.wrap("0123456789".getBytes(StandardCharsets.UTF_8))), 2, 6);
+        assertThat(new String(ram.getBytes(), StandardCharsets.UTF_8), is("ABB234567NO-78"));
+    }
+
+    @Test
+    public void putStringCrossingRegions() {
+        MultiByteBufferRam ram = textRam();
+        ram.putStringAt(2, "Ölfaß");
+        assertThat(ram.getStringAt(2, 7), is("Ölfaß"));
+        ram.putStringAt(9, "xxABxx", 2, 2);
+        assertThat(ram.getStringAt(9, 2), is("AB"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void putStringAfterEnd() {
+        textRam().putStringAt(10, "Ölfaß");
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void typedReadAfterEnd() {
+        textRam().getInt32At(11);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void typedReadBeforeStart() {
+        textRam().getInt16At(-1);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void typedReadAfterEndOfView() {
+        ((MultiByteBufferRoRam) textRam().getDataAt(2, 6)).getInt32At(4);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void byteReadAfterEnd() {
+        textRam().getByteAt(14);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void copyAfterEnd() {
+        textRam().copyToDestination(10, new byte[5]);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidUInt16() {
+        textRam().putUInt16At(0, 0x10000);
+    }
+
+    private static MultiByteBufferRam textRam() {
+        ByteBuffer[] regions = new ByteBuffer[4];
+        for (int i = 0; i < regions.length; i++) {
+            regions[i] = ByteBuffer.allocate(Math.min(4, TEXT.length - i * 4));
+            regions[i].put(TEXT, i * 4, regions[i].limit());
+        }
+        return new MultiByteBufferRam(regions, 2);
+    }
+
+    private static MultiByteBufferRam ram(int... sizes) {
+        ByteBuffer[] regions = new ByteBuffer[sizes.length];
+        for (int i = 0; i < sizes.length; i++) {
+            regions[i] = i % 2 == 0 ? ByteBuffer.allocate(sizes[i]) : ByteBuffer.allocateDirect(sizes[i]);
+        }
+        return new MultiByteBufferRam(regions, 2);
+    }
+}
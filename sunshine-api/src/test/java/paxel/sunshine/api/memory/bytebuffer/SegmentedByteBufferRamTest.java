@@ -0,0 +1,161 @@
+package paxel.sunshine.api.memory.bytebuffer;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+import paxel.sunshine.api.memory.ReadOnlyRandomAccessMemory;
+
+public class SegmentedByteBufferRamTest {
+
+    @Test
+    public void startsEmpty() {
+        SegmentedByteBufferRam ram = new SegmentedByteBufferRam();
+        assertThat(ram.size(), is(0L));
+        assertThat(ram.capacity(), is(0L));
+        assertThat(ram.getSegments(), is(0));
+        assertThat(ram.getRegionSize(), is(1 << SegmentedByteBufferRam.DEFAULT_SEGMENT_SHIFT));
+    }
+
+    @Test
+    public void allocateAddsSegments() {
+        SegmentedByteBufferRam ram = new SegmentedByteBufferRam(3, ByteBuffer::allocate);
+        assertThat(ram.allocate(5), is(5L));
+        assertThat(ram.getSegments(), is(1));
+        assertThat(ram.allocate(3), is(8L));
+        assertThat(ram.getSegments(), is(1));
+        assertThat(ram.allocate(100), is(108L));
+        assertThat(ram.getSegments(), is(14));
+        assertThat(ram.capacity(), is(112L));
+        assertThat(ram.size(), is(108L));
+    }
+
+    @Test
+    public void growingDoesNotMoveExistingBytes() {
+        SegmentedByteBufferRam ram = new SegmentedByteBufferRam(3, ByteBuffer::allocateDirect);
+        ram.allocate(8);
+        ram.putStringAt(0, "sunshine");
+        ReadOnlyRandomAccessMemory view = ram.getDataAt(0, 8);
+        ram.allocate(1000);
+        ram.putByteAt(0, (byte) 'S');
+        assertThat(new String(view.getBytes(), StandardCharsets.UTF_8), is("Sunshine"));
+        assertThat(ram.getStringAt(0, 8), is("Sunshine"));
+    }
+
+    @Test
+    public void valuesCrossingSegments() {
+        SegmentedByteBufferRam ram = new SegmentedByteBufferRam(2, ByteBuffer::allocate);
+        ram.allocate(3);
+        ram.putStringAt(0, "obj");
+        ram.allocate(2);
+        ram.putUInt16At(3, 0xffff);
+        ram.allocate(4);
+        ram.putUInt32At(5, 0xffff_fffeL);
+        ram.allocate(8);
+        ram.putDoubleAt(9, Math.PI);
+
+        assertThat(ram.getStringAt(0, 3), is("obj"));
+        assertThat(ram.getUInt16At(3), is(0xffff));
+        assertThat(ram.getUInt32At(5), is(0xffff_fffeL));
+        assertThat(ram.getDoubleAt(9), is(Math.PI));
+        assertThat(ram.getSegments(), is(5));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void writeBehindSizeFails() {
+        SegmentedByteBufferRam ram = new SegmentedByteBufferRam(4, ByteBuffer::allocate);
+        ram.allocate(6);
+        ram.putInt32At(4, 1);
+    }
+
+    @Test
+    public void clearReusesSegments() {
+        SegmentedByteBufferRam ram = new SegmentedByteBufferRam(4, ByteBuffer::allocate);
+        ram.allocate(40);
+        ram.clear();
+        assertThat(ram.size(), is(0L));
+        ram.allocate(20);
+        assertThat(ram.getSegments(), is(3));
+        assertThat(ram.size(), is(20L));
+    }
+
+    @Test
+    public void gatheringWrite() throws IOException {
+        SegmentedByteBufferRam ram = new SegmentedByteBufferRam(2, ByteBuffer::allocate);
+        ram.allocate(14);
+        ram.putStringAt(0, "ABBA-DOMINO-78");
+        RecordingChannel channel = new RecordingChannel();
+
+        assertThat(ram.writeTo(channel), is(14L));
+        assertThat(channel.gatheringWrites, is(1));
+        assertThat(new String(channel.out.toByteArray(), StandardCharsets.UTF_8), is("ABBA-DOMINO-78"));
+
+        channel.out.reset();
+        assertThat(ram.copyToDestination(3, 9, channel), is(9L));
+        assertThat(channel.gatheringWrites, is(2));
+        assertThat(new String(channel.out.toByteArray(), StandardCharsets.UTF_8), is("A-DOMINO-"));
+    }
+
+    @Test
+    public void stopWritingWhenTheChannelIsFull() throws IOException {
+        SegmentedByteBufferRam ram = new SegmentedByteBufferRam(2, ByteBuffer::allocate);
+        ram.allocate(14);
+        ram.putStringAt(0, "ABBA-DOMINO-78");
+        RecordingChannel channel = new RecordingChannel();
+        channel.capacity = 6;
+
+        assertThat(ram.writeTo(channel), is(6L));
+        assertThat(new String(channel.out.toByteArray(), StandardCharsets.UTF_8), is("ABBA-D"));
+    }
+
+    /**
+     * Records the written bytes. Like a non-blocking channel it accepts no more
+     * bytes once the capacity is reached.
+     */
+    private static class RecordingChannel implements GatheringByteChannel {
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        private int gatheringWrites;
+        private int capacity = Integer.MAX_VALUE;
+
+        @Override
+        public long write(ByteBuffer[] srcs, int offset, int length) {
+            gatheringWrites++;
+            long written = 0;
+            for (int i = offset; i < offset + length; i++) {
+                written += write(srcs[i]);
+            }
+            return written;
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs) {
+            return write(srcs, 0, srcs.length);
+        }
+
+        @Override
+        public int write(ByteBuffer src) {
+            int written = 0;
+            while (src.hasRemaining() && out.size() < capacity) {
+                out.write(src.get());
+                written++;
+            }
+            return written;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
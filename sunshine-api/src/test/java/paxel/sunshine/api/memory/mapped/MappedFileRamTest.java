@@ -0,0 +1,85 @@
+package paxel.sunshine.api.memory.mapped;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import paxel.sunshine.api.memory.ReadOnlyRandomAccessMemory;
+
+public class MappedFileRamTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void createAndWrite() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("new.sun");
+        try (MappedFileRam ram = MappedFileRam.open(file, 20, 3)) {
+            ram.putStringAt(0, "sun");
+            ram.putInt32At(3, 9);
+            ram.putInt64At(7, 0x0102030405060708L);
+            ram.putUByteAt(15, (short) 0xfe);
+        }
+        ByteBuffer expected = ByteBuffer.allocate(20);
+        expected.put("sun".getBytes(StandardCharsets.UTF_8)).putInt(9).putLong(0x0102030405060708L).put((byte) 0xfe);
+        assertThat(Files.readAllBytes(file), is(expected.array()));
+    }
+
+    @Test
+    public void modifyExistingFile() throws IOException {
+        Path file = folder.newFile().toPath();
+        Files.write(file, "ABBA-DOMINO-78".getBytes(StandardCharsets.UTF_8));
+        try (MappedFileRam ram = MappedFileRam.open(file)) {
+            assertThat(ram.size(), is(14L));
+            ram.putStringAt(5, "LOTTO!");
+            ram.force();
+            assertThat(new String(Files.readAllBytes(file), StandardCharsets.UTF_8), is("ABBA-LOTTO!-78"));
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void viewAccessAfterClose() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("view.sun");
+        ReadOnlyRandomAccessMemory view;
+        try (MappedFileRam ram = MappedFileRam.open(file, 20, 3)) {
+            view = ram.getDataAt(2, 4);
+        }
+        view.getByteAt(0);
+    }
+
+    /**
+     * Creates a sparse file of more than 2 GB. Run with the large-files profile
+     * ({@code mvn -P large-files test}) or -Dsunshine.largeFiles=true.
+     */
+    @Test
+    public void indexBeyondTwoGigabytes() throws IOException {
+        assumeTrue(Boolean.getBoolean("sunshine.largeFiles"));
+        Path file = folder.newFile().toPath();
+        long size = (1L << 31) + 64;
+        try (RandomAccessFile sparse = new RandomAccessFile(file.toFile(), "rw")) {
+            sparse.setLength(size);
+        }
+        long index = (1L << 31) + 12;
+        try (MappedFileRam ram = MappedFileRam.open(file)) {
+            assertThat(ram.size(), is(size));
+            ram.putInt64At(index, Long.MAX_VALUE);
+            ram.putInt64At((1L << 30) - 4, Long.MIN_VALUE);
+        }
+        try (MappedFileRoRam ram = MappedFileRoRam.open(file)) {
+            assertThat(ram.getInt64At(index), is(Long.MAX_VALUE));
+            assertThat(ram.getInt64At((1L << 30) - 4), is(Long.MIN_VALUE));
+            assertThat(ram.getInt32At(size - 4), is(0));
+        }
+    }
+}
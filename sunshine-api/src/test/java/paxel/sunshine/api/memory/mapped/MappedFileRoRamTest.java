@@ -0,0 +1,74 @@
+package paxel.sunshine.api.memory.mapped;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class MappedFileRoRamTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void readWholeFile() throws IOException {
+        Path file = write("ABBA-DOMINO-78".getBytes(StandardCharsets.UTF_8));
+        try (MappedFileRoRam ram = MappedFileRoRam.open(file)) {
+            assertThat(ram.getFile(), is(file));
+            assertThat(ram.size(), is(14L));
+            assertThat(ram.getStringAt(5, 6), is("DOMINO"));
+        }
+    }
+
+    @Test
+    public void readFramesCrossingRegions() throws IOException {
+        ByteBuffer frames = ByteBuffer.allocate(3 * 11);
+        for (int i = 0; i < 3; i++) {
+            frames.put("sun".getBytes(StandardCharsets.UTF_8));
+            frames.putInt(4);
+            frames.putInt(0x01020300 + i);
+        }
+        try (MappedFileRoRam ram = MappedFileRoRam.open(write(frames.array()), 3)) {
+            assertThat(ram.getRegionSize(), is(8));
+            for (int i = 0; i < 3; i++) {
+                long frame = i * 11L;
+                assertThat(ram.getStringAt(frame, 3), is("sun"));
+                assertThat(ram.getInt32At(frame + 3), is(4));
+                assertThat(ram.getInt32At(frame + 7), is(0x01020300 + i));
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            ram.copyToDestination(0, (int) ram.size(), out);
+            assertThat(out.toByteArray(), is(frames.array()));
+        }
+    }
+
+    @Test
+    public void emptyFile() throws IOException {
+        try (MappedFileRoRam ram = MappedFileRoRam.open(write(new byte[0]))) {
+            assertThat(ram.size(), is(0L));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void accessAfterClose() throws IOException {
+        MappedFileRoRam ram = MappedFileRoRam.open(write(new byte[10]));
+        ram.close();
+        ram.close();
+        ram.getByteAt(0);
+    }
+
+    private Path write(byte[] content) throws IOException {
+        Path file = folder.newFile().toPath();
+        Files.write(file, content);
+        return file;
+    }
+}
@@ -0,0 +1,83 @@
+package paxel.sunshine.api.memory.offheap;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+import paxel.sunshine.api.memory.ReadOnlyRandomAccessMemory;
+
+public class OffHeapRamTest {
+
+    @Test
+    public void allocateInRegions() {
+        try (OffHeapRam ram = OffHeapRam.allocate(100, 4)) {
+            assertThat(ram.size(), is(100L));
+            assertThat(ram.getCapacity(), is(100L));
+            assertThat(ram.getRegionSize(), is(16));
+            assertThat(ram.getBytes().length, is(100));
+        }
+    }
+
+    @Test
+    public void readAndWriteTypedValues() {
+        try (OffHeapRam ram = OffHeapRam.allocate(64, 4)) {
+            ram.putInt64At(12, Long.MIN_VALUE);
+            ram.putInt32At(30, Integer.MAX_VALUE);
+            ram.putStringAt(40, "sunshine");
+            assertThat(ram.getInt64At(12), is(Long.MIN_VALUE));
+            assertThat(ram.getInt32At(30), is(Integer.MAX_VALUE));
+            assertThat(ram.getStringAt(40, 8), is("sunshine"));
+            assertThat(new String(ram.getDataAt(44, 4).getBytes(), StandardCharsets.UTF_8), is("hine"));
+        }
+    }
+
+    @Test
+    public void defaultRegionSize() {
+        try (OffHeapRam ram = OffHeapRam.allocate(10)) {
+            assertThat(ram.getRegionSize(), is(1 << OffHeapRam.DEFAULT_REGION_SHIFT));
+            ram.putInt16At(8, (short) -2);
+            assertThat(ram.getInt16At(8), is((short) -2));
+        }
+    }
+
+    @Test
+    public void releaseIsIdempotent() {
+        OffHeapRam ram = OffHeapRam.allocate(32, 4);
+        assertThat(ram.isReleased(), is(false));
+        ram.release();
+        ram.release();
+        assertThat(ram.isReleased(), is(true));
+        assertThat(ram.size(), is(0L));
+        assertThat(ram.getCapacity(), is(32L));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void typedAccessAfterRelease() {
+        OffHeapRam ram = OffHeapRam.allocate(32, 4);
+        ram.release();
+        ram.getInt32At(0);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void viewAccessAfterRelease() {
+        OffHeapRam ram = OffHeapRam.allocate(32, 4);
+        ReadOnlyRandomAccessMemory view = ram.getDataAt(2, 4);
+        ram.release();
+        view.getByteAt(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void byteAccessAfterRelease() {
+        OffHeapRam ram = OffHeapRam.allocate(32, 4);
+        ram.close();
+        ram.putByteAt(0, (byte) 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativeSize() {
+        OffHeapRam.allocate(-1);
+    }
+}
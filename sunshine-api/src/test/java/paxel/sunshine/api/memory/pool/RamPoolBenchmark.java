@@ -0,0 +1,77 @@
+package paxel.sunshine.api.memory.pool;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import paxel.sunshine.api.memory.bytebuffer.ByteBufferRam;
+
+/**
+ * Compares acquiring and releasing a RAM from the {@link RamPool} with wrapping
+ * a freshly allocated buffer, on heap and direct buffers. Run it with the
+ * benchmark profile ({@code mvn -P benchmark verify}) or via
+ * {@link #main(String[])}. Both use the GC profiler, so the allocation per
+ * operation is reported next to the time.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RamPoolBenchmark {
+
+    @Param({"false", "true"})
+    public boolean direct;
+
+    @Param({"256", "65536"})
+    public int payloadSize;
+
+    private RamPool pool;
+
+    @Setup
+    public void setUp() {
+        pool = direct ? RamPool.direct() : RamPool.heap();
+    }
+
+    @Benchmark
+    public long acquireAndRelease() {
+        PooledRam ram = pool.acquire(payloadSize);
+        ram.putInt64At(0, 17L);
+        long result = ram.getInt64At(0);
+        ram.release();
+        return result;
+    }
+
+    @Benchmark
+    public long allocate() {
+        ByteBuffer buffer = direct ? ByteBuffer.allocateDirect(payloadSize) : ByteBuffer.allocate(payloadSize);
+        ByteBufferRam ram = new ByteBufferRam(buffer);
+        ram.putInt64At(0, 17L);
+        return ram.getInt64At(0);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(RamPoolBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,151 @@
+package paxel.sunshine.api.memory.pool;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNot.not;
+import static org.hamcrest.core.IsSame.sameInstance;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.Test;
+
+public class RamPoolTest {
+
+    @Test
+    public void acquireInSizeClass() {
+        RamPool pool = RamPool.heap();
+        PooledRam ram = pool.acquire(100);
+        assertThat(ram.size(), is(100L));
+        assertThat(ram.getCapacity(), is(128));
+        assertThat(ram.isAcquired(), is(true));
+        assertThat(pool.getMisses(), is(1L));
+        assertThat(pool.getHits(), is(0L));
+        assertThat(pool.getBytesOutstanding(), is(128L));
+
+        ram.putStringAt(0, "ABBA");
+        assertThat(ram.getStringAt(0, 4), is("ABBA"));
+    }
+
+    @Test
+    public void releasedRamIsReused() {
+        RamPool pool = RamPool.direct();
+        PooledRam ram = pool.acquire(100);
+        ram.release();
+        assertThat(ram.isAcquired(), is(false));
+        assertThat(pool.getBytesOutstanding(), is(0L));
+
+        PooledRam second = pool.acquire(65);
+        assertThat(second, is(sameInstance(ram)));
+        assertThat(second.size(), is(65L));
+        assertThat(pool.getHits(), is(1L));
+        assertThat(pool.getMisses(), is(1L));
+        second.close();
+    }
+
+    @Test
+    public void differentSizeClassesAreNotMixed() {
+        RamPool pool = RamPool.heap();
+        PooledRam small = pool.acquire(10);
+        small.release();
+        PooledRam big = pool.acquire(1000);
+        assertThat(big.getCapacity(), is(1024));
+        assertThat(pool.getMisses(), is(2L));
+        assertThat(pool.capacityFor(0), is(64));
+        assertThat(pool.capacityFor(64), is(64));
+        assertThat(pool.capacityFor(65), is(128));
+        assertThat(pool.capacityFor(1 << 20), is(1 << 20));
+    }
+
+    @Test
+    public void oversizedRamsAreNotPooled() {
+        RamPool pool = new RamPool(ByteBuffer::allocate, 4, 6, 2, 2, null);
+        PooledRam ram = pool.acquire(100);
+        assertThat(ram.getCapacity(), is(100));
+        assertThat(pool.getBytesOutstanding(), is(100L));
+        ram.release();
+        assertThat(pool.getBytesOutstanding(), is(0L));
+        assertThat(pool.acquire(100), is(not(sameInstance(ram))));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void doubleRelease() {
+        PooledRam ram = RamPool.heap().acquire(10);
+        ram.release();
+        ram.release();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativeSize() {
+        RamPool.heap().acquire(-1);
+    }
+
+    @Test
+    public void ramsReleasedInOtherThreadAreShared() throws InterruptedException {
+        RamPool pool = new RamPool(ByteBuffer::allocate, 4, 6, 0, 2, null);
+        PooledRam ram = pool.acquire(10);
+        Thread thread = new Thread(ram::release);
+        thread.start();
+        thread.join();
+        assertThat(pool.acquire(10), is(sameInstance(ram)));
+        assertThat(pool.getHits(), is(1L));
+    }
+
+    @Test
+    public void closeEmptiesTheCachesOfAllThreads() throws InterruptedException {
+        RamPool pool = RamPool.heap();
+        PooledRam kept = pool.acquire(10);
+        Thread thread = new Thread(() -> pool.acquire(10).release());
+        thread.start();
+        thread.join();
+        pool.close();
+        // released after the close and dropped
+        kept.release();
+        assertThat(pool.getBytesOutstanding(), is(0L));
+        assertThat(pool.getMisses(), is(2L));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void acquireAfterClose() {
+        RamPool pool = RamPool.heap();
+        pool.close();
+        pool.acquire(10);
+    }
+
+    @Test
+    public void threadCacheOverflowsIntoSharedCache() {
+        RamPool pool = new RamPool(ByteBuffer::allocate, 4, 6, 1, 1, null);
+        PooledRam first = pool.acquire(10);
+        PooledRam second = pool.acquire(10);
+        PooledRam third = pool.acquire(10);
+        first.release();
+        second.release();
+        // neither cache has room for the third
+        third.release();
+        assertThat(pool.acquire(10), is(sameInstance(first)));
+        assertThat(pool.acquire(10), is(sameInstance(second)));
+        assertThat(pool.getHits(), is(2L));
+    }
+
+    @Test
+    public void leakDetection() throws InterruptedException {
+        List<Throwable> leaks = new CopyOnWriteArrayList<>();
+        RamPool pool = new RamPool(ByteBuffer::allocate, 4, 6, 1, 1, leaks::add);
+        pool.acquire(10).release();
+        leak(pool);
+        for (int i = 0; i < 100 && leaks.isEmpty(); i++) {
+            System.gc();
+            Thread.sleep(10);
+            pool.checkLeaks();
+        }
+        assertThat(leaks.size(), is(1));
+        assertThat(pool.getLeaks(), is(1L));
+        assertThat(pool.getBytesOutstanding(), is(0L));
+        assertThat(leaks.get(0).getStackTrace()[2].getMethodName(), is("leak"));
+    }
+
+    private static void leak(RamPool pool) {
+        pool.acquire(20);
+    }
+}
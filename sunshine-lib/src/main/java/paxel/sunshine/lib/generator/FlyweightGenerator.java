@@ -0,0 +1,822 @@
+package paxel.sunshine.lib.generator;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+
+import paxel.sunshine.lib.schema.BasicType;
+import paxel.sunshine.lib.schema.ConstantDefinition;
+import paxel.sunshine.lib.schema.MemberDefinition;
+import paxel.sunshine.lib.schema.ObjectDefinition;
+import paxel.sunshine.lib.schema.Schema;
+import paxel.sunshine.lib.schema.SchemaParser;
+import paxel.sunshine.lib.schema.StaticLayout;
+import paxel.sunshine.runtime.message.StaticBlocks;
+
+/**
+ * Generates the Java classes of a schema: one flyweight class per Object and
+ * the SchemaData of the whole schema.
+ * <p>
+ * A flyweight doesn't copy any values. It is pointed to an ObjectData with
+ * {@code init} and can be pointed to the next one afterwards, so a single
+ * instance can be reused for all messages. The position of each static value is
+ * known by the generator, so each static getter is a single typed read of the
+ * RAM at a constant offset from the start of the static block. Only the values
+ * that cross the border of two static block chunks are read byte by byte.
+ * <p>
+ * Getters of numbers, Bools and references don't allocate. Getters of Strings,
+ * Binaries, UInt64 and referenced Objects without target do.
+ */
+public final class FlyweightGenerator {
+
+    private static final String WRITABLE_RAM = "objectData.getWritableRam()";
+
+    private final Schema schema;
+    private final String packageName;
+    private final String schemaClassName;
+
+    /**
+     * Constructs a generator.
+     *
+     * @param schema          The schema.
+     * @param packageName     The package of the generated classes.
+     * @param schemaClassName The name of the generated SchemaData class.
+     */
+    public FlyweightGenerator(Schema schema, String packageName, String schemaClassName) {
+        this.schema = requireNonNull(schema);
+        this.packageName = requireNonNull(packageName);
+        this.schemaClassName = requireNonNull(schemaClassName);
+        if (schema.getObject(schemaClassName) != null) {
+            throw new IllegalArgumentException(schemaClassName + " is the name of an Object");
+        }
+    }
+
+    public String getPackageName() {
+        return packageName;
+    }
+
+    public String getSchemaClassName() {
+        return schemaClassName;
+    }
+
+    /**
+     * Generates the sources.
+     *
+     * @return the sources by simple class name in schema order, followed by the
+     * SchemaData.
+     */
+    public Map<String, String> generate() {
+        Map<String, String> sources = new LinkedHashMap<>();
+        for (ObjectDefinition object : schema.getObjects()) {
+            sources.put(object.getName(), generateObject(object));
+        }
+        sources.put(schemaClassName, generateSchemaData());
+        return sources;
+    }
+
+    /**
+     * Generates the sources into a source directory.
+     *
+     * @param sourceRoot The root of the source directory. The package directories
+     *                   are created if necessary.
+     * @return the written files.
+     * @throws IOException in case the files can't be written.
+     */
+    public List<Path> writeTo(Path sourceRoot) throws IOException {
+        Path directory = sourceRoot.resolve(packageName.replace('.', '/'));
+        Files.createDirectories(directory);
+        List<Path> files = new ArrayList<>();
+        for (Map.Entry<String, String> source : generate().entrySet()) {
+            Path file = directory.resolve(source.getKey() + ".java");
+            Files.write(file, source.getValue().getBytes(StandardCharsets.UTF_8));
+            files.add(file);
+        }
+        return files;
+    }
+
+    /**
+     * Generates the sources of a schema file.
+     *
+     * @param args The schema file, the package, the name of the SchemaData class
+     *             and the source root.
+     * @throws IOException in case the files can't be read or written.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 4) {
+            System.err.println("usage: FlyweightGenerator <schema file> <package> <schema class> <source root>");
+            System.exit(1);
+        }
+        Schema schema;
+        try (Reader reader = Files.newBufferedReader(Paths.get(args[0]), StandardCharsets.UTF_8)) {
+            schema = SchemaParser.parse(reader);
+        }
+        for (Path file : new FlyweightGenerator(schema, args[1], args[2]).writeTo(Paths.get(args[3]))) {
+            System.out.println(file);
+        }
+    }
+
+    private String generateObject(ObjectDefinition object) {
+        Set<String> imports = new TreeSet<>();
+        imports.add("paxel.sunshine.runtime.message.ObjectData");
+        imports.add("paxel.sunshine.runtime.message.SunshineObject");
+        SourceBuilder body = new SourceBuilder();
+        boolean hasStaticBlock = object.getStaticBlockLength() > 0;
+
+        body.line("public static final int TYPE_ID = %d;", object.getTypeId());
+        body.line("public static final int STATIC_BLOCK_LENGTH = %d;", object.getStaticBlockLength());
+        if (object.getLayout() != StaticLayout.PACKED) {
+            body.line("public static final int STATIC_BLOCK_ALIGNMENT = %d;", Long.BYTES);
+        }
+        for (MemberDefinition member : object.getMembers()) {
+            if (member.getKind() == MemberDefinition.Kind.ARRAY) {
+                body.line("public static final int %s_LENGTH = %d;", constantName(member.getName()), member.getLength());
+            }
+        }
+        if (!object.getConstants().isEmpty()) {
+            body.line("");
+            for (ConstantDefinition constant : object.getConstants()) {
+                body.line("public static final %s %s = %s;", constantType(constant.getType(), imports), constant.getName(),
+                        constantValue(constant, imports));
+            }
+        }
+        if (object.getDynamicValueCount() > 0) {
+            body.line("");
+            for (MemberDefinition member : object.getMembers()) {
+                if (!member.isStatic()) {
+                    body.line("private static final int %s = %d;", valueIdName(member), member.getValueId());
+                }
+            }
+        }
+        body.line("");
+        body.line("private ObjectData objectData;");
+        if (hasStaticBlock) {
+            imports.add("paxel.sunshine.api.memory.RichReadOnlyRandomAccessMemory");
+            body.line("private RichReadOnlyRandomAccessMemory staticBlockRam;");
+            body.line("private boolean staticBlockCopied;");
+        }
+        body.line("");
+        body.line("@Override");
+        body.open("public void init(ObjectData objectData)");
+        body.line("this.objectData = objectData;");
+        if (hasStaticBlock) {
+            imports.add("paxel.sunshine.runtime.message.StaticBlocks");
+            body.open("if (objectData.getStaticBlockLength() >= STATIC_BLOCK_LENGTH)");
+            body.line("staticBlockRam = objectData.getRam();");
+            body.line("staticBlockCopied = false;");
+            body.reopen("else");
+            body.line("// written by an older version of the schema: the missing values are 0");
+            body.line("staticBlockRam = StaticBlocks.copy(objectData, STATIC_BLOCK_LENGTH);");
+            body.line("staticBlockCopied = true;");
+            body.close();
+        }
+        body.close();
+        body.line("");
+        body.line("/**");
+        body.line(" * Retrieve the object this instance points to.");
+        body.line(" *");
+        body.line(" * @return the object or {@code null} if the instance was not initialized.");
+        body.line(" */");
+        body.open("public ObjectData getObjectData()");
+        body.line("return objectData;");
+        body.close();
+
+        for (MemberDefinition member : object.getMembers()) {
+            if (member.isStatic()) {
+                generateStatic(member, body, imports);
+            } else {
+                generateDynamic(member, body, imports);
+            }
+        }
+        if (hasStaticBlock) {
+            body.line("");
+            body.line("/**");
+            body.line(" * Retrieve the index of the static block for the getters. It is not cached, because a growth or");
+            body.line(" * compaction of a mutable message can move the object.");
+            body.line(" */");
+            body.open("private long staticBlock()");
+            body.line("return staticBlockCopied ? 0 : objectData.getStaticBlockIndex(0);");
+            body.close();
+            body.line("");
+            body.line("/**");
+            body.line(" * Retrieve the index of the static block for the setters. It is not cached, because the object");
+            body.line(" * can be moved in a mutable message.");
+            body.line(" */");
+            body.open("private long writableStaticBlock()");
+            body.open("if (objectData.getStaticBlockLength() < STATIC_BLOCK_LENGTH)");
+            body.line("throw new IllegalStateException(\"the static block of an older schema version can't be updated\");");
+            body.close();
+            body.line("return objectData.getStaticBlockIndex(0);");
+            body.close();
+        }
+
+        SourceBuilder source = new SourceBuilder();
+        source.line("package %s;", packageName);
+        source.line("");
+        String group = null;
+        for (String imported : imports) {
+            String next = imported.startsWith("java.") ? "java" : "other";
+            if (group != null && !group.equals(next)) {
+                source.line("");
+            }
+            group = next;
+            source.line("import %s;", imported);
+        }
+        source.line("");
+        source.line("/**");
+        source.line(" * The flyweight of the Object %s. Generated from the schema, do not edit.", object.getName());
+        if (hasStaticBlock) {
+            source.line(" * <p>");
+            source.line(" * The static block layout %s:", object.getLayout().getDirective() == null
+                    ? "in declaration order" : object.getLayout().getDirective());
+            source.line(" * <pre>");
+            source.line(" * offset  size name");
+            for (MemberDefinition member : object.getMembers()) {
+                if (member.isStatic()) {
+                    source.line(" * %6d %5d %s", member.getStaticOffset(), member.getStaticSize(), member.getName());
+                }
+            }
+            source.line(" * </pre>");
+        }
+        source.line(" */");
+        source.open("public final class %s implements SunshineObject", object.getName());
+        source.line("");
+        source.append(body);
+        source.close();
+        return source.toString();
+    }
+
+    private void generateStatic(MemberDefinition member, SourceBuilder body, Set<String> imports) {
+        String name = capitalize(member.getName());
+        int offset = member.getStaticOffset();
+        boolean split = StaticBlocks.crossesChunk(offset, member.getStaticSize());
+        long physicalOffset = StaticBlocks.physicalOffset(offset);
+        String physical = "staticBlock()" + (physicalOffset == 0 ? "" : " + " + physicalOffset);
+        String writable = "writableStaticBlock()" + (physicalOffset == 0 ? "" : " + " + physicalOffset);
+        BasicType type = member.getBasicType();
+        if (member.getKind() == MemberDefinition.Kind.ARRAY) {
+            int size = member.getElementSize();
+            String element = "StaticBlocks.checkIndex(index, " + constantName(member.getName()) + "_LENGTH) * " + size;
+            if (split) {
+                // only the elements that cross a chunk border are accessed byte by byte
+                String prelude = "int elementOffset = " + offset + " + " + element + ";";
+                String elementIndex = " + StaticBlocks.physicalOffset(elementOffset)";
+                generateElement(member, name, "int index", "index",
+                        Access.chunked(prelude, Access.typed("staticBlockRam", "staticBlock()" + elementIndex), size), body, imports);
+                generateSetter(member, name, "int index, ",
+                        Access.chunked(prelude, Access.typed(WRITABLE_RAM, "writableStaticBlock()" + elementIndex), size), body, imports);
+            } else {
+                generateElement(member, name, "int index", "index", Access.typed("staticBlockRam", physical + " + " + element),
+                        body, imports);
+                generateSetter(member, name, "int index, ", Access.typed(WRITABLE_RAM, writable + " + " + element), body, imports);
+            }
+            return;
+        }
+        Access access = split ? Access.split(String.valueOf(offset), member.getElementSize()) : Access.typed("staticBlockRam", physical);
+        if (member.isObject() || type.isPrimitive()) {
+            generateElement(member, name, "", "", access, body, imports);
+            generateSetter(member, name, "", split ? access : Access.typed(WRITABLE_RAM, writable), body, imports);
+        } else if (type == BasicType.FIX_STRING) {
+            body.line("");
+            body.open("public String get%s()", name);
+            body.line("return %s;", split
+                    ? "StaticBlocks.getFixString(staticBlockRam, staticBlock(), " + offset + ", " + member.getSize() + ")"
+                    : "staticBlockRam.getFixStringAt(" + physical + ", " + member.getSize() + ")");
+            body.close();
+            body.line("");
+            body.open("public void set%s(String %s)", name, member.getName());
+            body.line("StaticBlocks.putFixString(%s, writableStaticBlock(), %d, %d, %s);", WRITABLE_RAM, offset, member.getSize(),
+                    member.getName());
+            body.close();
+        } else {
+            imports.add("paxel.sunshine.api.memory.ReadOnlyRandomAccessMemory");
+            body.line("");
+            body.open("public ReadOnlyRandomAccessMemory get%s()", name);
+            body.line("return %s;", split
+                    ? "StaticBlocks.getFixBinary(staticBlockRam, staticBlock(), " + offset + ", " + member.getSize() + ")"
+                    : "staticBlockRam.getDataAt(" + physical + ", " + member.getSize() + ")");
+            body.close();
+            body.line("");
+            body.open("public void set%s(ReadOnlyRandomAccessMemory %s)", name, member.getName());
+            body.line("StaticBlocks.putFixBinary(%s, writableStaticBlock(), %d, %d, %s);", WRITABLE_RAM, offset, member.getSize(),
+                    member.getName());
+            body.close();
+        }
+    }
+
+    private void generateDynamic(MemberDefinition member, SourceBuilder body, Set<String> imports) {
+        String name = capitalize(member.getName());
+        String id = valueIdName(member);
+        BasicType type = member.getBasicType();
+        boolean variable = !member.isObject() && !type.isPrimitive();
+        if (member.getKind() == MemberDefinition.Kind.OPTIONAL) {
+            body.line("");
+            body.open("public boolean has%s()", name);
+            body.line("return objectData.hasValue(%s);", id);
+            body.close();
+        }
+        if (member.getKind() == MemberDefinition.Kind.LIST) {
+            body.line("");
+            body.open("public int get%sSize()", name);
+            if (variable) {
+                body.line("return objectData.getValueTlvCount(%s);", id);
+            } else {
+                body.line("return objectData.getListSize(%s, %d);", id, member.getElementSize());
+            }
+            body.close();
+            if (variable) {
+                generateVariable(member, name, "int index", "objectData.get%sValue(" + id + ", index)", false, body, imports);
+            } else {
+                Access access = Access.typed("objectData.getRam()",
+                        "objectData.getListElementIndex(" + id + ", index, " + member.getElementSize() + ")");
+                generateElement(member, name, "int index", "index", access, body, imports);
+            }
+            return;
+        }
+        boolean optional = member.getKind() == MemberDefinition.Kind.OPTIONAL;
+        if (variable) {
+            generateVariable(member, name, "", "objectData.get%sValue(" + id + ")", optional, body, imports);
+            String setter = type == BasicType.STRING ? "setStringValue" : "setValue";
+            body.line("");
+            body.open("public void set%s(%s %s)", name, type == BasicType.STRING ? "String" : "ReadOnlyRandomAccessMemory",
+                    member.getName());
+            if (optional) {
+                body.line("objectData.%s(%s, %s);", setter, id, member.getName());
+            } else {
+                body.open("if (%s == null)", member.getName());
+                body.line("objectData.removeValue(%s);", id);
+                body.reopen("else");
+                body.line("objectData.%s(%s, %s);", setter, id, member.getName());
+                body.close();
+            }
+            body.close();
+        } else {
+            // an Optional with a fixed size element
+            imports.add("java.util.NoSuchElementException");
+            Access access = Access.typed("objectData.getRam()", "index");
+            access.prelude.add("long index = objectData.getValueDataIndex(" + id + ");");
+            access.prelude.add("if (index < 0) {");
+            access.prelude.add("    throw new NoSuchElementException(\"" + member.getName() + " is not set\");");
+            access.prelude.add("}");
+            generateElement(member, name, "", "", access, body, imports);
+            int size = member.isObject() ? Integer.BYTES : member.getElementSize();
+            generateSetter(member, name, "", Access.typed(WRITABLE_RAM, "objectData.reserveValue(" + id + ", " + size + ")"),
+                    body, imports);
+        }
+        if (optional) {
+            body.line("");
+            body.open("public void clear%s()", name);
+            body.line("objectData.removeValue(%s);", id);
+            body.close();
+        }
+    }
+
+    /**
+     * Generates the getter of a String or Binary.
+     */
+    private void generateVariable(MemberDefinition member, String name, String parameter, String read, boolean optional,
+            SourceBuilder body, Set<String> imports) {
+        boolean string = member.getBasicType() == BasicType.STRING;
+        String javaType = string ? "String" : "ReadOnlyRandomAccessMemory";
+        if (!string) {
+            imports.add("paxel.sunshine.api.memory.ReadOnlyRandomAccessMemory");
+        }
+        String expression = String.format(read, string ? "String" : "Binary");
+        body.line("");
+        body.open("public %s get%s(%s)", javaType, name, parameter);
+        if (optional) {
+            imports.add("java.util.NoSuchElementException");
+            body.line("%s value = %s;", javaType, expression);
+            body.open("if (value == null)");
+            body.line("throw new NoSuchElementException(\"%s is not set\");", member.getName());
+            body.close();
+            body.line("return value;");
+        } else {
+            body.line("return %s;", expression);
+        }
+        body.close();
+    }
+
+    /**
+     * Generates the getters of a fixed size value: a primitive or an Object
+     * reference.
+     */
+    private void generateElement(MemberDefinition member, String name, String parameter, String argument, Access access,
+            SourceBuilder body, Set<String> imports) {
+        if (member.isObject()) {
+            String objectType = member.getObjectType();
+            String separator = parameter.isEmpty() ? "" : ", ";
+            body.line("");
+            body.open("public long get%sId(%s)", name, parameter);
+            access.body(body, a -> read(BasicType.UINT32, a));
+            body.close();
+            body.line("");
+            body.line("/**");
+            body.line(" * Points the target to the referenced %s.", objectType);
+            body.line(" *");
+            if (!parameter.isEmpty()) {
+                body.line(" * @param index  The index of the reference.");
+            }
+            body.line(" * @param target The reused instance.");
+            body.line(" * @return the target or {@code null} if the reference is not set.");
+            body.line(" */");
+            body.open("public %s get%s(%s%s%s target)", objectType, name, parameter, separator, objectType);
+            body.line("ObjectData referenced = objectData.getReferencedObject(get%sId(%s), %s.TYPE_ID);", name, argument, objectType);
+            body.open("if (referenced == null)");
+            body.line("return null;");
+            body.close();
+            body.line("target.init(referenced);");
+            body.line("return target;");
+            body.close();
+            body.line("");
+            body.open("public %s get%s(%s)", objectType, name, parameter);
+            body.line("return get%s(%s%snew %s());", name, argument, separator, objectType);
+            body.close();
+            return;
+        }
+        BasicType type = member.getBasicType();
+        String prefix = type == BasicType.BOOL && member.getKind() == MemberDefinition.Kind.VALUE ? "is" : "get";
+        body.line("");
+        body.open("public %s %s%s(%s)", javaType(type, imports), prefix, name, parameter);
+        access.body(body, a -> read(type, a));
+        body.close();
+        if (type == BasicType.UINT64) {
+            body.line("");
+            body.open("public long get%sBits(%s)", name, parameter);
+            access.body(body, a -> a.split
+                    ? a.bits()
+                    : a.ram + ".getUInt64BitsAt(" + a.index + ")");
+            body.close();
+        }
+    }
+
+    /**
+     * Generates the setters of a fixed size value: a primitive or an Object
+     * reference.
+     */
+    private void generateSetter(MemberDefinition member, String name, String parameters, Access access, SourceBuilder body,
+            Set<String> imports) {
+        String value = member.getName();
+        if (member.isObject()) {
+            body.line("");
+            body.open("public void set%sId(%slong %sId)", name, parameters, value);
+            access.statement(body, a -> write(BasicType.UINT32, a, value + "Id"));
+            body.close();
+            return;
+        }
+        BasicType type = member.getBasicType();
+        body.line("");
+        body.open("public void set%s(%s%s %s)", name, parameters, javaType(type, imports), value);
+        access.statement(body, a -> write(type, a, value));
+        body.close();
+        if (type == BasicType.UINT64) {
+            body.line("");
+            body.open("public void set%sBits(%slong %s)", name, parameters, value);
+            access.statement(body, a -> a.split
+                    ? a.putBits(value)
+                    : a.ram + ".putUInt64BitsAt(" + a.index + ", " + value + ");");
+            body.close();
+        }
+    }
+
+    private static String write(BasicType type, Access access, String value) {
+        if (access.split) {
+            switch (type) {
+                case BOOL:
+                    return access.putBits(value + " ? 1 : 0");
+                case UINT64:
+                    return access.putBits(value + ".getSignedValue()");
+                case FLOAT32:
+                    return access.putBits("Float.floatToRawIntBits(" + value + ")");
+                case FLOAT64:
+                    return access.putBits("Double.doubleToRawLongBits(" + value + ")");
+                default:
+                    return access.putBits(value);
+            }
+        }
+        String at = access.ram + ".%s(" + access.index + ", %s);";
+        switch (type) {
+            case BOOL:
+                return String.format(at, "putByteAt", "(byte) (" + value + " ? 1 : 0)");
+            case BYTE:
+                return String.format(at, "putByteAt", value);
+            case UBYTE:
+                return String.format(at, "putUByteAt", value);
+            case INT16:
+                return String.format(at, "putInt16At", value);
+            case UINT16:
+                return String.format(at, "putUInt16At", value);
+            case INT32:
+                return String.format(at, "putInt32At", value);
+            case UINT32:
+                return String.format(at, "putUInt32At", value);
+            case INT64:
+                return String.format(at, "putInt64At", value);
+            case UINT64:
+                return String.format(at, "putUInt64At", value);
+            case FLOAT32:
+                return String.format(at, "putFloatAt", value);
+            case FLOAT64:
+                return String.format(at, "putDoubleAt", value);
+            default:
+                throw new IllegalArgumentException(type + " is not a primitive");
+        }
+    }
+
+    private static String read(BasicType type, Access access) {
+        if (access.split) {
+            String bits = access.bits();
+            switch (type) {
+                case BOOL:
+                    return bits + " != 0";
+                case BYTE:
+                    return "(byte) " + bits;
+                case UBYTE:
+                case INT16:
+                    return "(short) " + bits;
+                case UINT16:
+                case INT32:
+                    return "(int) " + bits;
+                case UINT64:
+                    return "new ULong(" + bits + ")";
+                case FLOAT32:
+                    return "Float.intBitsToFloat((int) " + bits + ")";
+                case FLOAT64:
+                    return "Double.longBitsToDouble(" + bits + ")";
+                default:
+                    return bits;
+            }
+        }
+        String at = "(" + access.index + ")";
+        switch (type) {
+            case BOOL:
+                return access.ram + ".getByteAt" + at + " != 0";
+            case BYTE:
+                return access.ram + ".getByteAt" + at;
+            case UBYTE:
+                return access.ram + ".getUByteAt" + at;
+            case INT16:
+                return access.ram + ".getInt16At" + at;
+            case UINT16:
+                return access.ram + ".getUInt16At" + at;
+            case INT32:
+                return access.ram + ".getInt32At" + at;
+            case UINT32:
+                return access.ram + ".getUInt32At" + at;
+            case INT64:
+                return access.ram + ".getInt64At" + at;
+            case UINT64:
+                return access.ram + ".getUInt64At" + at;
+            case FLOAT32:
+                return access.ram + ".getFloatAt" + at;
+            case FLOAT64:
+                return access.ram + ".getDoubleAt" + at;
+            default:
+                throw new IllegalArgumentException(type + " is not a primitive");
+        }
+    }
+
+    private static String javaType(BasicType type, Set<String> imports) {
+        switch (type) {
+            case BOOL:
+                return "boolean";
+            case BYTE:
+                return "byte";
+            case UBYTE:
+            case INT16:
+                return "short";
+            case UINT16:
+            case INT32:
+                return "int";
+            case UINT32:
+            case INT64:
+                return "long";
+            case UINT64:
+                imports.add("paxel.sunshine.api.datatypes.ULong");
+                return "ULong";
+            case FLOAT32:
+                return "float";
+            case FLOAT64:
+                return "double";
+            default:
+                throw new IllegalArgumentException(type + " is not a primitive");
+        }
+    }
+
+    private static String constantType(BasicType type, Set<String> imports) {
+        return type == BasicType.STRING ? "String" : javaType(type, imports);
+    }
+
+    private static String constantValue(ConstantDefinition constant, Set<String> imports) {
+        Object value = constant.getValue();
+        switch (constant.getType()) {
+            case STRING:
+                return quote((String) value);
+            case BOOL:
+                return value.toString();
+            case UINT32:
+            case INT64:
+                return value + "L";
+            case UINT64:
+                imports.add("paxel.sunshine.api.datatypes.ULong");
+                return "ULong.fromUnsignedString(\"" + Long.toUnsignedString((Long) value) + "\")";
+            case FLOAT32:
+                return Float.toString(((Double) value).floatValue()) + "f";
+            case FLOAT64:
+                return value.toString();
+            default:
+                return value.toString();
+        }
+    }
+
+    private String generateSchemaData() {
+        SourceBuilder source = new SourceBuilder();
+        source.line("package %s;", packageName);
+        source.line("");
+        source.line("import paxel.sunshine.runtime.message.SchemaData;");
+        source.line("import paxel.sunshine.runtime.message.SunshineObject;");
+        source.line("");
+        source.line("/**");
+        source.line(" * The type IDs of the schema. Generated from the schema, do not edit.");
+        source.line(" */");
+        source.open("public final class %s implements SchemaData", schemaClassName);
+        source.line("");
+        source.line("/**");
+        source.line(" * The classes indexed by their type ID.");
+        source.line(" */");
+        source.line("@SuppressWarnings(\"unchecked\")");
+        source.line("private static final Class<? extends SunshineObject>[] TYPES = (Class<? extends SunshineObject>[]) new Class<?>[] {");
+        source.line("        null,");
+        for (ObjectDefinition object : schema.getObjects()) {
+            source.line("        %s.class,", object.getName());
+        }
+        source.line("};");
+        source.line("");
+        source.line("@Override");
+        source.open("public int getTypeId(Class<?> type)");
+        source.open("for (int typeId = 1; typeId < TYPES.length; typeId++)");
+        source.open("if (TYPES[typeId] == type)");
+        source.line("return typeId;");
+        source.close();
+        source.close();
+        source.line("return -1;");
+        source.close();
+        source.line("");
+        source.line("@Override");
+        source.open("public Class<? extends SunshineObject> getType(int typeId)");
+        source.line("return typeId > 0 && typeId < TYPES.length ? TYPES[typeId] : null;");
+        source.close();
+        source.line("");
+        source.line("@Override");
+        source.open("public SunshineObject newInstance(int typeId)");
+        source.open("switch (typeId)");
+        for (ObjectDefinition object : schema.getObjects()) {
+            source.line("case %s.TYPE_ID:", object.getName());
+            source.line("    return new %s();", object.getName());
+        }
+        source.line("default:");
+        source.line("    return null;");
+        source.close();
+        source.close();
+        source.close();
+        return source.toString();
+    }
+
+    private static String valueIdName(MemberDefinition member) {
+        return constantName(member.getName()) + "_VALUE_ID";
+    }
+
+    static String constantName(String name) {
+        StringBuilder result = new StringBuilder();
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (Character.isUpperCase(c) && i > 0 && !Character.isUpperCase(name.charAt(i - 1))) {
+                result.append('_');
+            }
+            result.append(Character.toUpperCase(c));
+        }
+        return result.toString();
+    }
+
+    private static String capitalize(String name) {
+        return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+
+    private static String quote(String value) {
+        StringBuilder result = new StringBuilder("\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    result.append("\\\"");
+                    break;
+                case '\\':
+                    result.append("\\\\");
+                    break;
+                case '\n':
+                    result.append("\\n");
+                    break;
+                case '\r':
+                    result.append("\\r");
+                    break;
+                case '\t':
+                    result.append("\\t");
+                    break;
+                default:
+                    result.append(c);
+            }
+        }
+        return result.append('"').toString();
+    }
+
+    /**
+     * Where a fixed size value is read or written: either with a typed access
+     * of a RAM at an index, or byte by byte at a static block offset because the
+     * value is split over two chunks. The elements of an Array that crosses a
+     * chunk border are checked one by one: only a split element is accessed
+     * byte by byte.
+     */
+    private static final class Access {
+        private final boolean split;
+        private final String ram;
+        private final String index;
+        private final int size;
+        private final List<String> prelude = new ArrayList<>();
+        private Access straddling;
+
+        private Access(boolean split, String ram, String index, int size) {
+            this.split = split;
+            this.ram = ram;
+            this.index = index;
+            this.size = size;
+        }
+
+        static Access typed(String ram, String index) {
+            return new Access(false, ram, index, 0);
+        }
+
+        static Access split(String offset, int size) {
+            return new Access(true, "staticBlockRam", offset, size);
+        }
+
+        /**
+         * An Array element at the offset {@code elementOffset}, that is defined by
+         * the prelude.
+         */
+        static Access chunked(String prelude, Access typed, int size) {
+            typed.prelude.add(prelude);
+            typed.straddling = split("elementOffset", size);
+            return typed;
+        }
+
+        String bits() {
+            return "StaticBlocks.getBits(staticBlockRam, staticBlock(), " + index + ", " + size + ")";
+        }
+
+        String putBits(String bits) {
+            return "StaticBlocks.putBits(" + WRITABLE_RAM + ", writableStaticBlock(), " + index + ", " + size + ", " + bits + ");";
+        }
+
+        void body(SourceBuilder body, Function<Access, String> expression) {
+            for (String statement : prelude) {
+                body.line(statement);
+            }
+            if (straddling != null) {
+                body.open("if (StaticBlocks.crossesChunk(elementOffset, %d))", size());
+                body.line("return %s;", expression.apply(straddling));
+                body.close();
+            }
+            body.line("return %s;", expression.apply(this));
+        }
+
+        void statement(SourceBuilder body, Function<Access, String> statement) {
+            for (String line : prelude) {
+                body.line(line);
+            }
+            if (straddling != null) {
+                body.open("if (StaticBlocks.crossesChunk(elementOffset, %d))", size());
+                body.line(statement.apply(straddling));
+                body.reopen("else");
+                body.line(statement.apply(this));
+                body.close();
+            } else {
+                body.line(statement.apply(this));
+            }
+        }
+
+        private int size() {
+            return straddling.size;
+        }
+    }
+}
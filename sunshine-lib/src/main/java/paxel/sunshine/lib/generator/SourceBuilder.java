@@ -0,0 +1,68 @@
+package paxel.sunshine.lib.generator;
+
+/**
+ * Builds Java source with an indentation of 4 spaces per block.
+ */
+final class SourceBuilder {
+
+    private static final String INDENT = "    ";
+
+    private final StringBuilder source = new StringBuilder();
+    private int depth;
+
+    /**
+     * Adds a formatted line. An empty line has no indentation.
+     */
+    SourceBuilder line(String format, Object... args) {
+        String text = args.length == 0 ? format : String.format(format, args);
+        if (!text.isEmpty()) {
+            for (int i = 0; i < depth; i++) {
+                source.append(INDENT);
+            }
+            source.append(text);
+        }
+        source.append('\n');
+        return this;
+    }
+
+    /**
+     * Adds a line that opens a block.
+     */
+    SourceBuilder open(String format, Object... args) {
+        line((args.length == 0 ? format : String.format(format, args)) + " {");
+        depth++;
+        return this;
+    }
+
+    /**
+     * Closes a block and opens the next one, e.g. an else block.
+     */
+    SourceBuilder reopen(String text) {
+        depth--;
+        line("} " + text + " {");
+        depth++;
+        return this;
+    }
+
+    SourceBuilder close() {
+        depth--;
+        line("}");
+        return this;
+    }
+
+    /**
+     * Adds the lines of the other builder with the current indentation.
+     */
+    SourceBuilder append(SourceBuilder other) {
+        // split drops the empty string after the last line break
+        for (String text : other.toString().split("\n")) {
+            line(text);
+        }
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return source.toString();
+    }
+}
@@ -0,0 +1,82 @@
+package paxel.sunshine.lib.schema;
+
+/**
+ * The built in value types of a schema.
+ */
+public enum BasicType {
+    BOOL("Bool", 1),
+    BYTE("Byte", 1),
+    UBYTE("UByte", 1),
+    INT16("Int16", 2),
+    UINT16("UInt16", 2),
+    INT32("Int32", 4),
+    UINT32("UInt32", 4),
+    INT64("Int64", 8),
+    UINT64("UInt64", 8),
+    FLOAT32("Float32", 4),
+    FLOAT64("Float64", 8),
+    STRING("String", 0),
+    FIX_STRING("FixString", 0),
+    BINARY("Binary", 0),
+    FIX_BINARY("FixBinary", 0);
+
+    private final String schemaName;
+    private final int size;
+
+    BasicType(String schemaName, int size) {
+        this.schemaName = schemaName;
+        this.size = size;
+    }
+
+    /**
+     * Retrieve the name of the type in the schema.
+     *
+     * @return the name.
+     */
+    public String getSchemaName() {
+        return schemaName;
+    }
+
+    /**
+     * Retrieve the size of a numeric or Bool value.
+     *
+     * @return the size in bytes or 0 if the size depends on the definition.
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Checks if the type is a number or Bool with a size independent of the
+     * definition.
+     *
+     * @return {@code true} for the primitive types.
+     */
+    public boolean isPrimitive() {
+        return size > 0;
+    }
+
+    /**
+     * Checks if the type needs a size definition, e.g. {@code FixString[10]}.
+     *
+     * @return {@code true} for FixString and FixBinary.
+     */
+    public boolean isSized() {
+        return this == FIX_STRING || this == FIX_BINARY;
+    }
+
+    /**
+     * Finds the type with the given schema name.
+     *
+     * @param schemaName The name in the schema.
+     * @return the type or {@code null} if the name is not a basic type.
+     */
+    public static BasicType forSchemaName(String schemaName) {
+        for (BasicType type : values()) {
+            if (type.schemaName.equals(schemaName)) {
+                return type;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,139 @@
+package paxel.sunshine.lib.schema;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A constant of an Object. Constants are only available in the generated code,
+ * not in the serialized data.
+ */
+public final class ConstantDefinition {
+
+    private final String name;
+    private final BasicType type;
+    private final Object value;
+    private final int line;
+
+    /**
+     * Constructs a constant.
+     *
+     * @param name  The name of the constant.
+     * @param type  A primitive type or String.
+     * @param value The value as it is written in the schema. A String is quoted.
+     * @param line  The line in the schema.
+     * @throws IllegalArgumentException in case the value doesn't fit the type.
+     */
+    public ConstantDefinition(String name, BasicType type, String value, int line) {
+        this.name = requireNonNull(name);
+        this.type = requireNonNull(type);
+        this.value = parse(type, requireNonNull(value));
+        this.line = line;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public BasicType getType() {
+        return type;
+    }
+
+    /**
+     * Retrieve the parsed value: a Boolean for Bool, a Long with the bits of all
+     * integer types, a Double for the floating point types and the unquoted
+     * String.
+     *
+     * @return the value.
+     */
+    public Object getValue() {
+        return value;
+    }
+
+    public int getLine() {
+        return line;
+    }
+
+    private static Object parse(BasicType type, String value) {
+        try {
+            switch (type) {
+                case BOOL:
+                    if (!value.equals("true") && !value.equals("false")) {
+                        throw new IllegalArgumentException("Bool must be true or false: " + value);
+                    }
+                    return Boolean.valueOf(value);
+                case BYTE:
+                    return range(value, Byte.MIN_VALUE, Byte.MAX_VALUE);
+                case UBYTE:
+                    return range(value, 0, 0xff);
+                case INT16:
+                    return range(value, Short.MIN_VALUE, Short.MAX_VALUE);
+                case UINT16:
+                    return range(value, 0, 0xffff);
+                case INT32:
+                    return range(value, Integer.MIN_VALUE, Integer.MAX_VALUE);
+                case UINT32:
+                    return range(value, 0, 0xffff_ffffL);
+                case INT64:
+                    return Long.parseLong(value);
+                case UINT64:
+                    return Long.parseUnsignedLong(value);
+                case FLOAT32:
+                case FLOAT64:
+                    double parsed = type == BasicType.FLOAT32 ? Float.parseFloat(value) : Double.parseDouble(value);
+                    if (Double.isNaN(parsed) || Double.isInfinite(parsed)) {
+                        throw new IllegalArgumentException(type.getSchemaName() + " must be finite: " + value);
+                    }
+                    return parsed;
+                case STRING:
+                    return unquote(value);
+                default:
+                    throw new IllegalArgumentException(type.getSchemaName() + " can't be a constant");
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("invalid " + type.getSchemaName() + ": " + value, e);
+        }
+    }
+
+    private static Long range(String value, long min, long max) {
+        long parsed = Long.parseLong(value);
+        if (parsed < min || parsed > max) {
+            throw new IllegalArgumentException(value + " is not between " + min + " and " + max);
+        }
+        return parsed;
+    }
+
+    private static String unquote(String value) {
+        if (value.length() < 2 || value.charAt(0) != '"' || value.charAt(value.length() - 1) != '"') {
+            throw new IllegalArgumentException("String must be quoted: " + value);
+        }
+        StringBuilder result = new StringBuilder();
+        for (int i = 1; i < value.length() - 1; i++) {
+            char c = value.charAt(i);
+            if (c != '\\') {
+                result.append(c);
+                continue;
+            }
+            if (++i == value.length() - 1) {
+                throw new IllegalArgumentException("incomplete escape: " + value);
+            }
+            char escaped = value.charAt(i);
+            switch (escaped) {
+                case 'n':
+                    result.append('\n');
+                    break;
+                case 't':
+                    result.append('\t');
+                    break;
+                case 'r':
+                    result.append('\r');
+                    break;
+                case '"':
+                case '\\':
+                    result.append(escaped);
+                    break;
+                default:
+                    throw new IllegalArgumentException("unsupported escape \\" + escaped + ": " + value);
+            }
+        }
+        return result.toString();
+    }
+}
@@ -0,0 +1,214 @@
+package paxel.sunshine.lib.schema;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A value of an Object in the schema. The value is either a single value, or a
+ * collection of elements. The type of the value or the elements is either a
+ * {@link BasicType} or another Object of the schema.
+ * <p>
+ * Fixed size values are part of the static block at a position defined by the
+ * {@link ObjectDefinition}. All others are dynamic values with a value ID.
+ */
+public final class MemberDefinition {
+
+    /**
+     * The size of an object reference in the serialized data.
+     */
+    public static final int REFERENCE_SIZE = 4;
+
+    private final String name;
+    private final Kind kind;
+    private final BasicType basicType;
+    private final String objectType;
+    private final int size;
+    private final int length;
+    private final int line;
+    private int staticOffset = -1;
+    private int valueId;
+
+    /**
+     * Constructs a member.
+     *
+     * @param name       The name of the member.
+     * @param kind       Single value or collection.
+     * @param basicType  The type of the value or the elements, or {@code null}
+     *                   if it is an Object.
+     * @param objectType The name of the Object, or {@code null} if it is a basic
+     *                   type.
+     * @param size       The size of a FixString or FixBinary, otherwise 0.
+     * @param length     The length of an Array, otherwise 0.
+     * @param line       The line in the schema.
+     * @throws IllegalArgumentException in case the combination is not supported.
+     */
+    public MemberDefinition(String name, Kind kind, BasicType basicType, String objectType, int size, int length, int line) {
+        this.name = requireNonNull(name);
+        this.kind = requireNonNull(kind);
+        this.basicType = basicType;
+        this.objectType = objectType;
+        this.size = size;
+        this.length = length;
+        this.line = line;
+        validate();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * Retrieve the basic type of the value or the elements.
+     *
+     * @return the type or {@code null} if it is an Object.
+     */
+    public BasicType getBasicType() {
+        return basicType;
+    }
+
+    /**
+     * Retrieve the Object type of the value or the elements.
+     *
+     * @return the name of the Object or {@code null} if it is a basic type.
+     */
+    public String getObjectType() {
+        return objectType;
+    }
+
+    public boolean isObject() {
+        return objectType != null;
+    }
+
+    /**
+     * Retrieve the size of a FixString or FixBinary.
+     *
+     * @return the size or 0.
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Retrieve the length of an Array.
+     *
+     * @return the length or 0.
+     */
+    public int getLength() {
+        return length;
+    }
+
+    public int getLine() {
+        return line;
+    }
+
+    /**
+     * Checks if the member is part of the static block. Object references,
+     * Arrays and all fixed size basic types are.
+     *
+     * @return {@code true} if static.
+     */
+    public boolean isStatic() {
+        if (kind == Kind.ARRAY) {
+            return true;
+        }
+        return kind == Kind.VALUE && (isObject() || basicType.isPrimitive() || basicType.isSized());
+    }
+
+    /**
+     * Retrieve the size of the value or a single element in the serialized data.
+     *
+     * @return the size or 0 for String and Binary.
+     */
+    public int getElementSize() {
+        if (isObject()) {
+            return REFERENCE_SIZE;
+        }
+        return basicType.isSized() ? size : basicType.getSize();
+    }
+
+    /**
+     * Retrieve the natural alignment of the value or a single element: the size
+     * of a primitive or a reference, 1 for FixString and FixBinary.
+     *
+     * @return the alignment in bytes.
+     */
+    public int getAlignment() {
+        if (isObject()) {
+            return REFERENCE_SIZE;
+        }
+        return basicType.isPrimitive() ? basicType.getSize() : 1;
+    }
+
+    /**
+     * Retrieve the size in the static block.
+     *
+     * @return the size or 0 if the member is dynamic.
+     */
+    public int getStaticSize() {
+        if (!isStatic()) {
+            return 0;
+        }
+        return kind == Kind.ARRAY ? getElementSize() * length : getElementSize();
+    }
+
+    /**
+     * Retrieve the offset in the static block.
+     *
+     * @return the offset or -1 if the member is dynamic.
+     */
+    public int getStaticOffset() {
+        return staticOffset;
+    }
+
+    /**
+     * Retrieve the ID of the dynamic value.
+     *
+     * @return the ID or 0 if the member is static.
+     */
+    public int getValueId() {
+        return valueId;
+    }
+
+    void setStaticOffset(int staticOffset) {
+        this.staticOffset = staticOffset;
+    }
+
+    void setValueId(int valueId) {
+        this.valueId = valueId;
+    }
+
+    private void validate() {
+        if ((basicType == null) == (objectType == null)) {
+            throw new IllegalArgumentException(name + ": either a basic type or an object type is required");
+        }
+        if (basicType != null && basicType.isSized() != size > 0) {
+            throw new IllegalArgumentException(name + ": " + basicType.getSchemaName()
+                    + (basicType.isSized() ? " needs a size" : " can't have a size"));
+        }
+        if (kind == Kind.ARRAY && length <= 0) {
+            throw new IllegalArgumentException(name + ": Array needs a length");
+        }
+        if (kind != Kind.ARRAY && length != 0) {
+            throw new IllegalArgumentException(name + ": only an Array can have a length");
+        }
+        if (kind != Kind.VALUE && basicType != null && basicType.isSized()) {
+            throw new IllegalArgumentException(name + ": " + basicType.getSchemaName() + " can't be collected");
+        }
+        if (kind == Kind.ARRAY && basicType != null && !basicType.isPrimitive()) {
+            throw new IllegalArgumentException(name + ": an Array of " + basicType.getSchemaName() + " has no fixed size");
+        }
+    }
+
+    /**
+     * Single value or collection.
+     */
+    public enum Kind {
+        VALUE,
+        ARRAY,
+        LIST,
+        OPTIONAL
+    }
+}
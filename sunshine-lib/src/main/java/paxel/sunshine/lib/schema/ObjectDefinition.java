@@ -0,0 +1,130 @@
+package paxel.sunshine.lib.schema;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * An Object of the schema. The constructor defines the layout of the
+ * serialized data: the static members are placed into the static block in
+ * declaration order as defined by the {@link StaticLayout}, and the dynamic
+ * members get their value IDs in declaration order starting with 1.
+ */
+public final class ObjectDefinition {
+
+    /**
+     * The maximum number of dynamic values of an Object.
+     */
+    public static final int MAX_DYNAMIC_VALUES = 0xfc;
+
+    private final String name;
+    private final int typeId;
+    private final List<ConstantDefinition> constants;
+    private final List<MemberDefinition> members;
+    private final StaticLayout layout;
+    private final int staticBlockLength;
+    private final int dynamicValueCount;
+
+    /**
+     * Constructs an Object with the packed layout.
+     *
+     * @param name      The name of the Object.
+     * @param typeId    The type ID.
+     * @param constants The constants.
+     * @param members   The members in declaration order.
+     * @throws IllegalArgumentException in case a name is used twice or there are
+     *                                  too many dynamic values.
+     */
+    public ObjectDefinition(String name, int typeId, List<ConstantDefinition> constants, List<MemberDefinition> members) {
+        this(name, typeId, constants, members, StaticLayout.PACKED);
+    }
+
+    /**
+     * Constructs an Object and defines its layout.
+     *
+     * @param name      The name of the Object.
+     * @param typeId    The type ID.
+     * @param constants The constants.
+     * @param members   The members in declaration order.
+     * @param layout    The layout of the static block.
+     * @throws IllegalArgumentException in case a name is used twice or there are
+     *                                  too many dynamic values.
+     */
+    public ObjectDefinition(String name, int typeId, List<ConstantDefinition> constants, List<MemberDefinition> members,
+            StaticLayout layout) {
+        this.name = requireNonNull(name);
+        this.layout = requireNonNull(layout);
+        this.typeId = typeId;
+        this.constants = Collections.unmodifiableList(new ArrayList<>(constants));
+        this.members = Collections.unmodifiableList(new ArrayList<>(members));
+        Set<String> names = new HashSet<>();
+        for (ConstantDefinition constant : constants) {
+            if (!names.add(constant.getName())) {
+                throw new IllegalArgumentException(name + "." + constant.getName() + " is defined twice");
+            }
+        }
+        int offset = 0;
+        int valueId = 0;
+        for (MemberDefinition member : members) {
+            if (!names.add(member.getName())) {
+                throw new IllegalArgumentException(name + "." + member.getName() + " is defined twice");
+            }
+            if (member.isStatic()) {
+                offset = layout.place(offset, member);
+                member.setStaticOffset(offset);
+                offset += member.getStaticSize();
+            } else {
+                member.setValueId(++valueId);
+            }
+        }
+        if (valueId > MAX_DYNAMIC_VALUES) {
+            throw new IllegalArgumentException(name + " has " + valueId + " dynamic values. Only "
+                    + MAX_DYNAMIC_VALUES + " are supported");
+        }
+        this.staticBlockLength = offset;
+        this.dynamicValueCount = valueId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Retrieve the type ID. It is the position of the Object in the schema
+     * starting with 1.
+     *
+     * @return the type ID.
+     */
+    public int getTypeId() {
+        return typeId;
+    }
+
+    public List<ConstantDefinition> getConstants() {
+        return constants;
+    }
+
+    public List<MemberDefinition> getMembers() {
+        return members;
+    }
+
+    public StaticLayout getLayout() {
+        return layout;
+    }
+
+    /**
+     * Retrieve the end of the last static member.
+     *
+     * @return the length in bytes.
+     */
+    public int getStaticBlockLength() {
+        return staticBlockLength;
+    }
+
+    public int getDynamicValueCount() {
+        return dynamicValueCount;
+    }
+}
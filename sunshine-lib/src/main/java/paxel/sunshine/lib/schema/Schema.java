@@ -0,0 +1,60 @@
+package paxel.sunshine.lib.schema;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The Objects of a schema in declaration order.
+ */
+public final class Schema {
+
+    private final List<ObjectDefinition> objects;
+    private final Map<String, ObjectDefinition> byName = new LinkedHashMap<>();
+
+    /**
+     * Constructs a schema.
+     *
+     * @param objects The Objects in declaration order.
+     * @throws IllegalArgumentException in case an Object is defined twice, a type
+     *                                  ID doesn't match the position, or a member
+     *                                  references an unknown Object.
+     */
+    public Schema(List<ObjectDefinition> objects) {
+        this.objects = Collections.unmodifiableList(new ArrayList<>(objects));
+        for (int i = 0; i < objects.size(); i++) {
+            ObjectDefinition object = objects.get(i);
+            if (object.getTypeId() != i + 1) {
+                throw new IllegalArgumentException(object.getName() + " has type ID " + object.getTypeId()
+                        + " instead of " + (i + 1));
+            }
+            if (BasicType.forSchemaName(object.getName()) != null || byName.put(object.getName(), object) != null) {
+                throw new IllegalArgumentException(object.getName() + " is defined twice");
+            }
+        }
+        for (ObjectDefinition object : objects) {
+            for (MemberDefinition member : object.getMembers()) {
+                if (member.isObject() && !byName.containsKey(member.getObjectType())) {
+                    throw new IllegalArgumentException("line " + member.getLine() + ": unknown type "
+                            + member.getObjectType() + " of " + object.getName() + "." + member.getName());
+                }
+            }
+        }
+    }
+
+    public List<ObjectDefinition> getObjects() {
+        return objects;
+    }
+
+    /**
+     * Finds an Object by name.
+     *
+     * @param name The name.
+     * @return the Object or {@code null} if the schema doesn't contain it.
+     */
+    public ObjectDefinition getObject(String name) {
+        return byName.get(name);
+    }
+}
@@ -0,0 +1,297 @@
+package paxel.sunshine.lib.schema;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Parses the text of a schema.
+ *
+ * <pre>
+ * Object Car {
+ *   Const UInt16 MANIFACTOR_ID = 1833 // a constant
+ *   FixString[10] name                # a member
+ *   Array&lt;Int16&gt;[4] countryCodes
+ *   List&lt;Tyre&gt; tyres
+ * }
+ * </pre>
+ * <p>
+ * Comments start with {@code //} or {@code #} and go to the end of the line. A
+ * definition can be terminated by an optional {@code ;}. An Object can be
+ * preceded by the directive {@code @Aligned} to select the
+ * {@link StaticLayout#ALIGNED_V1} layout.
+ */
+public final class SchemaParser {
+
+    private static final String SYMBOLS = "{}<>[]=;";
+
+    private final String text;
+    private int position;
+    private int line = 1;
+    private Token token;
+
+    private SchemaParser(String text) {
+        this.text = text;
+    }
+
+    /**
+     * Parses a schema.
+     *
+     * @param reader The text of the schema.
+     * @return the schema.
+     * @throws IOException              in case the reader fails.
+     * @throws IllegalArgumentException in case the schema is invalid. The message
+     *                                  contains the line.
+     */
+    public static Schema parse(Reader reader) throws IOException {
+        StringBuilder text = new StringBuilder();
+        char[] buffer = new char[4096];
+        for (int read = reader.read(buffer); read >= 0; read = reader.read(buffer)) {
+            text.append(buffer, 0, read);
+        }
+        return parse(text.toString());
+    }
+
+    /**
+     * Parses a schema.
+     *
+     * @param text The text of the schema.
+     * @return the schema.
+     * @throws IllegalArgumentException in case the schema is invalid. The message
+     *                                  contains the line.
+     */
+    public static Schema parse(String text) {
+        return new SchemaParser(text).parseSchema();
+    }
+
+    private Schema parseSchema() {
+        List<ObjectDefinition> objects = new ArrayList<>();
+        next();
+        while (token != null) {
+            objects.add(parseObject(objects.size() + 1));
+        }
+        return new Schema(objects);
+    }
+
+    private ObjectDefinition parseObject(int typeId) {
+        int objectLine = token.line;
+        StaticLayout layout = StaticLayout.PACKED;
+        if (token.text.startsWith("@")) {
+            layout = StaticLayout.forDirective(token.text);
+            if (layout == null) {
+                throw error(objectLine, "unknown directive " + token.text);
+            }
+            next();
+        }
+        expect("Object");
+        String name = identifier();
+        expect("{");
+        List<ConstantDefinition> constants = new ArrayList<>();
+        List<MemberDefinition> members = new ArrayList<>();
+        while (!isSymbol("}")) {
+            if (token == null) {
+                throw error(objectLine, "Object " + name + " is not closed");
+            }
+            if (token.text.equals("Const")) {
+                constants.add(parseConstant());
+            } else {
+                members.add(parseMember());
+            }
+            if (isSymbol(";")) {
+                next();
+            }
+        }
+        next();
+        try {
+            return new ObjectDefinition(name, typeId, constants, members, layout);
+        } catch (IllegalArgumentException e) {
+            throw error(objectLine, e.getMessage());
+        }
+    }
+
+    private ConstantDefinition parseConstant() {
+        int constantLine = token.line;
+        expect("Const");
+        String typeName = identifier();
+        BasicType type = BasicType.forSchemaName(typeName);
+        if (type == null) {
+            throw error(constantLine, "unknown constant type " + typeName);
+        }
+        String name = identifier();
+        expect("=");
+        if (token == null || token.symbol) {
+            throw error(constantLine, "missing value of " + name);
+        }
+        String value = token.text;
+        next();
+        try {
+            return new ConstantDefinition(name, type, value, constantLine);
+        } catch (IllegalArgumentException e) {
+            throw error(constantLine, name + ": " + e.getMessage());
+        }
+    }
+
+    private MemberDefinition parseMember() {
+        int memberLine = token.line;
+        String typeName = identifier();
+        MemberDefinition.Kind kind = MemberDefinition.Kind.VALUE;
+        switch (typeName) {
+            case "Array":
+                kind = MemberDefinition.Kind.ARRAY;
+                break;
+            case "List":
+                kind = MemberDefinition.Kind.LIST;
+                break;
+            case "Optional":
+                kind = MemberDefinition.Kind.OPTIONAL;
+                break;
+            default:
+                break;
+        }
+        if (kind != MemberDefinition.Kind.VALUE) {
+            expect("<");
+            typeName = identifier();
+            expect(">");
+        }
+        int size = 0;
+        if (isSymbol("[")) {
+            next();
+            size = number();
+            expect("]");
+        }
+        String name = identifier();
+        BasicType basicType = BasicType.forSchemaName(typeName);
+        int length = 0;
+        if (kind == MemberDefinition.Kind.ARRAY) {
+            length = size;
+            size = 0;
+        }
+        try {
+            return new MemberDefinition(name, kind, basicType, basicType == null ? typeName : null, size, length, memberLine);
+        } catch (IllegalArgumentException e) {
+            throw error(memberLine, e.getMessage());
+        }
+    }
+
+    private void expect(String expected) {
+        if (token == null || !token.text.equals(expected)) {
+            throw error(token == null ? line : token.line, "expected " + expected + " but found "
+                    + (token == null ? "end of schema" : token.text));
+        }
+        next();
+    }
+
+    private String identifier() {
+        if (token == null || token.symbol || !Character.isJavaIdentifierStart(token.text.charAt(0))) {
+            throw error(token == null ? line : token.line, "expected a name but found "
+                    + (token == null ? "end of schema" : token.text));
+        }
+        for (int i = 1; i < token.text.length(); i++) {
+            if (!Character.isJavaIdentifierPart(token.text.charAt(i))) {
+                throw error(token.line, "invalid name " + token.text);
+            }
+        }
+        String result = token.text;
+        next();
+        return result;
+    }
+
+    private int number() {
+        if (token == null || token.symbol) {
+            throw error(line, "expected a number");
+        }
+        try {
+            int result = Integer.parseInt(token.text);
+            if (result <= 0) {
+                throw error(token.line, "expected a positive number but found " + token.text);
+            }
+            next();
+            return result;
+        } catch (NumberFormatException e) {
+            throw error(token.line, "expected a number but found " + token.text);
+        }
+    }
+
+    private boolean isSymbol(String symbol) {
+        return token != null && token.symbol && token.text.equals(symbol);
+    }
+
+    private void next() {
+        skipWhitespaceAndComments();
+        if (position >= text.length()) {
+            token = null;
+            return;
+        }
+        int start = position;
+        char c = text.charAt(position);
+        if (SYMBOLS.indexOf(c) >= 0) {
+            position++;
+            token = new Token(text.substring(start, position), true, line);
+            return;
+        }
+        if (c == '"') {
+            position++;
+            while (position < text.length() && text.charAt(position) != '"') {
+                if (text.charAt(position) == '\n') {
+                    throw error(line, "String is not closed");
+                }
+                position += text.charAt(position) == '\\' ? 2 : 1;
+            }
+            if (position >= text.length()) {
+                throw error(line, "String is not closed");
+            }
+            position++;
+            token = new Token(text.substring(start, position), false, line);
+            return;
+        }
+        while (position < text.length() && !isDelimiter(position)) {
+            position++;
+        }
+        token = new Token(text.substring(start, position), false, line);
+    }
+
+    private boolean isDelimiter(int index) {
+        char c = text.charAt(index);
+        return Character.isWhitespace(c) || SYMBOLS.indexOf(c) >= 0 || c == '"' || isComment(index);
+    }
+
+    private boolean isComment(int index) {
+        char c = text.charAt(index);
+        return c == '#' || c == '/' && index + 1 < text.length() && text.charAt(index + 1) == '/';
+    }
+
+    private void skipWhitespaceAndComments() {
+        while (position < text.length()) {
+            char c = text.charAt(position);
+            if (c == '\n') {
+                line++;
+                position++;
+            } else if (Character.isWhitespace(c)) {
+                position++;
+            } else if (isComment(position)) {
+                while (position < text.length() && text.charAt(position) != '\n') {
+                    position++;
+                }
+            } else {
+                return;
+            }
+        }
+    }
+
+    private static IllegalArgumentException error(int line, String message) {
+        return new IllegalArgumentException("line " + line + ": " + message);
+    }
+
+    private static final class Token {
+        private final String text;
+        private final boolean symbol;
+        private final int line;
+
+        Token(String text, boolean symbol, int line) {
+            this.text = text;
+            this.symbol = symbol;
+            this.line = line;
+        }
+    }
+}
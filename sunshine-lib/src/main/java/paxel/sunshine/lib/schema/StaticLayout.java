@@ -0,0 +1,86 @@
+package paxel.sunshine.lib.schema;
+
+import paxel.sunshine.runtime.message.StaticBlocks;
+import paxel.sunshine.runtime.message.Tlv;
+
+/**
+ * Defines the offsets of the static members of an Object. The layout is part
+ * of the serialized format: a layout must never change, so an improved layout
+ * needs a new version of the schema directive.
+ */
+public enum StaticLayout {
+
+    /**
+     * The default: the members in declaration order without gaps.
+     */
+    PACKED(null),
+    /**
+     * Selected by {@code @Aligned} or {@code @Aligned(1)}. The members stay in
+     * declaration order, but each member starts at the next offset that is
+     * <ul>
+     * <li>a multiple of the size of its primitive type or reference, counted
+     * from the first byte of the first chunk including the headers of the
+     * following chunks, and</li>
+     * <li>not followed by a chunk border inside the member, unless the member is
+     * longer than a chunk.</li>
+     * </ul>
+     * The gaps are 0. Members are not reordered, so adding members at the end
+     * stays compatible. The values are aligned in memory if the writer aligns
+     * the first static block byte to 8 bytes with NOPs before the static block.
+     */
+    ALIGNED_V1("@Aligned(1)");
+
+    private final String directive;
+
+    StaticLayout(String directive) {
+        this.directive = directive;
+    }
+
+    /**
+     * Retrieve the schema directive that selects the layout.
+     *
+     * @return the directive or {@code null} for the default.
+     */
+    public String getDirective() {
+        return directive;
+    }
+
+    /**
+     * Calculates the offset of a member.
+     *
+     * @param offset The end of the previous member.
+     * @param member The static member.
+     * @return the offset of the member.
+     */
+    public int place(int offset, MemberDefinition member) {
+        if (this == PACKED) {
+            return offset;
+        }
+        int alignment = member.getAlignment();
+        int size = member.getStaticSize();
+        while (StaticBlocks.physicalOffset(offset) % alignment != 0
+                || size <= Tlv.MAX_VALUE_LENGTH && StaticBlocks.crossesChunk(offset, size)) {
+            offset++;
+        }
+        return offset;
+    }
+
+    /**
+     * Finds the layout of a directive.
+     *
+     * @param directive The directive, e.g. {@code @Aligned}.
+     * @return the layout or {@code null} if the directive is unknown.
+     */
+    public static StaticLayout forDirective(String directive) {
+        // the unversioned directive stays version 1 forever
+        if ("@Aligned".equals(directive)) {
+            return ALIGNED_V1;
+        }
+        for (StaticLayout layout : values()) {
+            if (directive.equals(layout.directive)) {
+                return layout;
+            }
+        }
+        return null;
+    }
+}
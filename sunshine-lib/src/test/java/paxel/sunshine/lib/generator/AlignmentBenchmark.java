@@ -0,0 +1,84 @@
+package paxel.sunshine.lib.generator;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import paxel.sunshine.api.memory.RichReadOnlyRandomAccessMemory;
+import paxel.sunshine.api.memory.bytebuffer.ByteBufferRoRam;
+import paxel.sunshine.lib.generator.aligned.AlignedSchema;
+import paxel.sunshine.lib.generator.packed.PackedSchema;
+import paxel.sunshine.runtime.message.MessageData;
+import paxel.sunshine.runtime.message.MessageParser;
+import paxel.sunshine.runtime.message.SchemaData;
+
+/**
+ * Reads all values of the same Object in the packed and the aligned static
+ * block layout. Run it with the benchmark profile
+ * ({@code mvn -P benchmark verify}) or via {@link #main(String[])}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AlignmentBenchmark {
+
+    @Param({"false", "true"})
+    public boolean direct;
+
+    private final paxel.sunshine.lib.generator.packed.Sample packed = new paxel.sunshine.lib.generator.packed.Sample();
+    private final paxel.sunshine.lib.generator.aligned.Sample aligned = new paxel.sunshine.lib.generator.aligned.Sample();
+
+    @Setup
+    public void setUp() throws Exception {
+        packed.init(parse(new PackedSchema(), GeneratedFlyweightTest.sample(false)).getRoot());
+        aligned.init(parse(new AlignedSchema(), GeneratedFlyweightTest.sample(true)).getRoot());
+    }
+
+    @Benchmark
+    public double packed() {
+        return packed.getKind() + packed.getTimestamp() + packed.getCount() + packed.getPrice() + packed.getFlags()
+                + packed.getVolume() + packed.getTotal();
+    }
+
+    @Benchmark
+    public double aligned() {
+        return aligned.getKind() + aligned.getTimestamp() + aligned.getCount() + aligned.getPrice() + aligned.getFlags()
+                + aligned.getVolume() + aligned.getTotal();
+    }
+
+    private MessageData parse(SchemaData schema, RichReadOnlyRandomAccessMemory message) throws Exception {
+        byte[] bytes = message.getBytesAt(0, (int) message.size());
+        ByteBuffer buffer = direct ? ByteBuffer.allocateDirect(bytes.length) : ByteBuffer.allocate(bytes.length);
+        buffer.put(bytes).clear();
+        MessageData messageData = new MessageData(schema);
+        MessageParser.parse(new ByteBufferRoRam(buffer), messageData);
+        return messageData;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(AlignmentBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,107 @@
+package paxel.sunshine.lib.generator;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import paxel.sunshine.api.memory.RichReadOnlyRandomAccessMemory;
+import paxel.sunshine.api.memory.bytebuffer.ByteBufferRoRam;
+import paxel.sunshine.lib.generator.everything.Everything;
+import paxel.sunshine.lib.generator.everything.EverythingSchema;
+import paxel.sunshine.runtime.message.MessageData;
+import paxel.sunshine.runtime.message.MessageParser;
+
+/**
+ * Reads static block values with a generated flyweight and with a raw
+ * ByteBuffer at the same index. Run it with the benchmark profile
+ * ({@code mvn -P benchmark verify}) or via {@link #main(String[])}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FlyweightBenchmark {
+
+    // the offset of Everything.i in the static block
+    private static final int INT32_OFFSET = 7;
+    // the offset of Everything.l in the static block
+    private static final int INT64_OFFSET = 15;
+
+    @Param({"false", "true"})
+    public boolean direct;
+
+    private final Everything everything = new Everything();
+    private MessageData messageData;
+    private ByteBuffer buffer;
+    private int staticBlock;
+
+    @Setup
+    public void setUp() throws Exception {
+        ByteBuffer block = ByteBuffer.allocate(Everything.STATIC_BLOCK_LENGTH);
+        block.putInt(INT32_OFFSET, 42).putLong(INT64_OFFSET, 4242);
+        RichReadOnlyRandomAccessMemory message = new TestMessage()
+                .object(Everything.TYPE_ID, 1)
+                .staticBlock(block.array())
+                .endObject()
+                .endMessage();
+        byte[] bytes = message.getBytesAt(0, (int) message.size());
+        buffer = direct ? ByteBuffer.allocateDirect(bytes.length) : ByteBuffer.allocate(bytes.length);
+        buffer.put(bytes).clear();
+        messageData = new MessageData(new EverythingSchema());
+        MessageParser.parse(new ByteBufferRoRam(buffer), messageData);
+        everything.init(messageData.getRoot());
+        staticBlock = (int) messageData.getRoot().getStaticBlockIndex(0);
+    }
+
+    @Benchmark
+    public int flyweightInt32() {
+        return everything.getI();
+    }
+
+    @Benchmark
+    public int byteBufferInt32() {
+        return buffer.getInt(staticBlock + INT32_OFFSET);
+    }
+
+    @Benchmark
+    public long flyweightInt64() {
+        return everything.getL();
+    }
+
+    @Benchmark
+    public long byteBufferInt64() {
+        return buffer.getLong(staticBlock + INT64_OFFSET);
+    }
+
+    @Benchmark
+    public int initAndRead() {
+        everything.init(messageData.getRoot());
+        return everything.getI();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(FlyweightBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,64 @@
+package paxel.sunshine.lib.generator;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+
+import org.junit.Test;
+
+import paxel.sunshine.lib.schema.Schema;
+import paxel.sunshine.lib.schema.SchemaParser;
+
+public class FlyweightGeneratorTest {
+
+    private static final Path TEST_SOURCES = Paths.get("src/test/java");
+
+    /**
+     * The generated classes of the test schemas are part of the test sources.
+     * Run with -Dsunshine.generate=true to update them after a change of the
+     * generator.
+     */
+    @Test
+    public void generatedTestSourcesAreUpToDate() throws IOException {
+        assertUpToDate(generator("/car.schema", "paxel.sunshine.lib.generator.car", "CarSchema"));
+        assertUpToDate(generator("/everything.schema", "paxel.sunshine.lib.generator.everything", "EverythingSchema"));
+        assertUpToDate(generator("/packed.schema", "paxel.sunshine.lib.generator.packed", "PackedSchema"));
+        assertUpToDate(generator("/aligned.schema", "paxel.sunshine.lib.generator.aligned", "AlignedSchema"));
+    }
+
+    @Test
+    public void constantNames() {
+        assertThat(FlyweightGenerator.constantName("horsePower"), is("HORSE_POWER"));
+        assertThat(FlyweightGenerator.constantName("ul"), is("UL"));
+        assertThat(FlyweightGenerator.constantName("splitUInts"), is("SPLIT_UINTS"));
+    }
+
+    private static void assertUpToDate(FlyweightGenerator generator) throws IOException {
+        if (Boolean.getBoolean("sunshine.generate")) {
+            generator.writeTo(TEST_SOURCES);
+            return;
+        }
+        for (Map.Entry<String, String> source : generator.generate().entrySet()) {
+            Path file = TEST_SOURCES.resolve(generator.getPackageName().replace('.', '/')).resolve(source.getKey() + ".java");
+            assertThat(file + " is outdated", new String(Files.readAllBytes(file), StandardCharsets.UTF_8), is(source.getValue()));
+        }
+    }
+
+    static FlyweightGenerator generator(String resource, String packageName, String schemaClassName) throws IOException {
+        return new FlyweightGenerator(parse(resource), packageName, schemaClassName);
+    }
+
+    static Schema parse(String resource) throws IOException {
+        try (Reader reader = new InputStreamReader(FlyweightGeneratorTest.class.getResourceAsStream(resource), StandardCharsets.UTF_8)) {
+            return SchemaParser.parse(reader);
+        }
+    }
+}
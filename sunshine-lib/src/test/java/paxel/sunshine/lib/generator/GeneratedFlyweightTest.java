@@ -0,0 +1,476 @@
+package paxel.sunshine.lib.generator;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.IsSame.sameInstance;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.junit.Test;
+
+import paxel.sunshine.api.datatypes.ULong;
+import paxel.sunshine.api.memory.ReadOnlyRandomAccessMemory;
+import paxel.sunshine.api.memory.RichReadOnlyRandomAccessMemory;
+import paxel.sunshine.api.memory.bytebuffer.ByteBufferRam;
+import paxel.sunshine.api.memory.bytebuffer.ByteBufferRoRam;
+import paxel.sunshine.lib.generator.aligned.AlignedSchema;
+import paxel.sunshine.lib.generator.car.Car;
+import paxel.sunshine.lib.generator.car.CarSchema;
+import paxel.sunshine.lib.generator.car.Engine;
+import paxel.sunshine.lib.generator.car.Tyre;
+import paxel.sunshine.lib.generator.everything.Everything;
+import paxel.sunshine.lib.generator.everything.EverythingSchema;
+import paxel.sunshine.lib.generator.packed.PackedSchema;
+import paxel.sunshine.lib.schema.MemberDefinition;
+import paxel.sunshine.lib.schema.ObjectDefinition;
+import paxel.sunshine.runtime.message.MessageData;
+import paxel.sunshine.runtime.message.MessageHandlerRegistry;
+import paxel.sunshine.runtime.message.MessageParser;
+import paxel.sunshine.runtime.message.MutableMessage;
+import paxel.sunshine.runtime.message.SchemaData;
+import paxel.sunshine.runtime.message.StaticBlocks;
+
+/**
+ * Reads messages with the generated classes of the test schemas.
+ */
+public class GeneratedFlyweightTest {
+
+    @Test
+    public void readCar() throws IOException {
+        CarSchema schema = new CarSchema();
+        MessageHandlerRegistry registry = new MessageHandlerRegistry(schema);
+        Car reused = new Car();
+        List<String> received = new ArrayList<>();
+        registry.register(Car.class, car -> {
+            assertThat(car, sameInstance(reused));
+            Tyre tyre = new Tyre();
+            received.add(car.getName() + " " + car.getHorsePower() + " " + car.isElectric() + " "
+                    + car.getCountryCodes(0) + "," + car.getCountryCodes(3) + " "
+                    + car.getEngine().getName() + " " + car.getTyresSize() + " "
+                    + car.getTyres(0, tyre).isTubeless() + "," + car.getTyres(1, tyre).isTubeless() + " "
+                    + car.hasDescription() + " " + car.getDescription() + " " + car.hasBlob());
+        }, () -> reused);
+        MessageParser parser = new MessageParser(schema, registry);
+
+        parser.handle(car("Edison T", 300, true, 3));
+        parser.handle(car("Volta", 90, false, 3));
+
+        assertThat(received, is(Arrays.asList(
+                "Edison T 300 true 49,-2 V8 2 true,false true fast false",
+                "Volta 90 false 49,-2 V8 2 true,false true fast false")));
+    }
+
+    @Test
+    public void mapTypeIds() {
+        CarSchema schema = new CarSchema();
+
+        assertThat(schema.getTypeId(Car.class), is(Car.TYPE_ID));
+        assertThat(schema.getTypeId(Engine.class), is(Engine.TYPE_ID));
+        assertThat(schema.getTypeId(Everything.class), is(-1));
+        assertThat(schema.getType(Tyre.TYPE_ID), sameInstance((Object) Tyre.class));
+        assertThat(schema.getType(0), is(nullValue()));
+        assertThat(schema.getType(Engine.TYPE_ID + 1), is(nullValue()));
+    }
+
+    @Test
+    public void readMissingValues() throws IOException {
+        MessageData messageData = parse(new CarSchema(), car("Edison", 300, true, 0));
+        Car car = new Car();
+        car.init(messageData.getRoot());
+
+        assertThat(car.getEngineId(), is(0L));
+        assertThat(car.getEngine(), is(nullValue()));
+        assertThat(car.hasBlob(), is(false));
+        try {
+            car.getBlob();
+            fail("blob is not set");
+        } catch (NoSuchElementException e) {
+            assertThat(e.getMessage(), is("blob is not set"));
+        }
+        try {
+            car.getCountryCodes(4);
+            fail("out of bounds");
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+        Engine engine = new Engine();
+        engine.init(messageData.getObjectAt(2));
+        assertThat(engine.getName(), is("V8"));
+    }
+
+    @Test
+    public void readOlderVersion() throws IOException {
+        // the Car of an older schema version without electric, countryCodes and engine
+        byte[] block = new byte[12];
+        block[11] = 100;
+        MessageData messageData = parse(new CarSchema(), new TestMessage()
+                .object(Car.TYPE_ID, 1).staticBlock(block).endObject()
+                .object(Tyre.TYPE_ID, 2).endObject()
+                .endMessage());
+        Car car = new Car();
+        car.init(messageData.getRoot());
+        Tyre tyre = new Tyre();
+        tyre.init(messageData.getObjectAt(1));
+
+        assertThat(car.getName(), is(""));
+        assertThat(car.getHorsePower(), is(100));
+        assertThat(car.isElectric(), is(false));
+        assertThat(car.getCountryCodes(3), is((short) 0));
+        assertThat(car.getEngine(), is(nullValue()));
+        assertThat(car.getTyresSize(), is(0));
+        assertThat(tyre.isTubeless(), is(false));
+    }
+
+    @Test
+    public void updateCar() throws IOException {
+        MutableMessage message = mutable(new CarSchema(), car("Edison", 300, true, 3));
+        Car car = new Car();
+        car.init(message.getMessageData().getRoot());
+        Tyre tubeless = new Tyre();
+        tubeless.init(message.getMessageData().getObjectAt(1));
+        Tyre tube = new Tyre();
+        tube.init(message.getMessageData().getObjectAt(3));
+        long size = message.getSize();
+
+        car.setName("Tesla");
+        car.setHorsePower(670);
+        car.setElectric(false);
+        car.setCountryCodes(3, (short) 7);
+        car.setEngineId(0);
+        car.setDescription("slow");
+
+        // the static block and the value of the same length are overwritten
+        assertThat(message.getSize(), is(size));
+        assertThat(car.getName(), is("Tesla"));
+        assertThat(car.getHorsePower(), is(670));
+        assertThat(car.isElectric(), is(false));
+        assertThat(car.getCountryCodes(3), is((short) 7));
+        assertThat(car.getEngine(), is(nullValue()));
+        assertThat(car.getDescription(), is("slow"));
+
+        car.setDescription("very fast indeed");
+        car.setBlob(new ByteBufferRoRam(ByteBuffer.wrap(new byte[]{1, 2, 3})));
+        car.setEngineId(3);
+        Engine engine = new Engine();
+        engine.init(message.getMessageData().getObjectAt(2));
+        engine.setName(null);
+        // the grown car moved the tyres
+        assertThat(message.getSize() > size, is(true));
+        assertThat(tubeless.isTubeless(), is(true));
+        assertThat(tube.isTubeless(), is(false));
+        tubeless.setTubeless(false);
+        tube.setTubeless(true);
+        assertThat(tubeless.isTubeless(), is(false));
+        assertThat(tube.isTubeless(), is(true));
+
+        MessageData copy = parse(new CarSchema(), copy(message));
+        Car parsed = new Car();
+        parsed.init(copy.getRoot());
+        assertThat(parsed.getName(), is("Tesla"));
+        assertThat(parsed.getCountryCodes(3), is((short) 7));
+        assertThat(parsed.getDescription(), is("very fast indeed"));
+        assertThat(parsed.getBlob().getByteAt(2), is((byte) 3));
+        assertThat(parsed.getEngine().getName(), is(nullValue()));
+        assertThat(parsed.getTyres(1).isTubeless(), is(true));
+
+        car.clearDescription();
+        assertThat(car.hasDescription(), is(false));
+        try {
+            car.setName("Edison Model T");
+            fail("too long");
+        } catch (IllegalArgumentException e) {
+            assertThat(car.getName(), is("Tesla"));
+        }
+    }
+
+    @Test
+    public void rejectUpdates() throws IOException {
+        Car car = new Car();
+        car.init(parse(new CarSchema(), car("Edison", 300, true, 3)).getRoot());
+        try {
+            car.setHorsePower(100);
+            fail("read only");
+        } catch (IllegalStateException e) {
+            assertThat(e.getMessage(), is("the message is read only"));
+        }
+        MutableMessage older = mutable(new CarSchema(), new TestMessage()
+                .object(Car.TYPE_ID, 1).staticBlock(new byte[12]).endObject()
+                .endMessage());
+        car.init(older.getMessageData().getRoot());
+        try {
+            car.setHorsePower(100);
+            fail("older version");
+        } catch (IllegalStateException e) {
+            assertThat(car.getHorsePower(), is(0));
+        }
+        car.setDescription("dynamic values can be added");
+        assertThat(car.getDescription(), is("dynamic values can be added"));
+    }
+
+    @Test
+    public void updateEverything() throws IOException {
+        MutableMessage message = mutable(new EverythingSchema(), new TestMessage()
+                .object(Everything.TYPE_ID, 1).staticBlock(new byte[Everything.STATIC_BLOCK_LENGTH]).endObject()
+                .endMessage());
+        Everything everything = new Everything();
+        everything.init(message.getMessageData().getRoot());
+
+        everything.setFlag(true);
+        everything.setUb((short) 250);
+        everything.setUi(4000000000L);
+        everything.setUl(new ULong(-2));
+        everything.setF(0.25f);
+        everything.setD(-1.5);
+        everything.setText("text");
+        everything.setSplit(0x12345678);
+        everything.setSplitText("split!");
+        for (int i = 0; i < Everything.SPLIT_INTS_LENGTH; i++) {
+            everything.setSplitInts(i, -i * 1000);
+        }
+        everything.setMaybe(42);
+        everything.setBigBits(-3);
+        everything.setSpareId(3);
+        everything.setMaybe(43);
+
+        everything.init(parse(new EverythingSchema(), copy(message)).getRoot());
+        assertThat(everything.isFlag(), is(true));
+        assertThat(everything.getUb(), is((short) 250));
+        assertThat(everything.getUi(), is(4000000000L));
+        assertThat(everything.getUl(), is(new ULong(-2)));
+        assertThat(everything.getF(), is(0.25f));
+        assertThat(everything.getD(), is(-1.5));
+        assertThat(everything.getText(), is("text"));
+        assertThat(everything.getSplit(), is(0x12345678));
+        assertThat(everything.getSplitText(), is("split!"));
+        for (int i = 0; i < Everything.SPLIT_INTS_LENGTH; i++) {
+            assertThat(everything.getSplitInts(i), is(-i * 1000));
+        }
+        assertThat(everything.getMaybe(), is(43));
+        assertThat(everything.getBig(), is(new ULong(-3)));
+        assertThat(everything.getSpareId(), is(3L));
+        assertThat(everything.getObjectData().getValueTlvCount(7), is(1));
+    }
+
+    @Test
+    public void readEverything() throws IOException {
+        ObjectDefinition definition = FlyweightGeneratorTest.parse("/everything.schema").getObject("Everything");
+        ByteBuffer block = ByteBuffer.allocate(Everything.STATIC_BLOCK_LENGTH);
+        block.put(offset(definition, "flag"), (byte) 1);
+        block.put(offset(definition, "b"), (byte) -7);
+        block.put(offset(definition, "ub"), (byte) 250);
+        block.putShort(offset(definition, "s"), (short) -300);
+        block.putShort(offset(definition, "us"), (short) 65000);
+        block.putInt(offset(definition, "i"), -123456);
+        block.putInt(offset(definition, "ui"), (int) 4000000000L);
+        block.putLong(offset(definition, "l"), Long.MIN_VALUE + 1);
+        block.putLong(offset(definition, "ul"), -2);
+        block.putFloat(offset(definition, "f"), 0.25f);
+        block.putDouble(offset(definition, "d"), -1.5);
+        block.put(offset(definition, "padding") + 199, (byte) 9);
+        put(block, offset(definition, "text"), "text");
+        block.putInt(offset(definition, "split"), 0x12345678);
+        put(block, offset(definition, "longText"), "long");
+        put(block, offset(definition, "splitText"), "split!");
+        block.putShort(offset(definition, "shorts") + 9 * 2, (short) 99);
+        for (int i = 0; i < Everything.SPLIT_INTS_LENGTH; i++) {
+            block.putInt(offset(definition, "splitInts") + i * 4, i * 1000);
+        }
+        block.putInt(offset(definition, "tyre"), 2);
+        block.putInt(offset(definition, "tyres") + 4, 3);
+        char[] longName = new char[300];
+        Arrays.fill(longName, 'n');
+        byte[] nameBytes = new String(longName).getBytes(StandardCharsets.UTF_8);
+
+        MessageData messageData = parse(new EverythingSchema(), new TestMessage()
+                .object(Everything.TYPE_ID, 1)
+                .staticBlock(block.array())
+                .value(1, Arrays.copyOf(nameBytes, 255))
+                .value(2, new byte[]{1, 2, 3})
+                .value(1, Arrays.copyOfRange(nameBytes, 255, 300))
+                .value(3, new byte[]{0, 1, 0, 2})
+                .value(3, new byte[]{0, 3})
+                .value(4, "a")
+                .value(4, "bc")
+                .value(5, new byte[]{7})
+                .value(6, new byte[]{0, 0, 0, 3, 0, 0, 0, 2})
+                .value(7, new byte[]{0, 0, 0, 42})
+                .value(9, "note")
+                .value(10, new byte[]{0, 0, 0, 3})
+                .endObject()
+                .object(paxel.sunshine.lib.generator.everything.Tyre.TYPE_ID, 2).staticBlock(new byte[]{1}).endObject()
+                .object(paxel.sunshine.lib.generator.everything.Tyre.TYPE_ID, 3).staticBlock(new byte[]{0}).endObject()
+                .endMessage());
+        Everything everything = new Everything();
+        everything.init(messageData.getRoot());
+
+        assertThat(everything.isFlag(), is(true));
+        assertThat(everything.getB(), is((byte) -7));
+        assertThat(everything.getUb(), is((short) 250));
+        assertThat(everything.getS(), is((short) -300));
+        assertThat(everything.getUs(), is(65000));
+        assertThat(everything.getI(), is(-123456));
+        assertThat(everything.getUi(), is(4000000000L));
+        assertThat(everything.getL(), is(Long.MIN_VALUE + 1));
+        assertThat(everything.getUl(), is(new ULong(-2)));
+        assertThat(everything.getUlBits(), is(-2L));
+        assertThat(everything.getF(), is(0.25f));
+        assertThat(everything.getD(), is(-1.5));
+        assertThat(everything.getPadding().getByteAt(199), is((byte) 9));
+        assertThat(everything.getText(), is("text"));
+        assertThat(everything.getSplit(), is(0x12345678));
+        assertThat(everything.getLongText(), is("long"));
+        assertThat(everything.getSplitText(), is("split!"));
+        assertThat(everything.getShorts(9), is((short) 99));
+        for (int i = 0; i < Everything.SPLIT_INTS_LENGTH; i++) {
+            assertThat(everything.getSplitInts(i), is(i * 1000));
+        }
+        assertThat(everything.getTyre().isTubeless(), is(true));
+        assertThat(everything.getTyresId(0), is(0L));
+        assertThat(everything.getTyres(1).isTubeless(), is(false));
+
+        assertThat(everything.getName(), is(new String(longName)));
+        ReadOnlyRandomAccessMemory data = everything.getData();
+        assertThat(data.getBytesAt(0, (int) data.size()), is(new byte[]{1, 2, 3}));
+        assertThat(everything.getCodesSize(), is(3));
+        assertThat(everything.getCodes(2), is((short) 3));
+        assertThat(everything.getWordsSize(), is(2));
+        assertThat(everything.getWords(1), is("bc"));
+        assertThat(everything.getBlobsSize(), is(1));
+        assertThat(everything.getBlobs(0).getByteAt(0), is((byte) 7));
+        assertThat(everything.getSparesSize(), is(2));
+        assertThat(everything.getSpares(1).isTubeless(), is(true));
+        assertThat(everything.getMaybe(), is(42));
+        assertThat(everything.hasBig(), is(false));
+        assertThat(everything.getNote(), is("note"));
+        assertThat(everything.getSpare().isTubeless(), is(false));
+        assertThat(everything.hasExtra(), is(false));
+        try {
+            everything.getBigBits();
+            fail("big is not set");
+        } catch (NoSuchElementException e) {
+            // expected
+        }
+        try {
+            everything.getCodes(3);
+            fail("out of bounds");
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+
+        assertThat(Everything.UNSIGNED_LONG, is(new ULong(-1)));
+        assertThat(Everything.TEXT, is("say \"hi\""));
+    }
+
+    @Test
+    public void readAlignedAndPacked() throws IOException {
+        MessageData aligned = parse(new AlignedSchema(), sample(true));
+        MessageData packed = parse(new PackedSchema(), sample(false));
+        paxel.sunshine.lib.generator.aligned.Sample alignedSample = new paxel.sunshine.lib.generator.aligned.Sample();
+        alignedSample.init(aligned.getRoot());
+        paxel.sunshine.lib.generator.packed.Sample packedSample = new paxel.sunshine.lib.generator.packed.Sample();
+        packedSample.init(packed.getRoot());
+
+        // the NOPs after the object header align the static block
+        assertThat(aligned.getRoot().getStaticBlockIndex(0) % 8, is(0L));
+        assertThat(aligned.getRoot().getNopCount(), is(1));
+        assertThat(alignedSample.getKind(), is((byte) 1));
+        assertThat(alignedSample.getTimestamp(), is(2L));
+        assertThat(alignedSample.getCount(), is(3));
+        assertThat(alignedSample.getPrice(), is(4.0));
+        assertThat(alignedSample.getFlags(), is((short) 5));
+        assertThat(alignedSample.getVolume(), is(6L));
+        assertThat(alignedSample.getTotal(), is(7.0));
+        assertThat(packedSample.getKind(), is((byte) 1));
+        assertThat(packedSample.getTimestamp(), is(2L));
+        assertThat(packedSample.getCount(), is(3));
+        assertThat(packedSample.getPrice(), is(4.0));
+        assertThat(packedSample.getFlags(), is((short) 5));
+        assertThat(packedSample.getVolume(), is(6L));
+        assertThat(packedSample.getTotal(), is(7.0));
+    }
+
+    /**
+     * Writes the Sample of the aligned or the packed schema with the values 1 to
+     * 7. The aligned static block is aligned to 8 bytes with NOPs.
+     */
+    static RichReadOnlyRandomAccessMemory sample(boolean aligned) throws IOException {
+        ObjectDefinition definition = FlyweightGeneratorTest.parse(aligned ? "/aligned.schema" : "/packed.schema")
+                .getObject("Sample");
+        ByteBuffer block = ByteBuffer.allocate(definition.getStaticBlockLength());
+        block.put(offset(definition, "kind"), (byte) 1);
+        block.putLong(offset(definition, "timestamp"), 2);
+        block.putInt(offset(definition, "count"), 3);
+        block.putDouble(offset(definition, "price"), 4);
+        block.putShort(offset(definition, "flags"), (short) 5);
+        block.putLong(offset(definition, "volume"), 6);
+        block.putDouble(offset(definition, "total"), 7);
+        TestMessage message = new TestMessage().object(1, 1);
+        if (aligned) {
+            message.nop(StaticBlocks.alignmentPadding(message.size(), paxel.sunshine.lib.generator.aligned.Sample.STATIC_BLOCK_ALIGNMENT));
+        }
+        return message.staticBlock(block.array()).endObject().endMessage();
+    }
+
+    static RichReadOnlyRandomAccessMemory car(String name, int horsePower, boolean electric, int engine) {
+        ByteBuffer block = ByteBuffer.allocate(Car.STATIC_BLOCK_LENGTH);
+        put(block, 0, name);
+        block.putShort(10, (short) horsePower);
+        block.put(12, (byte) (electric ? 1 : 0));
+        block.putShort(13, (short) 49);
+        block.putShort(19, (short) -2);
+        block.putInt(21, engine);
+        return new TestMessage()
+                .object(Car.TYPE_ID, 1)
+                .staticBlock(block.array())
+                .value(1, new byte[]{0, 0, 0, 2, 0, 0, 0, 4})
+                .value(2, "fast")
+                .endObject()
+                .object(Tyre.TYPE_ID, 2).staticBlock(new byte[]{1}).endObject()
+                .object(Engine.TYPE_ID, 3).value(1, "V8").endObject()
+                .object(Tyre.TYPE_ID, 4).staticBlock(new byte[]{0}).endObject()
+                .endMessage();
+    }
+
+    private static MessageData parse(SchemaData schema, RichReadOnlyRandomAccessMemory message) throws IOException {
+        MessageData messageData = new MessageData(schema);
+        MessageParser.parse(message, messageData);
+        return messageData;
+    }
+
+    private static MutableMessage mutable(SchemaData schema, RichReadOnlyRandomAccessMemory message) throws IOException {
+        byte[] bytes = new byte[(int) message.size()];
+        message.copyToDestination(0, bytes);
+        return new MutableMessage(schema, new ByteBufferRam(ByteBuffer.wrap(Arrays.copyOf(bytes, bytes.length + 64))),
+                bytes.length, 16);
+    }
+
+    private static RichReadOnlyRandomAccessMemory copy(MutableMessage message) {
+        byte[] bytes = new byte[(int) message.getSize()];
+        message.getRam().copyToDestination(0, bytes);
+        return new ByteBufferRoRam(ByteBuffer.wrap(bytes));
+    }
+
+    private static void put(ByteBuffer block, int offset, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        for (int i = 0; i < bytes.length; i++) {
+            block.put(offset + i, bytes[i]);
+        }
+    }
+
+    private static int offset(ObjectDefinition object, String name) {
+        for (MemberDefinition member : object.getMembers()) {
+            if (member.getName().equals(name)) {
+                return member.getStaticOffset();
+            }
+        }
+        throw new AssertionError(name + " not found");
+    }
+}
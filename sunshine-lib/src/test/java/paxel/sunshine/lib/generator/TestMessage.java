@@ -0,0 +1,77 @@
+package paxel.sunshine.lib.generator;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import paxel.sunshine.api.memory.RichReadOnlyRandomAccessMemory;
+import paxel.sunshine.api.memory.bytebuffer.ByteBufferRoRam;
+import paxel.sunshine.runtime.message.Tlv;
+
+/**
+ * Writes the raw bytes of a message for tests of the generated code.
+ */
+public class TestMessage {
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    public TestMessage object(int typeId, long instanceId) {
+        ByteBuffer header = ByteBuffer.allocate(Tlv.OBJECT_HEADER_SIZE);
+        header.put((byte) 'o').put((byte) 'b').put((byte) 'j').putShort((short) typeId).putInt((int) instanceId);
+        out.write(header.array(), 0, header.capacity());
+        return this;
+    }
+
+    /**
+     * Writes the static block in chunks of 255 bytes.
+     *
+     * @param block The content of the static block.
+     * @return this.
+     */
+    public TestMessage staticBlock(byte[] block) {
+        for (int offset = 0; offset < block.length; offset += Tlv.MAX_VALUE_LENGTH) {
+            int length = Math.min(Tlv.MAX_VALUE_LENGTH, block.length - offset);
+            out.write(Tlv.STATIC_BLOCK);
+            out.write(length);
+            out.write(block, offset, length);
+        }
+        return this;
+    }
+
+    public TestMessage value(int valueId, byte[] value) {
+        out.write(valueId);
+        out.write(value.length);
+        out.write(value, 0, value.length);
+        return this;
+    }
+
+    public TestMessage value(int valueId, String value) {
+        return value(valueId, value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public TestMessage nop(int count) {
+        for (int i = 0; i < count; i++) {
+            out.write(Tlv.NOP);
+        }
+        return this;
+    }
+
+    /**
+     * Retrieve the number of bytes written.
+     *
+     * @return the size.
+     */
+    public int size() {
+        return out.size();
+    }
+
+    public TestMessage endObject() {
+        out.write(Tlv.END_OF_OBJECT);
+        return this;
+    }
+
+    public RichReadOnlyRandomAccessMemory endMessage() {
+        out.write(Tlv.END_OF_OBJECT);
+        return new ByteBufferRoRam(ByteBuffer.wrap(out.toByteArray()));
+    }
+}
@@ -0,0 +1,44 @@
+package paxel.sunshine.lib.generator.aligned;
+
+import paxel.sunshine.runtime.message.SchemaData;
+import paxel.sunshine.runtime.message.SunshineObject;
+
+/**
+ * The type IDs of the schema. Generated from the schema, do not edit.
+ */
+public final class AlignedSchema implements SchemaData {
+
+    /**
+     * The classes indexed by their type ID.
+     */
+    @SuppressWarnings("unchecked")
+    private static final Class<? extends SunshineObject>[] TYPES = (Class<? extends SunshineObject>[]) new Class<?>[] {
+            null,
+            Sample.class,
+    };
+
+    @Override
+    public int getTypeId(Class<?> type) {
+        for (int typeId = 1; typeId < TYPES.length; typeId++) {
+            if (TYPES[typeId] == type) {
+                return typeId;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public Class<? extends SunshineObject> getType(int typeId) {
+        return typeId > 0 && typeId < TYPES.length ? TYPES[typeId] : null;
+    }
+
+    @Override
+    public SunshineObject newInstance(int typeId) {
+        switch (typeId) {
+            case Sample.TYPE_ID:
+                return new Sample();
+            default:
+                return null;
+        }
+    }
+}
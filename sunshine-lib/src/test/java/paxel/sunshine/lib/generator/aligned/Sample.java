@@ -0,0 +1,129 @@
+package paxel.sunshine.lib.generator.aligned;
+
+import paxel.sunshine.api.memory.RichReadOnlyRandomAccessMemory;
+import paxel.sunshine.runtime.message.ObjectData;
+import paxel.sunshine.runtime.message.StaticBlocks;
+import paxel.sunshine.runtime.message.SunshineObject;
+
+/**
+ * The flyweight of the Object Sample. Generated from the schema, do not edit.
+ * <p>
+ * The static block layout @Aligned(1):
+ * <pre>
+ * offset  size name
+ *      0     1 kind
+ *      8     8 timestamp
+ *     16     4 count
+ *     24     8 price
+ *     32     2 flags
+ *     40     8 volume
+ *     48     8 total
+ * </pre>
+ */
+public final class Sample implements SunshineObject {
+
+    public static final int TYPE_ID = 1;
+    public static final int STATIC_BLOCK_LENGTH = 56;
+    public static final int STATIC_BLOCK_ALIGNMENT = 8;
+
+    private ObjectData objectData;
+    private RichReadOnlyRandomAccessMemory staticBlockRam;
+    private boolean staticBlockCopied;
+
+    @Override
+    public void init(ObjectData objectData) {
+        this.objectData = objectData;
+        if (objectData.getStaticBlockLength() >= STATIC_BLOCK_LENGTH) {
+            staticBlockRam = objectData.getRam();
+            staticBlockCopied = false;
+        } else {
+            // written by an older version of the schema: the missing values are 0
+            staticBlockRam = StaticBlocks.copy(objectData, STATIC_BLOCK_LENGTH);
+            staticBlockCopied = true;
+        }
+    }
+
+    /**
+     * Retrieve the object this instance points to.
+     *
+     * @return the object or {@code null} if the instance was not initialized.
+     */
+    public ObjectData getObjectData() {
+        return objectData;
+    }
+
+    public byte getKind() {
+        return staticBlockRam.getByteAt(staticBlock());
+    }
+
+    public void setKind(byte kind) {
+        objectData.getWritableRam().putByteAt(writableStaticBlock(), kind);
+    }
+
+    public long getTimestamp() {
+        return staticBlockRam.getInt64At(staticBlock() + 8);
+    }
+
+    public void setTimestamp(long timestamp) {
+        objectData.getWritableRam().putInt64At(writableStaticBlock() + 8, timestamp);
+    }
+
+    public int getCount() {
+        return staticBlockRam.getInt32At(staticBlock() + 16);
+    }
+
+    public void setCount(int count) {
+        objectData.getWritableRam().putInt32At(writableStaticBlock() + 16, count);
+    }
+
+    public double getPrice() {
+        return staticBlockRam.getDoubleAt(staticBlock() + 24);
+    }
+
+    public void setPrice(double price) {
+        objectData.getWritableRam().putDoubleAt(writableStaticBlock() + 24, price);
+    }
+
+    public short getFlags() {
+        return staticBlockRam.getInt16At(staticBlock() + 32);
+    }
+
+    public void setFlags(short flags) {
+        objectData.getWritableRam().putInt16At(writableStaticBlock() + 32, flags);
+    }
+
+    public long getVolume() {
+        return staticBlockRam.getInt64At(staticBlock() + 40);
+    }
+
+    public void setVolume(long volume) {
+        objectData.getWritableRam().putInt64At(writableStaticBlock() + 40, volume);
+    }
+
+    public double getTotal() {
+        return staticBlockRam.getDoubleAt(staticBlock() + 48);
+    }
+
+    public void setTotal(double total) {
+        objectData.getWritableRam().putDoubleAt(writableStaticBlock() + 48, total);
+    }
+
+    /**
+     * Retrieve the index of the static block for the getters. It is not cached, because a growth or
+     * compaction of a mutable message can move the object.
+     */
+    private long staticBlock() {
+        return staticBlockCopied ? 0 : objectData.getStaticBlockIndex(0);
+    }
+
+    /**
+     * Retrieve the index of the static block for the setters. It is not cached, because the object
+     * can be moved in a mutable message.
+     */
+    private long writableStaticBlock() {
+        if (objectData.getStaticBlockLength() < STATIC_BLOCK_LENGTH) {
+            throw new IllegalStateException("the static block of an older schema version can't be updated");
+        }
+        return objectData.getStaticBlockIndex(0);
+    }
+}
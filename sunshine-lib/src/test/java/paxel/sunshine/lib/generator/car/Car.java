@@ -0,0 +1,208 @@
+package paxel.sunshine.lib.generator.car;
+
+import java.util.NoSuchElementException;
+
+import paxel.sunshine.api.memory.ReadOnlyRandomAccessMemory;
+import paxel.sunshine.api.memory.RichReadOnlyRandomAccessMemory;
+import paxel.sunshine.runtime.message.ObjectData;
+import paxel.sunshine.runtime.message.StaticBlocks;
+import paxel.sunshine.runtime.message.SunshineObject;
+
+/**
+ * The flyweight of the Object Car. Generated from the schema, do not edit.
+ * <p>
+ * The static block layout in declaration order:
+ * <pre>
+ * offset  size name
+ *      0    10 name
+ *     10     2 horsePower
+ *     12     1 electric
+ *     13     8 countryCodes
+ *     21     4 engine
+ * </pre>
+ */
+public final class Car implements SunshineObject {
+
+    public static final int TYPE_ID = 1;
+    public static final int STATIC_BLOCK_LENGTH = 25;
+    public static final int COUNTRY_CODES_LENGTH = 4;
+
+    public static final String BRAND = "Edison";
+    public static final int MANIFACTOR_ID = 1833;
+
+    private static final int TYRES_VALUE_ID = 1;
+    private static final int DESCRIPTION_VALUE_ID = 2;
+    private static final int BLOB_VALUE_ID = 3;
+
+    private ObjectData objectData;
+    private RichReadOnlyRandomAccessMemory staticBlockRam;
+    private boolean staticBlockCopied;
+
+    @Override
+    public void init(ObjectData objectData) {
+        this.objectData = objectData;
+        if (objectData.getStaticBlockLength() >= STATIC_BLOCK_LENGTH) {
+            staticBlockRam = objectData.getRam();
+            staticBlockCopied = false;
+        } else {
+            // written by an older version of the schema: the missing values are 0
+            staticBlockRam = StaticBlocks.copy(objectData, STATIC_BLOCK_LENGTH);
+            staticBlockCopied = true;
+        }
+    }
+
+    /**
+     * Retrieve the object this instance points to.
+     *
+     * @return the object or {@code null} if the instance was not initialized.
+     */
+    public ObjectData getObjectData() {
+        return objectData;
+    }
+
+    public String getName() {
+        return staticBlockRam.getFixStringAt(staticBlock(), 10);
+    }
+
+    public void setName(String name) {
+        StaticBlocks.putFixString(objectData.getWritableRam(), writableStaticBlock(), 0, 10, name);
+    }
+
+    public int getHorsePower() {
+        return staticBlockRam.getUInt16At(staticBlock() + 10);
+    }
+
+    public void setHorsePower(int horsePower) {
+        objectData.getWritableRam().putUInt16At(writableStaticBlock() + 10, horsePower);
+    }
+
+    public boolean isElectric() {
+        return staticBlockRam.getByteAt(staticBlock() + 12) != 0;
+    }
+
+    public void setElectric(boolean electric) {
+        objectData.getWritableRam().putByteAt(writableStaticBlock() + 12, (byte) (electric ? 1 : 0));
+    }
+
+    public short getCountryCodes(int index) {
+        return staticBlockRam.getInt16At(staticBlock() + 13 + StaticBlocks.checkIndex(index, COUNTRY_CODES_LENGTH) * 2);
+    }
+
+    public void setCountryCodes(int index, short countryCodes) {
+        objectData.getWritableRam().putInt16At(writableStaticBlock() + 13 + StaticBlocks.checkIndex(index, COUNTRY_CODES_LENGTH) * 2, countryCodes);
+    }
+
+    public int getTyresSize() {
+        return objectData.getListSize(TYRES_VALUE_ID, 4);
+    }
+
+    public long getTyresId(int index) {
+        return objectData.getRam().getUInt32At(objectData.getListElementIndex(TYRES_VALUE_ID, index, 4));
+    }
+
+    /**
+     * Points the target to the referenced Tyre.
+     *
+     * @param index  The index of the reference.
+     * @param target The reused instance.
+     * @return the target or {@code null} if the reference is not set.
+     */
+    public Tyre getTyres(int index, Tyre target) {
+        ObjectData referenced = objectData.getReferencedObject(getTyresId(index), Tyre.TYPE_ID);
+        if (referenced == null) {
+            return null;
+        }
+        target.init(referenced);
+        return target;
+    }
+
+    public Tyre getTyres(int index) {
+        return getTyres(index, new Tyre());
+    }
+
+    public long getEngineId() {
+        return staticBlockRam.getUInt32At(staticBlock() + 21);
+    }
+
+    /**
+     * Points the target to the referenced Engine.
+     *
+     * @param target The reused instance.
+     * @return the target or {@code null} if the reference is not set.
+     */
+    public Engine getEngine(Engine target) {
+        ObjectData referenced = objectData.getReferencedObject(getEngineId(), Engine.TYPE_ID);
+        if (referenced == null) {
+            return null;
+        }
+        target.init(referenced);
+        return target;
+    }
+
+    public Engine getEngine() {
+        return getEngine(new Engine());
+    }
+
+    public void setEngineId(long engineId) {
+        objectData.getWritableRam().putUInt32At(writableStaticBlock() + 21, engineId);
+    }
+
+    public boolean hasDescription() {
+        return objectData.hasValue(DESCRIPTION_VALUE_ID);
+    }
+
+    public String getDescription() {
+        String value = objectData.getStringValue(DESCRIPTION_VALUE_ID);
+        if (value == null) {
+            throw new NoSuchElementException("description is not set");
+        }
+        return value;
+    }
+
+    public void setDescription(String description) {
+        objectData.setStringValue(DESCRIPTION_VALUE_ID, description);
+    }
+
+    public void clearDescription() {
+        objectData.removeValue(DESCRIPTION_VALUE_ID);
+    }
+
+    public boolean hasBlob() {
+        return objectData.hasValue(BLOB_VALUE_ID);
+    }
+
+    public ReadOnlyRandomAccessMemory getBlob() {
+        ReadOnlyRandomAccessMemory value = objectData.getBinaryValue(BLOB_VALUE_ID);
+        if (value == null) {
+            throw new NoSuchElementException("blob is not set");
+        }
+        return value;
+    }
+
+    public void setBlob(ReadOnlyRandomAccessMemory blob) {
+        objectData.setValue(BLOB_VALUE_ID, blob);
+    }
+
+    public void clearBlob() {
+        objectData.removeValue(BLOB_VALUE_ID);
+    }
+
+    /**
+     * Retrieve the index of the static block for the getters. It is not cached, because a growth or
+     * compaction of a mutable message can move the object.
+     */
+    private long staticBlock() {
+        return staticBlockCopied ? 0 : objectData.getStaticBlockIndex(0);
+    }
+
+    /**
+     * Retrieve the index of the static block for the setters. It is not cached, because the object
+     * can be moved in a mutable message.
+     */
+    private long writableStaticBlock() {
+        if (objectData.getStaticBlockLength() < STATIC_BLOCK_LENGTH) {
+            throw new IllegalStateException("the static block of an older schema version can't be updated");
+        }
+        return objectData.getStaticBlockIndex(0);
+    }
+}
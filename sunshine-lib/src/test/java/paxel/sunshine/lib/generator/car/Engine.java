@@ -0,0 +1,43 @@
+package paxel.sunshine.lib.generator.car;
+
+import paxel.sunshine.runtime.message.ObjectData;
+import paxel.sunshine.runtime.message.SunshineObject;
+
+/**
+ * The flyweight of the Object Engine. Generated from the schema, do not edit.
+ */
+public final class Engine implements SunshineObject {
+
+    public static final int TYPE_ID = 3;
+    public static final int STATIC_BLOCK_LENGTH = 0;
+
+    private static final int NAME_VALUE_ID = 1;
+
+    private ObjectData objectData;
+
+    @Override
+    public void init(ObjectData objectData) {
+        this.objectData = objectData;
+    }
+
+    /**
+     * Retrieve the object this instance points to.
+     *
+     * @return the object or {@code null} if the instance was not initialized.
+     */
+    public ObjectData getObjectData() {
+        return objectData;
+    }
+
+    public String getName() {
+        return objectData.getStringValue(NAME_VALUE_ID);
+    }
+
+    public void setName(String name) {
+        if (name == null) {
+            objectData.removeValue(NAME_VALUE_ID);
+        } else {
+            objectData.setStringValue(NAME_VALUE_ID, name);
+        }
+    }
+}
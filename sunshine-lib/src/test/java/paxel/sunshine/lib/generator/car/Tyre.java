@@ -0,0 +1,74 @@
+package paxel.sunshine.lib.generator.car;
+
+import paxel.sunshine.api.memory.RichReadOnlyRandomAccessMemory;
+import paxel.sunshine.runtime.message.ObjectData;
+import paxel.sunshine.runtime.message.StaticBlocks;
+import paxel.sunshine.runtime.message.SunshineObject;
+
+/**
+ * The flyweight of the Object Tyre. Generated from the schema, do not edit.
+ * <p>
+ * The static block layout in declaration order:
+ * <pre>
+ * offset  size name
+ *      0     1 tubeless
+ * </pre>
+ */
+public final class Tyre implements SunshineObject {
+
+    public static final int TYPE_ID = 2;
+    public static final int STATIC_BLOCK_LENGTH = 1;
+
+    private ObjectData objectData;
+    private RichReadOnlyRandomAccessMemory staticBlockRam;
+    private boolean staticBlockCopied;
+
+    @Override
+    public void init(ObjectData objectData) {
+        this.objectData = objectData;
+        if (objectData.getStaticBlockLength() >= STATIC_BLOCK_LENGTH) {
+            staticBlockRam = objectData.getRam();
+            staticBlockCopied = false;
+        } else {
+            // written by an older version of the schema: the missing values are 0
+            staticBlockRam = StaticBlocks.copy(objectData, STATIC_BLOCK_LENGTH);
+            staticBlockCopied = true;
+        }
+    }
+
+    /**
+     * Retrieve the object this instance points to.
+     *
+     * @return the object or {@code null} if the instance was not initialized.
+     */
+    public ObjectData getObjectData() {
+        return objectData;
+    }
+
+    public boolean isTubeless() {
+        return staticBlockRam.getByteAt(staticBlock()) != 0;
+    }
+
+    public void setTubeless(boolean tubeless) {
+        objectData.getWritableRam().putByteAt(writableStaticBlock(), (byte) (tubeless ? 1 : 0));
+    }
+
+    /**
+     * Retrieve the index of the static block for the getters. It is not cached, because a growth or
+     * compaction of a mutable message can move the object.
+     */
+    private long staticBlock() {
+        return staticBlockCopied ? 0 : objectData.getStaticBlockIndex(0);
+    }
+
+    /**
+     * Retrieve the index of the static block for the setters. It is not cached, because the object
+     * can be moved in a mutable message.
+     */
+    private long writableStaticBlock() {
+        if (objectData.getStaticBlockLength() < STATIC_BLOCK_LENGTH) {
+            throw new IllegalStateException("the static block of an older schema version can't be updated");
+        }
+        return objectData.getStaticBlockIndex(0);
+    }
+}
@@ -0,0 +1,540 @@
+package paxel.sunshine.lib.generator.everything;
+
+import java.util.NoSuchElementException;
+
+import paxel.sunshine.api.datatypes.ULong;
+import paxel.sunshine.api.memory.ReadOnlyRandomAccessMemory;
+import paxel.sunshine.api.memory.RichReadOnlyRandomAccessMemory;
+import paxel.sunshine.runtime.message.ObjectData;
+import paxel.sunshine.runtime.message.StaticBlocks;
+import paxel.sunshine.runtime.message.SunshineObject;
+
+/**
+ * The flyweight of the Object Everything. Generated from the schema, do not edit.
+ * <p>
+ * The static block layout in declaration order:
+ * <pre>
+ * offset  size name
+ *      0     1 flag
+ *      1     1 b
+ *      2     1 ub
+ *      3     2 s
+ *      5     2 us
+ *      7     4 i
+ *     11     4 ui
+ *     15     8 l
+ *     23     8 ul
+ *     31     4 f
+ *     35     8 d
+ *     43   200 padding
+ *    243    10 text
+ *    253     4 split
+ *    257   250 longText
+ *    507     6 splitText
+ *    513    20 shorts
+ *    533   240 splitInts
+ *    773     4 tyre
+ *    777     8 tyres
+ * </pre>
+ */
+public final class Everything implements SunshineObject {
+
+    public static final int TYPE_ID = 1;
+    public static final int STATIC_BLOCK_LENGTH = 785;
+    public static final int SHORTS_LENGTH = 10;
+    public static final int SPLIT_INTS_LENGTH = 60;
+    public static final int TYRES_LENGTH = 2;
+
+    public static final boolean ENABLED = true;
+    public static final byte SMALL = -5;
+    public static final short UNSIGNED_SMALL = 200;
+    public static final short SHORT = -1000;
+    public static final int UNSIGNED_SHORT = 65535;
+    public static final int INT = 100000;
+    public static final long UNSIGNED_INT = 4000000000L;
+    public static final long LONG = -5000000000L;
+    public static final ULong UNSIGNED_LONG = ULong.fromUnsignedString("18446744073709551615");
+    public static final float FLOAT = 1.5f;
+    public static final double DOUBLE = 2.25;
+    public static final String TEXT = "say \"hi\"";
+
+    private static final int NAME_VALUE_ID = 1;
+    private static final int DATA_VALUE_ID = 2;
+    private static final int CODES_VALUE_ID = 3;
+    private static final int WORDS_VALUE_ID = 4;
+    private static final int BLOBS_VALUE_ID = 5;
+    private static final int SPARES_VALUE_ID = 6;
+    private static final int MAYBE_VALUE_ID = 7;
+    private static final int BIG_VALUE_ID = 8;
+    private static final int NOTE_VALUE_ID = 9;
+    private static final int SPARE_VALUE_ID = 10;
+    private static final int EXTRA_VALUE_ID = 11;
+
+    private ObjectData objectData;
+    private RichReadOnlyRandomAccessMemory staticBlockRam;
+    private boolean staticBlockCopied;
+
+    @Override
+    public void init(ObjectData objectData) {
+        this.objectData = objectData;
+        if (objectData.getStaticBlockLength() >= STATIC_BLOCK_LENGTH) {
+            staticBlockRam = objectData.getRam();
+            staticBlockCopied = false;
+        } else {
+            // written by an older version of the schema: the missing values are 0
+            staticBlockRam = StaticBlocks.copy(objectData, STATIC_BLOCK_LENGTH);
+            staticBlockCopied = true;
+        }
+    }
+
+    /**
+     * Retrieve the object this instance points to.
+     *
+     * @return the object or {@code null} if the instance was not initialized.
+     */
+    public ObjectData getObjectData() {
+        return objectData;
+    }
+
+    public boolean isFlag() {
+        return staticBlockRam.getByteAt(staticBlock()) != 0;
+    }
+
+    public void setFlag(boolean flag) {
+        objectData.getWritableRam().putByteAt(writableStaticBlock(), (byte) (flag ? 1 : 0));
+    }
+
+    public byte getB() {
+        return staticBlockRam.getByteAt(staticBlock() + 1);
+    }
+
+    public void setB(byte b) {
+        objectData.getWritableRam().putByteAt(writableStaticBlock() + 1, b);
+    }
+
+    public short getUb() {
+        return staticBlockRam.getUByteAt(staticBlock() + 2);
+    }
+
+    public void setUb(short ub) {
+        objectData.getWritableRam().putUByteAt(writableStaticBlock() + 2, ub);
+    }
+
+    public short getS() {
+        return staticBlockRam.getInt16At(staticBlock() + 3);
+    }
+
+    public void setS(short s) {
+        objectData.getWritableRam().putInt16At(writableStaticBlock() + 3, s);
+    }
+
+    public int getUs() {
+        return staticBlockRam.getUInt16At(staticBlock() + 5);
+    }
+
+    public void setUs(int us) {
+        objectData.getWritableRam().putUInt16At(writableStaticBlock() + 5, us);
+    }
+
+    public int getI() {
+        return staticBlockRam.getInt32At(staticBlock() + 7);
+    }
+
+    public void setI(int i) {
+        objectData.getWritableRam().putInt32At(writableStaticBlock() + 7, i);
+    }
+
+    public long getUi() {
+        return staticBlockRam.getUInt32At(staticBlock() + 11);
+    }
+
+    public void setUi(long ui) {
+        objectData.getWritableRam().putUInt32At(writableStaticBlock() + 11, ui);
+    }
+
+    public long getL() {
+        return staticBlockRam.getInt64At(staticBlock() + 15);
+    }
+
+    public void setL(long l) {
+        objectData.getWritableRam().putInt64At(writableStaticBlock() + 15, l);
+    }
+
+    public ULong getUl() {
+        return staticBlockRam.getUInt64At(staticBlock() + 23);
+    }
+
+    public long getUlBits() {
+        return staticBlockRam.getUInt64BitsAt(staticBlock() + 23);
+    }
+
+    public void setUl(ULong ul) {
+        objectData.getWritableRam().putUInt64At(writableStaticBlock() + 23, ul);
+    }
+
+    public void setUlBits(long ul) {
+        objectData.getWritableRam().putUInt64BitsAt(writableStaticBlock() + 23, ul);
+    }
+
+    public float getF() {
+        return staticBlockRam.getFloatAt(staticBlock() + 31);
+    }
+
+    public void setF(float f) {
+        objectData.getWritableRam().putFloatAt(writableStaticBlock() + 31, f);
+    }
+
+    public double getD() {
+        return staticBlockRam.getDoubleAt(staticBlock() + 35);
+    }
+
+    public void setD(double d) {
+        objectData.getWritableRam().putDoubleAt(writableStaticBlock() + 35, d);
+    }
+
+    public ReadOnlyRandomAccessMemory getPadding() {
+        return staticBlockRam.getDataAt(staticBlock() + 43, 200);
+    }
+
+    public void setPadding(ReadOnlyRandomAccessMemory padding) {
+        StaticBlocks.putFixBinary(objectData.getWritableRam(), writableStaticBlock(), 43, 200, padding);
+    }
+
+    public String getText() {
+        return staticBlockRam.getFixStringAt(staticBlock() + 243, 10);
+    }
+
+    public void setText(String text) {
+        StaticBlocks.putFixString(objectData.getWritableRam(), writableStaticBlock(), 243, 10, text);
+    }
+
+    public int getSplit() {
+        return (int) StaticBlocks.getBits(staticBlockRam, staticBlock(), 253, 4);
+    }
+
+    public void setSplit(int split) {
+        StaticBlocks.putBits(objectData.getWritableRam(), writableStaticBlock(), 253, 4, split);
+    }
+
+    public String getLongText() {
+        return staticBlockRam.getFixStringAt(staticBlock() + 259, 250);
+    }
+
+    public void setLongText(String longText) {
+        StaticBlocks.putFixString(objectData.getWritableRam(), writableStaticBlock(), 257, 250, longText);
+    }
+
+    public String getSplitText() {
+        return StaticBlocks.getFixString(staticBlockRam, staticBlock(), 507, 6);
+    }
+
+    public void setSplitText(String splitText) {
+        StaticBlocks.putFixString(objectData.getWritableRam(), writableStaticBlock(), 507, 6, splitText);
+    }
+
+    public short getShorts(int index) {
+        return staticBlockRam.getInt16At(staticBlock() + 517 + StaticBlocks.checkIndex(index, SHORTS_LENGTH) * 2);
+    }
+
+    public void setShorts(int index, short shorts) {
+        objectData.getWritableRam().putInt16At(writableStaticBlock() + 517 + StaticBlocks.checkIndex(index, SHORTS_LENGTH) * 2, shorts);
+    }
+
+    public int getSplitInts(int index) {
+        int elementOffset = 533 + StaticBlocks.checkIndex(index, SPLIT_INTS_LENGTH) * 4;
+        if (StaticBlocks.crossesChunk(elementOffset, 4)) {
+            return (int) StaticBlocks.getBits(staticBlockRam, staticBlock(), elementOffset, 4);
+        }
+        return staticBlockRam.getInt32At(staticBlock() + StaticBlocks.physicalOffset(elementOffset));
+    }
+
+    public void setSplitInts(int index, int splitInts) {
+        int elementOffset = 533 + StaticBlocks.checkIndex(index, SPLIT_INTS_LENGTH) * 4;
+        if (StaticBlocks.crossesChunk(elementOffset, 4)) {
+            StaticBlocks.putBits(objectData.getWritableRam(), writableStaticBlock(), elementOffset, 4, splitInts);
+        } else {
+            objectData.getWritableRam().putInt32At(writableStaticBlock() + StaticBlocks.physicalOffset(elementOffset), splitInts);
+        }
+    }
+
+    public long getTyreId() {
+        return staticBlockRam.getUInt32At(staticBlock() + 779);
+    }
+
+    /**
+     * Points the target to the referenced Tyre.
+     *
+     * @param target The reused instance.
+     * @return the target or {@code null} if the reference is not set.
+     */
+    public Tyre getTyre(Tyre target) {
+        ObjectData referenced = objectData.getReferencedObject(getTyreId(), Tyre.TYPE_ID);
+        if (referenced == null) {
+            return null;
+        }
+        target.init(referenced);
+        return target;
+    }
+
+    public Tyre getTyre() {
+        return getTyre(new Tyre());
+    }
+
+    public void setTyreId(long tyreId) {
+        objectData.getWritableRam().putUInt32At(writableStaticBlock() + 779, tyreId);
+    }
+
+    public long getTyresId(int index) {
+        return staticBlockRam.getUInt32At(staticBlock() + 783 + StaticBlocks.checkIndex(index, TYRES_LENGTH) * 4);
+    }
+
+    /**
+     * Points the target to the referenced Tyre.
+     *
+     * @param index  The index of the reference.
+     * @param target The reused instance.
+     * @return the target or {@code null} if the reference is not set.
+     */
+    public Tyre getTyres(int index, Tyre target) {
+        ObjectData referenced = objectData.getReferencedObject(getTyresId(index), Tyre.TYPE_ID);
+        if (referenced == null) {
+            return null;
+        }
+        target.init(referenced);
+        return target;
+    }
+
+    public Tyre getTyres(int index) {
+        return getTyres(index, new Tyre());
+    }
+
+    public void setTyresId(int index, long tyresId) {
+        objectData.getWritableRam().putUInt32At(writableStaticBlock() + 783 + StaticBlocks.checkIndex(index, TYRES_LENGTH) * 4, tyresId);
+    }
+
+    public String getName() {
+        return objectData.getStringValue(NAME_VALUE_ID);
+    }
+
+    public void setName(String name) {
+        if (name == null) {
+            objectData.removeValue(NAME_VALUE_ID);
+        } else {
+            objectData.setStringValue(NAME_VALUE_ID, name);
+        }
+    }
+
+    public ReadOnlyRandomAccessMemory getData() {
+        return objectData.getBinaryValue(DATA_VALUE_ID);
+    }
+
+    public void setData(ReadOnlyRandomAccessMemory data) {
+        if (data == null) {
+            objectData.removeValue(DATA_VALUE_ID);
+        } else {
+            objectData.setValue(DATA_VALUE_ID, data);
+        }
+    }
+
+    public int getCodesSize() {
+        return objectData.getListSize(CODES_VALUE_ID, 2);
+    }
+
+    public short getCodes(int index) {
+        return objectData.getRam().getInt16At(objectData.getListElementIndex(CODES_VALUE_ID, index, 2));
+    }
+
+    public int getWordsSize() {
+        return objectData.getValueTlvCount(WORDS_VALUE_ID);
+    }
+
+    public String getWords(int index) {
+        return objectData.getStringValue(WORDS_VALUE_ID, index);
+    }
+
+    public int getBlobsSize() {
+        return objectData.getValueTlvCount(BLOBS_VALUE_ID);
+    }
+
+    public ReadOnlyRandomAccessMemory getBlobs(int index) {
+        return objectData.getBinaryValue(BLOBS_VALUE_ID, index);
+    }
+
+    public int getSparesSize() {
+        return objectData.getListSize(SPARES_VALUE_ID, 4);
+    }
+
+    public long getSparesId(int index) {
+        return objectData.getRam().getUInt32At(objectData.getListElementIndex(SPARES_VALUE_ID, index, 4));
+    }
+
+    /**
+     * Points the target to the referenced Tyre.
+     *
+     * @param index  The index of the reference.
+     * @param target The reused instance.
+     * @return the target or {@code null} if the reference is not set.
+     */
+    public Tyre getSpares(int index, Tyre target) {
+        ObjectData referenced = objectData.getReferencedObject(getSparesId(index), Tyre.TYPE_ID);
+        if (referenced == null) {
+            return null;
+        }
+        target.init(referenced);
+        return target;
+    }
+
+    public Tyre getSpares(int index) {
+        return getSpares(index, new Tyre());
+    }
+
+    public boolean hasMaybe() {
+        return objectData.hasValue(MAYBE_VALUE_ID);
+    }
+
+    public int getMaybe() {
+        long index = objectData.getValueDataIndex(MAYBE_VALUE_ID);
+        if (index < 0) {
+            throw new NoSuchElementException("maybe is not set");
+        }
+        return objectData.getRam().getInt32At(index);
+    }
+
+    public void setMaybe(int maybe) {
+        objectData.getWritableRam().putInt32At(objectData.reserveValue(MAYBE_VALUE_ID, 4), maybe);
+    }
+
+    public void clearMaybe() {
+        objectData.removeValue(MAYBE_VALUE_ID);
+    }
+
+    public boolean hasBig() {
+        return objectData.hasValue(BIG_VALUE_ID);
+    }
+
+    public ULong getBig() {
+        long index = objectData.getValueDataIndex(BIG_VALUE_ID);
+        if (index < 0) {
+            throw new NoSuchElementException("big is not set");
+        }
+        return objectData.getRam().getUInt64At(index);
+    }
+
+    public long getBigBits() {
+        long index = objectData.getValueDataIndex(BIG_VALUE_ID);
+        if (index < 0) {
+            throw new NoSuchElementException("big is not set");
+        }
+        return objectData.getRam().getUInt64BitsAt(index);
+    }
+
+    public void setBig(ULong big) {
+        objectData.getWritableRam().putUInt64At(objectData.reserveValue(BIG_VALUE_ID, 8), big);
+    }
+
+    public void setBigBits(long big) {
+        objectData.getWritableRam().putUInt64BitsAt(objectData.reserveValue(BIG_VALUE_ID, 8), big);
+    }
+
+    public void clearBig() {
+        objectData.removeValue(BIG_VALUE_ID);
+    }
+
+    public boolean hasNote() {
+        return objectData.hasValue(NOTE_VALUE_ID);
+    }
+
+    public String getNote() {
+        String value = objectData.getStringValue(NOTE_VALUE_ID);
+        if (value == null) {
+            throw new NoSuchElementException("note is not set");
+        }
+        return value;
+    }
+
+    public void setNote(String note) {
+        objectData.setStringValue(NOTE_VALUE_ID, note);
+    }
+
+    public void clearNote() {
+        objectData.removeValue(NOTE_VALUE_ID);
+    }
+
+    public boolean hasSpare() {
+        return objectData.hasValue(SPARE_VALUE_ID);
+    }
+
+    public long getSpareId() {
+        long index = objectData.getValueDataIndex(SPARE_VALUE_ID);
+        if (index < 0) {
+            throw new NoSuchElementException("spare is not set");
+        }
+        return objectData.getRam().getUInt32At(index);
+    }
+
+    /**
+     * Points the target to the referenced Tyre.
+     *
+     * @param target The reused instance.
+     * @return the target or {@code null} if the reference is not set.
+     */
+    public Tyre getSpare(Tyre target) {
+        ObjectData referenced = objectData.getReferencedObject(getSpareId(), Tyre.TYPE_ID);
+        if (referenced == null) {
+            return null;
+        }
+        target.init(referenced);
+        return target;
+    }
+
+    public Tyre getSpare() {
+        return getSpare(new Tyre());
+    }
+
+    public void setSpareId(long spareId) {
+        objectData.getWritableRam().putUInt32At(objectData.reserveValue(SPARE_VALUE_ID, 4), spareId);
+    }
+
+    public void clearSpare() {
+        objectData.removeValue(SPARE_VALUE_ID);
+    }
+
+    public boolean hasExtra() {
+        return objectData.hasValue(EXTRA_VALUE_ID);
+    }
+
+    public ReadOnlyRandomAccessMemory getExtra() {
+        ReadOnlyRandomAccessMemory value = objectData.getBinaryValue(EXTRA_VALUE_ID);
+        if (value == null) {
+            throw new NoSuchElementException("extra is not set");
+        }
+        return value;
+    }
+
+    public void setExtra(ReadOnlyRandomAccessMemory extra) {
+        objectData.setValue(EXTRA_VALUE_ID, extra);
+    }
+
+    public void clearExtra() {
+        objectData.removeValue(EXTRA_VALUE_ID);
+    }
+
+    /**
+     * Retrieve the index of the static block for the getters. It is not cached, because a growth or
+     * compaction of a mutable message can move the object.
+     */
+    private long staticBlock() {
+        return staticBlockCopied ? 0 : objectData.getStaticBlockIndex(0);
+    }
+
+    /**
+     * Retrieve the index of the static block for the setters. It is not cached, because the object
+     * can be moved in a mutable message.
+     */
+    private long writableStaticBlock() {
+        if (objectData.getStaticBlockLength() < STATIC_BLOCK_LENGTH) {
+            throw new IllegalStateException("the static block of an older schema version can't be updated");
+        }
+        return objectData.getStaticBlockIndex(0);
+    }
+}
@@ -0,0 +1,134 @@
+package paxel.sunshine.lib.schema;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+import paxel.sunshine.runtime.message.StaticBlocks;
+
+public class SchemaParserTest {
+
+    @Test
+    public void parseReadmeExample() throws IOException {
+        Schema schema = parseResource("/car.schema");
+
+        assertThat(schema.getObjects().size(), is(3));
+        ObjectDefinition car = schema.getObject("Car");
+        assertThat(car.getTypeId(), is(1));
+        assertThat(schema.getObject("Tyre").getTypeId(), is(2));
+        assertThat(schema.getObject("Engine").getTypeId(), is(3));
+
+        assertThat(car.getConstants().size(), is(2));
+        assertThat(car.getConstants().get(0).getValue(), is((Object) "Edison"));
+        assertThat(car.getConstants().get(1).getValue(), is((Object) 1833L));
+
+        // name, horsePower, electric, countryCodes, engine
+        assertThat(car.getStaticBlockLength(), is(10 + 2 + 1 + 8 + 4));
+        assertThat(member(car, "name").getStaticOffset(), is(0));
+        assertThat(member(car, "horsePower").getStaticOffset(), is(10));
+        assertThat(member(car, "electric").getStaticOffset(), is(12));
+        assertThat(member(car, "countryCodes").getStaticOffset(), is(13));
+        assertThat(member(car, "countryCodes").getLength(), is(4));
+        assertThat(member(car, "engine").getStaticOffset(), is(21));
+        assertThat(member(car, "engine").getObjectType(), is("Engine"));
+
+        assertThat(car.getDynamicValueCount(), is(3));
+        assertThat(member(car, "tyres").getValueId(), is(1));
+        assertThat(member(car, "tyres").getKind(), is(MemberDefinition.Kind.LIST));
+        assertThat(member(car, "description").getValueId(), is(2));
+        assertThat(member(car, "description").getBasicType(), is(BasicType.STRING));
+        assertThat(member(car, "blob").getValueId(), is(3));
+        assertThat(member(car, "blob").getKind(), is(MemberDefinition.Kind.OPTIONAL));
+
+        assertThat(schema.getObject("Engine").getStaticBlockLength(), is(0));
+        assertThat(member(schema.getObject("Engine"), "name").getValueId(), is(1));
+    }
+
+    @Test
+    public void parseConstants() {
+        Schema schema = SchemaParser.parse("Object A { Const UInt64 MAX = 18446744073709551615; Const String S = \"a\\\"b\" "
+                + "Const Float32 F = 0.5 Const Bool B = true }");
+
+        ObjectDefinition a = schema.getObject("A");
+        assertThat(a.getConstants().get(0).getValue(), is((Object) (-1L)));
+        assertThat(a.getConstants().get(1).getValue(), is((Object) "a\"b"));
+        assertThat(a.getConstants().get(2).getValue(), is((Object) 0.5));
+        assertThat(a.getConstants().get(3).getValue(), is((Object) true));
+        assertThat(schema.getObject("B"), is(nullValue()));
+    }
+
+    @Test
+    public void parseAlignedLayout() {
+        Schema schema = SchemaParser.parse("@Aligned Object A { Byte b; Int64 l; Int16 s; Int32 i; FixString[3] t; Float64 d }\n"
+                + "@Aligned(1) Object B { FixBinary[250] pad; Int64 l; Array<Int32>[61] ints }\n"
+                + "Object C { Byte b; Int64 l }");
+
+        ObjectDefinition a = schema.getObject("A");
+        assertThat(a.getLayout(), is(StaticLayout.ALIGNED_V1));
+        assertThat(member(a, "b").getStaticOffset(), is(0));
+        assertThat(member(a, "l").getStaticOffset(), is(8));
+        assertThat(member(a, "s").getStaticOffset(), is(16));
+        assertThat(member(a, "i").getStaticOffset(), is(20));
+        assertThat(member(a, "t").getStaticOffset(), is(24));
+        assertThat(member(a, "d").getStaticOffset(), is(32));
+        assertThat(a.getStaticBlockLength(), is(40));
+
+        ObjectDefinition b = schema.getObject("B");
+        assertThat(b.getLayout(), is(StaticLayout.ALIGNED_V1));
+        // the next chunk starts at offset 255, but its first byte has the index 257
+        assertThat(member(b, "l").getStaticOffset(), is(262));
+        assertThat(StaticBlocks.physicalOffset(262), is(264L));
+        // the 244 bytes don't fit behind l into the second chunk
+        assertThat(member(b, "ints").getStaticOffset(), is(512));
+        assertThat(StaticBlocks.physicalOffset(512), is(516L));
+
+        assertThat(schema.getObject("C").getLayout(), is(StaticLayout.PACKED));
+        assertThat(member(schema.getObject("C"), "l").getStaticOffset(), is(1));
+    }
+
+    @Test
+    public void reportLineOfErrors() {
+        assertInvalid("Object A {\n  Foo bar\n}", "line 2: unknown type Foo");
+        assertInvalid("Object A {\n\n  Const UByte X = 256\n}", "line 3: X: 256 is not between 0 and 255");
+        assertInvalid("Object A {\n  FixString name\n}", "line 2: name: FixString needs a size");
+        assertInvalid("Object A {\n  Array<String>[2] names\n}", "line 2: names: an Array of String has no fixed size");
+        assertInvalid("Object A {\n  Int32 a\n  Int16 a\n}", "line 1: A.a is defined twice");
+        assertInvalid("Object A {\n  Int32 a\n", "line 1: Object A is not closed");
+        assertInvalid("Object A {} Object A {}", "A is defined twice");
+        assertInvalid("Object A {}\n@Aligned(2) Object B {}", "line 2: unknown directive @Aligned(2)");
+        assertInvalid("Object A {\n  List<Int32 a\n}", "line 2: expected > but found a");
+    }
+
+    private static void assertInvalid(String schema, String message) {
+        try {
+            SchemaParser.parse(schema);
+            fail("expected " + message);
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getMessage(), containsString(message));
+        }
+    }
+
+    private static MemberDefinition member(ObjectDefinition object, String name) {
+        for (MemberDefinition member : object.getMembers()) {
+            if (member.getName().equals(name)) {
+                return member;
+            }
+        }
+        throw new AssertionError(name + " not found");
+    }
+
+    static Schema parseResource(String name) throws IOException {
+        try (Reader reader = new InputStreamReader(SchemaParserTest.class.getResourceAsStream(name), StandardCharsets.UTF_8)) {
+            return SchemaParser.parse(reader);
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package paxel.sunshine.runtime.frame;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import paxel.sunshine.api.memory.RichReadOnlyRandomAccessMemory;
+import paxel.sunshine.api.memory.bytebuffer.ByteBufferRoRam;
+import paxel.sunshine.api.memory.pool.PooledRam;
+import paxel.sunshine.api.memory.pool.RamPool;
+
+/**
+ * A push based state machine that assembles sun frames from arbitrary chunks
+ * of input, e.g. the reads of a non-blocking socket into a shared buffer.
+ * <p>
+ * Frames that are completely inside a chunk are handed out as views of the
+ * chunk without copying. Only the start of a frame that is split over multiple
+ * chunks is copied into a RAM of the {@link RamPool}, which is released after
+ * the frame was handled. So an idle assembler holds no buffer at all.
+ * <p>
+ * The frame given to the consumer is only valid during the call.
+ */
+public class FrameAssembler {
+
+    private static final RichReadOnlyRandomAccessMemory EMPTY = new ByteBufferRoRam(ByteBuffer.allocate(0));
+
+    private final RamPool pool;
+    private final long maxFrameSize;
+    private final byte[] header = new byte[FrameReader.LONG_HEADER_SIZE];
+    private int headerLength;
+    private PooledRam payload;
+    private int payloadLength;
+    private boolean closed;
+
+    /**
+     * Constructs an assembler.
+     *
+     * @param pool         Provides the RAM for frames split over multiple chunks.
+     * @param maxFrameSize The maximum accepted frame size. At most {@link Integer#MAX_VALUE}.
+     * @throws IllegalArgumentException in case the maximum frame size is invalid.
+     */
+    public FrameAssembler(RamPool pool, long maxFrameSize) {
+        this.pool = requireNonNull(pool);
+        if (maxFrameSize < 0 || maxFrameSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("maxFrameSize must be between 0 and Integer.MAX_VALUE :" + maxFrameSize);
+        }
+        this.maxFrameSize = maxFrameSize;
+    }
+
+    /**
+     * Consumes all remaining bytes of the input and calls the consumer for each
+     * completed frame. If the consumer closes the assembler, the rest of the
+     * input is ignored.
+     *
+     * @param input    The next chunk of input.
+     * @param consumer Receives the payload of each completed frame.
+     * @throws InvalidFrameException in case of an invalid header or a too big frame.
+     * @throws IOException           in case the consumer fails.
+     */
+    public void accept(ByteBuffer input, FrameConsumer consumer) throws IOException {
+        while (!closed && input.hasRemaining()) {
+            if (payload != null) {
+                int chunk = Math.min(input.remaining(), (int) payload.size() - payloadLength);
+                ByteBuffer part = input.duplicate();
+                part.limit(part.position() + chunk);
+                payload.copyFromSource(payloadLength, part);
+                input.position(input.position() + chunk);
+                payloadLength += chunk;
+                if (payloadLength == payload.size()) {
+                    PooledRam frame = payload;
+                    payload = null;
+                    try {
+                        consumer.accept(frame);
+                    } finally {
+                        frame.release();
+                    }
+                }
+                continue;
+            }
+            int size = readHeader(input);
+            if (size < 0) {
+                // the header is incomplete
+                return;
+            }
+            if (size == 0) {
+                consumer.accept(EMPTY);
+            } else if (input.remaining() >= size) {
+                ByteBuffer view = input.duplicate();
+                view.limit(view.position() + size);
+                input.position(input.position() + size);
+                consumer.accept(new ByteBufferRoRam(view.slice()));
+            } else {
+                payload = pool.acquire(size);
+                payloadLength = 0;
+            }
+        }
+    }
+
+    /**
+     * Checks if a frame was started but not completed.
+     *
+     * @return {@code true} if the assembler holds a partial frame.
+     */
+    public boolean isAssembling() {
+        return headerLength > 0 || payload != null;
+    }
+
+    /**
+     * Drops a partial frame and ignores all further input. Can be called by the
+     * consumer.
+     */
+    public void close() {
+        closed = true;
+        release();
+    }
+
+    /**
+     * Drops a partial frame and releases its RAM.
+     */
+    public void release() {
+        headerLength = 0;
+        if (payload != null) {
+            payload.release();
+            payload = null;
+        }
+    }
+
+    /**
+     * Reads the frame header, either directly from the input or collected over
+     * multiple chunks.
+     *
+     * @return the payload size or -1 if the header is not complete yet.
+     */
+    private int readHeader(ByteBuffer input) throws InvalidFrameException {
+        int position = input.position();
+        if (headerLength == 0 && input.remaining() >= FrameReader.LONG_HEADER_SIZE) {
+            checkMagic(input.get(position), input.get(position + 1), input.get(position + 2));
+            long size;
+            if ((input.get(position + 3) & 0x80) != 0) {
+                size = input.getLong(position + 3) & Long.MAX_VALUE;
+                input.position(position + FrameReader.LONG_HEADER_SIZE);
+            } else {
+                size = input.getInt(position + 3);
+                input.position(position + FrameReader.HEADER_SIZE);
+            }
+            return checkSize(size);
+        }
+        while (input.hasRemaining()) {
+            header[headerLength++] = input.get();
+            if (headerLength == 3) {
+                checkMagic(header[0], header[1], header[2]);
+            } else if (headerLength == FrameReader.HEADER_SIZE && (header[3] & 0x80) == 0) {
+                headerLength = 0;
+                return checkSize(ByteBuffer.wrap(header).getInt(3));
+            } else if (headerLength == FrameReader.LONG_HEADER_SIZE) {
+                headerLength = 0;
+                return checkSize(ByteBuffer.wrap(header).getLong(3) & Long.MAX_VALUE);
+            }
+        }
+        return -1;
+    }
+
+    private static void checkMagic(byte s, byte u, byte n) throws InvalidFrameException {
+        int magic = (s & 0xff) << 16 | (u & 0xff) << 8 | n & 0xff;
+        if (magic != FrameReader.MAGIC) {
+            throw new InvalidFrameException(String.format("invalid frame magic 0x%06x", magic));
+        }
+    }
+
+    private int checkSize(long size) throws InvalidFrameException {
+        if (size > maxFrameSize) {
+            throw new InvalidFrameException("frame size " + size + " exceeds the maximum " + maxFrameSize);
+        }
+        return (int) size;
+    }
+
+    /**
+     * Receives the completed frames.
+     */
+    @FunctionalInterface
+    public interface FrameConsumer {
+
+        /**
+         * Handles a frame.
+         *
+         * @param frame The payload of the frame, only valid during the call.
+         * @throws IOException in case the frame can't be handled.
+         */
+        void accept(RichReadOnlyRandomAccessMemory frame) throws IOException;
+    }
+}
@@ -0,0 +1,263 @@
+package paxel.sunshine.runtime.frame;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+
+import paxel.sunshine.api.memory.RichReadOnlyRandomAccessMemory;
+import paxel.sunshine.api.memory.bytebuffer.ByteBufferRoRam;
+import paxel.sunshine.api.memory.bytebuffer.MultiByteBufferRam;
+import paxel.sunshine.api.memory.bytebuffer.SegmentedByteBufferRam;
+
+/**
+ * Reads sun framed messages from a channel. The input is read into a reusable
+ * buffer and each complete frame is returned as a view of that buffer, without
+ * copying it. Frames can be split over any number of reads.
+ * <p>
+ * A frame that is bigger than the buffer is spilled into a RAM created by the
+ * {@link SpillAllocator}, by default a {@link SegmentedByteBufferRam}, so a
+ * single huge frame doesn't need a huge array. Frames bigger than the maximum
+ * frame size are rejected with an {@link InvalidFrameException}.
+ * <p>
+ * A returned view is only valid until the next call of {@link #next()} or
+ * {@link #nextFrameSize()}. The reader is not thread-safe.
+ * <p>
+ * On a non-blocking channel both methods return without result if the channel
+ * has no more data at the moment, and continue where they stopped with the next
+ * call.
+ */
+public class FrameReader implements Closeable {
+
+    /**
+     * The magic number 'sun' of a frame header.
+     */
+    public static final int MAGIC = 0x73756e;
+    /**
+     * The size of a frame header with 4 byte length.
+     */
+    public static final int HEADER_SIZE = 7;
+    /**
+     * The size of a frame header with 8 byte length.
+     */
+    public static final int LONG_HEADER_SIZE = 11;
+    /**
+     * The default buffer size of 64 KB.
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+    /**
+     * The default maximum frame size of 1 GB.
+     */
+    public static final long DEFAULT_MAX_FRAME_SIZE = 1L << 30;
+
+    private final ReadableByteChannel channel;
+    private final ByteBuffer buffer;
+    private final long maxFrameSize;
+    private final SpillAllocator spillAllocator;
+
+    /**
+     * The index of the first unconsumed byte in the buffer. The position of the
+     * buffer is the end of the read data.
+     */
+    private int start;
+    private long frameSize = -1;
+    private MultiByteBufferRam spill;
+    private long spilled;
+    private boolean endOfStream;
+
+    /**
+     * Constructs a reader with a heap buffer of 64 KB, that spills bigger frames
+     * into segmented heap RAM.
+     *
+     * @param channel The source.
+     */
+    public FrameReader(ReadableByteChannel channel) {
+        this(channel, ByteBuffer.allocate(DEFAULT_BUFFER_SIZE), DEFAULT_MAX_FRAME_SIZE, FrameReader::segmented);
+    }
+
+    /**
+     * Constructs a reader with a heap buffer of 64 KB, that spills bigger frames
+     * into segmented heap RAM.
+     *
+     * @param inputStream The source.
+     */
+    public FrameReader(InputStream inputStream) {
+        this(Channels.newChannel(inputStream));
+    }
+
+    /**
+     * Constructs a reader.
+     *
+     * @param channel        The source.
+     * @param buffer         The reused buffer. Its content is replaced.
+     * @param maxFrameSize   The maximum accepted frame size.
+     * @param spillAllocator Creates the RAM for frames bigger than the buffer.
+     * @throws IllegalArgumentException in case the buffer can't hold a frame header.
+     */
+    public FrameReader(ReadableByteChannel channel, ByteBuffer buffer, long maxFrameSize, SpillAllocator spillAllocator) {
+        this.channel = requireNonNull(channel);
+        this.buffer = requireNonNull(buffer);
+        this.spillAllocator = requireNonNull(spillAllocator);
+        if (buffer.capacity() < LONG_HEADER_SIZE) {
+            throw new IllegalArgumentException("buffer capacity was < " + LONG_HEADER_SIZE + " :" + buffer.capacity());
+        }
+        if (maxFrameSize < 0) {
+            throw new IllegalArgumentException("maxFrameSize was < 0 :" + maxFrameSize);
+        }
+        this.maxFrameSize = maxFrameSize;
+        buffer.clear();
+    }
+
+    /**
+     * Reads the header of the next frame, if not already done, and returns the
+     * size of its payload.
+     *
+     * @return the size or -1 if the stream ended or no complete header is available yet.
+     * @throws InvalidFrameException in case the header is invalid or the frame too big.
+     * @throws EOFException          in case the stream ends inside of a header.
+     * @throws IOException           in case the channel fails.
+     */
+    public long nextFrameSize() throws IOException {
+        if (frameSize < 0) {
+            readHeader();
+        }
+        return frameSize;
+    }
+
+    /**
+     * Reads the next frame.
+     *
+     * @return the payload of the frame or {@code null} if the stream ended or no
+     * complete frame is available yet.
+     * @throws InvalidFrameException in case the header is invalid or the frame too big.
+     * @throws EOFException          in case the stream ends inside of a frame.
+     * @throws IOException           in case the channel fails.
+     */
+    public RichReadOnlyRandomAccessMemory next() throws IOException {
+        if (nextFrameSize() < 0) {
+            return null;
+        }
+        if (frameSize <= buffer.capacity()) {
+            if (!fill((int) frameSize)) {
+                return null;
+            }
+            ByteBuffer view = buffer.duplicate();
+            view.limit(start + (int) frameSize);
+            view.position(start);
+            start += (int) frameSize;
+            frameSize = -1;
+            return new ByteBufferRoRam(view.slice());
+        }
+        if (spill == null) {
+            spill = spillAllocator.allocate(frameSize);
+            spilled = 0;
+        }
+        while (spilled < frameSize) {
+            if (available() == 0 && !fill(1)) {
+                return null;
+            }
+            int chunk = (int) Math.min(available(), frameSize - spilled);
+            ByteBuffer part = buffer.duplicate();
+            part.limit(start + chunk);
+            part.position(start);
+            spill.copyFromSource(spilled, part);
+            spilled += chunk;
+            start += chunk;
+        }
+        MultiByteBufferRam result = spill;
+        spill = null;
+        frameSize = -1;
+        return result;
+    }
+
+    /**
+     * Retrieve if the end of the stream was reached.
+     *
+     * @return {@code true} if the channel has no more data.
+     */
+    public boolean isEndOfStream() {
+        return endOfStream;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void readHeader() throws IOException {
+        if (!fill(HEADER_SIZE)) {
+            return;
+        }
+        int magic = (buffer.get(start) & 0xff) << 16 | (buffer.get(start + 1) & 0xff) << 8 | buffer.get(start + 2) & 0xff;
+        if (magic != MAGIC) {
+            throw new InvalidFrameException(String.format("invalid frame magic 0x%06x", magic));
+        }
+        long size;
+        int headerSize;
+        if ((buffer.get(start + 3) & 0x80) != 0) {
+            if (!fill(LONG_HEADER_SIZE)) {
+                return;
+            }
+            size = buffer.getLong(start + 3) & Long.MAX_VALUE;
+            headerSize = LONG_HEADER_SIZE;
+        } else {
+            size = buffer.getInt(start + 3);
+            headerSize = HEADER_SIZE;
+        }
+        if (size > maxFrameSize) {
+            throw new InvalidFrameException("frame size " + size + " exceeds the maximum " + maxFrameSize);
+        }
+        start += headerSize;
+        frameSize = size;
+    }
+
+    private int available() {
+        return buffer.position() - start;
+    }
+
+    /**
+     * Reads until the given number of bytes is available after start.
+     *
+     * @return {@code false} if the stream ended before a frame or the channel has
+     * no data at the moment.
+     * @throws EOFException in case the stream ended inside of a frame.
+     */
+    private boolean fill(int needed) throws IOException {
+        if (available() == 0) {
+            buffer.clear();
+            start = 0;
+        }
+        while (available() < needed) {
+            if (start + needed > buffer.capacity()) {
+                // move the unconsumed bytes to the beginning of the buffer
+                buffer.limit(buffer.position());
+                buffer.position(start);
+                buffer.compact();
+                start = 0;
+            }
+            int read = channel.read(buffer);
+            if (read < 0) {
+                endOfStream = true;
+                if (available() > 0 || frameSize >= 0) {
+                    throw new EOFException("stream ended inside of a frame");
+                }
+                return false;
+            }
+            if (read == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static MultiByteBufferRam segmented(long size) {
+        SegmentedByteBufferRam ram = new SegmentedByteBufferRam();
+        ram.allocate(size);
+        return ram;
+    }
+}
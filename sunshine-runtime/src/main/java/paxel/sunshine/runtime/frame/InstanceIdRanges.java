@@ -0,0 +1,132 @@
+package paxel.sunshine.runtime.frame;
+
+import java.util.Arrays;
+
+/**
+ * A set of instance IDs stored as sorted ranges. A dense numbering needs a
+ * single range, no matter how many IDs it contains, and adding the next ID of
+ * a numbering is constant time.
+ */
+final class InstanceIdRanges {
+
+    private static final int INITIAL_CAPACITY = 8;
+
+    private long[] starts = new long[INITIAL_CAPACITY];
+    /**
+     * The exclusive end of each range.
+     */
+    private long[] ends = new long[INITIAL_CAPACITY];
+    private int count;
+    private long size;
+
+    boolean contains(long id) {
+        int range = floor(id);
+        return range >= 0 && id < ends[range];
+    }
+
+    /**
+     * @return {@code false} if the set already contained the ID.
+     */
+    boolean add(long id) {
+        int range = floor(id);
+        if (range >= 0 && id < ends[range]) {
+            return false;
+        }
+        boolean previous = range >= 0 && ends[range] == id;
+        boolean next = range + 1 < count && starts[range + 1] == id + 1;
+        if (previous && next) {
+            ends[range] = ends[range + 1];
+            removeRange(range + 1);
+        } else if (previous) {
+            ends[range]++;
+        } else if (next) {
+            starts[range + 1]--;
+        } else {
+            insertRange(range + 1, id, id + 1);
+        }
+        size++;
+        return true;
+    }
+
+    /**
+     * @return {@code false} if the set didn't contain the ID.
+     */
+    boolean remove(long id) {
+        int range = floor(id);
+        if (range < 0 || id >= ends[range]) {
+            return false;
+        }
+        if (starts[range] == id && ends[range] == id + 1) {
+            removeRange(range);
+        } else if (starts[range] == id) {
+            starts[range]++;
+        } else if (ends[range] == id + 1) {
+            ends[range]--;
+        } else {
+            insertRange(range + 1, id + 1, ends[range]);
+            ends[range] = id;
+        }
+        size--;
+        return true;
+    }
+
+    long size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return the smallest ID.
+     */
+    long first() {
+        return starts[0];
+    }
+
+    int getRangeCount() {
+        return count;
+    }
+
+    /**
+     * @return the index of the last range starting at or before the ID, or -1.
+     */
+    private int floor(long id) {
+        // IDs are usually added and removed in ascending order
+        if (count > 0 && starts[count - 1] <= id) {
+            return count - 1;
+        }
+        int low = 0;
+        int high = count - 1;
+        int result = -1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (starts[middle] <= id) {
+                result = middle;
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return result;
+    }
+
+    private void insertRange(int index, long start, long end) {
+        if (count == starts.length) {
+            starts = Arrays.copyOf(starts, count * 2);
+            ends = Arrays.copyOf(ends, count * 2);
+        }
+        System.arraycopy(starts, index, starts, index + 1, count - index);
+        System.arraycopy(ends, index, ends, index + 1, count - index);
+        starts[index] = start;
+        ends[index] = end;
+        count++;
+    }
+
+    private void removeRange(int index) {
+        System.arraycopy(starts, index + 1, starts, index, count - index - 1);
+        System.arraycopy(ends, index + 1, ends, index, count - index - 1);
+        count--;
+    }
+}
@@ -0,0 +1,14 @@
+package paxel.sunshine.runtime.frame;
+
+import java.io.IOException;
+
+/**
+ * Signals that the input does not contain a valid sun frame header or that the
+ * frame exceeds the configured maximum size.
+ */
+public class InvalidFrameException extends IOException {
+
+    public InvalidFrameException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,161 @@
+package paxel.sunshine.runtime.frame;
+
+import paxel.sunshine.api.memory.RichReadOnlyRandomAccessMemory;
+import paxel.sunshine.runtime.message.Tlv;
+
+/**
+ * Finds the next frame or object header in damaged data, e.g. after garbage
+ * from a peer or in a truncated log file. The memory is searched 8 bytes at a
+ * time: each {@link RichReadOnlyRandomAccessMemory#getInt64At(long)} is checked
+ * for the bytes of the magic number with bitwise operations on all 8 lanes at
+ * once, so the bytes are not visited one by one. Each candidate is then
+ * validated by its length or type fields before it is accepted.
+ * <p>
+ * The lanes are mapped to indices in big endian order: the byte at the index
+ * of a word must be its most significant byte. So the RAM must read its typed
+ * values in big endian order, like the sun format itself is defined. A RAM
+ * based on little endian buffers finds neither the magic numbers nor the
+ * lengths.
+ */
+public final class MagicScanner {
+
+    private static final long ONES = 0x0101_0101_0101_0101L;
+    private static final long HIGHS = 0x8080_8080_8080_8080L;
+
+    private MagicScanner() {
+    }
+
+    /**
+     * Finds the next valid sun frame header. A header is valid if its length
+     * doesn't exceed the maximum frame size and the whole frame is inside the
+     * memory.
+     *
+     * @param ram          The memory to search.
+     * @param from         The index to start the search.
+     * @param maxFrameSize The maximum accepted frame size.
+     * @return the index of the header or -1 if there is none.
+     */
+    public static long findFrame(RichReadOnlyRandomAccessMemory ram, long from, long maxFrameSize) {
+        long size = ram.size();
+        for (long candidate = indexOf(ram, FrameReader.MAGIC, from, size); candidate >= 0;
+                candidate = indexOf(ram, FrameReader.MAGIC, candidate + 1, size)) {
+            if (isValidFrame(ram, candidate, size, maxFrameSize)) {
+                return candidate;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the next valid object header in a message. A header is valid if its
+     * instance ID is not 0 and it is followed by a valid type, and in case of a
+     * TLV by a length that fits into the limit.
+     *
+     * @param ram   The memory to search.
+     * @param from  The index to start the search.
+     * @param limit The end of the message.
+     * @return the index of the header or -1 if there is none.
+     */
+    public static long findObject(RichReadOnlyRandomAccessMemory ram, long from, long limit) {
+        for (long candidate = indexOf(ram, Tlv.OBJECT_MAGIC, from, limit); candidate >= 0;
+                candidate = indexOf(ram, Tlv.OBJECT_MAGIC, candidate + 1, limit)) {
+            if (isValidObject(ram, candidate, limit)) {
+                return candidate;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the next occurrence of a three byte magic number.
+     *
+     * @param ram   The memory to search. Its typed values must be big endian.
+     * @param magic The magic number in the lower three bytes.
+     * @param from  The index to start the search.
+     * @param limit The index after the last byte to search.
+     * @return the index of the first byte or -1 if there is none.
+     */
+    public static long indexOf(RichReadOnlyRandomAccessMemory ram, int magic, long from, long limit) {
+        limit = Math.min(limit, ram.size());
+        long first = ONES * (magic >>> 16 & 0xff);
+        long second = ONES * (magic >>> 8 & 0xff);
+        long third = ONES * (magic & 0xff);
+        long index = from;
+        for (; index + Long.BYTES <= limit; index += Long.BYTES) {
+            long word = ram.getInt64At(index);
+            long candidates = zeroLanes(word ^ first);
+            if (candidates == 0) {
+                continue;
+            }
+            // the second and third byte of a magic starting in the last lanes are in the next word
+            candidates &= (zeroLanes(word ^ second) << 8 | 0x80L) & (zeroLanes(word ^ third) << 16 | 0x8080L);
+            while (candidates != 0) {
+                int leadingZeros = Long.numberOfLeadingZeros(candidates);
+                long candidate = index + (leadingZeros >>> 3);
+                // a borrow can flag the lane before a zero lane, so the flags are only candidates
+                if (candidate + 3 <= limit && matches(ram, candidate, magic)) {
+                    return candidate;
+                }
+                candidates &= ~(Long.MIN_VALUE >>> leadingZeros);
+            }
+        }
+        for (; index + 3 <= limit; index++) {
+            if (matches(ram, index, magic)) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Sets the highest bit of each lane, that is zero.
+     */
+    private static long zeroLanes(long value) {
+        return (value - ONES) & ~value & HIGHS;
+    }
+
+    private static boolean matches(RichReadOnlyRandomAccessMemory ram, long index, int magic) {
+        return (ram.getUInt16At(index) << 8 | ram.getUByteAt(index + 2)) == magic;
+    }
+
+    private static boolean isValidFrame(RichReadOnlyRandomAccessMemory ram, long index, long size, long maxFrameSize) {
+        if (index + FrameReader.HEADER_SIZE > size) {
+            return false;
+        }
+        long length;
+        long header;
+        if ((ram.getByteAt(index + 3) & 0x80) != 0) {
+            if (index + FrameReader.LONG_HEADER_SIZE > size) {
+                return false;
+            }
+            length = ram.getInt64At(index + 3) & Long.MAX_VALUE;
+            header = FrameReader.LONG_HEADER_SIZE;
+        } else {
+            length = ram.getInt32At(index + 3);
+            header = FrameReader.HEADER_SIZE;
+        }
+        return length <= maxFrameSize && length <= size - index - header;
+    }
+
+    private static boolean isValidObject(RichReadOnlyRandomAccessMemory ram, long index, long limit) {
+        long position = index + Tlv.OBJECT_HEADER_SIZE;
+        if (position >= limit || ram.getUInt32At(index + 5) == 0) {
+            return false;
+        }
+        int type = ram.getUByteAt(position);
+        if (type == Tlv.WIDE_VALUE) {
+            if (position + Tlv.WIDE_HEADER_SIZE > limit) {
+                return false;
+            }
+            int valueId = ram.getUByteAt(position + 1);
+            int header = Tlv.getHeaderSize(ram, position);
+            return valueId >= Tlv.FIRST_DYNAMIC_ID && valueId <= Tlv.LAST_DYNAMIC_ID && position + header <= limit
+                    && Tlv.getLength(ram, position) <= limit - position - header;
+        }
+        if (type == Tlv.NOP || type == Tlv.END_OF_OBJECT) {
+            return true;
+        }
+        return position + Tlv.TLV_HEADER_SIZE <= limit
+                && position + Tlv.TLV_HEADER_SIZE + ram.getUByteAt(position + 1) <= limit;
+    }
+}
@@ -0,0 +1,315 @@
+package paxel.sunshine.runtime.frame;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import paxel.sunshine.api.memory.ReadOnlyRandomAccessMemory;
+import paxel.sunshine.api.memory.bytebuffer.ByteBufferRam;
+import paxel.sunshine.api.memory.bytebuffer.ByteBufferRoRam;
+import paxel.sunshine.api.memory.bytebuffer.MultiByteBufferRoRam;
+
+/**
+ * Writes messages as sun frames in batches to a channel. The frame headers and
+ * the buffers of the messages are collected and written with a single
+ * gathering write, so a batch of small messages costs a single system call
+ * instead of one per message.
+ * <p>
+ * The messages of the byte buffer RAMs ({@link ByteBufferRoRam},
+ * {@link ByteBufferRam} and {@link MultiByteBufferRoRam} with its subclasses)
+ * are not copied. They hand their own buffers over with
+ * {@link ReadOnlyRandomAccessMemory#copyToDestination(long, int, Object)} to a
+ * collecting channel that only keeps views of them. Such a message must
+ * therefore not be modified or released until its batch is flushed. Any other
+ * RAM is copied, because it is free to hand over temporary buffers that it
+ * reuses after the call.
+ * <p>
+ * A batch is flushed as soon as it reaches the byte or the message threshold,
+ * when its first message waited at least the linger time at the next
+ * {@link #write(ReadOnlyRandomAccessMemory)} or
+ * {@link #flushIfLingered()}, and with {@link #flush()}. A linger time of 0
+ * writes each message on its own.
+ * <p>
+ * The writer is not thread-safe and expects a blocking channel. A write that
+ * accepts no bytes fails the flush instead of retrying it.
+ */
+public class MessageWriter implements Flushable, Closeable {
+
+    /**
+     * The default byte threshold of 64 KB.
+     */
+    public static final long DEFAULT_MAX_BATCH_BYTES = 1 << 16;
+    /**
+     * The default message threshold.
+     */
+    public static final int DEFAULT_MAX_BATCH_MESSAGES = 256;
+    /**
+     * The default linger time of 1 ms.
+     */
+    public static final long DEFAULT_LINGER_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final GatheringByteChannel channel;
+    private final long maxBatchBytes;
+    private final int maxBatchMessages;
+    private final long lingerNanos;
+    private final LongSupplier clock;
+    /**
+     * The frame headers of the current batch.
+     */
+    private final ByteBuffer headers;
+    private final Collector collector = new Collector();
+    private ByteBuffer[] buffers = new ByteBuffer[16];
+    private int bufferCount;
+    private int messageCount;
+    private long batchBytes;
+    private long batchStart;
+
+    /**
+     * Constructs a writer with the default thresholds and linger time.
+     *
+     * @param channel The destination.
+     */
+    public MessageWriter(GatheringByteChannel channel) {
+        this(channel, DEFAULT_MAX_BATCH_BYTES, DEFAULT_MAX_BATCH_MESSAGES, DEFAULT_LINGER_NANOS, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Constructs a writer.
+     *
+     * @param channel          The destination.
+     * @param maxBatchBytes    A batch is flushed when it reaches this number of
+     *                         bytes including the frame headers.
+     * @param maxBatchMessages A batch is flushed when it reaches this number of
+     *                         messages.
+     * @param linger           The time the first message of a batch waits for
+     *                         more messages.
+     * @param unit             The unit of the linger time.
+     * @throws IllegalArgumentException in case a threshold is less than 1, the
+     *                                  message threshold is too big for the
+     *                                  header buffer or the linger time is
+     *                                  negative.
+     */
+    public MessageWriter(GatheringByteChannel channel, long maxBatchBytes, int maxBatchMessages, long linger, TimeUnit unit) {
+        this(channel, maxBatchBytes, maxBatchMessages, unit.toNanos(linger), System::nanoTime);
+    }
+
+    MessageWriter(GatheringByteChannel channel, long maxBatchBytes, int maxBatchMessages, long lingerNanos, LongSupplier clock) {
+        this.channel = requireNonNull(channel);
+        this.clock = requireNonNull(clock);
+        if (maxBatchBytes < 1) {
+            throw new IllegalArgumentException("maxBatchBytes was < 1 :" + maxBatchBytes);
+        }
+        if (maxBatchMessages < 1 || maxBatchMessages > Integer.MAX_VALUE / FrameReader.LONG_HEADER_SIZE) {
+            throw new IllegalArgumentException("maxBatchMessages was out of range :" + maxBatchMessages);
+        }
+        if (lingerNanos < 0) {
+            throw new IllegalArgumentException("linger was < 0 :" + lingerNanos);
+        }
+        this.maxBatchBytes = maxBatchBytes;
+        this.maxBatchMessages = maxBatchMessages;
+        this.lingerNanos = lingerNanos;
+        this.headers = ByteBuffer.allocate(maxBatchMessages * FrameReader.LONG_HEADER_SIZE);
+    }
+
+    /**
+     * Adds the message to the batch.
+     *
+     * @param message The message.
+     * @throws IOException in case the batch is flushed and the channel fails.
+     */
+    public void write(ReadOnlyRandomAccessMemory message) throws IOException {
+        write(message, 0, message.size());
+    }
+
+    /**
+     * Adds a part of the RAM as message to the batch.
+     *
+     * @param message The RAM containing the message.
+     * @param index   The index of the first byte of the message.
+     * @param length  The length of the message.
+     * @throws IndexOutOfBoundsException in case the message is not inside of the
+     *                                   RAM.
+     * @throws IOException               in case the batch is flushed and the
+     *                                   channel fails.
+     */
+    public void write(ReadOnlyRandomAccessMemory message, long index, long length) throws IOException {
+        requireNonNull(message);
+        if (index < 0 || length < 0 || index + length > message.size()) {
+            throw new IndexOutOfBoundsException("index " + index + " length " + length + " size " + message.size());
+        }
+        if (messageCount == 0) {
+            batchStart = clock.getAsLong();
+        }
+        add(header(length));
+        collector.collect(message, index, length);
+        messageCount++;
+        if (batchBytes >= maxBatchBytes || messageCount >= maxBatchMessages || isLingered()) {
+            flush();
+        }
+    }
+
+    /**
+     * Flushes the batch if its first message waited at least the linger time.
+     * Should be called regularly while no messages are written.
+     *
+     * @return {@code true} if the batch was flushed.
+     * @throws IOException in case the channel fails.
+     */
+    public boolean flushIfLingered() throws IOException {
+        if (messageCount > 0 && isLingered()) {
+            flush();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Writes the batch with gathering writes. In case the channel fails or
+     * accepts no bytes, e.g. because it is a non-blocking channel, the batch is
+     * dropped.
+     *
+     * @throws IOException in case the channel fails or accepts no bytes.
+     */
+    @Override
+    public void flush() throws IOException {
+        try {
+            long remaining = batchBytes;
+            int first = 0;
+            while (remaining > 0) {
+                long written = channel.write(buffers, first, bufferCount - first);
+                if (written <= 0) {
+                    throw new IOException("the channel accepted no bytes, " + remaining + " bytes of the batch were dropped");
+                }
+                remaining -= written;
+                while (first < bufferCount && !buffers[first].hasRemaining()) {
+                    first++;
+                }
+            }
+        } finally {
+            Arrays.fill(buffers, 0, bufferCount, null);
+            bufferCount = 0;
+            messageCount = 0;
+            batchBytes = 0;
+            headers.clear();
+        }
+    }
+
+    /**
+     * Retrieve the number of messages in the batch.
+     *
+     * @return the number of messages that are not flushed.
+     */
+    public int getPendingMessages() {
+        return messageCount;
+    }
+
+    /**
+     * Retrieve the number of bytes in the batch.
+     *
+     * @return the number of bytes including the frame headers.
+     */
+    public long getPendingBytes() {
+        return batchBytes;
+    }
+
+    /**
+     * Flushes the batch and closes the channel.
+     *
+     * @throws IOException in case the channel fails.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private boolean isLingered() {
+        return clock.getAsLong() - batchStart >= lingerNanos;
+    }
+
+    /**
+     * Writes the frame header into the header buffer, that has room for a long
+     * header of each message of the batch.
+     */
+    private ByteBuffer header(long length) {
+        int start = headers.position();
+        headers.put((byte) 's').put((byte) 'u').put((byte) 'n');
+        if (length <= Integer.MAX_VALUE) {
+            headers.putInt((int) length);
+        } else {
+            headers.putLong(length | Long.MIN_VALUE);
+        }
+        ByteBuffer header = headers.duplicate();
+        header.limit(headers.position());
+        header.position(start);
+        return header;
+    }
+
+    private void add(ByteBuffer buffer) {
+        if (bufferCount == buffers.length) {
+            buffers = Arrays.copyOf(buffers, bufferCount * 2);
+        }
+        buffers[bufferCount++] = buffer;
+        batchBytes += buffer.remaining();
+    }
+
+    /**
+     * The destination of the messages. It keeps views of the buffers it is
+     * given instead of writing them, so it is only given the buffers of RAMs
+     * that own them.
+     */
+    private final class Collector implements WritableByteChannel {
+
+        void collect(ReadOnlyRandomAccessMemory message, long index, long length) throws IOException {
+            boolean views = hasStableBuffers(message) && message.supportsDestination(WritableByteChannel.class);
+            for (long done = 0; done < length; ) {
+                int chunk = (int) Math.min(length - done, Integer.MAX_VALUE);
+                if (views) {
+                    message.copyToDestination(index + done, chunk, this);
+                } else {
+                    byte[] copy = new byte[chunk];
+                    message.copyToDestination(index + done, copy, 0, chunk);
+                    add(ByteBuffer.wrap(copy));
+                }
+                done += chunk;
+            }
+        }
+
+        /**
+         * Only the byte buffer RAMs guarantee to hand over their own buffers
+         * instead of temporary ones.
+         */
+        private boolean hasStableBuffers(ReadOnlyRandomAccessMemory message) {
+            return message instanceof ByteBufferRoRam || message instanceof ByteBufferRam
+                    || message instanceof MultiByteBufferRoRam;
+        }
+
+        @Override
+        public int write(ByteBuffer src) {
+            int length = src.remaining();
+            add(src.slice());
+            src.position(src.limit());
+            return length;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,424 @@
+package paxel.sunshine.runtime.frame;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import paxel.sunshine.api.memory.ReadOnlyRandomAccessMemory;
+import paxel.sunshine.api.memory.RichReadOnlyRandomAccessMemory;
+import paxel.sunshine.api.memory.bytebuffer.ByteBufferRoRam;
+import paxel.sunshine.runtime.message.InvalidMessageException;
+import paxel.sunshine.runtime.message.MessageData;
+import paxel.sunshine.runtime.message.MessageParser;
+import paxel.sunshine.runtime.message.SchemaData;
+
+/**
+ * Reads all sun frames of a RAM in parallel, e.g. of a memory mapped file with
+ * millions of framed messages.
+ * <p>
+ * A first sequential pass hops from header to header using the length fields,
+ * without touching the payloads, and splits the RAM into chunks of whole
+ * frames. The chunks are then decoded in parallel on a {@link ForkJoinPool},
+ * either as a parallel stream of frames or messages, or by handing the
+ * messages to the handlers of a {@link MessageParser}, optionally in the order
+ * of the RAM.
+ * <p>
+ * The frames are views of the RAM without copying, as long as the views of the
+ * RAM are rich, like the ones of the ByteBuffer based RAMs. Other views are
+ * copied. The RAM must not be modified while it is read. All parallel work runs
+ * on the pool of the reader.
+ */
+public class ParallelFrameReader {
+
+    /**
+     * The minimum size of a chunk of 64 KB.
+     */
+    public static final long MIN_CHUNK_SIZE = 1 << 16;
+    /**
+     * The maximum number of frames in a chunk. It limits the number of messages
+     * that are parsed ahead when the handlers are called in order.
+     */
+    public static final int MAX_CHUNK_FRAMES = 1024;
+
+    private final RichReadOnlyRandomAccessMemory ram;
+    private final ForkJoinPool pool;
+    private final long maxFrameSize;
+    private final long chunkSize;
+    private long[] chunkStarts;
+    private long frameCount = -1;
+
+    /**
+     * Constructs a reader that uses the common pool and chunks of about an
+     * eighth of the share of each thread.
+     *
+     * @param ram The RAM containing the frames.
+     */
+    public ParallelFrameReader(RichReadOnlyRandomAccessMemory ram) {
+        this(ram, ForkJoinPool.commonPool(), FrameReader.DEFAULT_MAX_FRAME_SIZE,
+                Math.max(MIN_CHUNK_SIZE, ram.size() / (ForkJoinPool.commonPool().getParallelism() * 8L)));
+    }
+
+    /**
+     * Constructs a reader.
+     *
+     * @param ram          The RAM containing the frames.
+     * @param pool         The pool that decodes the chunks.
+     * @param maxFrameSize The maximum accepted frame size, at most {@link Integer#MAX_VALUE}.
+     * @param chunkSize    The minimum number of bytes of a chunk. A chunk ends after
+     *                     the frame that reaches this size, or after
+     *                     {@link #MAX_CHUNK_FRAMES} frames.
+     * @throws IllegalArgumentException in case the maximum frame size or chunk size is invalid.
+     */
+    public ParallelFrameReader(RichReadOnlyRandomAccessMemory ram, ForkJoinPool pool, long maxFrameSize, long chunkSize) {
+        this.ram = requireNonNull(ram);
+        this.pool = requireNonNull(pool);
+        if (maxFrameSize < 0 || maxFrameSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("maxFrameSize must be between 0 and Integer.MAX_VALUE :" + maxFrameSize);
+        }
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be > 0 :" + chunkSize);
+        }
+        this.maxFrameSize = maxFrameSize;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Retrieve the number of frames. The first call does the boundary pass.
+     *
+     * @return the number of frames.
+     * @throws InvalidFrameException in case of an invalid or truncated frame.
+     */
+    public long getFrameCount() throws InvalidFrameException {
+        scan();
+        return frameCount;
+    }
+
+    /**
+     * Retrieve the number of chunks that are decoded in parallel. The first call
+     * does the boundary pass.
+     *
+     * @return the number of chunks.
+     * @throws InvalidFrameException in case of an invalid or truncated frame.
+     */
+    public int getChunkCount() throws InvalidFrameException {
+        scan();
+        return chunkStarts.length - 1;
+    }
+
+    /**
+     * Runs the query on a parallel stream of the payloads of all frames in the
+     * order of the RAM. The query, and so the terminal operation of the stream,
+     * runs on the pool of this reader. The stream must not escape the query.
+     *
+     * @param query The operations on the stream.
+     * @param <R>   The type of the result.
+     * @return the result of the query.
+     * @throws IOException in case of an invalid or truncated frame.
+     */
+    public <R> R frames(Function<Stream<RichReadOnlyRandomAccessMemory>, R> query) throws IOException {
+        requireNonNull(query);
+        scan();
+        return inPool(() -> query.apply(frameStream()));
+    }
+
+    /**
+     * Runs the query on a parallel stream of all parsed messages in the order of
+     * the RAM. The query, and so the terminal operation of the stream, runs on
+     * the pool of this reader. The stream must not escape the query.
+     *
+     * @param parser Parses the messages.
+     * @param query  The operations on the stream.
+     * @param <R>    The type of the result.
+     * @return the result of the query.
+     * @throws IOException in case of an invalid frame or message.
+     */
+    public <R> R messages(MessageParser parser, Function<Stream<MessageData>, R> query) throws IOException {
+        requireNonNull(parser);
+        requireNonNull(query);
+        scan();
+        return inPool(() -> query.apply(frameStream().map(frame -> {
+            try {
+                return parser.parse(frame);
+            } catch (InvalidMessageException e) {
+                throw new UncheckedIOException(e);
+            }
+        })));
+    }
+
+    /**
+     * Parses all messages in parallel on the pool and calls the registered
+     * handlers of the parser.
+     * <p>
+     * If ordered, the handlers are called by the calling thread in the order of
+     * the RAM, while the following chunks are parsed in parallel. Otherwise the
+     * handlers are called concurrently from the threads of the pool, and a
+     * recycling parser doesn't create garbage.
+     *
+     * @param parser  Parses the messages and calls the handlers.
+     * @param ordered If {@code true} the handlers are called in order.
+     * @return the number of messages that were handled by a handler or the fallback.
+     * @throws IOException in case of an invalid frame or message.
+     */
+    public long handle(MessageParser parser, boolean ordered) throws IOException {
+        requireNonNull(parser);
+        scan();
+        if (!ordered) {
+            return inPool(() -> handleUnordered(parser));
+        }
+        try {
+            return handleOrdered(parser);
+        } catch (InterruptedException e) {
+            throw interrupted(e);
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        }
+    }
+
+    private long handleUnordered(MessageParser parser) {
+        LongAdder handled = new LongAdder();
+        frameStream().forEach(frame -> {
+            try {
+                if (parser.handle(frame)) {
+                    handled.increment();
+                }
+            } catch (InvalidMessageException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return handled.sum();
+    }
+
+    /**
+     * Runs the task on the pool. A parallel stream whose terminal operation is
+     * called by a thread of the pool is processed by that pool.
+     */
+    private <R> R inPool(Callable<R> task) throws IOException {
+        try {
+            return pool.submit(task).get();
+        } catch (InterruptedException e) {
+            throw interrupted(e);
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        }
+    }
+
+    private static IOException interrupted(InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return new IOException("interrupted", e);
+    }
+
+    /**
+     * Rethrows unchecked causes and returns the IOException to throw.
+     */
+    private static IOException unwrap(ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof UncheckedIOException) {
+            return ((UncheckedIOException) cause).getCause();
+        }
+        if (cause instanceof IOException) {
+            return (IOException) cause;
+        }
+        if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        }
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        return new IOException(cause);
+    }
+
+    private Stream<RichReadOnlyRandomAccessMemory> frameStream() {
+        long[] starts = chunkStarts;
+        return IntStream.range(0, starts.length - 1).parallel().boxed()
+                .flatMap(chunk -> StreamSupport.stream(Spliterators.spliteratorUnknownSize(
+                        chunkFrames(starts[chunk], starts[chunk + 1]), Spliterator.ORDERED | Spliterator.NONNULL), false));
+    }
+
+    /**
+     * Parses a window of chunks ahead on the pool, while the calling thread calls
+     * the handlers chunk by chunk. The MessageData of a handled chunk is reused
+     * for the next chunk that is parsed.
+     */
+    private long handleOrdered(MessageParser parser) throws InterruptedException, ExecutionException {
+        int chunks = chunkStarts.length - 1;
+        int window = Math.min(chunks, pool.getParallelism() * 2);
+        @SuppressWarnings("unchecked")
+        ForkJoinTask<ParsedChunk>[] parsing = (ForkJoinTask<ParsedChunk>[]) new ForkJoinTask<?>[window];
+        for (int chunk = 0; chunk < window; chunk++) {
+            parsing[chunk] = parse(parser, chunk, new ParsedChunk(parser.getSchema()));
+        }
+        long handled = 0;
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            ParsedChunk parsed = parsing[chunk % window].get();
+            for (int i = 0; i < parsed.count; i++) {
+                if (parser.getRegistry().handle(parsed.messages[i])) {
+                    handled++;
+                }
+            }
+            if (chunk + window < chunks) {
+                parsing[chunk % window] = parse(parser, chunk + window, parsed);
+            }
+        }
+        return handled;
+    }
+
+    private ForkJoinTask<ParsedChunk> parse(MessageParser parser, int chunk, ParsedChunk parsed) {
+        return pool.submit(() -> {
+            parsed.count = 0;
+            for (Iterator<RichReadOnlyRandomAccessMemory> frames = chunkFrames(chunkStarts[chunk], chunkStarts[chunk + 1]);
+                    frames.hasNext(); ) {
+                MessageData messageData = parsed.next();
+                if (parser.isLazy()) {
+                    MessageParser.parseLazy(frames.next(), messageData);
+                } else {
+                    MessageParser.parse(frames.next(), messageData);
+                }
+            }
+            return parsed;
+        });
+    }
+
+    /**
+     * The boundary pass: validates all headers and records the start of each
+     * chunk, plus the end of the last.
+     */
+    private void scan() throws InvalidFrameException {
+        if (chunkStarts != null) {
+            return;
+        }
+        long size = ram.size();
+        long[] starts = new long[16];
+        int chunks = 0;
+        long frames = 0;
+        long position = 0;
+        long chunkStart = 0;
+        int chunkFrames = 0;
+        while (position < size) {
+            position = nextFrame(position, size);
+            frames++;
+            if (position - chunkStart >= chunkSize || ++chunkFrames == MAX_CHUNK_FRAMES || position == size) {
+                chunkFrames = 0;
+                if (chunks + 2 > starts.length) {
+                    starts = Arrays.copyOf(starts, starts.length * 2);
+                }
+                starts[chunks++] = chunkStart;
+                chunkStart = position;
+            }
+        }
+        starts[chunks] = size;
+        chunkStarts = Arrays.copyOf(starts, chunks + 1);
+        frameCount = frames;
+    }
+
+    /**
+     * Validates the header at position.
+     *
+     * @return the position after the frame.
+     */
+    private long nextFrame(long position, long size) throws InvalidFrameException {
+        if (position + FrameReader.HEADER_SIZE > size) {
+            throw new InvalidFrameException("truncated frame header at " + position);
+        }
+        int magic = ram.getUInt16At(position) << 8 | ram.getUByteAt(position + 2);
+        if (magic != FrameReader.MAGIC) {
+            throw new InvalidFrameException(String.format("invalid frame magic 0x%06x at %d", magic, position));
+        }
+        int headerSize = headerSize(position);
+        if (position + headerSize > size) {
+            throw new InvalidFrameException("truncated frame header at " + position);
+        }
+        long length = length(position, headerSize);
+        if (length > maxFrameSize) {
+            throw new InvalidFrameException("frame size " + length + " at " + position + " exceeds the maximum " + maxFrameSize);
+        }
+        if (length > size - position - headerSize) {
+            throw new InvalidFrameException("truncated frame at " + position + " with size " + length);
+        }
+        return position + headerSize + length;
+    }
+
+    private int headerSize(long position) {
+        return (ram.getByteAt(position + 3) & 0x80) == 0 ? FrameReader.HEADER_SIZE : FrameReader.LONG_HEADER_SIZE;
+    }
+
+    private long length(long position, int headerSize) {
+        return headerSize == FrameReader.HEADER_SIZE ? ram.getInt32At(position + 3) : ram.getInt64At(position + 3) & Long.MAX_VALUE;
+    }
+
+    /**
+     * Iterates over the frames of a chunk. The headers were validated by the
+     * boundary pass.
+     */
+    private Iterator<RichReadOnlyRandomAccessMemory> chunkFrames(long start, long end) {
+        return new Iterator<RichReadOnlyRandomAccessMemory>() {
+            private long position = start;
+
+            @Override
+            public boolean hasNext() {
+                return position < end;
+            }
+
+            @Override
+            public RichReadOnlyRandomAccessMemory next() {
+                if (position >= end) {
+                    throw new NoSuchElementException();
+                }
+                int headerSize = headerSize(position);
+                int length = (int) length(position, headerSize);
+                position += headerSize;
+                RichReadOnlyRandomAccessMemory frame = rich(ram.getDataAt(position, length));
+                position += length;
+                return frame;
+            }
+        };
+    }
+
+    /**
+     * The views of the RAMs of this library are rich, other views are copied.
+     */
+    private static RichReadOnlyRandomAccessMemory rich(ReadOnlyRandomAccessMemory data) {
+        if (data instanceof RichReadOnlyRandomAccessMemory) {
+            return (RichReadOnlyRandomAccessMemory) data;
+        }
+        return new ByteBufferRoRam(ByteBuffer.wrap(data.getBytes()));
+    }
+
+    /**
+     * The reused MessageData of the messages of a chunk.
+     */
+    private static final class ParsedChunk {
+        private final SchemaData schema;
+        private MessageData[] messages = new MessageData[16];
+        private int count;
+
+        ParsedChunk(SchemaData schema) {
+            this.schema = schema;
+        }
+
+        MessageData next() {
+            if (count == messages.length) {
+                messages = Arrays.copyOf(messages, count * 2);
+            }
+            if (messages[count] == null) {
+                messages[count] = new MessageData(schema);
+            }
+            return messages[count++];
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package paxel.sunshine.runtime.frame;
+
+import java.io.IOException;
+
+import paxel.sunshine.api.memory.bytebuffer.MultiByteBufferRam;
+
+/**
+ * Creates the RAM for a frame that doesn't fit into the buffer of the
+ * {@link FrameReader}. e.g. a {@link paxel.sunshine.api.memory.bytebuffer.SegmentedByteBufferRam}
+ * or a {@link paxel.sunshine.api.memory.mapped.MappedFileRam}.
+ */
+@FunctionalInterface
+public interface SpillAllocator {
+
+    /**
+     * Creates a RAM with exactly the given size.
+     *
+     * @param size The size of the frame.
+     * @return the new RAM.
+     * @throws IOException in case the RAM can not be created.
+     */
+    MultiByteBufferRam allocate(long size) throws IOException;
+}
@@ -0,0 +1,655 @@
+package paxel.sunshine.runtime.frame;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+import paxel.sunshine.api.memory.ReadOnlyRandomAccessMemory;
+import paxel.sunshine.runtime.message.Tlv;
+
+/**
+ * Builds a message object by object and writes it to a channel while it is
+ * built. The objects of a message are independent of each other and only
+ * reference each other by instance ID, so a message with millions of objects
+ * needs no more memory than the buffer: the bytes are written whenever the
+ * buffer is full, and values bigger than the buffer are streamed through it.
+ * <p>
+ * The builder keeps the instance IDs of the written objects and of the
+ * references to objects that were not written yet. Both are stored as sorted
+ * ranges, so a dense numbering costs a few longs. This is the only memory that
+ * grows with the message: sparse instance IDs cost two longs per object, and an
+ * ID below the last range moves the ranges behind it. Objects of big messages
+ * should therefore be numbered densely in ascending order. A reference is recorded with
+ * {@link #referenceValue(int, long)}, {@link #referenceElement(int, long)} or
+ * for a reference in the static block with {@link #addReference(long)}.
+ * {@link #finish()} fails if a referenced object is missing.
+ * <p>
+ * Values are split into TLVs of 255 bytes. If the reader supports format
+ * version {@value Tlv#WIDE_VALUE_VERSION}, big values can be written as a single
+ * {@link Tlv#WIDE_VALUE wide TLV} instead, see
+ * {@link #useWideValues(int, long)}. The reader then gets them with one
+ * contiguous copy, and an array bigger than the buffer is written directly to
+ * the channel.
+ * <p>
+ * An unframed message needs no size up front. A framed message is written to a
+ * {@link SeekableByteChannel} with a frame header with an 8 byte length, that
+ * is written back when the message is finished.
+ * <p>
+ * The builder is not thread-safe and expects a blocking channel.
+ */
+public class StreamingMessageBuilder implements Closeable {
+
+    /**
+     * The default buffer size of 64 KB.
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+    private static final int REFERENCE_SIZE = Integer.BYTES;
+    private static final long MAX_INSTANCE_ID = 0xffffffffL;
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer;
+    /**
+     * The channel position of the frame header or -1 if the message is not
+     * framed.
+     */
+    private final long framePosition;
+    private final InstanceIdRanges written = new InstanceIdRanges();
+    private final InstanceIdRanges unresolved = new InstanceIdRanges();
+    /**
+     * The current TLV of a List with fixed size elements.
+     */
+    private final byte[] list = new byte[Tlv.MAX_VALUE_LENGTH];
+    private int listValueId = -1;
+    private int listLength;
+    /**
+     * The minimum length of a value written as wide TLV.
+     */
+    private long wideThreshold = Long.MAX_VALUE;
+    private boolean inObject;
+    private boolean staticBlock;
+    private boolean finished;
+    private long size;
+
+    /**
+     * Constructs an unframed builder with the default buffer size.
+     *
+     * @param channel The destination.
+     */
+    public StreamingMessageBuilder(WritableByteChannel channel) {
+        this(channel, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Constructs an unframed builder with the default buffer size.
+     *
+     * @param out The destination.
+     */
+    public StreamingMessageBuilder(OutputStream out) {
+        this(Channels.newChannel(out), DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Constructs an unframed builder.
+     *
+     * @param channel    The destination.
+     * @param bufferSize The size of the buffer. It must hold at least a TLV of
+     *                   255 bytes.
+     * @throws IllegalArgumentException in case the buffer is too small.
+     */
+    public StreamingMessageBuilder(WritableByteChannel channel, int bufferSize) {
+        this(channel, bufferSize, -1);
+    }
+
+    private StreamingMessageBuilder(WritableByteChannel channel, int bufferSize, long framePosition) {
+        this.channel = requireNonNull(channel);
+        if (bufferSize < Tlv.TLV_HEADER_SIZE + Tlv.MAX_VALUE_LENGTH) {
+            throw new IllegalArgumentException("bufferSize was < " + (Tlv.TLV_HEADER_SIZE + Tlv.MAX_VALUE_LENGTH) + " :" + bufferSize);
+        }
+        this.buffer = ByteBuffer.allocate(bufferSize);
+        this.framePosition = framePosition;
+        if (framePosition >= 0) {
+            // the length is written by finish()
+            buffer.put((byte) (FrameReader.MAGIC >> 16)).put((byte) (FrameReader.MAGIC >> 8)).put((byte) FrameReader.MAGIC)
+                    .putLong(Long.MIN_VALUE);
+        }
+    }
+
+    /**
+     * Constructs a builder of a framed message with the default buffer size.
+     * The frame starts at the current position of the channel.
+     *
+     * @param channel The destination.
+     * @return the builder.
+     * @throws IOException in case the position of the channel is not available.
+     */
+    public static StreamingMessageBuilder framed(SeekableByteChannel channel) throws IOException {
+        return framed(channel, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Constructs a builder of a framed message. The frame starts at the current
+     * position of the channel.
+     *
+     * @param channel    The destination.
+     * @param bufferSize The size of the buffer. It must hold at least a TLV of
+     *                   255 bytes.
+     * @return the builder.
+     * @throws IOException              in case the position of the channel is
+     *                                  not available.
+     * @throws IllegalArgumentException in case the buffer is too small.
+     */
+    public static StreamingMessageBuilder framed(SeekableByteChannel channel, int bufferSize) throws IOException {
+        return new StreamingMessageBuilder(channel, bufferSize, channel.position());
+    }
+
+    /**
+     * Writes values with at least the given length as a single wide TLV, if the
+     * reader supports them. A reader of an older format version rejects wide
+     * TLVs, so for it the values stay split into TLVs of 255 bytes.
+     *
+     * @param readerVersion The format version of the reader, e.g. announced by
+     *                      the peer.
+     * @param threshold     The minimum length of a wide value.
+     * @return {@code true} if wide TLVs are written.
+     * @throws IllegalArgumentException in case the threshold is &lt; 1.
+     */
+    public boolean useWideValues(int readerVersion, long threshold) {
+        if (threshold < 1) {
+            throw new IllegalArgumentException("threshold was < 1 :" + threshold);
+        }
+        wideThreshold = readerVersion >= Tlv.WIDE_VALUE_VERSION ? threshold : Long.MAX_VALUE;
+        return wideThreshold != Long.MAX_VALUE;
+    }
+
+    /**
+     * Retrieve the format version a reader needs for the message.
+     *
+     * @return {@link Tlv#WIDE_VALUE_VERSION} if wide TLVs are written, else 1.
+     */
+    public int getFormatVersion() {
+        return wideThreshold == Long.MAX_VALUE ? 1 : Tlv.WIDE_VALUE_VERSION;
+    }
+
+    /**
+     * Starts the next object. The first object is the root object with
+     * instance ID 1.
+     *
+     * @param typeId     The type ID of the object.
+     * @param instanceId The instance ID of the object.
+     * @return this.
+     * @throws IOException              in case the channel fails.
+     * @throws IllegalArgumentException in case an ID is out of range, the
+     *                                  instance ID was already used or the root
+     *                                  object has another instance ID.
+     * @throws IllegalStateException    in case the previous object was not ended
+     *                                  or the message was finished.
+     */
+    public StreamingMessageBuilder startObject(int typeId, long instanceId) throws IOException {
+        checkOpen();
+        if (inObject) {
+            throw new IllegalStateException("the previous object was not ended");
+        }
+        if (typeId < 0 || typeId > 0xffff) {
+            throw new IllegalArgumentException("typeId was out of range :" + typeId);
+        }
+        checkInstanceId(instanceId);
+        if (written.isEmpty() && instanceId != Tlv.ROOT_INSTANCE_ID) {
+            throw new IllegalArgumentException("the root object has instance ID " + instanceId);
+        }
+        if (!written.add(instanceId)) {
+            throw new IllegalArgumentException("instanceId was used twice :" + instanceId);
+        }
+        unresolved.remove(instanceId);
+        ensure(Tlv.OBJECT_HEADER_SIZE);
+        buffer.put((byte) (Tlv.OBJECT_MAGIC >> 16)).put((byte) (Tlv.OBJECT_MAGIC >> 8)).put((byte) Tlv.OBJECT_MAGIC)
+                .putShort((short) typeId).putInt((int) instanceId);
+        size += Tlv.OBJECT_HEADER_SIZE;
+        inObject = true;
+        staticBlock = false;
+        return this;
+    }
+
+    /**
+     * Writes the static block of the current object. A block longer than 255
+     * bytes is split into multiple chunks.
+     *
+     * @param block The static block.
+     * @return this.
+     * @throws IOException           in case the channel fails.
+     * @throws IllegalStateException in case no object was started or it already
+     *                               has a static block.
+     */
+    public StreamingMessageBuilder staticBlock(byte[] block) throws IOException {
+        startStaticBlock();
+        for (int offset = 0; offset == 0 || offset < block.length; offset += Tlv.MAX_VALUE_LENGTH) {
+            int length = Math.min(Tlv.MAX_VALUE_LENGTH, block.length - offset);
+            putTlvHeader(Tlv.STATIC_BLOCK, length);
+            buffer.put(block, offset, length);
+            size += length;
+        }
+        return this;
+    }
+
+    /**
+     * Writes the static block of the current object. A block longer than 255
+     * bytes is split into multiple chunks.
+     *
+     * @param block The static block.
+     * @return this.
+     * @throws IOException           in case the channel fails.
+     * @throws IllegalStateException in case no object was started or it already
+     *                               has a static block.
+     */
+    public StreamingMessageBuilder staticBlock(ReadOnlyRandomAccessMemory block) throws IOException {
+        startStaticBlock();
+        putChunks(Tlv.STATIC_BLOCK, block);
+        return this;
+    }
+
+    /**
+     * Writes a dynamic value. A value longer than 255 bytes is split into
+     * multiple TLVs.
+     *
+     * @param valueId The ID of the value.
+     * @param value   The value.
+     * @return this.
+     * @throws IOException              in case the channel fails.
+     * @throws IllegalArgumentException in case the value ID is invalid.
+     * @throws IllegalStateException    in case no object was started.
+     */
+    public StreamingMessageBuilder value(int valueId, byte[] value) throws IOException {
+        return value(valueId, value, 0, value.length);
+    }
+
+    /**
+     * Writes a part of an array as dynamic value. A value longer than 255 bytes
+     * is split into multiple TLVs.
+     *
+     * @param valueId The ID of the value.
+     * @param value   The array.
+     * @param offset  The offset of the value in the array.
+     * @param length  The length of the value.
+     * @return this.
+     * @throws IOException               in case the channel fails.
+     * @throws IndexOutOfBoundsException in case the value is not inside of the
+     *                                   array. Nothing is written then.
+     * @throws IllegalArgumentException  in case the value ID is invalid.
+     * @throws IllegalStateException     in case no object was started.
+     */
+    public StreamingMessageBuilder value(int valueId, byte[] value, int offset, int length) throws IOException {
+        if (offset < 0 || length < 0 || offset > value.length - length) {
+            throw new IndexOutOfBoundsException("offset " + offset + " length " + length + " size " + value.length);
+        }
+        startValue(valueId);
+        if (length >= wideThreshold) {
+            putWideHeader(valueId, length);
+            if (length <= buffer.remaining()) {
+                buffer.put(value, offset, length);
+            } else {
+                drain();
+                write(ByteBuffer.wrap(value, offset, length));
+            }
+            size += length;
+            return this;
+        }
+        for (int done = 0; done == 0 || done < length; done += Tlv.MAX_VALUE_LENGTH) {
+            int chunk = Math.min(Tlv.MAX_VALUE_LENGTH, length - done);
+            putTlvHeader(valueId, chunk);
+            buffer.put(value, offset + done, chunk);
+            size += chunk;
+        }
+        return this;
+    }
+
+    /**
+     * Writes a dynamic String value. A value longer than 255 bytes is split into
+     * multiple TLVs.
+     *
+     * @param valueId The ID of the value.
+     * @param value   The value.
+     * @return this.
+     * @throws IOException              in case the channel fails.
+     * @throws IllegalArgumentException in case the value ID is invalid.
+     * @throws IllegalStateException    in case no object was started.
+     */
+    public StreamingMessageBuilder stringValue(int valueId, String value) throws IOException {
+        return value(valueId, value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Writes a dynamic value. It is streamed through the buffer, so it can be
+     * bigger than the buffer. A value longer than 255 bytes is split into
+     * multiple TLVs.
+     *
+     * @param valueId The ID of the value.
+     * @param value   The value.
+     * @return this.
+     * @throws IOException              in case the channel fails.
+     * @throws IllegalArgumentException in case the value ID is invalid.
+     * @throws IllegalStateException    in case no object was started.
+     */
+    public StreamingMessageBuilder value(int valueId, ReadOnlyRandomAccessMemory value) throws IOException {
+        startValue(valueId);
+        if (value.size() >= wideThreshold) {
+            putWide(valueId, value);
+        } else {
+            putChunks(valueId, value);
+        }
+        return this;
+    }
+
+    /**
+     * Writes a reference as dynamic value, e.g. an Optional Object.
+     *
+     * @param valueId    The ID of the value.
+     * @param instanceId The instance ID of the referenced object.
+     * @return this.
+     * @throws IOException              in case the channel fails.
+     * @throws IllegalArgumentException in case an ID is invalid.
+     * @throws IllegalStateException    in case no object was started.
+     */
+    public StreamingMessageBuilder referenceValue(int valueId, long instanceId) throws IOException {
+        startValue(valueId);
+        addReference(instanceId);
+        putTlvHeader(valueId, REFERENCE_SIZE);
+        buffer.putInt((int) instanceId);
+        size += REFERENCE_SIZE;
+        return this;
+    }
+
+    /**
+     * Adds an element to a List of fixed size elements. The elements are
+     * collected in TLVs of up to 255 bytes. An element is never split, and the
+     * List ends with the next call of another method. The elements of a List of
+     * Strings or Binaries are written with {@link #value(int, byte[])} instead.
+     *
+     * @param valueId The ID of the List.
+     * @param element The element.
+     * @return this.
+     * @throws IOException              in case the channel fails.
+     * @throws IllegalArgumentException in case the value ID is invalid or the
+     *                                  element is empty or longer than 255
+     *                                  bytes.
+     * @throws IllegalStateException    in case no object was started.
+     */
+    public StreamingMessageBuilder listElement(int valueId, byte[] element) throws IOException {
+        if (element.length < 1 || element.length > Tlv.MAX_VALUE_LENGTH) {
+            throw new IllegalArgumentException("element length was out of range :" + element.length);
+        }
+        startElement(valueId, element.length);
+        System.arraycopy(element, 0, list, listLength, element.length);
+        listLength += element.length;
+        return this;
+    }
+
+    /**
+     * Adds a reference to a List of Objects.
+     *
+     * @param valueId    The ID of the List.
+     * @param instanceId The instance ID of the referenced object.
+     * @return this.
+     * @throws IOException              in case the channel fails.
+     * @throws IllegalArgumentException in case an ID is invalid.
+     * @throws IllegalStateException    in case no object was started.
+     * @see #listElement(int, byte[])
+     */
+    public StreamingMessageBuilder referenceElement(int valueId, long instanceId) throws IOException {
+        startElement(valueId, REFERENCE_SIZE);
+        addReference(instanceId);
+        for (int shift = 24; shift >= 0; shift -= 8) {
+            list[listLength++] = (byte) (instanceId >> shift);
+        }
+        return this;
+    }
+
+    /**
+     * Records a reference that was written into a static block. The referenced
+     * object must be written before the message is finished.
+     *
+     * @param instanceId The instance ID of the referenced object.
+     * @return this.
+     * @throws IllegalArgumentException in case the instance ID is out of range.
+     */
+    public StreamingMessageBuilder addReference(long instanceId) {
+        checkInstanceId(instanceId);
+        if (!written.contains(instanceId)) {
+            unresolved.add(instanceId);
+        }
+        return this;
+    }
+
+    /**
+     * Ends the current object.
+     *
+     * @return this.
+     * @throws IOException           in case the channel fails.
+     * @throws IllegalStateException in case no object was started.
+     */
+    public StreamingMessageBuilder endObject() throws IOException {
+        checkObject();
+        putList();
+        ensure(1);
+        buffer.put((byte) Tlv.END_OF_OBJECT);
+        size++;
+        inObject = false;
+        return this;
+    }
+
+    /**
+     * Ends the message and writes the rest of the buffer. A framed message gets
+     * its length.
+     *
+     * @return the size of the message without the frame header.
+     * @throws IOException           in case the channel fails.
+     * @throws IllegalStateException in case the message has no objects, the
+     *                               last object was not ended or a referenced
+     *                               object is missing.
+     */
+    public long finish() throws IOException {
+        checkOpen();
+        if (inObject) {
+            throw new IllegalStateException("the last object was not ended");
+        }
+        if (written.isEmpty()) {
+            throw new IllegalStateException("the message has no root object");
+        }
+        if (!unresolved.isEmpty()) {
+            throw new IllegalStateException(unresolved.size() + " referenced objects are missing, e.g. instance ID "
+                    + unresolved.first());
+        }
+        ensure(1);
+        buffer.put((byte) Tlv.END_OF_OBJECT);
+        size++;
+        drain();
+        finished = true;
+        if (framePosition >= 0) {
+            SeekableByteChannel seekable = (SeekableByteChannel) channel;
+            long end = seekable.position();
+            ByteBuffer length = ByteBuffer.allocate(Long.BYTES).putLong(0, size | Long.MIN_VALUE);
+            seekable.position(framePosition + 3);
+            while (length.hasRemaining()) {
+                seekable.write(length);
+            }
+            seekable.position(end);
+        }
+        return size;
+    }
+
+    /**
+     * Retrieve the number of message bytes built so far.
+     *
+     * @return the size without the frame header.
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * Retrieve the number of referenced objects that were not written yet.
+     *
+     * @return the number of instance IDs.
+     */
+    public long getUnresolvedReferences() {
+        return unresolved.size();
+    }
+
+    /**
+     * Closes the channel. An unfinished message stays incomplete.
+     *
+     * @throws IOException in case the channel fails.
+     */
+    @Override
+    public void close() throws IOException {
+        finished = true;
+        channel.close();
+    }
+
+    private void startStaticBlock() throws IOException {
+        checkObject();
+        if (staticBlock) {
+            throw new IllegalStateException("the object already has a static block");
+        }
+        putList();
+        staticBlock = true;
+    }
+
+    private void startValue(int valueId) throws IOException {
+        checkObject();
+        checkValueId(valueId);
+        putList();
+    }
+
+    /**
+     * Ends the current List TLV if the element belongs to another List or
+     * doesn't fit.
+     */
+    private void startElement(int valueId, int elementSize) throws IOException {
+        checkObject();
+        checkValueId(valueId);
+        if (listValueId != valueId || listLength + elementSize > Tlv.MAX_VALUE_LENGTH) {
+            putList();
+            listValueId = valueId;
+        }
+    }
+
+    private void putList() throws IOException {
+        if (listValueId >= 0) {
+            putTlvHeader(listValueId, listLength);
+            buffer.put(list, 0, listLength);
+            size += listLength;
+            listValueId = -1;
+            listLength = 0;
+        }
+    }
+
+    private void putChunks(int type, ReadOnlyRandomAccessMemory value) throws IOException {
+        long length = value.size();
+        for (long done = 0; done == 0 || done < length; done += Tlv.MAX_VALUE_LENGTH) {
+            int chunk = (int) Math.min(Tlv.MAX_VALUE_LENGTH, length - done);
+            putTlvHeader(type, chunk);
+            value.copyToDestination(done, buffer.array(), buffer.position(), chunk);
+            buffer.position(buffer.position() + chunk);
+            size += chunk;
+        }
+    }
+
+    /**
+     * Writes a wide TLV. The value is handed directly to the channel if it
+     * supports it, else it is streamed through the buffer.
+     */
+    private void putWide(int valueId, ReadOnlyRandomAccessMemory value) throws IOException {
+        long length = value.size();
+        putWideHeader(valueId, length);
+        boolean direct = value.supportsDestination(WritableByteChannel.class);
+        if (direct) {
+            drain();
+        }
+        for (long done = 0; done < length; ) {
+            if (direct) {
+                done += value.copyToDestination(done, (int) Math.min(Integer.MAX_VALUE, length - done), channel);
+            } else {
+                ensure(1);
+                int chunk = (int) Math.min(buffer.remaining(), length - done);
+                value.copyToDestination(done, buffer.array(), buffer.position(), chunk);
+                buffer.position(buffer.position() + chunk);
+                done += chunk;
+            }
+        }
+        size += length;
+    }
+
+    /**
+     * Writes the type, value ID and the 4 or 8 byte length of a wide TLV.
+     */
+    private void putWideHeader(int valueId, long length) throws IOException {
+        if (length > Integer.MAX_VALUE) {
+            ensure(Tlv.LONG_WIDE_HEADER_SIZE);
+            buffer.put((byte) Tlv.WIDE_VALUE).put((byte) valueId).putLong(length | Long.MIN_VALUE);
+            size += Tlv.LONG_WIDE_HEADER_SIZE;
+        } else {
+            ensure(Tlv.WIDE_HEADER_SIZE);
+            buffer.put((byte) Tlv.WIDE_VALUE).put((byte) valueId).putInt((int) length);
+            size += Tlv.WIDE_HEADER_SIZE;
+        }
+    }
+
+    /**
+     * Writes the type and length and makes sure the value fits into the buffer.
+     */
+    private void putTlvHeader(int type, int length) throws IOException {
+        ensure(Tlv.TLV_HEADER_SIZE + length);
+        buffer.put((byte) type).put((byte) length);
+        size += Tlv.TLV_HEADER_SIZE;
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            drain();
+        }
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        write(buffer);
+        buffer.clear();
+    }
+
+    private void write(ByteBuffer bytes) throws IOException {
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+    }
+
+    private void checkOpen() {
+        if (finished) {
+            throw new IllegalStateException("the message is finished");
+        }
+    }
+
+    private void checkObject() {
+        checkOpen();
+        if (!inObject) {
+            throw new IllegalStateException("no object was started");
+        }
+    }
+
+    private static void checkValueId(int valueId) {
+        if (valueId < Tlv.FIRST_DYNAMIC_ID || valueId > Tlv.LAST_DYNAMIC_ID) {
+            throw new IllegalArgumentException("invalid value ID " + valueId);
+        }
+    }
+
+    private static void checkInstanceId(long instanceId) {
+        if (instanceId < 1 || instanceId > MAX_INSTANCE_ID) {
+            throw new IllegalArgumentException("instanceId was out of range :" + instanceId);
+        }
+    }
+}
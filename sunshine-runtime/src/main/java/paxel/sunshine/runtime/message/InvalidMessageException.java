@@ -0,0 +1,13 @@
+package paxel.sunshine.runtime.message;
+
+import java.io.IOException;
+
+/**
+ * Signals that a message doesn't follow the serialized message format.
+ */
+public class InvalidMessageException extends IOException {
+
+    public InvalidMessageException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,194 @@
+package paxel.sunshine.runtime.message;
+
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+
+import paxel.sunshine.api.memory.RichReadOnlyRandomAccessMemory;
+
+/**
+ * The meta data of a whole message: the ObjectData of all objects in the order
+ * of the message. The first object is the root object with instance ID 1.
+ * <p>
+ * The ObjectData instances are kept when the MessageData is reused for the next
+ * message.
+ * <p>
+ * If the message was parsed lazily, only the root object is known at first.
+ * The other objects are skimmed and scanned when they are requested. If that
+ * part of the message is invalid, an {@link UncheckedIOException} with the
+ * {@link InvalidMessageException} is thrown.
+ */
+public class MessageData {
+
+    private final SchemaData schema;
+    private RichReadOnlyRandomAccessMemory ram;
+    private ObjectData[] objects = new ObjectData[4];
+    private int objectCount;
+    private boolean skimmed;
+    private long skimPosition;
+    private MutableMessage mutableMessage;
+
+    public MessageData(SchemaData schema) {
+        this.schema = schema;
+    }
+
+    public SchemaData getSchema() {
+        return schema;
+    }
+
+    /**
+     * Retrieve the RAM containing the message.
+     *
+     * @return the RAM.
+     */
+    public RichReadOnlyRandomAccessMemory getRam() {
+        return ram;
+    }
+
+    /**
+     * Retrieve the mutable message this data belongs to.
+     *
+     * @return the message or {@code null} if the message is read only.
+     */
+    public MutableMessage getMutableMessage() {
+        return mutableMessage;
+    }
+
+    /**
+     * Retrieve the number of objects. In a lazy parsed message this skims the
+     * rest of the message.
+     *
+     * @return the number of objects.
+     */
+    public int getObjectCount() {
+        while (!skimmed) {
+            skimNext();
+        }
+        return objectCount;
+    }
+
+    public ObjectData getObjectAt(int index) {
+        while (index >= objectCount && !skimmed) {
+            skimNext();
+        }
+        if (index < 0 || index >= objectCount) {
+            throw new IndexOutOfBoundsException("index " + index + " object count " + objectCount);
+        }
+        return scanned(objects[index]);
+    }
+
+    /**
+     * Retrieve the object with the given instance ID.
+     *
+     * @param instanceId The instance ID.
+     * @return the object or {@code null} if the message doesn't contain it.
+     */
+    public ObjectData getObject(long instanceId) {
+        // instance IDs are usually dense and in order
+        if (instanceId >= 1 && instanceId <= objectCount && objects[(int) instanceId - 1].getInstanceId() == instanceId) {
+            return scanned(objects[(int) instanceId - 1]);
+        }
+        for (int i = 0; i < objectCount; i++) {
+            if (objects[i].getInstanceId() == instanceId) {
+                return scanned(objects[i]);
+            }
+        }
+        while (!skimmed) {
+            if (skimNext() && objects[objectCount - 1].getInstanceId() == instanceId) {
+                return scanned(objects[objectCount - 1]);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Retrieve the root object.
+     *
+     * @return the root object or {@code null} if the message is empty.
+     */
+    public ObjectData getRoot() {
+        return objectCount == 0 ? null : objects[0];
+    }
+
+    /**
+     * Checks if all object headers are known.
+     *
+     * @return {@code false} if the message was parsed lazily and not all objects
+     * were requested yet.
+     */
+    public boolean isSkimmed() {
+        return skimmed;
+    }
+
+    void reset(RichReadOnlyRandomAccessMemory ram, boolean lazy) {
+        this.ram = ram;
+        mutableMessage = null;
+        objectCount = 0;
+        skimmed = !lazy;
+        skimPosition = 0;
+    }
+
+    int getKnownObjectCount() {
+        return objectCount;
+    }
+
+    long getSkimPosition() {
+        return skimPosition;
+    }
+
+    void setSkimPosition(long skimPosition) {
+        this.skimPosition = skimPosition;
+    }
+
+    void setMutableMessage(MutableMessage mutableMessage) {
+        this.mutableMessage = mutableMessage;
+    }
+
+    void setSkimmed() {
+        skimmed = true;
+    }
+
+    private boolean skimNext() {
+        try {
+            return MessageParser.skimNext(this);
+        } catch (InvalidMessageException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private ObjectData scanned(ObjectData objectData) {
+        if (!objectData.isScanned()) {
+            try {
+                MessageParser.scan(objectData);
+            } catch (InvalidMessageException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return objectData;
+    }
+
+    /**
+     * Drops the message, so that the RAM is not referenced until the next
+     * message is parsed.
+     */
+    void recycle() {
+        for (int i = 0; i < objectCount; i++) {
+            objects[i].reset(null, null, 0, 0, 0);
+        }
+        reset(null, false);
+    }
+
+    ObjectData addObject(int typeId, long instanceId, long start) {
+        if (objectCount == objects.length) {
+            objects = Arrays.copyOf(objects, objectCount * 2);
+        }
+        ObjectData objectData = objects[objectCount];
+        if (objectData == null) {
+            objectData = new ObjectData();
+            objects[objectCount] = objectData;
+        }
+        objectData.setIndex(objectCount);
+        objectCount++;
+        objectData.reset(this, ram, typeId, instanceId, start);
+        return objectData;
+    }
+}
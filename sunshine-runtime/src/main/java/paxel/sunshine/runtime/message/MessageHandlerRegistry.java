@@ -0,0 +1,127 @@
+package paxel.sunshine.runtime.message;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Maps the type of the root object of a message to the handler that is called
+ * with the initialized root object. Types without handler are given to the
+ * fallback, if available, or ignored.
+ * <p>
+ * The registrations are kept in an array indexed by the type ID of the object
+ * header, so the dispatch of a message is a single array load. The class of a
+ * registration is only mapped to its type ID at registration time.
+ * <p>
+ * The registration is not thread-safe and should be finished before messages
+ * are handled.
+ */
+public class MessageHandlerRegistry {
+
+    private final SchemaData schema;
+    private Registration<?>[] registrations = new Registration<?>[0];
+    private Consumer<Object> fallback;
+
+    public MessageHandlerRegistry(SchemaData schema) {
+        this.schema = requireNonNull(schema);
+    }
+
+    /**
+     * Registers a handler for root objects of the given type.
+     *
+     * @param key              The class of the object type.
+     * @param messageHandler   Is called with the initialized root object.
+     * @param instanceProvider Provides the instance that is initialized, e.g. to
+     *                         reuse a single instance.
+     * @param <T>              The object type.
+     * @throws IllegalArgumentException in case the class is not part of the schema.
+     */
+    public <T extends SunshineObject> void register(Class<T> key, Consumer<T> messageHandler, Supplier<T> instanceProvider) {
+        requireNonNull(messageHandler);
+        requireNonNull(instanceProvider);
+        int typeId = schema.getTypeId(key);
+        if (typeId < 0) {
+            throw new IllegalArgumentException(key + " is not part of the schema");
+        }
+        if (typeId >= registrations.length) {
+            registrations = Arrays.copyOf(registrations, typeId + 1);
+        }
+        registrations[typeId] = new Registration<>(messageHandler, instanceProvider);
+    }
+
+    /**
+     * Registers a handler for root objects of the given type, that is called with
+     * a new instance for each message.
+     *
+     * @param key            The class of the object type.
+     * @param messageHandler Is called with the initialized root object.
+     * @param <T>            The object type.
+     * @throws IllegalArgumentException in case the class is not part of the schema.
+     */
+    public <T extends SunshineObject> void register(Class<T> key, Consumer<T> messageHandler) {
+        int typeId = schema.getTypeId(key);
+        if (typeId < 0) {
+            throw new IllegalArgumentException(key + " is not part of the schema");
+        }
+        register(key, messageHandler, () -> key.cast(schema.newInstance(typeId)));
+    }
+
+    /**
+     * Sets the handler for all root objects without registered handler. It is
+     * called with the initialized object, or with the {@link ObjectData} if the
+     * type is not part of the schema.
+     *
+     * @param messageHandler The fallback handler.
+     */
+    public void fallback(Consumer<Object> messageHandler) {
+        this.fallback = messageHandler;
+    }
+
+    /**
+     * Calls the handler for the root object of the message.
+     *
+     * @param messageData The parsed message.
+     * @return {@code true} if a handler or the fallback was called.
+     */
+    public boolean handle(MessageData messageData) {
+        ObjectData root = messageData.getRoot();
+        if (root == null) {
+            return false;
+        }
+        int typeId = root.getTypeId();
+        Registration<?> registration = typeId < registrations.length ? registrations[typeId] : null;
+        if (registration != null) {
+            registration.handle(root);
+            return true;
+        }
+        if (fallback == null) {
+            return false;
+        }
+        SunshineObject instance = schema.newInstance(typeId);
+        if (instance == null) {
+            fallback.accept(root);
+        } else {
+            instance.init(root);
+            fallback.accept(instance);
+        }
+        return true;
+    }
+
+    private static final class Registration<T extends SunshineObject> {
+        private final Consumer<T> messageHandler;
+        private final Supplier<T> instanceProvider;
+
+        Registration(Consumer<T> messageHandler, Supplier<T> instanceProvider) {
+            this.messageHandler = messageHandler;
+            this.instanceProvider = instanceProvider;
+        }
+
+        void handle(ObjectData root) {
+            T instance = instanceProvider.get();
+            instance.init(root);
+            messageHandler.accept(instance);
+        }
+    }
+}
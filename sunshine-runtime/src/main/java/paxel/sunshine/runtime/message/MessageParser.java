@@ -0,0 +1,362 @@
+package paxel.sunshine.runtime.message;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import paxel.sunshine.api.memory.RichReadOnlyRandomAccessMemory;
+
+/**
+ * Parses the structure of a serialized message into a {@link MessageData} and
+ * hands the root object to the {@link MessageHandlerRegistry}. The values are
+ * not read, only the positions of the TLVs are recorded.
+ * <p>
+ * A recycling parser reuses the MessageData and its ObjectData instances for
+ * {@link #handle(RichReadOnlyRandomAccessMemory)}. They are kept in a small
+ * cache shared by all threads, that is collected together with the parser.
+ * Each thread starts its search at its own slot, so the threads rarely compete
+ * for the same instance. Together with a handler that reuses its instance, a
+ * message is then handled without creating garbage.
+ * <p>
+ * A lazy parser only parses the root object before calling the handler. The
+ * other objects are resolved by the MessageData when they are requested.
+ */
+public class MessageParser {
+
+    private final SchemaData schema;
+    private final MessageHandlerRegistry registry;
+    private final AtomicReferenceArray<MessageData> recycled;
+    private final boolean lazy;
+
+    /**
+     * Constructs a parser that creates a new MessageData for each message.
+     *
+     * @param schema   The schema of the messages.
+     * @param registry The handlers of the messages.
+     */
+    public MessageParser(SchemaData schema, MessageHandlerRegistry registry) {
+        this(schema, registry, false);
+    }
+
+    /**
+     * Constructs a parser.
+     *
+     * @param schema   The schema of the messages.
+     * @param registry The handlers of the messages.
+     * @param recycle  If {@code true} the MessageData is reused for the next
+     *                 message. The objects given to the handlers must then not
+     *                 be used after the handler returned.
+     */
+    public MessageParser(SchemaData schema, MessageHandlerRegistry registry, boolean recycle) {
+        this(schema, registry, recycle, false);
+    }
+
+    /**
+     * Constructs a parser.
+     *
+     * @param schema   The schema of the messages.
+     * @param registry The handlers of the messages.
+     * @param recycle  If {@code true} the MessageData is reused for the next
+     *                 message. The objects given to the handlers must then not
+     *                 be used after the handler returned.
+     * @param lazy     If {@code true} only the root object is parsed before the
+     *                 handler is called, see
+     *                 {@link #parseLazy(RichReadOnlyRandomAccessMemory, MessageData)}.
+     */
+    public MessageParser(SchemaData schema, MessageHandlerRegistry registry, boolean recycle, boolean lazy) {
+        this.schema = requireNonNull(schema);
+        this.registry = requireNonNull(registry);
+        this.recycled = recycle ? new AtomicReferenceArray<>(recycledCacheSize()) : null;
+        this.lazy = lazy;
+    }
+
+    public SchemaData getSchema() {
+        return schema;
+    }
+
+    public MessageHandlerRegistry getRegistry() {
+        return registry;
+    }
+
+    public boolean isRecycling() {
+        return recycled != null;
+    }
+
+    public boolean isLazy() {
+        return lazy;
+    }
+
+    /**
+     * Parses the message and calls the handler registered for the type of its root
+     * object.
+     *
+     * @param ram The RAM containing exactly one message.
+     * @return {@code true} if a handler or the fallback was called.
+     * @throws InvalidMessageException in case the message is invalid.
+     */
+    public boolean handle(RichReadOnlyRandomAccessMemory ram) throws InvalidMessageException {
+        if (recycled == null) {
+            return registry.handle(parse(ram));
+        }
+        // a handler that handles another message on the same thread gets another instance
+        MessageData messageData = pollRecycled();
+        try {
+            parse(ram, messageData, lazy);
+            return registry.handle(messageData);
+        } finally {
+            messageData.recycle();
+            offerRecycled(messageData);
+        }
+    }
+
+    /**
+     * Calculates the size of the recycling cache: twice the number of
+     * processors, rounded up to a power of two.
+     */
+    private static int recycledCacheSize() {
+        int processors = Runtime.getRuntime().availableProcessors();
+        return Integer.highestOneBit(Math.max(1, 2 * processors - 1)) << 1;
+    }
+
+    private MessageData pollRecycled() {
+        int mask = recycled.length() - 1;
+        int start = (int) Thread.currentThread().getId();
+        for (int i = 0; i <= mask; i++) {
+            int slot = (start + i) & mask;
+            MessageData messageData = recycled.get(slot);
+            if (messageData != null && recycled.compareAndSet(slot, messageData, null)) {
+                return messageData;
+            }
+        }
+        return new MessageData(schema);
+    }
+
+    private void offerRecycled(MessageData messageData) {
+        int mask = recycled.length() - 1;
+        int start = (int) Thread.currentThread().getId();
+        for (int i = 0; i <= mask; i++) {
+            int slot = (start + i) & mask;
+            if (recycled.get(slot) == null && recycled.compareAndSet(slot, null, messageData)) {
+                return;
+            }
+        }
+        // the cache is full, the instance is left to the garbage collector
+    }
+
+    /**
+     * Parses the structure of the message, only the root object if the parser
+     * is lazy.
+     *
+     * @param ram The RAM containing exactly one message.
+     * @return the new MessageData.
+     * @throws InvalidMessageException in case the message is invalid.
+     */
+    public MessageData parse(RichReadOnlyRandomAccessMemory ram) throws InvalidMessageException {
+        MessageData messageData = new MessageData(schema);
+        parse(ram, messageData, lazy);
+        return messageData;
+    }
+
+    private static void parse(RichReadOnlyRandomAccessMemory ram, MessageData messageData, boolean lazy) throws InvalidMessageException {
+        if (lazy) {
+            parseLazy(ram, messageData);
+        } else {
+            parse(ram, messageData);
+        }
+    }
+
+    /**
+     * Parses the structure of the message into the given MessageData, replacing
+     * its previous content.
+     *
+     * @param ram         The RAM containing exactly one message.
+     * @param messageData The reused MessageData.
+     * @throws InvalidMessageException in case the message is invalid.
+     */
+    public static void parse(RichReadOnlyRandomAccessMemory ram, MessageData messageData) throws InvalidMessageException {
+        parse(ram, ram.size(), messageData);
+    }
+
+    /**
+     * Parses the structure of a message at the start of a bigger RAM.
+     */
+    static void parse(RichReadOnlyRandomAccessMemory ram, long size, MessageData messageData) throws InvalidMessageException {
+        messageData.reset(ram, false);
+        long position = 0;
+        do {
+            position = parseObject(ram, messageData, position, size, true);
+        } while (type(ram, position, size) != Tlv.END_OF_OBJECT);
+        checkEndOfMessage(position, size);
+    }
+
+    /**
+     * Parses only the structure of the root object into the given MessageData,
+     * replacing its previous content. The other objects are resolved when they
+     * are requested from the MessageData: the headers are skimmed up to the
+     * requested instance and its TLVs are scanned on first access. So a handler
+     * that only reads the root doesn't pay for the rest of the message.
+     * <p>
+     * The rest of the message is only validated when it is resolved. The
+     * MessageData then throws an {@link java.io.UncheckedIOException}.
+     *
+     * @param ram         The RAM containing exactly one message.
+     * @param messageData The reused MessageData.
+     * @throws InvalidMessageException in case the root object is invalid.
+     */
+    public static void parseLazy(RichReadOnlyRandomAccessMemory ram, MessageData messageData) throws InvalidMessageException {
+        messageData.reset(ram, true);
+        long position = parseObject(ram, messageData, 0, ram.size(), true);
+        messageData.setSkimPosition(position);
+    }
+
+    /**
+     * Skims the header of the next object of a lazy parsed message.
+     *
+     * @return {@code false} if the end of message was reached.
+     */
+    static boolean skimNext(MessageData messageData) throws InvalidMessageException {
+        RichReadOnlyRandomAccessMemory ram = messageData.getRam();
+        long size = ram.size();
+        long position = messageData.getSkimPosition();
+        if (type(ram, position, size) == Tlv.END_OF_OBJECT) {
+            checkEndOfMessage(position, size);
+            messageData.setSkimmed();
+            return false;
+        }
+        messageData.setSkimPosition(parseObject(ram, messageData, position, size, false));
+        return true;
+    }
+
+    /**
+     * Scans the TLVs of a skimmed object.
+     */
+    static void scan(ObjectData objectData) throws InvalidMessageException {
+        scanObject(objectData.getRam(), objectData, objectData.getStart() + Tlv.OBJECT_HEADER_SIZE, objectData.getEnd());
+    }
+
+    private static void checkEndOfMessage(long position, long size) throws InvalidMessageException {
+        if (position + 1 != size) {
+            throw new InvalidMessageException((size - position - 1) + " bytes after the end of message at " + position);
+        }
+    }
+
+    /**
+     * Parses the object starting at position. Its TLVs are either scanned or only
+     * skipped.
+     *
+     * @return the position after its end of object flag.
+     */
+    private static long parseObject(RichReadOnlyRandomAccessMemory ram, MessageData messageData, long position, long size, boolean scan)
+            throws InvalidMessageException {
+        if (position + Tlv.OBJECT_HEADER_SIZE > size) {
+            throw new InvalidMessageException("object header at " + position + " exceeds the message size " + size);
+        }
+        int magic = ram.getUInt16At(position) << 8 | ram.getUByteAt(position + 2);
+        if (magic != Tlv.OBJECT_MAGIC) {
+            throw new InvalidMessageException(String.format("invalid object magic 0x%06x at %d", magic, position));
+        }
+        int typeId = ram.getUInt16At(position + 3);
+        long instanceId = ram.getUInt32At(position + 5);
+        if (messageData.getKnownObjectCount() == 0 && instanceId != Tlv.ROOT_INSTANCE_ID) {
+            throw new InvalidMessageException("root object has instance ID " + instanceId);
+        }
+        ObjectData objectData = messageData.addObject(typeId, instanceId, position);
+        position += Tlv.OBJECT_HEADER_SIZE;
+        long end = scan ? scanObject(ram, objectData, position, size) : skipObject(ram, position, size);
+        objectData.setEnd(end);
+        return end;
+    }
+
+    /**
+     * Records the TLVs of the object starting at position.
+     *
+     * @return the position after its end of object flag.
+     */
+    private static long scanObject(RichReadOnlyRandomAccessMemory ram, ObjectData objectData, long position, long size)
+            throws InvalidMessageException {
+        while (true) {
+            int type = type(ram, position, size);
+            if (type == Tlv.END_OF_OBJECT) {
+                objectData.setScanned();
+                return position + 1;
+            } else if (type == Tlv.NOP) {
+                objectData.addNop(position);
+                position++;
+            } else if (type == Tlv.WIDE_VALUE) {
+                long wideSize = wideSize(ram, position, size);
+                objectData.addValue(ram.getUByteAt(position + 1), position);
+                position += wideSize;
+            } else {
+                int length = length(ram, position, size);
+                if (type == Tlv.STATIC_BLOCK) {
+                    objectData.addStaticBlock(position, length);
+                } else {
+                    objectData.addValue(type, position);
+                }
+                position += Tlv.TLV_HEADER_SIZE + length;
+            }
+        }
+    }
+
+    /**
+     * Skips the TLVs of the object starting at position without recording them.
+     *
+     * @return the position after its end of object flag.
+     */
+    private static long skipObject(RichReadOnlyRandomAccessMemory ram, long position, long size) throws InvalidMessageException {
+        while (true) {
+            int type = type(ram, position, size);
+            if (type == Tlv.END_OF_OBJECT) {
+                return position + 1;
+            } else if (type == Tlv.NOP) {
+                position++;
+            } else if (type == Tlv.WIDE_VALUE) {
+                position += wideSize(ram, position, size);
+            } else {
+                position += Tlv.TLV_HEADER_SIZE + length(ram, position, size);
+            }
+        }
+    }
+
+    private static int length(RichReadOnlyRandomAccessMemory ram, long position, long size) throws InvalidMessageException {
+        if (position + Tlv.TLV_HEADER_SIZE > size) {
+            throw new InvalidMessageException("TLV at " + position + " exceeds the message size " + size);
+        }
+        int length = ram.getByteAt(position + 1) & 0xff;
+        if (position + Tlv.TLV_HEADER_SIZE + length > size) {
+            throw new InvalidMessageException("TLV at " + position + " with length " + length + " exceeds the message size " + size);
+        }
+        return length;
+    }
+
+    /**
+     * Validates a wide TLV.
+     *
+     * @return the size of header and data.
+     */
+    private static long wideSize(RichReadOnlyRandomAccessMemory ram, long position, long size) throws InvalidMessageException {
+        if (position + Tlv.WIDE_HEADER_SIZE > size) {
+            throw new InvalidMessageException("wide TLV at " + position + " exceeds the message size " + size);
+        }
+        int valueId = ram.getUByteAt(position + 1);
+        if (valueId < Tlv.FIRST_DYNAMIC_ID || valueId > Tlv.LAST_DYNAMIC_ID) {
+            throw new InvalidMessageException("wide TLV at " + position + " has the invalid value ID " + valueId);
+        }
+        int header = Tlv.getHeaderSize(ram, position);
+        if (position + header > size) {
+            throw new InvalidMessageException("wide TLV at " + position + " exceeds the message size " + size);
+        }
+        long length = Tlv.getLength(ram, position);
+        if (length > size - position - header) {
+            throw new InvalidMessageException("TLV at " + position + " with length " + length + " exceeds the message size " + size);
+        }
+        return header + length;
+    }
+
+    private static int type(RichReadOnlyRandomAccessMemory ram, long position, long size) throws InvalidMessageException {
+        if (position >= size) {
+            throw new InvalidMessageException("message ends without end of message flag at " + position);
+        }
+        return ram.getByteAt(position) & 0xff;
+    }
+}
@@ -0,0 +1,519 @@
+package paxel.sunshine.runtime.message;
+
+import static java.util.Objects.requireNonNull;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import paxel.sunshine.api.memory.GrowableRandomAccessMemory;
+import paxel.sunshine.api.memory.ReadOnlyRandomAccessMemory;
+import paxel.sunshine.api.memory.RichReadOnlyRandomAccessMemory;
+import paxel.sunshine.api.memory.RichReadWriteRandomAccessMemory;
+
+/**
+ * A message in a writable RAM, whose dynamic values are set and removed in
+ * place. The message starts at index 0 of the RAM and can be smaller than the
+ * RAM. Its {@link MessageData} is kept up to date with each change, so the
+ * objects don't need to be parsed again. The objects of the message can also be
+ * changed via {@link ObjectData#setValue(int, byte[])} and the generated
+ * setters.
+ * <p>
+ * A value with the same length is overwritten without changing the structure.
+ * A removed value is overwritten with NOPs. The NOP runs of each
+ * {@link ObjectData} are the free space of the object: a new or grown value is
+ * written into the smallest run that can hold it. Only if no run is big enough
+ * the object grows at its end by at least the minimum growth, and all following
+ * bytes of the message are moved. The unused rest stays free for later values.
+ * <p>
+ * A long-lived message is shrunk again with {@link #compact(long)}, which
+ * slides the free space to the end of the message in bounded steps. Between
+ * the steps the message is valid and can be read, changed and written.
+ * <p>
+ * Generated objects resolve the position of the static block on each access,
+ * so they stay valid when a growth or compaction moves their object.
+ * <p>
+ * The message is not thread-safe.
+ */
+public class MutableMessage {
+
+    /**
+     * The default minimum number of bytes an object grows by.
+     */
+    public static final int DEFAULT_MIN_GROWTH = 64;
+
+    private static final int BUFFER_SIZE = 4096;
+
+    private final RichReadWriteRandomAccessMemory ram;
+    private final MessageData messageData;
+    private final int minGrowth;
+    /**
+     * Moves bytes inside of the RAM and writes NOPs.
+     */
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private long size;
+    /**
+     * The index of the object containing the first NOP run of the message. The
+     * compaction continues there.
+     */
+    private int compactObject;
+
+    /**
+     * Parses the message at the start of the RAM.
+     *
+     * @param schema The schema of the message.
+     * @param ram    The RAM containing the message.
+     * @param size   The size of the message.
+     * @param <R>    The writable RAM.
+     * @throws InvalidMessageException in case the message is invalid.
+     */
+    public <R extends RichReadOnlyRandomAccessMemory & RichReadWriteRandomAccessMemory> MutableMessage(SchemaData schema, R ram, long size)
+            throws InvalidMessageException {
+        this(schema, ram, size, DEFAULT_MIN_GROWTH);
+    }
+
+    /**
+     * Parses the message at the start of the RAM.
+     *
+     * @param schema    The schema of the message.
+     * @param ram       The RAM containing the message. Only a
+     *                  {@link GrowableRandomAccessMemory} can hold a message that
+     *                  grows beyond its size.
+     * @param size      The size of the message.
+     * @param minGrowth The minimum number of bytes an object grows by.
+     * @param <R>       The writable RAM.
+     * @throws InvalidMessageException  in case the message is invalid.
+     * @throws IllegalArgumentException in case the size is bigger than the RAM
+     *                                  or the minimum growth is negative.
+     */
+    public <R extends RichReadOnlyRandomAccessMemory & RichReadWriteRandomAccessMemory> MutableMessage(SchemaData schema, R ram, long size,
+            int minGrowth) throws InvalidMessageException {
+        this.ram = requireNonNull(ram);
+        if (size < 0 || size > ram.size()) {
+            throw new IllegalArgumentException("size was out of range :" + size);
+        }
+        if (minGrowth < 0) {
+            throw new IllegalArgumentException("minGrowth was < 0 :" + minGrowth);
+        }
+        this.minGrowth = minGrowth;
+        this.size = size;
+        this.messageData = new MessageData(schema);
+        MessageParser.parse(ram, size, messageData);
+        messageData.setMutableMessage(this);
+    }
+
+    public MessageData getMessageData() {
+        return messageData;
+    }
+
+    /**
+     * Retrieve the RAM containing the message. It can be bigger than the
+     * message.
+     *
+     * @return the RAM.
+     */
+    public RichReadWriteRandomAccessMemory getRam() {
+        return ram;
+    }
+
+    /**
+     * Retrieve the size of the message.
+     *
+     * @return the number of bytes from index 0 to the end of message flag.
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * Retrieve the number of NOPs in the message.
+     *
+     * @return the free bytes.
+     */
+    public long getFreeBytes() {
+        long free = 0;
+        for (int i = 0; i < messageData.getObjectCount(); i++) {
+            ObjectData object = messageData.getObjectAt(i);
+            for (int nop = 0; nop < object.getNopCount(); nop++) {
+                free += object.getNopLength(nop);
+            }
+        }
+        return free;
+    }
+
+    /**
+     * Sets a String value. A value longer than 255 bytes is split into multiple
+     * TLVs.
+     *
+     * @param object  The object of this message.
+     * @param valueId The ID of the value.
+     * @param value   The new value.
+     * @throws IllegalArgumentException in case the object is not part of the
+     *                                  message or the value ID is invalid.
+     * @throws IllegalStateException    in case the RAM can't hold the grown
+     *                                  message. The message is not changed.
+     */
+    public void setStringValue(ObjectData object, int valueId, String value) {
+        setValue(object, valueId, value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Sets a value. A value longer than 255 bytes is split into multiple TLVs.
+     *
+     * @param object  The object of this message.
+     * @param valueId The ID of the value.
+     * @param value   The bytes of the new value.
+     * @throws IllegalArgumentException in case the object is not part of the
+     *                                  message or the value ID is invalid.
+     * @throws IllegalStateException    in case the RAM can't hold the grown
+     *                                  message. The message is not changed.
+     */
+    public void setValue(ObjectData object, int valueId, byte[] value) {
+        reserve(object, valueId, value.length);
+        RichReadOnlyRandomAccessMemory data = messageData.getRam();
+        int offset = 0;
+        for (int i = 0; offset < value.length; i++) {
+            if (object.getValueIdAt(i) == valueId) {
+                long position = object.getValuePositionAt(i);
+                int length = data.getUByteAt(position + 1);
+                ram.copyFromSource(position + Tlv.TLV_HEADER_SIZE, value, offset, length);
+                offset += length;
+            }
+        }
+    }
+
+    /**
+     * Sets a value. A value longer than 255 bytes is split into multiple TLVs.
+     *
+     * @param object  The object of this message.
+     * @param valueId The ID of the value.
+     * @param value   The bytes of the new value. It must not be a part of this
+     *                message.
+     * @throws IllegalArgumentException in case the object is not part of the
+     *                                  message, the value ID is invalid or the
+     *                                  value is bigger than 2 GB.
+     * @throws IllegalStateException    in case the RAM can't hold the grown
+     *                                  message. The message is not changed.
+     */
+    public void setValue(ObjectData object, int valueId, ReadOnlyRandomAccessMemory value) {
+        if (value.size() > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("value was too big :" + value.size());
+        }
+        int valueLength = (int) value.size();
+        reserve(object, valueId, valueLength);
+        RichReadOnlyRandomAccessMemory data = messageData.getRam();
+        int offset = 0;
+        for (int i = 0; offset < valueLength; i++) {
+            if (object.getValueIdAt(i) == valueId) {
+                long position = object.getValuePositionAt(i);
+                int length = data.getUByteAt(position + 1);
+                value.copyToDestination(offset, buffer, 0, length);
+                ram.copyFromSource(position + Tlv.TLV_HEADER_SIZE, buffer, 0, length);
+                offset += length;
+            }
+        }
+    }
+
+    /**
+     * Reserves a value in a single TLV. The caller writes the value directly
+     * into the {@link #getRam() RAM}, which avoids creating an array for
+     * fixed size values.
+     *
+     * @param object  The object of this message.
+     * @param valueId The ID of the value.
+     * @param length  The length of the value.
+     * @return the index of the first byte of the value.
+     * @throws IllegalArgumentException in case the object is not part of the
+     *                                  message, the value ID is invalid or the
+     *                                  length is bigger than 255.
+     * @throws IllegalStateException    in case the RAM can't hold the grown
+     *                                  message. The message is not changed.
+     */
+    public long reserveValue(ObjectData object, int valueId, int length) {
+        if (length < 0 || length > Tlv.MAX_VALUE_LENGTH) {
+            throw new IllegalArgumentException("length was out of range :" + length);
+        }
+        reserve(object, valueId, length);
+        return object.getValuePosition(valueId) + Tlv.TLV_HEADER_SIZE;
+    }
+
+    /**
+     * Removes all TLVs of a value. They are overwritten with NOPs.
+     *
+     * @param object  The object of this message.
+     * @param valueId The ID of the value.
+     * @return {@code true} if the object contained the value.
+     * @throws IllegalArgumentException in case the object is not part of the
+     *                                  message or the value ID is invalid.
+     */
+    public boolean removeValue(ObjectData object, int valueId) {
+        int index = checkObject(object);
+        checkValueId(valueId);
+        if (!object.hasValue(valueId)) {
+            return false;
+        }
+        for (int i = 0; i < object.getValueCount(); i++) {
+            if (object.getValueIdAt(i) == valueId) {
+                long position = object.getValuePositionAt(i);
+                long length = object.getValueDataIndexAt(i) - position + object.getValueLengthAt(i);
+                putNops(position, length);
+                object.insertNop(position, length);
+            }
+        }
+        object.forgetValue(valueId);
+        compactObject = Math.min(compactObject, index);
+        return true;
+    }
+
+    /**
+     * Compacts the message until it has no NOPs left.
+     */
+    public void compact() {
+        compact(Long.MAX_VALUE);
+    }
+
+    /**
+     * Continues the compaction of the message. The first NOP run is moved
+     * towards the end of the message, the TLVs behind it are moved to its start
+     * and it collects all further NOP runs on its way. At the end of the message
+     * it is cut off.
+     * <p>
+     * Each call moves at least one TLV or object border and stops before it
+     * moves more than the given number of bytes. The message is valid after
+     * each call.
+     *
+     * @param maxBytes The maximum number of bytes to move.
+     * @return {@code true} if the message has no NOPs left.
+     */
+    public boolean compact(long maxBytes) {
+        RichReadOnlyRandomAccessMemory data = messageData.getRam();
+        long moved = 0;
+        while (true) {
+            while (compactObject < messageData.getObjectCount() && messageData.getObjectAt(compactObject).getNopCount() == 0) {
+                compactObject++;
+            }
+            if (compactObject == messageData.getObjectCount()) {
+                return true;
+            }
+            if (moved > 0 && moved >= maxBytes) {
+                return false;
+            }
+            ObjectData object = messageData.getObjectAt(compactObject);
+            long gap = object.getNopStart(0);
+            long gapLength = object.getNopLength(0);
+            long from = gap + gapLength;
+            long to = from;
+            boolean border = false;
+            boolean end = false;
+            while (!border) {
+                int type = data.getUByteAt(to);
+                long unit;
+                if (type == Tlv.NOP) {
+                    break;
+                } else if (type == Tlv.END_OF_OBJECT) {
+                    // the NOPs must not end up between two objects
+                    unit = data.getUByteAt(to + 1) == Tlv.END_OF_OBJECT ? 2 : 1 + Tlv.OBJECT_HEADER_SIZE;
+                } else if (type == Tlv.STATIC_BLOCK) {
+                    // the chunks of the static block must stay together
+                    unit = 0;
+                    while (data.getUByteAt(to + unit) == Tlv.STATIC_BLOCK) {
+                        unit += Tlv.TLV_HEADER_SIZE + data.getUByteAt(to + unit + 1);
+                    }
+                } else {
+                    unit = Tlv.getHeaderSize(data, to) + Tlv.getLength(data, to);
+                }
+                if (to > from && moved + to - from + unit > maxBytes) {
+                    break;
+                }
+                to += unit;
+                border = type == Tlv.END_OF_OBJECT;
+                end = unit == 2 && border;
+            }
+            long length = to - from;
+            moveBytes(from, gap, length);
+            putNops(Math.max(gap + length, from), Math.min(length, gapLength));
+            object.removeNop(0);
+            object.move(from, to, -gapLength);
+            if (end) {
+                size -= gapLength;
+            } else if (border) {
+                ObjectData next = messageData.getObjectAt(compactObject + 1);
+                next.move(from, to, -gapLength);
+                next.insertNop(gap + length, gapLength);
+                compactObject++;
+            } else {
+                object.insertNop(gap + length, gapLength);
+            }
+            moved += length;
+        }
+    }
+
+    /**
+     * Makes sure the value consists of TLVs for exactly the given length. If
+     * the existing TLVs already have these lengths they are kept and only the
+     * value is overwritten. Otherwise they are removed and the new TLVs are
+     * written at the old position if the freed run is big enough, else into the
+     * smallest fitting run or the grown object.
+     */
+    private void reserve(ObjectData object, int valueId, int valueLength) {
+        checkObject(object);
+        checkValueId(valueId);
+        if (hasTlvs(object, valueId, valueLength)) {
+            return;
+        }
+        long required = tlvSize(valueLength);
+        if (object.findNop(required) < 0 && !canGrow(required) && freedRun(object, valueId) < required) {
+            throw new IllegalStateException("the message needs " + (size + Math.max(required, minGrowth))
+                    + " bytes but the RAM has " + ram.size());
+        }
+        long old = object.getValuePosition(valueId);
+        removeValue(object, valueId);
+        int nop = old < 0 ? -1 : object.findNopAt(old);
+        long position;
+        if (nop >= 0 && object.getNopStart(nop) + object.getNopLength(nop) >= old + required) {
+            position = object.useNop(nop, old, required);
+        } else {
+            nop = object.findNop(required);
+            if (nop < 0) {
+                grow(object, required);
+                nop = object.findNop(required);
+            }
+            position = object.useNop(nop, required);
+        }
+        for (int offset = 0; offset == 0 || offset < valueLength; offset += Tlv.MAX_VALUE_LENGTH) {
+            int length = Math.min(Tlv.MAX_VALUE_LENGTH, valueLength - offset);
+            ram.putByteAt(position, (byte) valueId);
+            ram.putByteAt(position + 1, (byte) length);
+            object.insertValue(valueId, position);
+            position += Tlv.TLV_HEADER_SIZE + length;
+        }
+    }
+
+    /**
+     * Checks if the TLVs of the value have the lengths a new value of the given
+     * length would be split into.
+     */
+    private boolean hasTlvs(ObjectData object, int valueId, int valueLength) {
+        if (!object.hasValue(valueId)) {
+            return false;
+        }
+        RichReadOnlyRandomAccessMemory data = messageData.getRam();
+        long remaining = valueLength;
+        boolean first = true;
+        for (int i = 0; i < object.getValueCount(); i++) {
+            if (object.getValueIdAt(i) == valueId) {
+                long position = object.getValuePositionAt(i);
+                if (data.getUByteAt(position) == Tlv.WIDE_VALUE) {
+                    // new values are written with standard TLVs
+                    return false;
+                }
+                int length = data.getUByteAt(position + 1);
+                if (length != Math.min(Tlv.MAX_VALUE_LENGTH, remaining) || !first && remaining == 0) {
+                    return false;
+                }
+                remaining -= length;
+                first = false;
+            }
+        }
+        return remaining == 0;
+    }
+
+    /**
+     * Calculates the biggest NOP run the removal of the value would create.
+     */
+    private static long freedRun(ObjectData object, int valueId) {
+        long biggest = 0;
+        long runStart = -1;
+        long runEnd = -1;
+        for (int i = 0; i < object.getValueCount(); i++) {
+            if (object.getValueIdAt(i) == valueId) {
+                long start = object.getValuePositionAt(i);
+                long end = object.getValueDataIndexAt(i) + object.getValueLengthAt(i);
+                for (int nop = 0; nop < object.getNopCount(); nop++) {
+                    if (object.getNopStart(nop) + object.getNopLength(nop) == start) {
+                        start = object.getNopStart(nop);
+                    } else if (object.getNopStart(nop) == end) {
+                        end += object.getNopLength(nop);
+                    }
+                }
+                if (start > runEnd) {
+                    runStart = start;
+                }
+                runEnd = end;
+                biggest = Math.max(biggest, runEnd - runStart);
+            }
+        }
+        return biggest;
+    }
+
+    private boolean canGrow(long required) {
+        return size + Math.max(required, minGrowth) <= ram.size() || ram instanceof GrowableRandomAccessMemory;
+    }
+
+    /**
+     * Inserts NOPs before the end of object flag and moves all following bytes.
+     */
+    private void grow(ObjectData object, long required) {
+        long growth = Math.max(required, minGrowth);
+        if (size + growth > ram.size()) {
+            ((GrowableRandomAccessMemory) ram).allocate(size + growth - ram.size());
+        }
+        long position = object.getEnd() - 1;
+        moveBytes(position, position + growth, size - position);
+        putNops(position, growth);
+        int index = checkObject(object);
+        for (int i = index; i < messageData.getObjectCount(); i++) {
+            messageData.getObjectAt(i).move(position, size, growth);
+        }
+        object.insertNop(position, growth);
+        size += growth;
+        compactObject = Math.min(compactObject, index);
+    }
+
+    private static long tlvSize(int valueLength) {
+        int tlvs = Math.max(1, (valueLength + Tlv.MAX_VALUE_LENGTH - 1) / Tlv.MAX_VALUE_LENGTH);
+        return (long) valueLength + (long) tlvs * Tlv.TLV_HEADER_SIZE;
+    }
+
+    /**
+     * Moves bytes inside of the RAM. The ranges can overlap.
+     */
+    private void moveBytes(long from, long to, long length) {
+        if (to < from) {
+            for (long done = 0; done < length; done += BUFFER_SIZE) {
+                int chunk = (int) Math.min(BUFFER_SIZE, length - done);
+                ram.copyToDestination(from + done, buffer, 0, chunk);
+                ram.copyFromSource(to + done, buffer, 0, chunk);
+            }
+        } else if (to > from) {
+            for (long remaining = length; remaining > 0; remaining -= BUFFER_SIZE) {
+                int chunk = (int) Math.min(BUFFER_SIZE, remaining);
+                ram.copyToDestination(from + remaining - chunk, buffer, 0, chunk);
+                ram.copyFromSource(to + remaining - chunk, buffer, 0, chunk);
+            }
+        }
+    }
+
+    private void putNops(long position, long length) {
+        Arrays.fill(buffer, (byte) Tlv.NOP);
+        for (long done = 0; done < length; done += BUFFER_SIZE) {
+            ram.copyFromSource(position + done, buffer, 0, (int) Math.min(BUFFER_SIZE, length - done));
+        }
+    }
+
+    /**
+     * @return the index of the object in the message.
+     */
+    private int checkObject(ObjectData object) {
+        int index = object.getIndex();
+        if (object.getMessageData() == messageData && messageData.getObjectAt(index) == object) {
+            return index;
+        }
+        throw new IllegalArgumentException(object + " is not part of the message");
+    }
+
+    private static void checkValueId(int valueId) {
+        if (valueId < Tlv.FIRST_DYNAMIC_ID || valueId > Tlv.LAST_DYNAMIC_ID) {
+            throw new IllegalArgumentException("invalid value ID " + valueId);
+        }
+    }
+}
@@ -0,0 +1,824 @@
+package paxel.sunshine.runtime.message;
+
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import paxel.sunshine.api.memory.ReadOnlyRandomAccessMemory;
+import paxel.sunshine.api.memory.RichReadOnlyRandomAccessMemory;
+import paxel.sunshine.api.memory.RichReadWriteRandomAccessMemory;
+
+/**
+ * The parsed structure of a single object in a message: its header, the
+ * position of the static block, the positions of the dynamic values and the NOP
+ * runs. The values themselves stay in the RAM and are read on demand by the
+ * generated code. All positions are indices in the RAM of the message.
+ * <p>
+ * Instances are reused by the {@link MessageData} they belong to.
+ */
+public class ObjectData {
+
+    private static final int INITIAL_CAPACITY = 8;
+
+    private MessageData messageData;
+    private int index;
+    private RichReadOnlyRandomAccessMemory ram;
+    private int typeId;
+    private long instanceId;
+    private long start;
+    private long end;
+    private long staticBlockPosition;
+    private int staticBlockLength;
+    private boolean scanned;
+
+    private int[] valueIds = new int[INITIAL_CAPACITY];
+    private long[] valuePositions = new long[INITIAL_CAPACITY];
+    private int valueCount;
+    /**
+     * The index of the first TLV of each value ID plus 1, or 0 if it doesn't exist.
+     */
+    private final int[] firstValue = new int[Tlv.LAST_DYNAMIC_ID + 1];
+
+    private long[] nopStarts = new long[INITIAL_CAPACITY];
+    private long[] nopLengths = new long[INITIAL_CAPACITY];
+    private int nopCount;
+
+    /**
+     * Retrieve the message containing this object.
+     *
+     * @return the message.
+     */
+    public MessageData getMessageData() {
+        return messageData;
+    }
+
+    /**
+     * Retrieve the schema of the message.
+     *
+     * @return the schema.
+     */
+    public SchemaData getSchema() {
+        return messageData.getSchema();
+    }
+
+    /**
+     * Retrieve the RAM of the whole message.
+     *
+     * @return the RAM.
+     */
+    public RichReadOnlyRandomAccessMemory getRam() {
+        return ram;
+    }
+
+    public int getTypeId() {
+        return typeId;
+    }
+
+    public long getInstanceId() {
+        return instanceId;
+    }
+
+    /**
+     * Retrieve the index of the object header.
+     *
+     * @return the index.
+     */
+    public long getStart() {
+        return start;
+    }
+
+    /**
+     * Retrieve the index after the end of object flag.
+     *
+     * @return the index.
+     */
+    public long getEnd() {
+        return end;
+    }
+
+    /**
+     * Retrieve the index of the type of the first static block chunk.
+     *
+     * @return the index or -1 if the object has no static block.
+     */
+    public long getStaticBlockPosition() {
+        return staticBlockPosition;
+    }
+
+    /**
+     * Retrieve the number of bytes in all static block chunks.
+     *
+     * @return the length.
+     */
+    public int getStaticBlockLength() {
+        return staticBlockLength;
+    }
+
+    /**
+     * Calculates the index of a byte in the static block. The static block is
+     * split into chunks of 255 bytes, each with its own type and length.
+     *
+     * @param offset The offset in the static block.
+     * @return the index in the RAM.
+     */
+    public long getStaticBlockIndex(int offset) {
+        return staticBlockPosition + Tlv.TLV_HEADER_SIZE + StaticBlocks.physicalOffset(offset);
+    }
+
+    /**
+     * Checks if the object contains a dynamic value with the given ID.
+     *
+     * @param valueId The ID of the value.
+     * @return {@code true} if available.
+     */
+    public boolean hasValue(int valueId) {
+        return valueId >= Tlv.FIRST_DYNAMIC_ID && valueId <= Tlv.LAST_DYNAMIC_ID && firstValue[valueId] != 0;
+    }
+
+    /**
+     * Retrieve the index of the first TLV of the given value ID.
+     *
+     * @param valueId The ID of the value.
+     * @return the index of the type or -1 if the value is not available.
+     */
+    public long getValuePosition(int valueId) {
+        if (!hasValue(valueId)) {
+            return -1;
+        }
+        return valuePositions[firstValue[valueId] - 1];
+    }
+
+    /**
+     * Retrieve the index of the data of the first TLV of the given value ID. A
+     * {@link Tlv#WIDE_VALUE wide TLV} has a longer header than other TLVs.
+     *
+     * @param valueId The ID of the value.
+     * @return the index of the data or -1 if the value is not available.
+     */
+    public long getValueDataIndex(int valueId) {
+        if (!hasValue(valueId)) {
+            return -1;
+        }
+        return getValueDataIndexAt(firstValue[valueId] - 1);
+    }
+
+    /**
+     * Retrieve the sum of the lengths of all TLVs of the given value ID.
+     *
+     * @param valueId The ID of the value.
+     * @return the length or 0 if the value is not available.
+     */
+    public long getValueLength(int valueId) {
+        if (!hasValue(valueId)) {
+            return 0;
+        }
+        long length = 0;
+        for (int i = firstValue[valueId] - 1; i < valueCount; i++) {
+            if (valueIds[i] == valueId) {
+                length += getValueLengthAt(i);
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Retrieve the number of TLVs of the given value ID. In a List of Strings or
+     * Binaries each TLV is one element.
+     *
+     * @param valueId The ID of the value.
+     * @return the number of TLVs or 0 if the value is not available.
+     */
+    public int getValueTlvCount(int valueId) {
+        if (!hasValue(valueId)) {
+            return 0;
+        }
+        int count = 0;
+        for (int i = firstValue[valueId] - 1; i < valueCount; i++) {
+            if (valueIds[i] == valueId) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Reads a String value. A value longer than 255 bytes is joined from all its
+     * TLVs.
+     *
+     * @param valueId The ID of the value.
+     * @return the String or {@code null} if the value is not available.
+     */
+    public String getStringValue(int valueId) {
+        if (!hasValue(valueId)) {
+            return null;
+        }
+        int first = firstValue[valueId] - 1;
+        if (nextTlv(valueId, first + 1) < 0) {
+            return getStringValueAt(first);
+        }
+        return new String(getBytes(valueId), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads a Binary value. The memory is a view of the message and not a copy:
+     * it shows later changes of a {@link MutableMessage} and is only valid as
+     * long as the RAM of the message, so a value that outlives the message has
+     * to be copied, e.g. with {@link ReadOnlyRandomAccessMemory#getBytes()}. A
+     * value longer than 255 bytes is a {@link TlvChunksRoRam} of all its TLVs.
+     *
+     * @param valueId The ID of the value.
+     * @return the Binary or {@code null} if the value is not available.
+     */
+    public ReadOnlyRandomAccessMemory getBinaryValue(int valueId) {
+        if (!hasValue(valueId)) {
+            return null;
+        }
+        int first = firstValue[valueId] - 1;
+        if (nextTlv(valueId, first + 1) < 0) {
+            return getBinaryValueAt(first);
+        }
+        return getChunks(valueId);
+    }
+
+    /**
+     * Creates a view of all TLVs of a value as one contiguous memory, without
+     * copying.
+     *
+     * @param valueId The ID of the value.
+     * @return the view or {@code null} if the value is not available.
+     */
+    public TlvChunksRoRam getChunks(int valueId) {
+        if (!hasValue(valueId)) {
+            return null;
+        }
+        int count = getValueTlvCount(valueId);
+        long[] positions = new long[count];
+        long[] lengths = new long[count];
+        long first = valuePositions[firstValue[valueId] - 1];
+        boolean contiguous = true;
+        int chunk = 0;
+        for (int i = firstValue[valueId] - 1; i >= 0; i = nextTlv(valueId, i + 1)) {
+            positions[chunk] = getValueDataIndexAt(i);
+            lengths[chunk] = getValueLengthAt(i);
+            // written back to back with full TLVs
+            contiguous &= positions[chunk] == valuePositions[i] + Tlv.TLV_HEADER_SIZE
+                    && valuePositions[i] == first + (long) chunk * (Tlv.TLV_HEADER_SIZE + Tlv.MAX_VALUE_LENGTH)
+                    && (chunk == 0 || lengths[chunk - 1] == Tlv.MAX_VALUE_LENGTH);
+            chunk++;
+        }
+        if (contiguous) {
+            long size = (long) (count - 1) * Tlv.MAX_VALUE_LENGTH + lengths[count - 1];
+            return TlvChunksRoRam.contiguous(ram, first + Tlv.TLV_HEADER_SIZE, size);
+        }
+        return TlvChunksRoRam.of(ram, positions, lengths, count);
+    }
+
+    /**
+     * Creates a view of all static block chunks as one contiguous memory,
+     * without copying.
+     *
+     * @return the view or {@code null} if the object has no static block.
+     */
+    public TlvChunksRoRam getStaticBlock() {
+        if (staticBlockPosition < 0) {
+            return null;
+        }
+        return TlvChunksRoRam.contiguous(ram, staticBlockPosition + Tlv.TLV_HEADER_SIZE, staticBlockLength);
+    }
+
+    /**
+     * Reads an element of a List of Strings.
+     *
+     * @param valueId The ID of the value.
+     * @param index   The index of the element.
+     * @return the String.
+     * @throws IndexOutOfBoundsException in case the List doesn't contain the index.
+     */
+    public String getStringValue(int valueId, int index) {
+        return getStringValueAt(tlv(valueId, index));
+    }
+
+    /**
+     * Reads an element of a List of Binaries as a view of the message, see
+     * {@link #getBinaryValue(int)}.
+     *
+     * @param valueId The ID of the value.
+     * @param index   The index of the element.
+     * @return the Binary.
+     * @throws IndexOutOfBoundsException in case the List doesn't contain the index.
+     */
+    public ReadOnlyRandomAccessMemory getBinaryValue(int valueId, int index) {
+        return getBinaryValueAt(tlv(valueId, index));
+    }
+
+    /**
+     * Retrieve the number of elements of a List of fixed size elements.
+     *
+     * @param valueId     The ID of the value.
+     * @param elementSize The size of an element.
+     * @return the number of elements or 0 if the value is not available.
+     */
+    public int getListSize(int valueId, int elementSize) {
+        return (int) (getValueLength(valueId) / elementSize);
+    }
+
+    /**
+     * Calculates the index of an element of a List of fixed size elements. The
+     * elements of a List can be spread over multiple TLVs, but a single element
+     * is never split.
+     *
+     * @param valueId     The ID of the value.
+     * @param index       The index of the element.
+     * @param elementSize The size of an element.
+     * @return the index in the RAM.
+     * @throws IndexOutOfBoundsException in case the List doesn't contain the index.
+     */
+    public long getListElementIndex(int valueId, int index, int elementSize) {
+        if (index >= 0 && hasValue(valueId)) {
+            int remaining = index;
+            for (int i = firstValue[valueId] - 1; i >= 0; i = nextTlv(valueId, i + 1)) {
+                long elements = getValueLengthAt(i) / elementSize;
+                if (remaining < elements) {
+                    return getValueDataIndexAt(i) + (long) remaining * elementSize;
+                }
+                remaining -= elements;
+            }
+        }
+        throw new IndexOutOfBoundsException("index " + index + " size " + getListSize(valueId, elementSize));
+    }
+
+    /**
+     * Retrieve a referenced object of the message.
+     *
+     * @param instanceId The instance ID of the reference.
+     * @param typeId     The expected type ID of the object.
+     * @return the object or {@code null} if the reference is not set.
+     * @throws UncheckedIOException in case the message doesn't contain the
+     *                              object or it has a different type.
+     */
+    public ObjectData getReferencedObject(long instanceId, int typeId) {
+        if (instanceId == 0) {
+            return null;
+        }
+        ObjectData object = messageData.getObject(instanceId);
+        if (object == null || object.getTypeId() != typeId) {
+            throw new UncheckedIOException(new InvalidMessageException("object " + this.instanceId
+                    + " references " + (object == null ? "missing" : "type " + object.getTypeId())
+                    + " instance " + instanceId + " instead of type " + typeId));
+        }
+        return object;
+    }
+
+    /**
+     * Retrieve the number of dynamic value TLVs. A value longer than 255 bytes
+     * consists of multiple TLVs.
+     *
+     * @return the number of TLVs.
+     */
+    public int getValueCount() {
+        return valueCount;
+    }
+
+    public int getValueIdAt(int index) {
+        return valueIds[index];
+    }
+
+    public long getValuePositionAt(int index) {
+        return valuePositions[index];
+    }
+
+    /**
+     * Retrieve the index of the data of a dynamic value TLV.
+     *
+     * @param index The index of the TLV.
+     * @return the index in the RAM.
+     */
+    public long getValueDataIndexAt(int index) {
+        return valuePositions[index] + Tlv.getHeaderSize(ram, valuePositions[index]);
+    }
+
+    /**
+     * Retrieve the length of the data of a dynamic value TLV. Only a
+     * {@link Tlv#WIDE_VALUE wide TLV} can be longer than 255 bytes.
+     *
+     * @param index The index of the TLV.
+     * @return the length.
+     */
+    public long getValueLengthAt(int index) {
+        return Tlv.getLength(ram, valuePositions[index]);
+    }
+
+    /**
+     * Retrieve the number of NOP runs. Adjacent NOPs form a single run.
+     *
+     * @return the number of runs.
+     */
+    public int getNopCount() {
+        return nopCount;
+    }
+
+    public long getNopStart(int index) {
+        return nopStarts[index];
+    }
+
+    public long getNopLength(int index) {
+        return nopLengths[index];
+    }
+
+    /**
+     * Retrieve the writable RAM of the message to update values in place. The
+     * static block can be overwritten directly.
+     *
+     * @return the RAM.
+     * @throws IllegalStateException in case the message is not a
+     *                               {@link MutableMessage}.
+     */
+    public RichReadWriteRandomAccessMemory getWritableRam() {
+        return mutable().getRam();
+    }
+
+    /**
+     * Sets a String value of this object in its {@link MutableMessage}.
+     *
+     * @param valueId The ID of the value.
+     * @param value   The new value.
+     * @throws IllegalStateException in case the message is not mutable or the
+     *                               RAM can't hold the grown message.
+     * @see MutableMessage#setStringValue(ObjectData, int, String)
+     */
+    public void setStringValue(int valueId, String value) {
+        mutable().setStringValue(this, valueId, value);
+    }
+
+    /**
+     * Sets a value of this object in its {@link MutableMessage}.
+     *
+     * @param valueId The ID of the value.
+     * @param value   The bytes of the new value.
+     * @throws IllegalStateException in case the message is not mutable or the
+     *                               RAM can't hold the grown message.
+     * @see MutableMessage#setValue(ObjectData, int, byte[])
+     */
+    public void setValue(int valueId, byte[] value) {
+        mutable().setValue(this, valueId, value);
+    }
+
+    /**
+     * Sets a value of this object in its {@link MutableMessage}.
+     *
+     * @param valueId The ID of the value.
+     * @param value   The bytes of the new value.
+     * @throws IllegalStateException in case the message is not mutable or the
+     *                               RAM can't hold the grown message.
+     * @see MutableMessage#setValue(ObjectData, int, ReadOnlyRandomAccessMemory)
+     */
+    public void setValue(int valueId, ReadOnlyRandomAccessMemory value) {
+        mutable().setValue(this, valueId, value);
+    }
+
+    /**
+     * Reserves a value of up to 255 bytes in the {@link MutableMessage}, which
+     * is then written directly into the {@link #getWritableRam() writable RAM}.
+     *
+     * @param valueId The ID of the value.
+     * @param length  The length of the value.
+     * @return the index of the value in the RAM.
+     * @throws IllegalStateException in case the message is not mutable or the
+     *                               RAM can't hold the grown message.
+     * @see MutableMessage#reserveValue(ObjectData, int, int)
+     */
+    public long reserveValue(int valueId, int length) {
+        return mutable().reserveValue(this, valueId, length);
+    }
+
+    /**
+     * Removes a value of this object from its {@link MutableMessage}.
+     *
+     * @param valueId The ID of the value.
+     * @return {@code true} if the object contained the value.
+     * @throws IllegalStateException in case the message is not mutable.
+     * @see MutableMessage#removeValue(ObjectData, int)
+     */
+    public boolean removeValue(int valueId) {
+        return mutable().removeValue(this, valueId);
+    }
+
+    private MutableMessage mutable() {
+        MutableMessage mutableMessage = messageData == null ? null : messageData.getMutableMessage();
+        if (mutableMessage == null) {
+            throw new IllegalStateException("the message is read only");
+        }
+        return mutableMessage;
+    }
+
+    private int nextTlv(int valueId, int from) {
+        for (int i = from; i < valueCount; i++) {
+            if (valueIds[i] == valueId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int tlv(int valueId, int index) {
+        if (index >= 0 && hasValue(valueId)) {
+            int i = firstValue[valueId] - 1;
+            for (int n = 0; n < index && i >= 0; n++) {
+                i = nextTlv(valueId, i + 1);
+            }
+            if (i >= 0) {
+                return i;
+            }
+        }
+        throw new IndexOutOfBoundsException("index " + index + " size " + getValueTlvCount(valueId));
+    }
+
+    private String getStringValueAt(int tlv) {
+        return ram.getStringAt(getValueDataIndexAt(tlv), arrayLength(getValueLengthAt(tlv)));
+    }
+
+    private ReadOnlyRandomAccessMemory getBinaryValueAt(int tlv) {
+        long length = getValueLengthAt(tlv);
+        if (length > Integer.MAX_VALUE) {
+            // a wide TLV
+            return TlvChunksRoRam.of(ram, new long[]{getValueDataIndexAt(tlv)}, new long[]{length}, 1);
+        }
+        return ram.getDataAt(getValueDataIndexAt(tlv), (int) length);
+    }
+
+    private byte[] getBytes(int valueId) {
+        byte[] bytes = new byte[arrayLength(getValueLength(valueId))];
+        int copied = 0;
+        for (int i = firstValue[valueId] - 1; i >= 0; i = nextTlv(valueId, i + 1)) {
+            int length = (int) getValueLengthAt(i);
+            ram.copyToDestination(getValueDataIndexAt(i), bytes, copied, length);
+            copied += length;
+        }
+        return bytes;
+    }
+
+    private static int arrayLength(long length) {
+        if (length > Integer.MAX_VALUE) {
+            throw new IllegalStateException("size was too big for an array :" + length);
+        }
+        return (int) length;
+    }
+
+    void reset(MessageData messageData, RichReadOnlyRandomAccessMemory ram, int typeId, long instanceId, long start) {
+        this.messageData = messageData;
+        this.ram = ram;
+        this.typeId = typeId;
+        this.instanceId = instanceId;
+        this.start = start;
+        this.end = start;
+        staticBlockPosition = -1;
+        staticBlockLength = 0;
+        scanned = false;
+        for (int i = 0; i < valueCount; i++) {
+            firstValue[valueIds[i]] = 0;
+        }
+        valueCount = 0;
+        nopCount = 0;
+    }
+
+    void addValue(int valueId, long position) {
+        if (valueCount == valueIds.length) {
+            valueIds = Arrays.copyOf(valueIds, valueCount * 2);
+            valuePositions = Arrays.copyOf(valuePositions, valueCount * 2);
+        }
+        valueIds[valueCount] = valueId;
+        valuePositions[valueCount] = position;
+        valueCount++;
+        if (firstValue[valueId] == 0) {
+            firstValue[valueId] = valueCount;
+        }
+    }
+
+    void addStaticBlock(long position, int length) {
+        if (staticBlockPosition < 0) {
+            staticBlockPosition = position;
+        }
+        staticBlockLength += length;
+    }
+
+    void addNop(long position) {
+        if (nopCount > 0 && nopStarts[nopCount - 1] + nopLengths[nopCount - 1] == position) {
+            nopLengths[nopCount - 1]++;
+            return;
+        }
+        if (nopCount == nopStarts.length) {
+            nopStarts = Arrays.copyOf(nopStarts, nopCount * 2);
+            nopLengths = Arrays.copyOf(nopLengths, nopCount * 2);
+        }
+        nopStarts[nopCount] = position;
+        nopLengths[nopCount] = 1;
+        nopCount++;
+    }
+
+    /**
+     * Retrieve the index of the object in its message.
+     */
+    int getIndex() {
+        return index;
+    }
+
+    void setIndex(int index) {
+        this.index = index;
+    }
+
+    void setEnd(long end) {
+        this.end = end;
+    }
+
+    /**
+     * Finds the smallest NOP run that can hold the given number of bytes.
+     *
+     * @return the index of the run or -1 if no run is big enough.
+     */
+    int findNop(long length) {
+        int best = -1;
+        for (int i = 0; i < nopCount; i++) {
+            if (nopLengths[i] >= length && (best < 0 || nopLengths[i] < nopLengths[best])) {
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Finds the NOP run containing the given index.
+     *
+     * @return the index of the run or -1 if the index is not a NOP.
+     */
+    int findNopAt(long position) {
+        for (int i = 0; i < nopCount; i++) {
+            if (nopStarts[i] <= position && position < nopStarts[i] + nopLengths[i]) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Takes the given number of bytes from the start of a NOP run.
+     *
+     * @return the index of the taken bytes.
+     */
+    long useNop(int index, long length) {
+        long position = nopStarts[index];
+        if (nopLengths[index] == length) {
+            removeNop(index);
+        } else {
+            nopStarts[index] += length;
+            nopLengths[index] -= length;
+        }
+        return position;
+    }
+
+    /**
+     * Takes the given number of bytes at any position of a NOP run. The rest
+     * before and after stay NOP runs.
+     *
+     * @return the index of the taken bytes.
+     */
+    long useNop(int index, long position, long length) {
+        long runStart = nopStarts[index];
+        long runEnd = runStart + nopLengths[index];
+        removeNop(index);
+        if (position > runStart) {
+            insertNop(runStart, position - runStart);
+        }
+        if (position + length < runEnd) {
+            insertNop(position + length, runEnd - position - length);
+        }
+        return position;
+    }
+
+    void removeNop(int index) {
+        System.arraycopy(nopStarts, index + 1, nopStarts, index, nopCount - index - 1);
+        System.arraycopy(nopLengths, index + 1, nopLengths, index, nopCount - index - 1);
+        nopCount--;
+    }
+
+    /**
+     * Records a NOP run at any position. It is merged with adjacent runs.
+     */
+    void insertNop(long position, long length) {
+        int index = 0;
+        while (index < nopCount && nopStarts[index] < position) {
+            index++;
+        }
+        boolean previous = index > 0 && nopStarts[index - 1] + nopLengths[index - 1] == position;
+        boolean next = index < nopCount && position + length == nopStarts[index];
+        if (previous && next) {
+            nopLengths[index - 1] += length + nopLengths[index];
+            removeNop(index);
+        } else if (previous) {
+            nopLengths[index - 1] += length;
+        } else if (next) {
+            nopStarts[index] = position;
+            nopLengths[index] += length;
+        } else {
+            if (nopCount == nopStarts.length) {
+                nopStarts = Arrays.copyOf(nopStarts, nopCount * 2);
+                nopLengths = Arrays.copyOf(nopLengths, nopCount * 2);
+            }
+            System.arraycopy(nopStarts, index, nopStarts, index + 1, nopCount - index);
+            System.arraycopy(nopLengths, index, nopLengths, index + 1, nopCount - index);
+            nopStarts[index] = position;
+            nopLengths[index] = length;
+            nopCount++;
+        }
+    }
+
+    /**
+     * Forgets all TLVs of the value ID.
+     */
+    void forgetValue(int valueId) {
+        int count = 0;
+        for (int i = 0; i < valueCount; i++) {
+            if (valueIds[i] != valueId) {
+                valueIds[count] = valueIds[i];
+                valuePositions[count] = valuePositions[i];
+                count++;
+            }
+        }
+        valueCount = count;
+        indexValues();
+    }
+
+    /**
+     * Records a TLV at any position. The TLVs stay in the order of the message.
+     */
+    void insertValue(int valueId, long position) {
+        if (valueCount == valueIds.length) {
+            valueIds = Arrays.copyOf(valueIds, valueCount * 2);
+            valuePositions = Arrays.copyOf(valuePositions, valueCount * 2);
+        }
+        int index = valueCount;
+        while (index > 0 && valuePositions[index - 1] > position) {
+            index--;
+        }
+        System.arraycopy(valueIds, index, valueIds, index + 1, valueCount - index);
+        System.arraycopy(valuePositions, index, valuePositions, index + 1, valueCount - index);
+        valueIds[index] = valueId;
+        valuePositions[index] = position;
+        valueCount++;
+        indexValues();
+    }
+
+    /**
+     * Moves all recorded positions inside of the range after the bytes were
+     * moved in the RAM.
+     *
+     * @param from  The index of the first moved byte.
+     * @param to    The index after the last moved byte.
+     * @param delta The distance of the move.
+     */
+    void move(long from, long to, long delta) {
+        if (start >= from && start < to) {
+            start += delta;
+        }
+        if (end - 1 >= from && end - 1 < to) {
+            end += delta;
+        }
+        if (staticBlockPosition >= from && staticBlockPosition < to) {
+            staticBlockPosition += delta;
+        }
+        for (int i = 0; i < valueCount; i++) {
+            if (valuePositions[i] >= from && valuePositions[i] < to) {
+                valuePositions[i] += delta;
+            }
+        }
+        for (int i = 0; i < nopCount; i++) {
+            if (nopStarts[i] >= from && nopStarts[i] < to) {
+                nopStarts[i] += delta;
+            }
+        }
+    }
+
+    private void indexValues() {
+        Arrays.fill(firstValue, 0);
+        for (int i = valueCount - 1; i >= 0; i--) {
+            firstValue[valueIds[i]] = i + 1;
+        }
+    }
+
+    /**
+     * Checks if the TLVs were scanned. Objects of a lazy parsed message are only
+     * skimmed until they are requested from the MessageData.
+     */
+    boolean isScanned() {
+        return scanned;
+    }
+
+    void setScanned() {
+        scanned = true;
+    }
+
+    @Override
+    public String toString() {
+        return "ObjectData{typeId=" + typeId + ", instanceId=" + instanceId + ", start=" + start + ", end=" + end
+                + ", values=" + valueCount + ", nops=" + nopCount + '}';
+    }
+}
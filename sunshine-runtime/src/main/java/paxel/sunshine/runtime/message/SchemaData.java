@@ -0,0 +1,32 @@
+package paxel.sunshine.runtime.message;
+
+/**
+ * The generated map between the object type IDs of a schema and the Java
+ * classes representing the objects.
+ */
+public interface SchemaData {
+
+    /**
+     * Retrieve the type ID of the given class.
+     *
+     * @param type The class.
+     * @return the type ID or -1 if the class is not part of the schema.
+     */
+    int getTypeId(Class<?> type);
+
+    /**
+     * Retrieve the class of the given type ID.
+     *
+     * @param typeId The type ID.
+     * @return the class or {@code null} if the type ID is not part of the schema.
+     */
+    Class<? extends SunshineObject> getType(int typeId);
+
+    /**
+     * Creates a new uninitialized instance of the given type ID.
+     *
+     * @param typeId The type ID.
+     * @return the instance or {@code null} if the type ID is not part of the schema.
+     */
+    SunshineObject newInstance(int typeId);
+}
@@ -0,0 +1,218 @@
+package paxel.sunshine.runtime.message;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import paxel.sunshine.api.memory.ReadOnlyRandomAccessMemory;
+import paxel.sunshine.api.memory.RichReadOnlyRandomAccessMemory;
+import paxel.sunshine.api.memory.RichReadWriteRandomAccessMemory;
+import paxel.sunshine.api.memory.Utf8;
+import paxel.sunshine.api.memory.bytebuffer.ByteBufferRoRam;
+
+/**
+ * Support for the generated object classes to read and update the static
+ * block. The generated getters and setters access values with a single typed
+ * read or write at a constant index relative to the start of the static block.
+ * Only values that cross the border between two static block chunks are
+ * accessed with these methods byte by byte.
+ */
+public final class StaticBlocks {
+
+    private StaticBlocks() {
+    }
+
+    /**
+     * Calculates the index of a byte in the static block relative to the data of
+     * the first chunk. Each chunk of 255 bytes is followed by the type and length
+     * of the next chunk.
+     *
+     * @param offset The offset in the static block.
+     * @return the relative index.
+     */
+    public static long physicalOffset(int offset) {
+        return offset + (long) (offset / Tlv.MAX_VALUE_LENGTH) * Tlv.TLV_HEADER_SIZE;
+    }
+
+    /**
+     * Checks if a value is split over two static block chunks.
+     *
+     * @param offset The offset of the value in the static block.
+     * @param size   The size of the value.
+     * @return {@code true} if the value crosses a chunk border.
+     */
+    public static boolean crossesChunk(int offset, int size) {
+        return offset / Tlv.MAX_VALUE_LENGTH != (offset + size - 1) / Tlv.MAX_VALUE_LENGTH;
+    }
+
+    /**
+     * Calculates the number of NOPs a writer puts before the first static block
+     * chunk of an object with an aligned layout, so that the first byte of the
+     * static block is aligned relative to the start of the message.
+     *
+     * @param position  The index of the first static block chunk without
+     *                  padding.
+     * @param alignment The alignment of the layout.
+     * @return the number of NOPs.
+     */
+    public static int alignmentPadding(long position, int alignment) {
+        long start = position + Tlv.TLV_HEADER_SIZE;
+        return (int) ((alignment - start % alignment) % alignment);
+    }
+
+    /**
+     * Copies the static block of an object written by an older schema version,
+     * that doesn't contain all values. The missing values are 0. The copy has the
+     * same layout as the original, so the generated constant indices stay valid.
+     *
+     * @param objectData The object.
+     * @param length     The static block length of the current schema version.
+     * @return the copy, with the data of the first chunk at index 0.
+     */
+    public static RichReadOnlyRandomAccessMemory copy(ObjectData objectData, int length) {
+        byte[] copy = new byte[(int) physicalOffset(length)];
+        int available = Math.min(objectData.getStaticBlockLength(), length);
+        if (available > 0) {
+            objectData.getRam().copyToDestination(objectData.getStaticBlockIndex(0), copy, 0,
+                    (int) physicalOffset(available - 1) + 1);
+        }
+        return new ByteBufferRoRam(ByteBuffer.wrap(copy));
+    }
+
+    /**
+     * Reads a big endian value byte by byte.
+     *
+     * @param ram    The memory.
+     * @param start  The index of the data of the first static block chunk.
+     * @param offset The offset of the value in the static block.
+     * @param size   The size of the value of up to 8 bytes.
+     * @return the bits of the value.
+     */
+    public static long getBits(RichReadOnlyRandomAccessMemory ram, long start, int offset, int size) {
+        long bits = 0;
+        for (int i = 0; i < size; i++) {
+            bits = bits << 8 | ram.getByteAt(start + physicalOffset(offset + i)) & 0xff;
+        }
+        return bits;
+    }
+
+    /**
+     * Reads a FixString.
+     *
+     * @param ram    The memory.
+     * @param start  The index of the data of the first static block chunk.
+     * @param offset The offset of the value in the static block.
+     * @param length The size of the FixString.
+     * @return the String without the trailing 0x00 bytes.
+     */
+    public static String getFixString(RichReadOnlyRandomAccessMemory ram, long start, int offset, int length) {
+        byte[] bytes = getBytes(ram, start, offset, length);
+        return new String(bytes, 0, Utf8.fixStringLength(bytes, 0, length), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads a FixBinary into a new memory.
+     *
+     * @param ram    The memory.
+     * @param start  The index of the data of the first static block chunk.
+     * @param offset The offset of the value in the static block.
+     * @param length The size of the FixBinary.
+     * @return the copy.
+     */
+    public static ReadOnlyRandomAccessMemory getFixBinary(RichReadOnlyRandomAccessMemory ram, long start, int offset, int length) {
+        return new ByteBufferRoRam(ByteBuffer.wrap(getBytes(ram, start, offset, length)));
+    }
+
+    /**
+     * Writes a big endian value byte by byte.
+     *
+     * @param ram    The memory.
+     * @param start  The index of the data of the first static block chunk.
+     * @param offset The offset of the value in the static block.
+     * @param size   The size of the value of up to 8 bytes.
+     * @param bits   The bits of the value.
+     */
+    public static void putBits(RichReadWriteRandomAccessMemory ram, long start, int offset, int size, long bits) {
+        for (int i = size - 1; i >= 0; i--) {
+            ram.putByteAt(start + physicalOffset(offset + i), (byte) bits);
+            bits >>>= 8;
+        }
+    }
+
+    /**
+     * Writes a FixString. A shorter String is filled up with 0x00 bytes.
+     *
+     * @param ram    The memory.
+     * @param start  The index of the data of the first static block chunk.
+     * @param offset The offset of the value in the static block.
+     * @param length The size of the FixString.
+     * @param value  The String.
+     * @throws IllegalArgumentException in case the UTF-8 bytes of the String are
+     *                                  longer than the FixString.
+     */
+    public static void putFixString(RichReadWriteRandomAccessMemory ram, long start, int offset, int length, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > length) {
+            throw new IllegalArgumentException("value was longer than " + length + " bytes :" + value);
+        }
+        putBytes(ram, start, offset, Arrays.copyOf(bytes, length));
+    }
+
+    /**
+     * Writes a FixBinary. A shorter value is filled up with 0x00 bytes.
+     *
+     * @param ram    The memory.
+     * @param start  The index of the data of the first static block chunk.
+     * @param offset The offset of the value in the static block.
+     * @param length The size of the FixBinary.
+     * @param value  The value.
+     * @throws IllegalArgumentException in case the value is longer than the
+     *                                  FixBinary.
+     */
+    public static void putFixBinary(RichReadWriteRandomAccessMemory ram, long start, int offset, int length,
+            ReadOnlyRandomAccessMemory value) {
+        if (value.size() > length) {
+            throw new IllegalArgumentException("value was longer than " + length + " bytes :" + value.size());
+        }
+        byte[] bytes = new byte[length];
+        value.copyToDestination(0, bytes, 0, (int) value.size());
+        putBytes(ram, start, offset, bytes);
+    }
+
+    /**
+     * Checks the index of an Array element.
+     *
+     * @param index  The index.
+     * @param length The length of the Array.
+     * @return the index.
+     * @throws IndexOutOfBoundsException in case the index is outside the Array.
+     */
+    public static int checkIndex(int index, int length) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("index " + index + " length " + length);
+        }
+        return index;
+    }
+
+    private static void putBytes(RichReadWriteRandomAccessMemory ram, long start, int offset, byte[] bytes) {
+        int copied = 0;
+        while (copied < bytes.length) {
+            int chunkOffset = (offset + copied) % Tlv.MAX_VALUE_LENGTH;
+            int count = Math.min(bytes.length - copied, Tlv.MAX_VALUE_LENGTH - chunkOffset);
+            ram.copyFromSource(start + physicalOffset(offset + copied), bytes, copied, count);
+            copied += count;
+        }
+    }
+
+    private static byte[] getBytes(RichReadOnlyRandomAccessMemory ram, long start, int offset, int length) {
+        byte[] bytes = new byte[length];
+        int copied = 0;
+        while (copied < length) {
+            int chunkOffset = (offset + copied) % Tlv.MAX_VALUE_LENGTH;
+            int count = Math.min(length - copied, Tlv.MAX_VALUE_LENGTH - chunkOffset);
+            ram.copyToDestination(start + physicalOffset(offset + copied), bytes, copied, count);
+            copied += count;
+        }
+        return bytes;
+    }
+}
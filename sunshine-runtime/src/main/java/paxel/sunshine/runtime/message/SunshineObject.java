@@ -0,0 +1,16 @@
+package paxel.sunshine.runtime.message;
+
+/**
+ * The common interface of the generated object classes. An instance doesn't
+ * hold the values itself, but reads them on demand from the memory described
+ * by its ObjectData. Instances can be reused by initializing them again.
+ */
+public interface SunshineObject {
+
+    /**
+     * Points the instance to the given object.
+     *
+     * @param objectData The parsed object.
+     */
+    void init(ObjectData objectData);
+}
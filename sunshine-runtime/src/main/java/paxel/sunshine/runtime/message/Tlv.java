@@ -0,0 +1,107 @@
+package paxel.sunshine.runtime.message;
+
+import paxel.sunshine.api.memory.RichReadOnlyRandomAccessMemory;
+
+/**
+ * The constants of the serialized message format.
+ */
+public final class Tlv {
+
+    /**
+     * The magic number 'obj' of an object header.
+     */
+    public static final int OBJECT_MAGIC = 0x6f626a;
+    /**
+     * The size of an object header: magic, UInt16 type ID and UInt32 instance ID.
+     */
+    public static final int OBJECT_HEADER_SIZE = 9;
+    /**
+     * The instance ID of the root object of a message.
+     */
+    public static final long ROOT_INSTANCE_ID = 1;
+    /**
+     * A single filler byte that is ignored.
+     */
+    public static final int NOP = 0x00;
+    /**
+     * The first ID of a dynamic value.
+     */
+    public static final int FIRST_DYNAMIC_ID = 0x01;
+    /**
+     * The last ID of a dynamic value.
+     */
+    public static final int LAST_DYNAMIC_ID = 0xfc;
+    /**
+     * A chunk of the static block.
+     */
+    public static final int STATIC_BLOCK = 0xfd;
+    /**
+     * The end of an object. Repeated it is the end of the message.
+     */
+    public static final int END_OF_OBJECT = 0xfe;
+    /**
+     * A dynamic value in a single wide TLV: the type is followed by the value ID
+     * and a length of 4 bytes, or 8 bytes if the most significant bit is set,
+     * like the length of a frame. It was reserved in format version 1, so older
+     * readers reject it instead of misreading it.
+     */
+    public static final int WIDE_VALUE = 0xff;
+    /**
+     * The maximum number of bytes in a single TLV.
+     */
+    public static final int MAX_VALUE_LENGTH = 0xff;
+    /**
+     * The size of type and length of a TLV.
+     */
+    public static final int TLV_HEADER_SIZE = 2;
+    /**
+     * The size of type, value ID and 4 byte length of a wide TLV.
+     */
+    public static final int WIDE_HEADER_SIZE = 6;
+    /**
+     * The size of type, value ID and 8 byte length of a wide TLV.
+     */
+    public static final int LONG_WIDE_HEADER_SIZE = 10;
+    /**
+     * The format version this runtime reads and writes.
+     */
+    public static final int FORMAT_VERSION = 2;
+    /**
+     * The first format version with {@link #WIDE_VALUE wide TLVs}.
+     */
+    public static final int WIDE_VALUE_VERSION = 2;
+
+    private Tlv() {
+    }
+
+    /**
+     * Retrieve the size of the header of a dynamic value TLV.
+     *
+     * @param ram      The RAM of the message.
+     * @param position The index of the type.
+     * @return the number of bytes before the data.
+     */
+    public static int getHeaderSize(RichReadOnlyRandomAccessMemory ram, long position) {
+        if (ram.getUByteAt(position) != WIDE_VALUE) {
+            return TLV_HEADER_SIZE;
+        }
+        return (ram.getByteAt(position + 2) & 0x80) != 0 ? LONG_WIDE_HEADER_SIZE : WIDE_HEADER_SIZE;
+    }
+
+    /**
+     * Retrieve the length of the data of a dynamic value TLV.
+     *
+     * @param ram      The RAM of the message.
+     * @param position The index of the type.
+     * @return the length.
+     */
+    public static long getLength(RichReadOnlyRandomAccessMemory ram, long position) {
+        if (ram.getUByteAt(position) != WIDE_VALUE) {
+            return ram.getUByteAt(position + 1);
+        }
+        if ((ram.getByteAt(position + 2) & 0x80) != 0) {
+            return ram.getInt64At(position + 2) & Long.MAX_VALUE;
+        }
+        return ram.getInt32At(position + 2);
+    }
+}
@@ -0,0 +1,340 @@
+package paxel.sunshine.runtime.message;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+
+import paxel.sunshine.api.memory.ReadOnlyRandomAccessMemory;
+
+/**
+ * A view of the data of multiple TLVs as one contiguous memory, e.g. a value
+ * longer than 255 bytes or a static block with multiple chunks. Nothing is
+ * copied: each access is translated to the index of the chunk in the RAM of
+ * the message.
+ * <p>
+ * TLVs written back to back with 255 bytes each, except the last, need no
+ * table: the index is calculated like the index of a static block value. For
+ * all other TLVs the positions and offsets of the chunks are kept and searched.
+ * <p>
+ * Big values can be streamed with {@link #newInputStream()},
+ * {@link #newChannel()} or {@link #copyToDestination(long, int, Object)}, which
+ * hands each chunk directly to the destination.
+ */
+public final class TlvChunksRoRam implements ReadOnlyRandomAccessMemory {
+
+    private static final int BUFFER_SIZE = 4096;
+
+    private final ReadOnlyRandomAccessMemory ram;
+    private final long size;
+    /**
+     * The index of the data of the first chunk, if all chunks are contiguous and
+     * full.
+     */
+    private final long start;
+    /**
+     * The index of the data of each chunk or {@code null} if they are regular.
+     */
+    private final long[] positions;
+    /**
+     * The offset of each chunk in this view, followed by the size.
+     */
+    private final long[] offsets;
+
+    private TlvChunksRoRam(ReadOnlyRandomAccessMemory ram, long size, long start, long[] positions, long[] offsets) {
+        this.ram = ram;
+        this.size = size;
+        this.start = start;
+        this.positions = positions;
+        this.offsets = offsets;
+    }
+
+    /**
+     * Creates the view of TLVs written back to back, each with 255 bytes except
+     * the last.
+     *
+     * @param ram   The RAM of the message.
+     * @param start The index of the data of the first TLV.
+     * @param size  The sum of the lengths of all TLVs.
+     * @return the view.
+     */
+    static TlvChunksRoRam contiguous(ReadOnlyRandomAccessMemory ram, long start, long size) {
+        return new TlvChunksRoRam(ram, size, start, null, null);
+    }
+
+    /**
+     * Creates the view of any TLVs.
+     *
+     * @param ram       The RAM of the message.
+     * @param positions The index of the data of each TLV.
+     * @param lengths   The length of each TLV.
+     * @param count     The number of TLVs.
+     * @return the view.
+     */
+    static TlvChunksRoRam of(ReadOnlyRandomAccessMemory ram, long[] positions, long[] lengths, int count) {
+        long[] offsets = new long[count + 1];
+        for (int i = 0; i < count; i++) {
+            offsets[i + 1] = offsets[i] + lengths[i];
+        }
+        return new TlvChunksRoRam(ram, offsets[count], -1, Arrays.copyOf(positions, count), offsets);
+    }
+
+    @Override
+    public byte getByteAt(long index) {
+        validate(index, 1);
+        return ram.getByteAt(physical(index));
+    }
+
+    @Override
+    public byte[] getBytesAt(long index, int length) {
+        byte[] bytes = new byte[length];
+        copyToDestination(index, bytes, 0, length);
+        return bytes;
+    }
+
+    @Override
+    public byte[] getBytes() {
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalStateException("size was too big for an array :" + size);
+        }
+        return getBytesAt(0, (int) size);
+    }
+
+    @Override
+    public void copyToDestination(long index, byte[] destination) {
+        copyToDestination(index, destination, 0, destination.length);
+    }
+
+    @Override
+    public void copyToDestination(long index, byte[] destination, int destinationOffset, int length) {
+        requireNonNull(destination);
+        validate(index, length);
+        validate(destination, destinationOffset, length);
+        int copied = 0;
+        while (copied < length) {
+            long position = index + copied;
+            int count = (int) Math.min(length - copied, chunkRemaining(position));
+            ram.copyToDestination(physical(position), destination, destinationOffset + copied, count);
+            copied += count;
+        }
+    }
+
+    @Override
+    public boolean supportsDestination(Class<?> destinationClass) {
+        return ram.supportsDestination(destinationClass);
+    }
+
+    @Override
+    public <T> long copyToDestination(long index, int length, T destination) throws IOException {
+        requireNonNull(destination);
+        validate(index, length);
+        Object target = destination;
+        if (destination instanceof OutputStream && ram.supportsDestination(WritableByteChannel.class)) {
+            // one channel for all chunks
+            target = Channels.newChannel((OutputStream) destination);
+        }
+        long copied = 0;
+        while (copied < length) {
+            long position = index + copied;
+            int count = (int) Math.min(length - copied, chunkRemaining(position));
+            ram.copyToDestination(physical(position), count, target);
+            copied += count;
+        }
+        return copied;
+    }
+
+    @Override
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Retrieve the number of TLVs of this view.
+     *
+     * @return the number of chunks.
+     */
+    public int getChunkCount() {
+        if (positions == null) {
+            return (int) Math.max(1, (size + Tlv.MAX_VALUE_LENGTH - 1) / Tlv.MAX_VALUE_LENGTH);
+        }
+        return positions.length;
+    }
+
+    /**
+     * Creates an InputStream that reads this view from the start.
+     *
+     * @return the stream.
+     */
+    public InputStream newInputStream() {
+        return new InputStream() {
+            private long position;
+            private long mark;
+
+            @Override
+            public int read() {
+                return position < size ? getByteAt(position++) & 0xff : -1;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) {
+                if (len == 0) {
+                    return 0;
+                }
+                if (position >= size) {
+                    return -1;
+                }
+                int count = (int) Math.min(len, size - position);
+                copyToDestination(position, b, off, count);
+                position += count;
+                return count;
+            }
+
+            @Override
+            public long skip(long n) {
+                long skipped = Math.max(0, Math.min(n, size - position));
+                position += skipped;
+                return skipped;
+            }
+
+            @Override
+            public int available() {
+                return (int) Math.min(Integer.MAX_VALUE, size - position);
+            }
+
+            @Override
+            public boolean markSupported() {
+                return true;
+            }
+
+            @Override
+            public void mark(int readlimit) {
+                mark = position;
+            }
+
+            @Override
+            public void reset() {
+                position = mark;
+            }
+        };
+    }
+
+    /**
+     * Creates a channel that reads this view from the start. Each read copies
+     * the chunks directly into the given buffer.
+     *
+     * @return the channel.
+     */
+    public ReadableByteChannel newChannel() {
+        return new ReadableByteChannel() {
+            private long position;
+            private boolean open = true;
+            private byte[] buffer;
+
+            @Override
+            public int read(ByteBuffer dst) throws IOException {
+                if (!open) {
+                    throw new ClosedChannelException();
+                }
+                if (position >= size) {
+                    return -1;
+                }
+                int count = (int) Math.min(dst.remaining(), size - position);
+                if (ram.supportsDestination(ByteBuffer.class)) {
+                    copyToDestination(position, count, dst);
+                } else if (dst.hasArray()) {
+                    copyToDestination(position, dst.array(), dst.arrayOffset() + dst.position(), count);
+                    dst.position(dst.position() + count);
+                } else {
+                    if (buffer == null) {
+                        buffer = new byte[BUFFER_SIZE];
+                    }
+                    count = Math.min(count, BUFFER_SIZE);
+                    copyToDestination(position, buffer, 0, count);
+                    dst.put(buffer, 0, count);
+                }
+                position += count;
+                return count;
+            }
+
+            @Override
+            public boolean isOpen() {
+                return open;
+            }
+
+            @Override
+            public void close() {
+                open = false;
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        return "TlvChunksRoRam{size=" + size + ", chunks=" + getChunkCount() + '}';
+    }
+
+    /**
+     * @return the index of the byte in the RAM.
+     */
+    private long physical(long index) {
+        if (positions == null) {
+            return start + index + index / Tlv.MAX_VALUE_LENGTH * Tlv.TLV_HEADER_SIZE;
+        }
+        int chunk = chunk(index);
+        return positions[chunk] + index - offsets[chunk];
+    }
+
+    /**
+     * @return the number of bytes from the index to the end of its chunk.
+     */
+    private long chunkRemaining(long index) {
+        if (positions == null) {
+            return Tlv.MAX_VALUE_LENGTH - index % Tlv.MAX_VALUE_LENGTH;
+        }
+        return offsets[chunk(index) + 1] - index;
+    }
+
+    /**
+     * @return the last chunk starting at or before the index.
+     */
+    private int chunk(long index) {
+        int chunk = Arrays.binarySearch(offsets, 0, positions.length, index);
+        if (chunk < 0) {
+            return -chunk - 2;
+        }
+        // skip empty chunks
+        while (offsets[chunk + 1] == index && chunk + 1 < positions.length) {
+            chunk++;
+        }
+        return chunk;
+    }
+
+    private void validate(long index, int length) {
+        if (index < 0) {
+            throw new IllegalArgumentException("index was < 0 :" + index);
+        }
+        if (length < 0) {
+            throw new IllegalArgumentException("length was < 0 :" + length);
+        }
+        if (index + length > size) {
+            throw new IllegalArgumentException(String.format("length %d after index was > size %d :%d", length, size, index));
+        }
+    }
+
+    private void validate(byte[] destination, int index, int length) {
+        if (index < 0) {
+            throw new IllegalArgumentException("index was < 0 :" + index);
+        }
+        if (index + length > destination.length) {
+            throw new IllegalArgumentException(
+                    String.format("length %d after index was > array %d :%d", length, destination.length, index));
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package paxel.sunshine.runtime.net;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import paxel.sunshine.runtime.frame.FrameAssembler;
+import paxel.sunshine.runtime.frame.FrameReader;
+
+/**
+ * A connection of the {@link FrameServer}. It holds the frame assembly state of
+ * the incoming data and the queue of outgoing frames. An idle connection holds
+ * no buffers.
+ */
+public final class FrameConnection {
+
+    private final FrameServer server;
+    private final SocketChannel channel;
+    private final FrameAssembler assembler;
+    private final Queue<ByteBuffer> outgoing = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private SelectionKey key;
+
+    FrameConnection(FrameServer server, SocketChannel channel, FrameAssembler assembler) {
+        this.server = server;
+        this.channel = channel;
+        this.assembler = assembler;
+    }
+
+    /**
+     * Sends the payload as a frame. The payload is written from its position to
+     * its limit and must not be modified until it is written. This method can be
+     * called from any thread.
+     *
+     * @param payload The payload of the frame.
+     */
+    public void send(ByteBuffer payload) {
+        // a ByteBuffer is always small enough for the 4 byte length
+        ByteBuffer header = ByteBuffer.allocate(FrameReader.HEADER_SIZE);
+        header.put((byte) 's').put((byte) 'u').put((byte) 'n').putInt(payload.remaining());
+        header.flip();
+        // header and payload must stay together if multiple threads send
+        synchronized (outgoing) {
+            outgoing.add(header);
+            outgoing.add(payload.duplicate());
+        }
+        server.requestFlush(this);
+    }
+
+    /**
+     * Retrieve the address of the peer.
+     *
+     * @return the address or {@code null} if the connection is closed.
+     */
+    public SocketAddress getRemoteAddress() {
+        try {
+            return channel.getRemoteAddress();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Checks if the connection is open.
+     *
+     * @return {@code true} until the connection was closed by either side.
+     */
+    public boolean isOpen() {
+        return !closed.get() && channel.isOpen();
+    }
+
+    /**
+     * Closes the connection and drops a partial frame. This method can be called
+     * from any thread, the connection is closed by the selector thread.
+     */
+    public void close() {
+        server.close(this);
+    }
+
+    SocketChannel getChannel() {
+        return channel;
+    }
+
+    FrameAssembler getAssembler() {
+        return assembler;
+    }
+
+    void setKey(SelectionKey key) {
+        this.key = key;
+    }
+
+    /**
+     * Marks the connection as closed.
+     *
+     * @return {@code false} if it was already marked.
+     */
+    boolean markClosed() {
+        return closed.compareAndSet(false, true);
+    }
+
+    /**
+     * Writes the queued frames until the socket doesn't take more. Is only called
+     * by the selector thread.
+     */
+    void flush() throws IOException {
+        for (ByteBuffer next = outgoing.peek(); next != null; next = outgoing.peek()) {
+            channel.write(next);
+            if (next.hasRemaining()) {
+                interest(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                return;
+            }
+            outgoing.poll();
+        }
+        interest(SelectionKey.OP_READ);
+    }
+
+    private void interest(int ops) throws ClosedChannelException {
+        try {
+            key.interestOps(ops);
+        } catch (CancelledKeyException e) {
+            // the channel was closed while writing
+            throw new ClosedChannelException();
+        }
+    }
+}
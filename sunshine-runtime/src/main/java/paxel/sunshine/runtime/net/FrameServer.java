@@ -0,0 +1,323 @@
+package paxel.sunshine.runtime.net;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import paxel.sunshine.api.memory.RichReadOnlyRandomAccessMemory;
+import paxel.sunshine.api.memory.pool.RamPool;
+import paxel.sunshine.runtime.frame.FrameAssembler;
+import paxel.sunshine.runtime.message.MessageParser;
+
+/**
+ * A non-blocking server that reads sun frames from any number of connections
+ * with a single selector thread. All connections share one read buffer. Each
+ * connection only keeps the state of its current frame, and only a frame that
+ * is split over multiple reads is copied into a pooled RAM until it is
+ * complete. So idle connections hold no buffers.
+ * <p>
+ * The completed frames are given to the {@link FrameHandler} on the selector
+ * thread, by default to a {@link MessageParser} that calls the registered
+ * message handlers. A connection that sends an invalid frame, or whose frame
+ * can't be handled, is closed. Even a handler that fails with a
+ * RuntimeException only closes its connection. All connections are closed by
+ * the selector thread, closes requested by other threads are queued.
+ */
+public class FrameServer implements Closeable {
+
+    /**
+     * The default size of the shared read buffer of 64 KB.
+     */
+    public static final int DEFAULT_READ_BUFFER_SIZE = 1 << 16;
+    /**
+     * The default maximum frame size of 16 MB.
+     */
+    public static final long DEFAULT_MAX_FRAME_SIZE = 1 << 24;
+    /**
+     * The default number of pending connections.
+     */
+    public static final int DEFAULT_BACKLOG = 4096;
+
+    private final InetSocketAddress address;
+    private final FrameHandler handler;
+    private final RamPool pool;
+    private final boolean ownPool;
+    private final ByteBuffer readBuffer;
+    private final long maxFrameSize;
+    private final Queue<FrameConnection> pendingFlushes = new ConcurrentLinkedQueue<>();
+    private final Queue<FrameConnection> pendingCloses = new ConcurrentLinkedQueue<>();
+    // read by any thread
+    private final AtomicInteger connections = new AtomicInteger();
+
+    private Selector selector;
+    private ServerSocketChannel serverChannel;
+    private Thread thread;
+    private volatile boolean running;
+    private volatile long frames;
+    private volatile long invalidConnections;
+
+    /**
+     * Constructs a server that gives the frames to the message parser. The
+     * server uses its own pool, that is closed with the server.
+     *
+     * @param address The address to bind to. Port 0 selects a free port.
+     * @param parser  Parses the frames and calls the registered message handlers.
+     */
+    public FrameServer(InetSocketAddress address, MessageParser parser) {
+        this(address, (connection, frame) -> parser.handle(frame), RamPool.heap(),
+                DEFAULT_READ_BUFFER_SIZE, DEFAULT_MAX_FRAME_SIZE, true);
+    }
+
+    /**
+     * Constructs a server.
+     *
+     * @param address        The address to bind to. Port 0 selects a free port.
+     * @param handler        Handles the frames.
+     * @param pool           Provides the RAM for frames that are split over multiple reads.
+     * @param readBufferSize The size of the shared direct read buffer.
+     * @param maxFrameSize   The maximum accepted frame size.
+     */
+    public FrameServer(InetSocketAddress address, FrameHandler handler, RamPool pool, int readBufferSize, long maxFrameSize) {
+        this(address, handler, pool, readBufferSize, maxFrameSize, false);
+    }
+
+    private FrameServer(InetSocketAddress address, FrameHandler handler, RamPool pool, int readBufferSize, long maxFrameSize,
+                        boolean ownPool) {
+        this.address = requireNonNull(address);
+        this.handler = requireNonNull(handler);
+        this.pool = requireNonNull(pool);
+        this.ownPool = ownPool;
+        this.readBuffer = ByteBuffer.allocateDirect(readBufferSize);
+        this.maxFrameSize = maxFrameSize;
+    }
+
+    /**
+     * Binds the server and starts the selector thread.
+     *
+     * @return the bound address.
+     * @throws IOException           in case the server can't be bound.
+     * @throws IllegalStateException in case the server was already started.
+     */
+    public synchronized InetSocketAddress start() throws IOException {
+        if (thread != null) {
+            throw new IllegalStateException("server was already started");
+        }
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+        serverChannel.bind(address, DEFAULT_BACKLOG);
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        running = true;
+        thread = new Thread(this::run, "sunshine-frame-server");
+        thread.start();
+        return (InetSocketAddress) serverChannel.getLocalAddress();
+    }
+
+    /**
+     * Stops the selector thread and closes all connections and the own pool.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (thread == null) {
+            return;
+        }
+        running = false;
+        selector.wakeup();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // the selector thread is stopped, so this thread closes the remaining connections
+        for (SelectionKey key : selector.keys()) {
+            if (key.attachment() instanceof FrameConnection) {
+                closeNow((FrameConnection) key.attachment());
+            }
+        }
+        pendingCloses.clear();
+        serverChannel.close();
+        selector.close();
+        if (ownPool) {
+            pool.close();
+        }
+    }
+
+    /**
+     * Retrieve the number of frames handled since the start.
+     *
+     * @return the number of frames.
+     */
+    public long getFrames() {
+        return frames;
+    }
+
+    /**
+     * Retrieve the number of open connections.
+     *
+     * @return the number of connections.
+     */
+    public int getConnections() {
+        return connections.get();
+    }
+
+    /**
+     * Retrieve the number of connections that were closed because of an invalid
+     * frame, a failing handler or an unexpected RuntimeException.
+     *
+     * @return the number of connections.
+     */
+    public long getInvalidConnections() {
+        return invalidConnections;
+    }
+
+    void requestFlush(FrameConnection connection) {
+        if (Thread.currentThread() == thread) {
+            flush(connection);
+        } else {
+            pendingFlushes.add(connection);
+            selector.wakeup();
+        }
+    }
+
+    void close(FrameConnection connection) {
+        if (Thread.currentThread() == thread) {
+            closeNow(connection);
+        } else {
+            pendingCloses.add(connection);
+            selector.wakeup();
+        }
+    }
+
+    /**
+     * Closes the connection exactly once. Is only called by the selector thread,
+     * or after it was stopped, because the assembler is not thread safe.
+     */
+    private void closeNow(FrameConnection connection) {
+        if (!connection.markClosed()) {
+            return;
+        }
+        connection.getAssembler().close();
+        try {
+            connection.getChannel().close();
+        } catch (IOException e) {
+            // closing anyway
+        }
+        connections.decrementAndGet();
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                selector.select();
+            } catch (IOException e) {
+                break;
+            }
+            for (FrameConnection connection = pendingCloses.poll(); connection != null; connection = pendingCloses.poll()) {
+                closeNow(connection);
+            }
+            for (FrameConnection connection = pendingFlushes.poll(); connection != null; connection = pendingFlushes.poll()) {
+                flush(connection);
+            }
+            Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+                SelectionKey key = keys.next();
+                keys.remove();
+                if (!key.isValid()) {
+                    continue;
+                }
+                if (key.isAcceptable()) {
+                    accept();
+                    continue;
+                }
+                FrameConnection connection = (FrameConnection) key.attachment();
+                try {
+                    if (key.isWritable()) {
+                        flush(connection);
+                    }
+                    if (key.isValid() && key.isReadable()) {
+                        read(connection);
+                    }
+                } catch (RuntimeException e) {
+                    // only the failing connection is closed, the other connections are still served
+                    invalidConnections++;
+                    closeNow(connection);
+                }
+            }
+        }
+    }
+
+    private void accept() {
+        try {
+            for (SocketChannel channel = serverChannel.accept(); channel != null; channel = serverChannel.accept()) {
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                FrameConnection connection = new FrameConnection(this, channel, new FrameAssembler(pool, maxFrameSize));
+                connection.setKey(channel.register(selector, SelectionKey.OP_READ, connection));
+                connections.incrementAndGet();
+            }
+        } catch (IOException e) {
+            // the next select accepts the remaining connections
+        }
+    }
+
+    private void read(FrameConnection connection) {
+        readBuffer.clear();
+        try {
+            int read = connection.getChannel().read(readBuffer);
+            if (read < 0) {
+                closeNow(connection);
+                return;
+            }
+            readBuffer.flip();
+            connection.getAssembler().accept(readBuffer, frame -> handle(connection, frame));
+        } catch (IOException e) {
+            invalidConnections++;
+            closeNow(connection);
+        }
+    }
+
+    private void handle(FrameConnection connection, RichReadOnlyRandomAccessMemory frame) throws IOException {
+        frames++;
+        handler.handle(connection, frame);
+    }
+
+    private void flush(FrameConnection connection) {
+        if (!connection.isOpen()) {
+            return;
+        }
+        try {
+            connection.flush();
+        } catch (IOException e) {
+            closeNow(connection);
+        }
+    }
+
+    /**
+     * Handles the frames of all connections on the selector thread.
+     */
+    @FunctionalInterface
+    public interface FrameHandler {
+
+        /**
+         * Handles a frame.
+         *
+         * @param connection The connection that sent the frame. Can be used to respond.
+         * @param frame      The payload of the frame, only valid during the call.
+         * @throws IOException in case the frame is invalid. The connection is closed.
+         */
+        void handle(FrameConnection connection, RichReadOnlyRandomAccessMemory frame) throws IOException;
+    }
+}
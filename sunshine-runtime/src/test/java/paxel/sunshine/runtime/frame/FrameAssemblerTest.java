@@ -0,0 +1,92 @@
+package paxel.sunshine.runtime.frame;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import paxel.sunshine.api.memory.RichReadOnlyRandomAccessMemory;
+import paxel.sunshine.api.memory.pool.RamPool;
+
+public class FrameAssemblerTest {
+
+    private final RamPool pool = RamPool.heap();
+    private final FrameAssembler assembler = new FrameAssembler(pool, 1000);
+    private final List<String> result = new ArrayList<>();
+
+    @Test
+    public void framesInOneChunk() throws IOException {
+        assembler.accept(ByteBuffer.wrap(FrameReaderTest.frames("ABBA", "", "DOMINO-78")), this::collect);
+        assertThat(result.toString(), is("[ABBA, , DOMINO-78]"));
+        assertThat(assembler.isAssembling(), is(false));
+        assertThat(pool.getMisses(), is(0L));
+    }
+
+    @Test
+    public void framesInEveryPossibleChunkSize() throws IOException {
+        byte[] input = FrameReaderTest.frames("ABBA", "", "0123456789abcdefghij", "x");
+        for (int chunk = 1; chunk <= input.length; chunk++) {
+            result.clear();
+            for (int offset = 0; offset < input.length; offset += chunk) {
+                assembler.accept(ByteBuffer.wrap(input, offset, Math.min(chunk, input.length - offset)), this::collect);
+            }
+            assertThat(result.toString(), is("[ABBA, , 0123456789abcdefghij, x]"));
+            assertThat(assembler.isAssembling(), is(false));
+        }
+        // all split frames were given back
+        assertThat(pool.getBytesOutstanding(), is(0L));
+    }
+
+    @Test
+    public void frameWithLongHeaderSplitInHeader() throws IOException {
+        byte[] input = {0x73, 0x75, 0x6e, (byte) 0x80, 0, 0, 0, 0, 0, 0, 3, 'a', 'b', 'c'};
+        assembler.accept(ByteBuffer.wrap(input, 0, 5), this::collect);
+        assertThat(assembler.isAssembling(), is(true));
+        assembler.accept(ByteBuffer.wrap(input, 5, input.length - 5), this::collect);
+        assertThat(result.toString(), is("[abc]"));
+    }
+
+    @Test
+    public void releasePartialFrame() throws IOException {
+        byte[] input = FrameReaderTest.frames("0123456789");
+        assembler.accept(ByteBuffer.wrap(input, 0, 10), this::collect);
+        assertThat(pool.getBytesOutstanding() > 0, is(true));
+        assembler.release();
+        assertThat(assembler.isAssembling(), is(false));
+        assertThat(pool.getBytesOutstanding(), is(0L));
+    }
+
+    @Test
+    public void closeInConsumerIgnoresTheRest() throws IOException {
+        byte[] input = FrameReaderTest.frames("ABBA", "0123456789");
+        // the second frame is split and would need a pooled RAM
+        assembler.accept(ByteBuffer.wrap(input, 0, input.length - 2), frame -> {
+            collect(frame);
+            assembler.close();
+        });
+        assembler.accept(ByteBuffer.wrap(input, input.length - 2, 2), this::collect);
+        assertThat(result.toString(), is("[ABBA]"));
+        assertThat(assembler.isAssembling(), is(false));
+        assertThat(pool.getMisses(), is(0L));
+    }
+
+    @Test(expected = InvalidFrameException.class)
+    public void invalidMagic() throws IOException {
+        assembler.accept(ByteBuffer.wrap(new byte[]{0x73, 0x75}), this::collect);
+        assembler.accept(ByteBuffer.wrap(new byte[]{0x6f}), this::collect);
+    }
+
+    @Test(expected = InvalidFrameException.class)
+    public void frameTooBig() throws IOException {
+        assembler.accept(ByteBuffer.wrap(new byte[]{0x73, 0x75, 0x6e, 0, 0, 0x03, (byte) 0xe9}), this::collect);
+    }
+
+    private void collect(RichReadOnlyRandomAccessMemory frame) {
+        result.add(frame.getStringAt(0, (int) frame.size()));
+    }
+}
@@ -0,0 +1,178 @@
+package paxel.sunshine.runtime.frame;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsInstanceOf.instanceOf;
+import static org.hamcrest.core.IsNull.nullValue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import paxel.sunshine.api.memory.RichReadOnlyRandomAccessMemory;
+import paxel.sunshine.api.memory.bytebuffer.ByteBufferRoRam;
+import paxel.sunshine.api.memory.bytebuffer.SegmentedByteBufferRam;
+
+public class FrameReaderTest {
+
+    @Test
+    public void readFrames() throws IOException {
+        byte[] input = frames("ABBA", "", "DOMINO-78");
+        FrameReader reader = new FrameReader(new ByteArrayInputStream(input));
+
+        assertThat(reader.nextFrameSize(), is(4L));
+        assertThat(reader.nextFrameSize(), is(4L));
+        assertThat(reader.next().getStringAt(0, 4), is("ABBA"));
+        assertThat(reader.next().size(), is(0L));
+        RichReadOnlyRandomAccessMemory frame = reader.next();
+        assertThat(frame, is(instanceOf(ByteBufferRoRam.class)));
+        assertThat(frame.getStringAt(0, 9), is("DOMINO-78"));
+        assertThat(reader.next(), is(nullValue()));
+        assertThat(reader.isEndOfStream(), is(true));
+        assertThat(reader.nextFrameSize(), is(-1L));
+    }
+
+    @Test
+    public void readFrameWithLongHeader() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(new byte[]{0x73, 0x75, 0x6e, (byte) 0x80, 0, 0, 0, 0, 0, 0, 3, 'a', 'b', 'c'});
+        out.write(frames("xyz"));
+        FrameReader reader = new FrameReader(new ByteArrayInputStream(out.toByteArray()));
+        assertThat(reader.next().getStringAt(0, 3), is("abc"));
+        assertThat(reader.next().getStringAt(0, 3), is("xyz"));
+        assertThat(reader.next(), is(nullValue()));
+    }
+
+    @Test
+    public void readFramesSplitOverReads() throws IOException {
+        byte[] input = frames("ABBA", "DOMINO", "0123456789");
+        // a tiny buffer and single byte reads force compaction and spilling
+        FrameReader reader = new FrameReader(new TrickleChannel(input, false), ByteBuffer.allocate(12),
+                FrameReader.DEFAULT_MAX_FRAME_SIZE, size -> {
+            SegmentedByteBufferRam ram = new SegmentedByteBufferRam(2, ByteBuffer::allocate);
+            ram.allocate(size);
+            return ram;
+        });
+        assertThat(reader.next().getStringAt(0, 4), is("ABBA"));
+        assertThat(reader.next().getStringAt(0, 6), is("DOMINO"));
+        assertThat(reader.next().getStringAt(0, 10), is("0123456789"));
+        assertThat(reader.next(), is(nullValue()));
+    }
+
+    @Test
+    public void continueAfterNoData() throws IOException {
+        byte[] input = frames("ABBA", "0123456789abcdefghij");
+        FrameReader reader = new FrameReader(new TrickleChannel(input, true), ByteBuffer.allocate(16),
+                FrameReader.DEFAULT_MAX_FRAME_SIZE, size -> {
+            SegmentedByteBufferRam ram = new SegmentedByteBufferRam(3, ByteBuffer::allocate);
+            ram.allocate(size);
+            return ram;
+        });
+        StringBuilder result = new StringBuilder();
+        int empty = 0;
+        while (!reader.isEndOfStream()) {
+            RichReadOnlyRandomAccessMemory frame = reader.next();
+            if (frame == null) {
+                empty++;
+            } else {
+                result.append(frame.getStringAt(0, (int) frame.size())).append('|');
+            }
+        }
+        assertThat(result.toString(), is("ABBA|0123456789abcdefghij|"));
+        assertThat(empty > 20, is(true));
+    }
+
+    @Test
+    public void spillBigFrame() throws IOException {
+        char[] chars = new char[100_000];
+        Arrays.fill(chars, 'x');
+        String big = new String(chars);
+        FrameReader reader = new FrameReader(new ByteArrayInputStream(frames("small", big, "end")));
+        assertThat(reader.next().getStringAt(0, 5), is("small"));
+        RichReadOnlyRandomAccessMemory frame = reader.next();
+        assertThat(frame, is(instanceOf(SegmentedByteBufferRam.class)));
+        assertThat(frame.getStringAt(0, 100_000), is(big));
+        assertThat(reader.next().getStringAt(0, 3), is("end"));
+    }
+
+    @Test(expected = InvalidFrameException.class)
+    public void frameTooBig() throws IOException {
+        FrameReader reader = new FrameReader(new TrickleChannel(frames("0123456789"), false), ByteBuffer.allocate(100), 9,
+                size -> {
+                    throw new AssertionError("no spill expected");
+                });
+        reader.next();
+    }
+
+    @Test(expected = InvalidFrameException.class)
+    public void invalidMagic() throws IOException {
+        new FrameReader(new ByteArrayInputStream("obj12345678".getBytes(StandardCharsets.UTF_8))).next();
+    }
+
+    @Test(expected = EOFException.class)
+    public void truncatedFrame() throws IOException {
+        byte[] input = frames("ABBA");
+        new FrameReader(new ByteArrayInputStream(input, 0, input.length - 1)).next();
+    }
+
+    @Test(expected = EOFException.class)
+    public void truncatedHeader() throws IOException {
+        new FrameReader(new ByteArrayInputStream(new byte[]{0x73, 0x75, 0x6e, 0})).next();
+    }
+
+    static byte[] frames(String... payloads) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (String payload : payloads) {
+            byte[] bytes = payload.getBytes(StandardCharsets.UTF_8);
+            ByteBuffer header = ByteBuffer.allocate(FrameReader.HEADER_SIZE);
+            header.put((byte) 0x73).put((byte) 0x75).put((byte) 0x6e).putInt(bytes.length);
+            out.write(header.array(), 0, header.capacity());
+            out.write(bytes, 0, bytes.length);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Delivers one byte per read, optionally alternating with reads without data.
+     */
+    private static class TrickleChannel implements ReadableByteChannel {
+        private final byte[] data;
+        private final boolean noDataInBetween;
+        private int position;
+        private boolean toggle;
+
+        TrickleChannel(byte[] data, boolean noDataInBetween) {
+            this.data = data;
+            this.noDataInBetween = noDataInBetween;
+        }
+
+        @Override
+        public int read(ByteBuffer dst) {
+            if (position == data.length) {
+                return -1;
+            }
+            toggle = !toggle;
+            if (noDataInBetween && toggle) {
+                return 0;
+            }
+            dst.put(data[position++]);
+            return 1;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
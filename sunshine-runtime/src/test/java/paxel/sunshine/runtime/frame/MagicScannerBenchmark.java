@@ -0,0 +1,84 @@
+package paxel.sunshine.runtime.frame;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import paxel.sunshine.api.memory.RichReadOnlyRandomAccessMemory;
+import paxel.sunshine.api.memory.bytebuffer.ByteBufferRoRam;
+
+/**
+ * Searches a frame header behind 16 MB of random garbage with the
+ * {@link MagicScanner} and byte by byte. Run it with the benchmark profile
+ * ({@code mvn -P benchmark verify}) or via {@link #main(String[])}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MagicScannerBenchmark {
+
+    private static final int SIZE = 1 << 24;
+
+    @Param({"false", "true"})
+    public boolean direct;
+
+    private RichReadOnlyRandomAccessMemory ram;
+
+    @Setup
+    public void setUp() {
+        byte[] bytes = new byte[SIZE];
+        new Random(42).nextBytes(bytes);
+        byte[] frame = FrameReaderTest.frames("ABBA");
+        System.arraycopy(frame, 0, bytes, SIZE - frame.length, frame.length);
+        ByteBuffer buffer = direct ? ByteBuffer.allocateDirect(SIZE) : ByteBuffer.allocate(SIZE);
+        buffer.put(bytes).clear();
+        ram = new ByteBufferRoRam(buffer);
+    }
+
+    @Benchmark
+    public long findFrame() {
+        return MagicScanner.findFrame(ram, 0, FrameReader.DEFAULT_MAX_FRAME_SIZE);
+    }
+
+    @Benchmark
+    public long findFrameByteByByte() {
+        long size = ram.size();
+        for (long i = 0; i + FrameReader.HEADER_SIZE <= size; i++) {
+            if (ram.getByteAt(i) == 's' && ram.getByteAt(i + 1) == 'u' && ram.getByteAt(i + 2) == 'n') {
+                long length = ram.getInt32At(i + 3);
+                if (length >= 0 && length <= size - i - FrameReader.HEADER_SIZE) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(MagicScannerBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,105 @@
+package paxel.sunshine.runtime.frame;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import org.junit.Test;
+
+import paxel.sunshine.api.memory.RichReadOnlyRandomAccessMemory;
+import paxel.sunshine.api.memory.bytebuffer.ByteBufferRoRam;
+import paxel.sunshine.runtime.message.Tlv;
+
+public class MagicScannerTest {
+
+    @Test
+    public void findMagicAtEveryOffset() {
+        Random random = new Random(42);
+        for (int length = 3; length < 40; length++) {
+            for (int offset = 0; offset + 3 <= length; offset++) {
+                byte[] bytes = new byte[length];
+                random.nextBytes(bytes);
+                bytes[offset] = 's';
+                bytes[offset + 1] = 'u';
+                bytes[offset + 2] = 'n';
+                RichReadOnlyRandomAccessMemory ram = ram(bytes);
+                for (int from = 0; from <= length; from++) {
+                    assertThat(MagicScanner.indexOf(ram, FrameReader.MAGIC, from, length), is(naiveIndexOf(bytes, from)));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void findMagicBetweenLookalikes() {
+        // zero bytes and almost matching bytes provoke false candidates
+        byte[] bytes = {0, 's', 0, 's', 'u', 0, 1, 's', 's', 'u', 'u', 'n', 0x72, 0x74, 0x75, 's', 'u', 'n'};
+        RichReadOnlyRandomAccessMemory ram = ram(bytes);
+        assertThat(MagicScanner.indexOf(ram, FrameReader.MAGIC, 0, bytes.length), is(15L));
+        assertThat(MagicScanner.indexOf(ram, FrameReader.MAGIC, 0, 17), is(-1L));
+        bytes[10] = 'n';
+        assertThat(MagicScanner.indexOf(ram, FrameReader.MAGIC, 0, bytes.length), is(8L));
+        assertThat(MagicScanner.indexOf(ram, FrameReader.MAGIC, 9, bytes.length), is(15L));
+    }
+
+    @Test
+    public void findRandomData() {
+        Random random = new Random(7);
+        byte[] bytes = new byte[1 << 16];
+        for (int round = 0; round < 50; round++) {
+            // a small alphabet creates many partial matches
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = (byte) "sun\u0000\u0001x".charAt(random.nextInt(6));
+            }
+            RichReadOnlyRandomAccessMemory ram = ram(bytes);
+            int from = random.nextInt(100);
+            assertThat(MagicScanner.indexOf(ram, FrameReader.MAGIC, from, bytes.length), is(naiveIndexOf(bytes, from)));
+        }
+    }
+
+    @Test
+    public void findFrameAfterGarbage() {
+        byte[] frames = FrameReaderTest.frames("ABBA", "DOMINO");
+        byte[] bytes = new byte[100 + frames.length];
+        // a header with a too big length and one with a frame exceeding the memory
+        byte[] garbage = {'s', 'u', 'n', 0, 0, 0x10, 0, 'x', 's', 'u', 'n', 0, 0, 0, 0x7f, 'y'};
+        System.arraycopy(garbage, 0, bytes, 10, garbage.length);
+        System.arraycopy(frames, 0, bytes, 100, frames.length);
+        RichReadOnlyRandomAccessMemory ram = ram(bytes);
+
+        assertThat(MagicScanner.findFrame(ram, 0, 1000), is(100L));
+        assertThat(MagicScanner.findFrame(ram, 101, 1000), is(111L));
+        assertThat(MagicScanner.findFrame(ram, 112, 1000), is(-1L));
+        // with a huge max frame size the first garbage header fits into the memory
+        assertThat(MagicScanner.findFrame(ram(new byte[]{'s', 'u', 'n', 0, 0, 0, 1, 'x'}), 0, 1000), is(0L));
+        assertThat(MagicScanner.findFrame(ram(new byte[]{'s', 'u', 'n', (byte) 0x80, 0, 0, 0, 0, 0, 0, 0}), 0, 1000), is(0L));
+    }
+
+    @Test
+    public void findObjectAfterGarbage() {
+        byte[] bytes = {
+                'o', 'b', 'j', 0, 1, 0, 0, 0, 0, (byte) Tlv.END_OF_OBJECT, // instance ID 0
+                'o', 'b', 'j', 0, 1, 0, 0, 0, 2, (byte) Tlv.WIDE_VALUE, // wide TLV too long
+                'o', 'b', 'j', 0, 1, 0, 0, 0, 2, 1, 20, 'x', // TLV too long
+                'o', 'b', 'j', 0, 1, 0, 0, 0, 2, 1, 1, 'x', (byte) Tlv.END_OF_OBJECT};
+        RichReadOnlyRandomAccessMemory ram = ram(bytes);
+
+        assertThat(MagicScanner.findObject(ram, 0, bytes.length), is(32L));
+        assertThat(MagicScanner.findObject(ram, 0, bytes.length - 2), is(-1L));
+    }
+
+    private static long naiveIndexOf(byte[] bytes, int from) {
+        for (int i = from; i + 3 <= bytes.length; i++) {
+            if (bytes[i] == 's' && bytes[i + 1] == 'u' && bytes[i + 2] == 'n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static RichReadOnlyRandomAccessMemory ram(byte[] bytes) {
+        return new ByteBufferRoRam(ByteBuffer.wrap(bytes));
+    }
+}
@@ -0,0 +1,91 @@
+package paxel.sunshine.runtime.frame;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import paxel.sunshine.api.memory.RichReadOnlyRandomAccessMemory;
+import paxel.sunshine.api.memory.bytebuffer.ByteBufferRoRam;
+
+/**
+ * Writes 256 small direct messages to /dev/null, with a channel write per frame
+ * header and message and with the {@link MessageWriter}. Run it with the
+ * benchmark profile ({@code mvn -P benchmark verify}) or via
+ * {@link #main(String[])}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageWriterBenchmark {
+
+    private static final int MESSAGES = 256;
+
+    @Param({"32", "512"})
+    public int size;
+
+    private FileChannel channel;
+    private MessageWriter writer;
+    private RichReadOnlyRandomAccessMemory message;
+    private final ByteBuffer header = ByteBuffer.allocateDirect(FrameReader.HEADER_SIZE);
+
+    @Setup
+    public void setUp() throws IOException {
+        channel = FileChannel.open(Paths.get("/dev/null"), StandardOpenOption.WRITE);
+        writer = new MessageWriter(channel, 1 << 20, MESSAGES, 1, TimeUnit.SECONDS);
+        message = new ByteBufferRoRam(ByteBuffer.allocateDirect(size));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        channel.close();
+    }
+
+    @Benchmark
+    public void writeEach() throws IOException {
+        for (int i = 0; i < MESSAGES; i++) {
+            header.clear();
+            header.put((byte) 's').put((byte) 'u').put((byte) 'n').putInt(size).flip();
+            channel.write(header);
+            message.copyToDestination(0, size, channel);
+        }
+    }
+
+    @Benchmark
+    public void writeBatched() throws IOException {
+        for (int i = 0; i < MESSAGES; i++) {
+            writer.write(message);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(MessageWriterBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
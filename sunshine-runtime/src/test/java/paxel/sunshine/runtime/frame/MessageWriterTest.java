@@ -0,0 +1,257 @@
+package paxel.sunshine.runtime.frame;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import paxel.sunshine.api.memory.ReadOnlyRandomAccessMemory;
+import paxel.sunshine.api.memory.RichReadOnlyRandomAccessMemory;
+import paxel.sunshine.api.memory.bytebuffer.ByteBufferRoRam;
+import paxel.sunshine.api.memory.bytebuffer.MultiByteBufferRoRam;
+
+public class MessageWriterTest {
+
+    private long now;
+
+    @Test
+    public void flushByMessageCount() throws IOException {
+        RecordingChannel channel = new RecordingChannel(Integer.MAX_VALUE);
+        MessageWriter writer = new MessageWriter(channel, 1000, 3, 1000, () -> now);
+
+        for (int i = 0; i < 7; i++) {
+            writer.write(message("m" + i));
+        }
+        assertThat(channel.writes, is(2));
+        assertThat(writer.getPendingMessages(), is(1));
+        assertThat(writer.getPendingBytes(), is((long) FrameReader.HEADER_SIZE + 2));
+        writer.flush();
+        writer.flush();
+
+        assertThat(channel.writes, is(3));
+        assertThat(read(channel), is(Arrays.asList("m0", "m1", "m2", "m3", "m4", "m5", "m6")));
+    }
+
+    @Test
+    public void flushByBytes() throws IOException {
+        RecordingChannel channel = new RecordingChannel(Integer.MAX_VALUE);
+        // each message has 7 + 5 bytes
+        MessageWriter writer = new MessageWriter(channel, 30, 100, 1000, () -> now);
+
+        for (int i = 0; i < 5; i++) {
+            writer.write(message("hello"));
+        }
+
+        assertThat(channel.writes, is(1));
+        assertThat(channel.out.size(), is(36));
+        assertThat(writer.getPendingMessages(), is(2));
+    }
+
+    @Test
+    public void flushByLinger() throws IOException {
+        RecordingChannel channel = new RecordingChannel(Integer.MAX_VALUE);
+        MessageWriter writer = new MessageWriter(channel, 1000, 100, 10, () -> now);
+
+        assertThat(writer.flushIfLingered(), is(false));
+        writer.write(message("a"));
+        now = 5;
+        writer.write(message("b"));
+        assertThat(writer.flushIfLingered(), is(false));
+        now = 10;
+        assertThat(writer.flushIfLingered(), is(true));
+        assertThat(channel.writes, is(1));
+
+        writer.write(message("c"));
+        now = 25;
+        // the linger time of the batch started with c is over
+        writer.write(message("d"));
+        assertThat(channel.writes, is(2));
+        assertThat(read(channel), is(Arrays.asList("a", "b", "c", "d")));
+
+        MessageWriter unbatched = new MessageWriter(channel, 1000, 100, 0, () -> now);
+        unbatched.write(message("e"));
+        assertThat(channel.writes, is(3));
+    }
+
+    @Test
+    public void writeViewsWithoutCopy() throws IOException {
+        RecordingChannel channel = new RecordingChannel(3);
+        MessageWriter writer = new MessageWriter(channel, 1000, 100, 1000, () -> now);
+        byte[] bytes = "abcdef".getBytes(StandardCharsets.US_ASCII);
+        ByteBuffer[] regions = {ByteBuffer.wrap("0123".getBytes(StandardCharsets.US_ASCII)),
+                ByteBuffer.wrap("4567".getBytes(StandardCharsets.US_ASCII))};
+
+        writer.write(new ByteBufferRoRam(ByteBuffer.wrap(bytes)), 1, 4);
+        writer.write(new MultiByteBufferRoRam(regions, 2));
+        writer.write(message(""));
+        // the batch contains views of the messages
+        bytes[2] = 'X';
+        writer.close();
+
+        assertThat(read(channel), is(Arrays.asList("bXde", "01234567", "")));
+        assertThat(channel.open, is(false));
+    }
+
+    @Test
+    public void copyTemporaryBuffers() throws IOException {
+        RecordingChannel channel = new RecordingChannel(Integer.MAX_VALUE);
+        MessageWriter writer = new MessageWriter(channel, 1000, 100, 1000, () -> now);
+        ByteBuffer scratch = ByteBuffer.allocate(3);
+
+        writer.write(new ScratchRam(scratch, "abc"));
+        writer.write(new ScratchRam(scratch, "xyz"));
+        writer.flush();
+
+        assertThat(read(channel), is(Arrays.asList("abc", "xyz")));
+    }
+
+    @Test
+    public void failOnChannelWithoutProgress() throws IOException {
+        RecordingChannel channel = new RecordingChannel(0);
+        MessageWriter writer = new MessageWriter(channel, 1000, 100, 1000, () -> now);
+        writer.write(message("abc"));
+
+        try {
+            writer.flush();
+            fail("IOException expected");
+        } catch (IOException e) {
+            assertThat(writer.getPendingMessages(), is(0));
+            assertThat(writer.getPendingBytes(), is(0L));
+        }
+        assertThat(channel.writes, is(1));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void writeOutside() throws IOException {
+        new MessageWriter(new RecordingChannel(1)).write(message("abc"), 2, 2);
+    }
+
+    private static RichReadOnlyRandomAccessMemory message(String text) {
+        return new ByteBufferRoRam(ByteBuffer.wrap(text.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    private static List<String> read(RecordingChannel channel) throws IOException {
+        List<String> messages = new ArrayList<>();
+        FrameReader reader = new FrameReader(new ByteArrayInputStream(channel.out.toByteArray()));
+        for (RichReadOnlyRandomAccessMemory frame = reader.next(); frame != null; frame = reader.next()) {
+            messages.add(frame.getStringAt(0, (int) frame.size()));
+        }
+        return messages;
+    }
+
+    /**
+     * Hands its content to a channel through a shared scratch buffer, that is
+     * reused by the next call.
+     */
+    private static final class ScratchRam implements ReadOnlyRandomAccessMemory {
+        private final ByteBuffer scratch;
+        private final byte[] content;
+
+        ScratchRam(ByteBuffer scratch, String text) {
+            this.scratch = scratch;
+            this.content = text.getBytes(StandardCharsets.US_ASCII);
+        }
+
+        @Override
+        public byte getByteAt(long index) {
+            return content[(int) index];
+        }
+
+        @Override
+        public byte[] getBytesAt(long index, int length) {
+            return Arrays.copyOfRange(content, (int) index, (int) index + length);
+        }
+
+        @Override
+        public byte[] getBytes() {
+            return content.clone();
+        }
+
+        @Override
+        public void copyToDestination(long index, byte[] destination) {
+            copyToDestination(index, destination, 0, destination.length);
+        }
+
+        @Override
+        public void copyToDestination(long index, byte[] destination, int destinationOffset, int length) {
+            System.arraycopy(content, (int) index, destination, destinationOffset, length);
+        }
+
+        @Override
+        public boolean supportsDestination(Class<?> destinationClass) {
+            return destinationClass.isAssignableFrom(WritableByteChannel.class);
+        }
+
+        @Override
+        public <T> long copyToDestination(long index, int length, T destination) throws IOException {
+            scratch.clear();
+            scratch.put(content, (int) index, length).flip();
+            return ((WritableByteChannel) destination).write(scratch);
+        }
+
+        @Override
+        public long size() {
+            return content.length;
+        }
+    }
+
+    /**
+     * Records the bytes and counts the gathering writes. Writes at most the
+     * given number of bytes per call.
+     */
+    private static final class RecordingChannel implements GatheringByteChannel {
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        private final int maxWrite;
+        private int writes;
+        private boolean open = true;
+
+        RecordingChannel(int maxWrite) {
+            this.maxWrite = maxWrite;
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs, int offset, int length) {
+            writes++;
+            long written = 0;
+            for (int i = offset; i < offset + length && written < maxWrite; i++) {
+                while (srcs[i].hasRemaining() && written < maxWrite) {
+                    out.write(srcs[i].get());
+                    written++;
+                }
+            }
+            return written;
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs) {
+            return write(srcs, 0, srcs.length);
+        }
+
+        @Override
+        public int write(ByteBuffer src) {
+            return (int) write(new ByteBuffer[]{src});
+        }
+
+        @Override
+        public boolean isOpen() {
+            return open;
+        }
+
+        @Override
+        public void close() {
+            open = false;
+        }
+    }
+}
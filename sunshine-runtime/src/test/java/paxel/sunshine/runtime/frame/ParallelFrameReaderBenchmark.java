@@ -0,0 +1,88 @@
+package paxel.sunshine.runtime.frame;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import paxel.sunshine.api.memory.RichReadOnlyRandomAccessMemory;
+import paxel.sunshine.api.memory.bytebuffer.ByteBufferRoRam;
+import paxel.sunshine.runtime.message.MessageHandlerRegistry;
+import paxel.sunshine.runtime.message.MessageParser;
+import paxel.sunshine.runtime.message.TestSchema;
+
+/**
+ * Handles one million framed messages with the {@link ParallelFrameReader} on
+ * pools of different parallelism, ordered and unordered. The scaling depends on
+ * the number of available cores. Run it with the benchmark profile
+ * ({@code mvn -P benchmark verify}) or via {@link #main(String[])}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParallelFrameReaderBenchmark {
+
+    @Param({"1", "4"})
+    public int parallelism;
+
+    @Param({"false", "true"})
+    public boolean ordered;
+
+    private ForkJoinPool pool;
+    private RichReadOnlyRandomAccessMemory ram;
+    private MessageParser parser;
+
+    @Setup
+    public void setUp() {
+        pool = new ForkJoinPool(parallelism);
+        byte[] messages = ParallelFrameReaderTest.messages(1_000_000);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(messages.length);
+        buffer.put(messages).clear();
+        ram = new ByteBufferRoRam(buffer);
+        TestSchema schema = new TestSchema();
+        MessageHandlerRegistry registry = new MessageHandlerRegistry(schema);
+        registry.register(TestSchema.Person.class, p -> p.getName(), TestSchema.Person::new);
+        parser = new MessageParser(schema, registry, true);
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public long handle() throws IOException {
+        ParallelFrameReader reader = new ParallelFrameReader(ram, pool, FrameReader.DEFAULT_MAX_FRAME_SIZE,
+                Math.max(ParallelFrameReader.MIN_CHUNK_SIZE, ram.size() / (parallelism * 8L)));
+        return reader.handle(parser, ordered);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(ParallelFrameReaderBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
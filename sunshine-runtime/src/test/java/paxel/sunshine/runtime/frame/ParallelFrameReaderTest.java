@@ -0,0 +1,166 @@
+package paxel.sunshine.runtime.frame;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.AfterClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import paxel.sunshine.api.memory.RichReadOnlyRandomAccessMemory;
+import paxel.sunshine.api.memory.bytebuffer.ByteBufferRoRam;
+import paxel.sunshine.api.memory.mapped.MappedFileRoRam;
+import paxel.sunshine.runtime.message.InvalidMessageException;
+import paxel.sunshine.runtime.message.MessageBytes;
+import paxel.sunshine.runtime.message.MessageHandlerRegistry;
+import paxel.sunshine.runtime.message.MessageParser;
+import paxel.sunshine.runtime.message.TestSchema;
+
+public class ParallelFrameReaderTest {
+
+    private static final ForkJoinPool POOL = new ForkJoinPool(4);
+    private static final int MESSAGES = 10_000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @AfterClass
+    public static void shutdown() {
+        POOL.shutdown();
+    }
+
+    @Test
+    public void streamFramesInOrder() throws IOException {
+        String[] payloads = new String[MESSAGES];
+        for (int i = 0; i < payloads.length; i++) {
+            payloads[i] = "frame " + i;
+        }
+        ParallelFrameReader reader = new ParallelFrameReader(ram(FrameReaderTest.frames(payloads)), POOL, 1000, 1000);
+
+        assertThat(reader.getFrameCount(), is((long) MESSAGES));
+        assertThat(reader.getChunkCount() > 50, is(true));
+        List<String> frames = reader.frames(stream -> stream.map(f -> f.getStringAt(0, (int) f.size())).collect(Collectors.toList()));
+        assertThat(frames.size(), is(MESSAGES));
+        for (int i = 0; i < MESSAGES; i++) {
+            assertThat(frames.get(i), is(payloads[i]));
+        }
+    }
+
+    @Test
+    public void handleOrdered() throws IOException {
+        TestSchema schema = new TestSchema();
+        MessageHandlerRegistry registry = new MessageHandlerRegistry(schema);
+        List<String> names = new ArrayList<>();
+        registry.register(TestSchema.Person.class, p -> names.add(p.getName()));
+        ParallelFrameReader reader = new ParallelFrameReader(ram(messages(MESSAGES)), POOL, 1000, 1000);
+
+        assertThat(reader.handle(new MessageParser(schema, registry), true), is((long) MESSAGES));
+        for (int i = 0; i < MESSAGES; i++) {
+            assertThat(names.get(i), is("person " + i));
+        }
+    }
+
+    @Test
+    public void handleUnordered() throws IOException {
+        TestSchema schema = new TestSchema();
+        MessageHandlerRegistry registry = new MessageHandlerRegistry(schema);
+        List<String> names = Collections.synchronizedList(new ArrayList<>());
+        registry.register(TestSchema.Person.class, p -> names.add(p.getName()));
+        ParallelFrameReader reader = new ParallelFrameReader(ram(messages(MESSAGES)), POOL, 1000, 1000);
+
+        assertThat(reader.handle(new MessageParser(schema, registry, true), false), is((long) MESSAGES));
+        assertThat(names.stream().distinct().count(), is((long) MESSAGES));
+    }
+
+    @Test
+    public void handleMappedFileWithFramesCrossingRegions() throws IOException {
+        TestSchema schema = new TestSchema();
+        MessageHandlerRegistry registry = new MessageHandlerRegistry(schema);
+        List<String> names = new ArrayList<>();
+        registry.register(TestSchema.Person.class, p -> names.add(p.getName()));
+        Path file = folder.newFile().toPath();
+        Files.write(file, messages(1000));
+
+        // 64 byte regions split most of the frames
+        try (MappedFileRoRam ram = MappedFileRoRam.open(file, 6)) {
+            ParallelFrameReader reader = new ParallelFrameReader(ram, POOL, 1000, 500);
+            assertThat(reader.handle(new MessageParser(schema, registry), true), is(1000L));
+        }
+        assertThat(names.get(999), is("person 999"));
+    }
+
+    @Test
+    public void defaultsForEmptyRam() throws IOException {
+        ParallelFrameReader reader = new ParallelFrameReader(ram(new byte[0]));
+        assertThat(reader.getFrameCount(), is(0L));
+        assertThat(reader.getChunkCount(), is(0));
+        assertThat(reader.frames(Stream::count), is(0L));
+    }
+
+    @Test(expected = InvalidFrameException.class)
+    public void truncatedFrame() throws IOException {
+        byte[] frames = FrameReaderTest.frames("ABBA", "DOMINO");
+        new ParallelFrameReader(new ByteBufferRoRam(ByteBuffer.wrap(frames, 0, frames.length - 1).slice())).getFrameCount();
+    }
+
+    @Test(expected = InvalidFrameException.class)
+    public void invalidMagic() throws IOException {
+        byte[] frames = FrameReaderTest.frames("ABBA", "DOMINO");
+        frames[11] = 'x';
+        new ParallelFrameReader(ram(frames)).frames(Stream::count);
+    }
+
+    @Test
+    public void queriesRunOnThePool() throws IOException {
+        ParallelFrameReader reader = new ParallelFrameReader(ram(messages(MESSAGES)), POOL, 1000, 1000);
+        TestSchema schema = new TestSchema();
+        MessageParser parser = new MessageParser(schema, new MessageHandlerRegistry(schema));
+        Set<ForkJoinPool> pools = reader.messages(parser, stream -> stream
+                .map(message -> ForkJoinTask.getPool())
+                .collect(Collectors.toSet()));
+        assertThat(pools, is(Collections.singleton(POOL)));
+    }
+
+    @Test(expected = InvalidMessageException.class)
+    public void invalidMessageInStream() throws IOException {
+        TestSchema schema = new TestSchema();
+        new ParallelFrameReader(ram(FrameReaderTest.frames("no message"))).messages(
+                new MessageParser(schema, new MessageHandlerRegistry(schema)), Stream::count);
+    }
+
+    @Test(expected = InvalidMessageException.class)
+    public void invalidMessage() throws IOException {
+        TestSchema schema = new TestSchema();
+        new ParallelFrameReader(ram(FrameReaderTest.frames("no message"))).handle(
+                new MessageParser(schema, new MessageHandlerRegistry(schema)), false);
+    }
+
+    static byte[] messages(int count) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int i = 0; i < count; i++) {
+            byte[] message = new MessageBytes().object(TestSchema.PERSON, 1).value(1, "person " + i).endObject().endMessage();
+            out.write(new byte[]{'s', 'u', 'n', 0, 0, 0, (byte) message.length}, 0, FrameReader.HEADER_SIZE);
+            out.write(message, 0, message.length);
+        }
+        return out.toByteArray();
+    }
+
+    private static RichReadOnlyRandomAccessMemory ram(byte[] bytes) {
+        return new ByteBufferRoRam(ByteBuffer.wrap(bytes));
+    }
+}
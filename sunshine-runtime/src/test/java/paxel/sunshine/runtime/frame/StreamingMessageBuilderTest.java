@@ -0,0 +1,230 @@
+package paxel.sunshine.runtime.frame;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import paxel.sunshine.api.memory.RichReadOnlyRandomAccessMemory;
+import paxel.sunshine.api.memory.bytebuffer.ByteBufferRoRam;
+import paxel.sunshine.runtime.message.InvalidMessageException;
+import paxel.sunshine.runtime.message.MessageData;
+import paxel.sunshine.runtime.message.MessageParser;
+import paxel.sunshine.runtime.message.ObjectData;
+import paxel.sunshine.runtime.message.TestSchema;
+import paxel.sunshine.runtime.message.Tlv;
+
+public class StreamingMessageBuilderTest {
+
+    private static final int ADDRESSES = 1000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void streamObjects() throws IOException, InvalidMessageException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        StreamingMessageBuilder builder = new StreamingMessageBuilder(Channels.newChannel(out), 1024);
+        char[] chars = new char[300];
+        Arrays.fill(chars, 'a');
+        String name = new String(chars);
+
+        build(builder, name);
+        // the objects are written while the message is built
+        assertThat(out.size() > 0, is(true));
+        long size = builder.finish();
+
+        assertThat(size, is((long) out.size()));
+        MessageData data = parse(out.toByteArray());
+        ObjectData person = data.getRoot();
+        assertThat(data.getObjectCount(), is(ADDRESSES + 1));
+        assertThat(person.getRam().getInt32At(person.getStaticBlockIndex(0)), is(42));
+        assertThat(person.getStringValue(1), is(name));
+        assertThat(person.getValueTlvCount(1), is(2));
+        assertThat(person.getBinaryValue(2).size(), is(600L));
+        // 63 references per TLV
+        assertThat(person.getValueTlvCount(3), is((ADDRESSES + 62) / 63));
+        assertThat(person.getListSize(3, 4), is(ADDRESSES));
+        for (int i = 0; i < ADDRESSES; i++) {
+            assertThat(person.getRam().getUInt32At(person.getListElementIndex(3, i, 4)), is(i + 2L));
+        }
+        assertThat(person.getRam().getUInt32At(person.getValuePosition(4) + 2), is(2L));
+        assertThat(data.getObject(ADDRESSES + 1).getStringValue(1), is("street " + (ADDRESSES + 1)));
+    }
+
+    @Test
+    public void backPatchFrameLength() throws IOException, InvalidMessageException {
+        Path file = folder.newFile().toPath();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap("garbage".getBytes(StandardCharsets.US_ASCII)));
+            StreamingMessageBuilder builder = StreamingMessageBuilder.framed(channel, 300);
+            build(builder, "Lisa");
+            long size = builder.finish();
+            assertThat(channel.position(), is(7 + FrameReader.LONG_HEADER_SIZE + size));
+        }
+
+        byte[] bytes = Files.readAllBytes(file);
+        FrameReader reader = new FrameReader(new ByteArrayInputStream(bytes, 7, bytes.length - 7));
+        RichReadOnlyRandomAccessMemory frame = reader.next();
+        assertThat(frame.size(), is((long) bytes.length - 7 - FrameReader.LONG_HEADER_SIZE));
+        byte[] message = new byte[(int) frame.size()];
+        frame.copyToDestination(0, message);
+        assertThat(parse(message).getObjectCount(), is(ADDRESSES + 1));
+        assertThat(reader.next() == null, is(true));
+    }
+
+    @Test
+    public void writeWideValues() throws IOException, InvalidMessageException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        StreamingMessageBuilder builder = new StreamingMessageBuilder(Channels.newChannel(out), 1024);
+        byte[] big = new byte[5000];
+        for (int i = 0; i < big.length; i++) {
+            big[i] = (byte) i;
+        }
+
+        // an old reader would reject wide TLVs
+        assertThat(builder.useWideValues(1, 256), is(false));
+        assertThat(builder.getFormatVersion(), is(1));
+        assertThat(builder.useWideValues(Tlv.FORMAT_VERSION, 256), is(true));
+        assertThat(builder.getFormatVersion(), is(Tlv.WIDE_VALUE_VERSION));
+        builder.startObject(TestSchema.PERSON, 1)
+                .stringValue(1, "Lisa")
+                .value(2, big)
+                .value(5, new ByteBufferRoRam(ByteBuffer.wrap(big, 0, 600)))
+                .value(6, big, 0, 300)
+                .endObject();
+        long size = builder.finish();
+
+        assertThat(size, is((long) out.size()));
+        ObjectData person = parse(out.toByteArray()).getRoot();
+        assertThat(person.getStringValue(1), is("Lisa"));
+        assertThat(person.getValueTlvCount(2), is(1));
+        assertThat(person.getValueDataIndex(2), is(person.getValuePosition(2) + Tlv.WIDE_HEADER_SIZE));
+        assertThat(person.getBinaryValue(2).getBytes(), is(big));
+        assertThat(person.getChunks(5).getChunkCount(), is(1));
+        assertThat(person.getChunks(5).getBytes(), is(Arrays.copyOf(big, 600)));
+        assertThat(person.getBinaryValue(6).getBytes(), is(Arrays.copyOf(big, 300)));
+    }
+
+    @Test
+    public void rejectValueOutsideOfArray() throws IOException, InvalidMessageException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        StreamingMessageBuilder builder = new StreamingMessageBuilder(out);
+        builder.startObject(TestSchema.PERSON, 1).listElement(3, new byte[]{0, 0, 0, 1});
+
+        try {
+            builder.value(6, new byte[10], 8, Integer.MAX_VALUE);
+            fail("IndexOutOfBoundsException expected");
+        } catch (IndexOutOfBoundsException e) {
+            // the List is still open
+        }
+        builder.listElement(3, new byte[]{0, 0, 0, 1}).endObject();
+        builder.finish();
+
+        ObjectData person = parse(out.toByteArray()).getRoot();
+        assertThat(person.getValueTlvCount(3), is(1));
+        assertThat(person.getListSize(3, 4), is(2));
+        assertThat(person.hasValue(6), is(false));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectWideThresholdBelowOne() {
+        new StreamingMessageBuilder(new ByteArrayOutputStream()).useWideValues(Tlv.FORMAT_VERSION, 0);
+    }
+
+    @Test
+    public void failOnMissingReference() throws IOException {
+        StreamingMessageBuilder builder = new StreamingMessageBuilder(new ByteArrayOutputStream());
+        builder.startObject(TestSchema.PERSON, 1)
+                .referenceValue(4, 3)
+                .addReference(2)
+                .endObject()
+                .startObject(TestSchema.ADDRESS, 2).endObject();
+
+        assertThat(builder.getUnresolvedReferences(), is(1L));
+        try {
+            builder.finish();
+            throw new AssertionError("instance 3 is missing");
+        } catch (IllegalStateException e) {
+            assertThat(e.getMessage(), is("1 referenced objects are missing, e.g. instance ID 3"));
+        }
+        try {
+            builder.startObject(TestSchema.ADDRESS, 2);
+            throw new AssertionError("instance 2 was written");
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getMessage(), is("instanceId was used twice :2"));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectRootWithoutInstanceIdOne() throws IOException {
+        new StreamingMessageBuilder(new ByteArrayOutputStream()).startObject(TestSchema.PERSON, 2);
+    }
+
+    @Test
+    public void trackInstanceIdRanges() {
+        InstanceIdRanges ranges = new InstanceIdRanges();
+        for (long id = 1; id <= 1000; id++) {
+            assertThat(ranges.add(id), is(true));
+        }
+        assertThat(ranges.add(500), is(false));
+        assertThat(ranges.getRangeCount(), is(1));
+
+        assertThat(ranges.remove(500), is(true));
+        assertThat(ranges.remove(500), is(false));
+        assertThat(ranges.add(2000), is(true));
+        assertThat(ranges.getRangeCount(), is(3));
+        assertThat(ranges.contains(499), is(true));
+        assertThat(ranges.contains(500), is(false));
+        assertThat(ranges.contains(1001), is(false));
+        assertThat(ranges.add(500), is(true));
+        assertThat(ranges.remove(1), is(true));
+        assertThat(ranges.remove(1000), is(true));
+        assertThat(ranges.getRangeCount(), is(2));
+        assertThat(ranges.first(), is(2L));
+        assertThat(ranges.size(), is(999L));
+    }
+
+    /**
+     * Builds a Person with references to the following Addresses, which are
+     * written after the Person.
+     */
+    private static void build(StreamingMessageBuilder builder, String name) throws IOException {
+        builder.startObject(TestSchema.PERSON, 1)
+                .staticBlock(new byte[]{0, 0, 0, 42})
+                .stringValue(1, name)
+                .value(2, new ByteBufferRoRam(ByteBuffer.allocate(600)));
+        for (int i = 0; i < ADDRESSES; i++) {
+            builder.referenceElement(3, i + 2);
+        }
+        builder.referenceValue(4, 2).endObject();
+        for (int i = 0; i < ADDRESSES; i++) {
+            builder.startObject(TestSchema.ADDRESS, i + 2)
+                    .staticBlock(new byte[]{1, 2})
+                    .stringValue(1, "street " + (i + 2))
+                    .endObject();
+        }
+        assertThat(builder.getUnresolvedReferences(), is(0L));
+    }
+
+    private static MessageData parse(byte[] message) throws InvalidMessageException {
+        MessageData data = new MessageData(new TestSchema());
+        MessageParser.parse(new ByteBufferRoRam(ByteBuffer.wrap(message)), data);
+        return data;
+    }
+}
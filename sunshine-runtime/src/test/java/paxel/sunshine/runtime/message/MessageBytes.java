@@ -0,0 +1,77 @@
+package paxel.sunshine.runtime.message;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes the raw bytes of a message for tests.
+ */
+public class MessageBytes {
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    public MessageBytes object(int typeId, long instanceId) {
+        out.write('o');
+        out.write('b');
+        out.write('j');
+        out.write(typeId >>> 8);
+        out.write(typeId);
+        out.write((int) (instanceId >>> 24));
+        out.write((int) (instanceId >>> 16));
+        out.write((int) (instanceId >>> 8));
+        out.write((int) instanceId);
+        return this;
+    }
+
+    public MessageBytes tlv(int type, byte[] value) {
+        out.write(type);
+        out.write(value.length);
+        out.write(value, 0, value.length);
+        return this;
+    }
+
+    public MessageBytes value(int valueId, String value) {
+        return tlv(valueId, value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public MessageBytes staticBlock(int... block) {
+        byte[] bytes = new byte[block.length];
+        for (int i = 0; i < block.length; i++) {
+            bytes[i] = (byte) block[i];
+        }
+        return tlv(Tlv.STATIC_BLOCK, bytes);
+    }
+
+    public MessageBytes nop(int count) {
+        for (int i = 0; i < count; i++) {
+            out.write(Tlv.NOP);
+        }
+        return this;
+    }
+
+    public MessageBytes raw(int... bytes) {
+        for (int b : bytes) {
+            out.write(b);
+        }
+        return this;
+    }
+
+    public MessageBytes endObject() {
+        out.write(Tlv.END_OF_OBJECT);
+        return this;
+    }
+
+    /**
+     * Writes the end of message flag after the end of the last object.
+     *
+     * @return the message.
+     */
+    public byte[] endMessage() {
+        out.write(Tlv.END_OF_OBJECT);
+        return out.toByteArray();
+    }
+
+    public byte[] toByteArray() {
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,77 @@
+package paxel.sunshine.runtime.message;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsInstanceOf.instanceOf;
+import static org.hamcrest.core.IsSame.sameInstance;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class MessageHandlerRegistryTest {
+
+    private final SchemaData schema = new TestSchema();
+    private final MessageHandlerRegistry registry = new MessageHandlerRegistry(schema);
+
+    @Test
+    public void reuseProvidedInstance() throws InvalidMessageException {
+        TestSchema.Person person = new TestSchema.Person();
+        List<TestSchema.Person> handled = new ArrayList<>();
+        registry.register(TestSchema.Person.class, handled::add, () -> person);
+
+        assertThat(registry.handle(parse(TestSchema.PERSON, "Lisa")), is(true));
+        assertThat(registry.handle(parse(TestSchema.PERSON, "Marie")), is(true));
+        assertThat(handled.size(), is(2));
+        assertThat(handled.get(1), is(sameInstance(person)));
+        assertThat(person.getName(), is("Marie"));
+    }
+
+    @Test
+    public void dispatchByTypeId() throws InvalidMessageException {
+        List<Object> handled = new ArrayList<>();
+        registry.register(TestSchema.Address.class, handled::add);
+        registry.register(TestSchema.Person.class, handled::add);
+
+        assertThat(registry.handle(parse(TestSchema.PERSON, "Lisa")), is(true));
+        assertThat(registry.handle(parse(TestSchema.ADDRESS, "x")), is(true));
+        assertThat(registry.handle(parse(0xffff, "x")), is(false));
+        assertThat(handled.get(0), is(instanceOf(TestSchema.Person.class)));
+        assertThat(handled.get(1), is(instanceOf(TestSchema.Address.class)));
+    }
+
+    @Test
+    public void fallback() throws InvalidMessageException {
+        List<Object> handled = new ArrayList<>();
+        registry.register(TestSchema.Person.class, p -> {
+            throw new AssertionError("not expected");
+        });
+
+        assertThat(registry.handle(parse(TestSchema.ADDRESS, "x")), is(false));
+        registry.fallback(handled::add);
+        assertThat(registry.handle(parse(TestSchema.ADDRESS, "x")), is(true));
+        assertThat(registry.handle(parse(99, "x")), is(true));
+        assertThat(handled.get(0), is(instanceOf(TestSchema.Address.class)));
+        assertThat(handled.get(1), is(instanceOf(ObjectData.class)));
+        assertThat(((ObjectData) handled.get(1)).getTypeId(), is(99));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void registerUnknownType() {
+        registry.register(UnknownObject.class, o -> {
+        });
+    }
+
+    private MessageData parse(int typeId, String name) throws InvalidMessageException {
+        return new MessageParser(schema, registry).parse(MessageParserTest.ram(new MessageBytes()
+                .object(typeId, 1).value(1, name).endObject()
+                .endMessage()));
+    }
+
+    private static class UnknownObject implements SunshineObject {
+        @Override
+        public void init(ObjectData objectData) {
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package paxel.sunshine.runtime.message;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import paxel.sunshine.api.memory.RichReadOnlyRandomAccessMemory;
+import paxel.sunshine.api.memory.bytebuffer.ByteBufferRoRam;
+
+/**
+ * Parses and dispatches a message with a root object and a number of child
+ * objects, with a recycling and an allocating {@link MessageParser}, each eager
+ * and lazy. The handler reuses its instance and only reads the root, so with
+ * recycling the GC profiler should report about 0 B/op and the lazy parser
+ * should not depend on the number of children. Run it with the benchmark
+ * profile ({@code mvn -P benchmark verify}) or via {@link #main(String[])}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageParserBenchmark {
+
+    @Param({"false", "true"})
+    public boolean recycle;
+
+    @Param({"false", "true"})
+    public boolean lazy;
+
+    @Param({"2", "32"})
+    public int children;
+
+    private MessageParser parser;
+    private RichReadOnlyRandomAccessMemory message;
+    private long ages;
+
+    @Setup
+    public void setUp() {
+        TestSchema schema = new TestSchema();
+        MessageHandlerRegistry registry = new MessageHandlerRegistry(schema);
+        TestSchema.Person person = new TestSchema.Person();
+        registry.register(TestSchema.Person.class, p -> ages += p.getAge(), () -> person);
+        parser = new MessageParser(schema, registry, recycle, lazy);
+        MessageBytes bytes = new MessageBytes().object(TestSchema.PERSON, 1).staticBlock(0, 0, 0, 42).value(1, "Lisa");
+        for (int i = 0; i < children; i++) {
+            // references to the children
+            bytes.value(2, "\u0000\u0000\u0000" + (char) (i + 2));
+        }
+        bytes.endObject();
+        for (int i = 0; i < children; i++) {
+            bytes.object(TestSchema.ADDRESS, i + 2).value(1, "Sunshine Street").value(2, "42").nop(3).endObject();
+        }
+        message = new ByteBufferRoRam(ByteBuffer.wrap(bytes.endMessage()));
+    }
+
+    @Benchmark
+    public long handle() throws InvalidMessageException {
+        parser.handle(message);
+        return ages;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(MessageParserBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
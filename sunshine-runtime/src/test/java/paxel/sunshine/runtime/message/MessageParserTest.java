@@ -0,0 +1,241 @@
+package paxel.sunshine.runtime.message;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.hamcrest.core.IsSame.sameInstance;
+
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import paxel.sunshine.api.memory.RichReadOnlyRandomAccessMemory;
+import paxel.sunshine.api.memory.bytebuffer.ByteBufferRoRam;
+
+public class MessageParserTest {
+
+    private final SchemaData schema = new TestSchema();
+    private final MessageParser parser = new MessageParser(schema, new MessageHandlerRegistry(schema));
+
+    @Test
+    public void parseObjects() throws InvalidMessageException {
+        byte[] message = new MessageBytes()
+                .object(TestSchema.PERSON, 1).staticBlock(0, 0, 0, 42).nop(2).value(1, "Lisa").value(3, "x").value(1, "Marie").endObject()
+                .object(TestSchema.ADDRESS, 2).nop(1).endObject()
+                .endMessage();
+        MessageData messageData = parser.parse(ram(message));
+
+        assertThat(messageData.getObjectCount(), is(2));
+        ObjectData root = messageData.getRoot();
+        assertThat(root.getTypeId(), is(TestSchema.PERSON));
+        assertThat(root.getInstanceId(), is(1L));
+        assertThat(root.getStart(), is(0L));
+        assertThat(root.getStaticBlockPosition(), is(9L));
+        assertThat(root.getStaticBlockLength(), is(4));
+        assertThat(root.getNopCount(), is(1));
+        assertThat(root.getNopStart(0), is(15L));
+        assertThat(root.getNopLength(0), is(2L));
+        assertThat(root.getValueCount(), is(3));
+        assertThat(root.hasValue(1), is(true));
+        assertThat(root.hasValue(2), is(false));
+        assertThat(root.getValuePosition(1), is(17L));
+        assertThat(root.getValuePosition(2), is(-1L));
+        assertThat(root.getValueLength(1), is(9L));
+        assertThat(root.getValueLength(3), is(1L));
+
+        ObjectData address = messageData.getObject(2);
+        assertThat(address, is(sameInstance(messageData.getObjectAt(1))));
+        assertThat(address.getTypeId(), is(TestSchema.ADDRESS));
+        assertThat(address.getStart(), is(root.getEnd()));
+        assertThat(address.getEnd(), is(message.length - 1L));
+        assertThat(messageData.getObject(3), is(nullValue()));
+    }
+
+    @Test
+    public void reuseMessageData() throws InvalidMessageException {
+        MessageData messageData = new MessageData(schema);
+        MessageParser.parse(ram(new MessageBytes()
+                .object(TestSchema.PERSON, 1).value(1, "Lisa").value(7, "x").endObject()
+                .object(TestSchema.ADDRESS, 2).endObject()
+                .endMessage()), messageData);
+        ObjectData root = messageData.getRoot();
+
+        MessageParser.parse(ram(new MessageBytes()
+                .object(TestSchema.ADDRESS, 1).value(2, "y").endObject()
+                .endMessage()), messageData);
+        assertThat(messageData.getObjectCount(), is(1));
+        assertThat(messageData.getRoot(), is(sameInstance(root)));
+        assertThat(root.getTypeId(), is(TestSchema.ADDRESS));
+        assertThat(root.hasValue(1), is(false));
+        assertThat(root.hasValue(7), is(false));
+        assertThat(root.hasValue(2), is(true));
+        assertThat(messageData.getObject(2), is(nullValue()));
+    }
+
+    @Test
+    public void handleRoot() throws InvalidMessageException {
+        MessageHandlerRegistry registry = new MessageHandlerRegistry(schema);
+        StringBuilder result = new StringBuilder();
+        registry.register(TestSchema.Person.class, p -> result.append(p.getName()).append(p.getAge()));
+
+        boolean handled = new MessageParser(schema, registry).handle(ram(new MessageBytes()
+                .object(TestSchema.PERSON, 1).staticBlock(0, 0, 0, 42).value(1, "Lisa").endObject()
+                .endMessage()));
+        assertThat(handled, is(true));
+        assertThat(result.toString(), is("Lisa42"));
+    }
+
+    @Test
+    public void recycleMessageData() throws InvalidMessageException {
+        MessageHandlerRegistry registry = new MessageHandlerRegistry(schema);
+        List<ObjectData> handled = new ArrayList<>();
+        TestSchema.Address address = new TestSchema.Address();
+        registry.register(TestSchema.Address.class, a -> handled.add(a.getObjectData()), () -> address);
+        byte[] message = new MessageBytes().object(TestSchema.ADDRESS, 1).endObject().endMessage();
+
+        MessageParser recycling = new MessageParser(schema, registry, true);
+        recycling.handle(ram(message));
+        recycling.handle(ram(message));
+        assertThat(handled.get(1), is(sameInstance(handled.get(0))));
+        // the recycled object doesn't reference the message anymore
+        assertThat(handled.get(0).getRam(), is(nullValue()));
+
+        MessageParser allocating = new MessageParser(schema, registry);
+        allocating.handle(ram(message));
+        allocating.handle(ram(message));
+        assertThat(handled.get(3) == handled.get(2), is(false));
+        assertThat(handled.get(3).getRam().size(), is((long) message.length));
+    }
+
+    @Test
+    public void handleNestedMessageWhileRecycling() throws InvalidMessageException {
+        MessageHandlerRegistry registry = new MessageHandlerRegistry(schema);
+        MessageParser recycling = new MessageParser(schema, registry, true);
+        byte[] inner = new MessageBytes().object(TestSchema.PERSON, 1).value(1, "inner").endObject().endMessage();
+        StringBuilder result = new StringBuilder();
+        registry.register(TestSchema.Person.class, p -> {
+            result.append(p.getName()).append('|');
+            if (p.getName().equals("outer")) {
+                try {
+                    recycling.handle(ram(inner));
+                } catch (InvalidMessageException e) {
+                    throw new IllegalStateException(e);
+                }
+                // the outer message is still intact
+                result.append(p.getName()).append('|');
+            }
+        });
+
+        recycling.handle(ram(new MessageBytes().object(TestSchema.PERSON, 1).value(1, "outer").endObject().endMessage()));
+        assertThat(result.toString(), is("outer|inner|outer|"));
+    }
+
+    @Test
+    public void parseLazy() throws InvalidMessageException {
+        MessageData messageData = new MessageData(schema);
+        MessageParser.parseLazy(ram(new MessageBytes()
+                .object(TestSchema.PERSON, 1).value(1, "Lisa").endObject()
+                .object(TestSchema.ADDRESS, 2).value(1, "x").endObject()
+                .object(TestSchema.ADDRESS, 3).nop(2).value(2, "y").endObject()
+                .endMessage()), messageData);
+
+        assertThat(messageData.getRoot().getValueLength(1), is(4L));
+        assertThat(messageData.isSkimmed(), is(false));
+        ObjectData third = messageData.getObject(3);
+        assertThat(third.getInstanceId(), is(3L));
+        assertThat(third.getNopLength(0), is(2L));
+        assertThat(third.getValueLength(2), is(1L));
+        assertThat(messageData.isSkimmed(), is(false));
+        // skimmed before, scanned now
+        assertThat(messageData.getObjectAt(1).getValueLength(1), is(1L));
+        assertThat(messageData.getObject(4), is(nullValue()));
+        assertThat(messageData.isSkimmed(), is(true));
+        assertThat(messageData.getObjectCount(), is(3));
+    }
+
+    @Test
+    public void parseLazyIgnoresInvalidObjectsUntilRequested() throws InvalidMessageException {
+        MessageHandlerRegistry registry = new MessageHandlerRegistry(schema);
+        List<String> names = new ArrayList<>();
+        registry.register(TestSchema.Person.class, p -> names.add(p.getName()));
+        byte[] message = new MessageBytes()
+                .object(TestSchema.PERSON, 1).value(1, "Lisa").endObject()
+                .object(TestSchema.ADDRESS, 2).raw(0xff, 0).endObject()
+                .endMessage();
+
+        MessageParser lazy = new MessageParser(schema, registry, false, true);
+        assertThat(lazy.handle(ram(message)), is(true));
+        assertThat(names.toString(), is("[Lisa]"));
+        try {
+            lazy.parse(ram(message)).getObject(2);
+            throw new AssertionError("exception expected");
+        } catch (UncheckedIOException e) {
+            assertThat(e.getCause() instanceof InvalidMessageException, is(true));
+        }
+    }
+
+    @Test(expected = InvalidMessageException.class)
+    public void invalidObjectMagic() throws InvalidMessageException {
+        parser.parse(ram(new MessageBytes().raw('o', 'b', 'x', 0, 1, 0, 0, 0, 1).endObject().endMessage()));
+    }
+
+    @Test(expected = InvalidMessageException.class)
+    public void rootWithWrongInstanceId() throws InvalidMessageException {
+        parser.parse(ram(new MessageBytes().object(TestSchema.PERSON, 2).endObject().endMessage()));
+    }
+
+    @Test(expected = InvalidMessageException.class)
+    public void tlvExceedsMessage() throws InvalidMessageException {
+        parser.parse(ram(new MessageBytes().object(TestSchema.PERSON, 1).raw(1, 10, 'a').toByteArray()));
+    }
+
+    @Test
+    public void parseWideValues() throws InvalidMessageException {
+        MessageData messageData = new MessageData(schema);
+        MessageParser.parseLazy(ram(new MessageBytes()
+                .object(TestSchema.PERSON, 1).raw(Tlv.WIDE_VALUE, 1, 0, 0, 0, 4, 'L', 'i', 's', 'a')
+                .raw(Tlv.WIDE_VALUE, 2, 0x80, 0, 0, 0, 0, 0, 0, 3, 'a', 'b', 'c').value(2, "de").endObject()
+                .object(TestSchema.ADDRESS, 2).raw(Tlv.WIDE_VALUE, 1, 0, 0, 0, 1, 'x').endObject()
+                .endMessage()), messageData);
+
+        ObjectData root = messageData.getRoot();
+        assertThat(root.getStringValue(1), is("Lisa"));
+        assertThat(root.getValueDataIndex(1), is(root.getValuePosition(1) + Tlv.WIDE_HEADER_SIZE));
+        assertThat(root.getBinaryValue(1).size(), is(4L));
+        assertThat(root.getValueLength(2), is(5L));
+        assertThat(root.getStringValue(2), is("abcde"));
+        assertThat(root.getChunks(2).getChunkCount(), is(2));
+        assertThat(root.getValueDataIndexAt(1), is(root.getValuePositionAt(1) + Tlv.LONG_WIDE_HEADER_SIZE));
+        // skimmed before, scanned now
+        assertThat(messageData.getObject(2).getStringValue(1), is("x"));
+    }
+
+    @Test(expected = InvalidMessageException.class)
+    public void wideValueWithInvalidId() throws InvalidMessageException {
+        parser.parse(ram(new MessageBytes().object(TestSchema.PERSON, 1).raw(Tlv.WIDE_VALUE, Tlv.STATIC_BLOCK, 0, 0, 0, 0)
+                .endObject().endMessage()));
+    }
+
+    @Test(expected = InvalidMessageException.class)
+    public void wideValueExceedsMessage() throws InvalidMessageException {
+        parser.parse(ram(new MessageBytes().object(TestSchema.PERSON, 1).raw(Tlv.WIDE_VALUE, 1, 0x80, 0, 0, 0, 0, 0, 0, 9)
+                .endObject().endMessage()));
+    }
+
+    @Test(expected = InvalidMessageException.class)
+    public void missingEndOfMessage() throws InvalidMessageException {
+        parser.parse(ram(new MessageBytes().object(TestSchema.PERSON, 1).endObject().toByteArray()));
+    }
+
+    @Test(expected = InvalidMessageException.class)
+    public void bytesAfterEndOfMessage() throws InvalidMessageException {
+        parser.parse(ram(new MessageBytes().object(TestSchema.PERSON, 1).endObject().endObject().raw(0).toByteArray()));
+    }
+
+    static RichReadOnlyRandomAccessMemory ram(byte[] bytes) {
+        return new ByteBufferRoRam(ByteBuffer.wrap(bytes));
+    }
+}
@@ -0,0 +1,251 @@
+package paxel.sunshine.runtime.message;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import paxel.sunshine.api.memory.bytebuffer.ByteBufferRam;
+import paxel.sunshine.api.memory.bytebuffer.ByteBufferRoRam;
+import paxel.sunshine.api.memory.bytebuffer.SegmentedByteBufferRam;
+
+public class MutableMessageTest {
+
+    private final SchemaData schema = new TestSchema();
+
+    @Test
+    public void reuseBestFittingNops() throws InvalidMessageException {
+        MutableMessage message = message(new MessageBytes()
+                .object(TestSchema.PERSON, 1).staticBlock(0, 0, 0, 42).nop(8).value(1, "Lisa").nop(3).endObject()
+                .endMessage(), 0);
+        ObjectData person = message.getMessageData().getRoot();
+        long size = message.getSize();
+
+        // 6 bytes fit into the 8 NOPs, 3 bytes into the 3 NOPs
+        message.setStringValue(person, 2, "ABCD");
+        message.setStringValue(person, 3, "x");
+
+        assertThat(message.getSize(), is(size));
+        assertThat(message.getFreeBytes(), is(2L));
+        assertThat(person.getValuePosition(2), is(15L));
+        assertThat(person.getValuePosition(3), is(29L));
+        assertThat(person.getStringValue(2), is("ABCD"));
+        assertThat(person.getStringValue(3), is("x"));
+        assertConsistent(message);
+
+        // the old value is freed and merged with the 2 NOPs behind it
+        message.setStringValue(person, 2, "AB");
+        assertThat(person.getValuePosition(2), is(15L));
+        assertThat(person.getStringValue(2), is("AB"));
+        assertThat(message.getFreeBytes(), is(4L));
+        assertConsistent(message);
+    }
+
+    @Test
+    public void growObject() throws InvalidMessageException {
+        SegmentedByteBufferRam ram = new SegmentedByteBufferRam(4, ByteBuffer::allocate);
+        byte[] bytes = new MessageBytes()
+                .object(TestSchema.PERSON, 1).value(1, "Lisa").value(2, "\u0000\u0000\u0000\u0002").endObject()
+                .object(TestSchema.ADDRESS, 2).staticBlock(1, 2).value(1, "Sunshine Street").endObject()
+                .endMessage();
+        ram.allocate(bytes.length);
+        ram.copyFromSource(0, bytes, 0, bytes.length);
+        MutableMessage message = new MutableMessage(schema, ram, bytes.length, 16);
+        ObjectData person = message.getMessageData().getRoot();
+        ObjectData address = message.getMessageData().getObjectAt(1);
+        char[] chars = new char[300];
+        Arrays.fill(chars, 'a');
+        String name = new String(chars);
+
+        message.setStringValue(person, 1, name);
+
+        // the old 6 bytes and the 16 bytes of growth are too small
+        assertThat(message.getSize(), is(bytes.length + 304L));
+        assertThat(person.getValueTlvCount(1), is(2));
+        assertThat(person.getStringValue(1), is(name));
+        assertThat(address.getStringValue(1), is("Sunshine Street"));
+        assertThat(address.getRam().getByteAt(address.getStaticBlockIndex(1)), is((byte) 2));
+        assertThat(message.getFreeBytes(), is(6L));
+        assertConsistent(message);
+
+        message.setStringValue(address, 2, "42");
+        assertThat(message.getSize(), is(bytes.length + 304L + 16));
+        assertThat(message.getFreeBytes(), is(6L + 12));
+        assertConsistent(message);
+    }
+
+    @Test
+    public void failIfRamIsFull() throws InvalidMessageException {
+        MutableMessage message = message(new MessageBytes()
+                .object(TestSchema.PERSON, 1).value(1, "Lisa").nop(1).endObject()
+                .endMessage(), 0);
+        ObjectData person = message.getMessageData().getRoot();
+
+        // the old value and the NOP behind it are big enough
+        message.setStringValue(person, 1, "Marie");
+        try {
+            message.setStringValue(person, 1, "Marie!");
+            throw new AssertionError("the RAM is full");
+        } catch (IllegalStateException e) {
+            assertThat(person.getStringValue(1), is("Marie"));
+        }
+    }
+
+    @Test
+    public void compactIncrementally() throws InvalidMessageException {
+        MutableMessage message = message(new MessageBytes()
+                .object(TestSchema.PERSON, 1).nop(1).staticBlock(0, 0, 0, 42).value(1, "Lisa").nop(2)
+                .value(2, "\u0000\u0000\u0000\u0002").value(3, "removed").endObject()
+                .object(TestSchema.ADDRESS, 2).value(1, "Sunshine Street").nop(4).value(2, "42").endObject()
+                .endMessage(), 10);
+        ObjectData person = message.getMessageData().getRoot();
+        ObjectData address = message.getMessageData().getObjectAt(1);
+        assertThat(message.removeValue(person, 3), is(true));
+        assertThat(message.removeValue(person, 3), is(false));
+        long size = message.getSize();
+        long free = message.getFreeBytes();
+        assertThat(free, is(1L + 2 + 9 + 4));
+
+        int steps = 0;
+        while (!message.compact(6)) {
+            steps++;
+            assertConsistent(message);
+            assertThat(person.getStringValue(1), is("Lisa"));
+        }
+
+        assertThat(steps > 3, is(true));
+        assertThat(message.getSize(), is(size - free));
+        assertThat(message.getFreeBytes(), is(0L));
+        assertThat(person.getRam().getInt32At(person.getStaticBlockIndex(0)), is(42));
+        assertThat(person.getStringValue(1), is("Lisa"));
+        assertThat(address.getStringValue(1), is("Sunshine Street"));
+        assertThat(address.getStringValue(2), is("42"));
+        assertThat(message.compact(6), is(true));
+        assertConsistent(message);
+
+        // a compacted message grows again
+        message.setStringValue(address, 3, "x");
+        assertThat(message.getSize(), is(size - free + 10));
+        message.compact();
+        assertThat(message.getSize(), is(size - free + 3));
+        assertConsistent(message);
+    }
+
+    @Test
+    public void updateInPlace() throws InvalidMessageException {
+        MutableMessage message = message(new MessageBytes()
+                .object(TestSchema.PERSON, 1).staticBlock(0, 0, 0, 42).value(1, "Lisa").nop(2)
+                .value(2, "\u0000\u0000\u0000\u0002").endObject()
+                .object(TestSchema.ADDRESS, 2).value(1, "Sunshine Street").endObject()
+                .endMessage(), 0);
+        ObjectData person = message.getMessageData().getRoot();
+        ObjectData address = message.getMessageData().getObjectAt(1);
+        long age = person.getValuePosition(2);
+
+        // same length: only the bytes of the value are overwritten
+        person.setStringValue(1, "Bart");
+        message.getRam().putInt32At(person.reserveValue(2, 4), 10);
+        person.getWritableRam().putInt32At(person.getStaticBlockIndex(0), 43);
+
+        assertThat(person.getStringValue(1), is("Bart"));
+        assertThat(person.getValuePosition(2), is(age));
+        assertThat(person.getRam().getInt32At(age + 2), is(10));
+        assertThat(person.getRam().getInt32At(person.getStaticBlockIndex(0)), is(43));
+        assertThat(person.getNopCount(), is(1));
+        assertConsistent(message);
+
+        // a longer value stays at its position if the NOPs behind it are free
+        person.setStringValue(1, "Maggie");
+        assertThat(person.getValuePosition(1), is(15L));
+        assertThat(person.getNopCount(), is(0));
+        // a shorter value leaves NOPs behind it
+        address.setStringValue(1, "Main Street");
+        assertThat(address.getValuePosition(1), is(address.getStart() + Tlv.OBJECT_HEADER_SIZE));
+        assertThat(address.getNopLength(0), is(4L));
+        assertThat(address.removeValue(1), is(true));
+        assertConsistent(message);
+        assertThat(message.getMessageData().getMutableMessage(), is(message));
+    }
+
+    @Test
+    public void replaceWideValue() throws InvalidMessageException {
+        MutableMessage message = message(new MessageBytes()
+                .object(TestSchema.PERSON, 1).raw(Tlv.WIDE_VALUE, 1, 0, 0, 0, 4, 'L', 'i', 's', 'a').endObject()
+                .object(TestSchema.ADDRESS, 2).raw(Tlv.WIDE_VALUE, 1, 0, 0, 0, 1, 'x').endObject()
+                .endMessage(), 0);
+        ObjectData person = message.getMessageData().getRoot();
+        ObjectData address = message.getMessageData().getObjectAt(1);
+
+        // a wide TLV is replaced by a standard TLV at its position
+        person.setStringValue(1, "Lisa");
+        assertThat(person.getValuePosition(1), is(person.getStart() + Tlv.OBJECT_HEADER_SIZE));
+        assertThat(person.getNopLength(0), is(4L));
+        assertThat(person.getStringValue(1), is("Lisa"));
+        assertThat(address.removeValue(1), is(true));
+        assertThat(address.getNopLength(0), is(7L));
+        assertConsistent(message);
+
+        message.compact();
+        assertThat(message.getSize(), is(27L));
+        assertThat(address.getStart(), is(16L));
+        assertConsistent(message);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void rejectReadOnlyUpdate() throws InvalidMessageException {
+        MessageData data = new MessageData(schema);
+        MessageParser.parse(new ByteBufferRoRam(ByteBuffer.wrap(new MessageBytes()
+                .object(TestSchema.PERSON, 1).endObject().endMessage())), data);
+
+        data.getRoot().setStringValue(1, "Lisa");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectForeignObject() throws InvalidMessageException {
+        byte[] bytes = new MessageBytes().object(TestSchema.PERSON, 1).endObject().endMessage();
+        MutableMessage message = message(bytes, 0);
+
+        message.removeValue(message(bytes, 0).getMessageData().getRoot(), 1);
+    }
+
+    private MutableMessage message(byte[] bytes, int spare) throws InvalidMessageException {
+        ByteBufferRam ram = new ByteBufferRam(ByteBuffer.wrap(Arrays.copyOf(bytes, bytes.length + spare)));
+        return new MutableMessage(schema, ram, bytes.length, 10);
+    }
+
+    /**
+     * Parses a copy of the message and compares the structure with the changed
+     * MessageData.
+     */
+    private void assertConsistent(MutableMessage message) throws InvalidMessageException {
+        byte[] copy = new byte[(int) message.getSize()];
+        message.getRam().copyToDestination(0, copy);
+        MessageData parsed = new MessageData(schema);
+        MessageParser.parse(new ByteBufferRoRam(ByteBuffer.wrap(copy)), parsed);
+        MessageData changed = message.getMessageData();
+        assertThat(changed.getObjectCount(), is(parsed.getObjectCount()));
+        for (int i = 0; i < parsed.getObjectCount(); i++) {
+            ObjectData expected = parsed.getObjectAt(i);
+            ObjectData actual = changed.getObjectAt(i);
+            assertThat(actual.getStart(), is(expected.getStart()));
+            assertThat(actual.getEnd(), is(expected.getEnd()));
+            assertThat(actual.getStaticBlockPosition(), is(expected.getStaticBlockPosition()));
+            assertThat(actual.getValueCount(), is(expected.getValueCount()));
+            for (int v = 0; v < expected.getValueCount(); v++) {
+                assertThat(actual.getValueIdAt(v), is(expected.getValueIdAt(v)));
+                assertThat(actual.getValuePositionAt(v), is(expected.getValuePositionAt(v)));
+            }
+            for (int valueId = Tlv.FIRST_DYNAMIC_ID; valueId <= Tlv.LAST_DYNAMIC_ID; valueId++) {
+                assertThat(actual.getValuePosition(valueId), is(expected.getValuePosition(valueId)));
+            }
+            assertThat(actual.getNopCount(), is(expected.getNopCount()));
+            for (int n = 0; n < expected.getNopCount(); n++) {
+                assertThat(actual.getNopStart(n), is(expected.getNopStart(n)));
+                assertThat(actual.getNopLength(n), is(expected.getNopLength(n)));
+            }
+        }
+    }
+}
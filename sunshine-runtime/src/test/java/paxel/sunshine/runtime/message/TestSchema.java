@@ -0,0 +1,85 @@
+package paxel.sunshine.runtime.message;
+
+/**
+ * A schema with the object types {@link Person} (1) and {@link Address} (2).
+ */
+public class TestSchema implements SchemaData {
+
+    public static final int PERSON = 1;
+    public static final int ADDRESS = 2;
+
+    @Override
+    public int getTypeId(Class<?> type) {
+        if (type == Person.class) {
+            return PERSON;
+        }
+        if (type == Address.class) {
+            return ADDRESS;
+        }
+        return -1;
+    }
+
+    @Override
+    public Class<? extends SunshineObject> getType(int typeId) {
+        switch (typeId) {
+            case PERSON:
+                return Person.class;
+            case ADDRESS:
+                return Address.class;
+            default:
+                return null;
+        }
+    }
+
+    @Override
+    public SunshineObject newInstance(int typeId) {
+        switch (typeId) {
+            case PERSON:
+                return new Person();
+            case ADDRESS:
+                return new Address();
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Has an Int32 age in the static block and the dynamic value name (1).
+     */
+    public static class Person implements SunshineObject {
+        private ObjectData objectData;
+
+        @Override
+        public void init(ObjectData objectData) {
+            this.objectData = objectData;
+        }
+
+        public int getAge() {
+            return objectData.getRam().getInt32At(objectData.getStaticBlockIndex(0));
+        }
+
+        public String getName() {
+            long position = objectData.getValuePosition(1);
+            if (position < 0) {
+                return null;
+            }
+            return objectData.getRam().getStringAt(position + Tlv.TLV_HEADER_SIZE, (int) objectData.getValueLength(1));
+        }
+    }
+
+    /**
+     * Has no values.
+     */
+    public static class Address implements SunshineObject {
+        private ObjectData objectData;
+
+        @Override
+        public void init(ObjectData objectData) {
+            this.objectData = objectData;
+        }
+
+        public ObjectData getObjectData() {
+            return objectData;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package paxel.sunshine.runtime.message;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import paxel.sunshine.api.memory.bytebuffer.ByteBufferRoRam;
+
+public class TlvChunksRoRamTest {
+
+    private final byte[] value = new byte[600];
+    private ObjectData person;
+
+    @Before
+    public void setUp() throws InvalidMessageException {
+        for (int i = 0; i < value.length; i++) {
+            value[i] = (byte) i;
+        }
+        byte[] block = new byte[300];
+        block[299] = 7;
+        MessageBytes bytes = new MessageBytes().object(TestSchema.PERSON, 1)
+                .tlv(Tlv.STATIC_BLOCK, Arrays.copyOf(block, 255)).tlv(Tlv.STATIC_BLOCK, Arrays.copyOfRange(block, 255, 300));
+        for (int offset = 0; offset < value.length; offset += Tlv.MAX_VALUE_LENGTH) {
+            bytes.tlv(1, Arrays.copyOfRange(value, offset, Math.min(value.length, offset + Tlv.MAX_VALUE_LENGTH)));
+        }
+        bytes.value(2, "abc").nop(2).value(2, "").value(3, "x").value(2, "de");
+        MessageData data = new MessageData(new TestSchema());
+        MessageParser.parse(new ByteBufferRoRam(ByteBuffer.wrap(bytes.endObject().endMessage())), data);
+        person = data.getRoot();
+    }
+
+    @Test
+    public void gatherContiguousChunks() throws IOException {
+        TlvChunksRoRam chunks = person.getChunks(1);
+
+        assertThat(chunks.size(), is(600L));
+        assertThat(chunks.getChunkCount(), is(3));
+        assertThat(chunks.getByteAt(254), is((byte) 254));
+        assertThat(chunks.getByteAt(255), is((byte) 255));
+        assertThat(chunks.getByteAt(599), is(value[599]));
+        assertThat(chunks.getBytesAt(250, 300), is(Arrays.copyOfRange(value, 250, 550)));
+        assertThat(chunks.getBytes(), is(value));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertThat(chunks.copyToDestination(100, 500, out), is(500L));
+        assertThat(out.toByteArray(), is(Arrays.copyOfRange(value, 100, 600)));
+        assertThat(person.getBinaryValue(1).getBytes(), is(value));
+    }
+
+    @Test
+    public void gatherScatteredChunks() {
+        TlvChunksRoRam chunks = person.getChunks(2);
+
+        assertThat(chunks.size(), is(5L));
+        assertThat(chunks.getChunkCount(), is(3));
+        assertThat(new String(chunks.getBytes()), is("abcde"));
+        assertThat(chunks.getByteAt(3), is((byte) 'd'));
+        assertThat(new String(chunks.getBytesAt(2, 2)), is("cd"));
+        assertThat(person.getChunks(4) == null, is(true));
+    }
+
+    @Test
+    public void gatherStaticBlock() {
+        TlvChunksRoRam block = person.getStaticBlock();
+
+        assertThat(block.size(), is(300L));
+        assertThat(block.getByteAt(299), is((byte) 7));
+        assertThat(block.getByteAt(299), is(person.getRam().getByteAt(person.getStaticBlockIndex(299))));
+    }
+
+    @Test
+    public void streamChunks() throws IOException {
+        InputStream in = person.getChunks(1).newInputStream();
+        byte[] read = new byte[600];
+        assertThat(in.read(), is(0));
+        assertThat(in.read(read, 1, 300), is(300));
+        assertThat(in.skip(100), is(100L));
+        assertThat(in.available(), is(199));
+        assertThat(in.read(read, 401, 300), is(199));
+        assertThat(in.read(), is(-1));
+        assertThat(Arrays.copyOf(read, 301), is(Arrays.copyOf(value, 301)));
+        assertThat(read[599], is(value[599]));
+
+        ReadableByteChannel channel = person.getChunks(2).newChannel();
+        ByteBuffer direct = ByteBuffer.allocateDirect(3);
+        assertThat(channel.read(direct), is(3));
+        direct.flip();
+        assertThat(direct.get(2), is((byte) 'c'));
+        direct.clear();
+        assertThat(channel.read(direct), is(2));
+        assertThat(channel.read(direct), is(-1));
+        assertThat(direct.get(1), is((byte) 'e'));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectReadBehindEnd() {
+        person.getChunks(2).getBytesAt(3, 3);
+    }
+}
@@ -0,0 +1,221 @@
+package paxel.sunshine.runtime.net;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+import org.junit.Test;
+
+import paxel.sunshine.api.memory.pool.RamPool;
+import paxel.sunshine.runtime.frame.FrameReader;
+import paxel.sunshine.runtime.message.MessageBytes;
+import paxel.sunshine.runtime.message.MessageHandlerRegistry;
+import paxel.sunshine.runtime.message.MessageParser;
+import paxel.sunshine.runtime.message.TestSchema;
+
+public class FrameServerTest {
+
+    private static final InetSocketAddress LOCALHOST = new InetSocketAddress(InetAddress.getLoopbackAddress(), 0);
+
+    /**
+     * Connects many clients to the single selector thread. The default stays
+     * well below common file descriptor limits, more connections can be set with
+     * {@code -Dsunshine.test.connections}.
+     */
+    @Test
+    public void manyConnections() throws Exception {
+        int connections = Integer.getInteger("sunshine.test.connections", 32);
+        int framesPerConnection = 100;
+        int framesPerWrite = 10;
+        int clientThreads = 4;
+
+        TestSchema schema = new TestSchema();
+        MessageHandlerRegistry registry = new MessageHandlerRegistry(schema);
+        AtomicLong names = new AtomicLong();
+        TestSchema.Person person = new TestSchema.Person();
+        registry.register(TestSchema.Person.class, p -> names.addAndGet(p.getName().length()), () -> person);
+
+        byte[] message = new MessageBytes()
+                .object(TestSchema.PERSON, 1).staticBlock(0, 0, 0, 42).value(1, "Lisa").endObject()
+                .endMessage();
+        ByteBuffer batch = ByteBuffer.allocate(framesPerWrite * (FrameReader.HEADER_SIZE + message.length));
+        for (int i = 0; i < framesPerWrite; i++) {
+            batch.put((byte) 's').put((byte) 'u').put((byte) 'n').putInt(message.length).put(message);
+        }
+        batch.flip();
+
+        try (FrameServer server = new FrameServer(LOCALHOST, new MessageParser(schema, registry, true))) {
+            InetSocketAddress address = server.start();
+            List<SocketChannel> clients = new ArrayList<>();
+            try {
+                for (int i = 0; i < connections; i++) {
+                    clients.add(SocketChannel.open(address));
+                }
+                awaitUntil(() -> server.getConnections() == connections);
+
+                long expected = (long) connections * framesPerConnection;
+                ExecutorService executor = Executors.newFixedThreadPool(clientThreads);
+                List<Future<?>> writers = new ArrayList<>();
+                for (int t = 0; t < clientThreads; t++) {
+                    int first = t;
+                    writers.add(executor.submit(() -> {
+                        for (int round = 0; round < framesPerConnection / framesPerWrite; round++) {
+                            for (int c = first; c < connections; c += clientThreads) {
+                                ByteBuffer data = batch.duplicate();
+                                while (data.hasRemaining()) {
+                                    clients.get(c).write(data);
+                                }
+                            }
+                        }
+                        return null;
+                    }));
+                }
+                for (Future<?> writer : writers) {
+                    writer.get();
+                }
+                executor.shutdown();
+                awaitUntil(() -> server.getFrames() == expected);
+
+                assertThat(names.get(), is(expected * 4));
+                assertThat(server.getInvalidConnections(), is(0L));
+            } finally {
+                for (SocketChannel client : clients) {
+                    client.close();
+                }
+            }
+            awaitUntil(() -> server.getConnections() == 0);
+        }
+    }
+
+    @Test
+    public void echoSplitFrames() throws Exception {
+        RamPool pool = RamPool.heap();
+        FrameServer.FrameHandler echo = (connection, frame) -> {
+            byte[] copy = new byte[(int) frame.size()];
+            frame.copyToDestination(0, copy);
+            connection.send(ByteBuffer.wrap(copy));
+        };
+        try (FrameServer server = new FrameServer(LOCALHOST, echo, pool, 16, 1000)) {
+            InetSocketAddress address = server.start();
+            try (SocketChannel client = SocketChannel.open(address)) {
+                // a read buffer of 16 bytes splits the frames
+                byte[] frame = frame("Hello Sunshine, this frame is split");
+                for (int i = 0; i < 3; i++) {
+                    client.write(ByteBuffer.wrap(frame));
+                }
+                ByteBuffer response = ByteBuffer.allocate(3 * frame.length);
+                while (response.hasRemaining()) {
+                    client.read(response);
+                }
+                for (int i = 0; i < 3; i++) {
+                    byte[] echoed = new byte[frame.length];
+                    response.position(i * frame.length);
+                    response.get(echoed);
+                    assertThat(new String(echoed, StandardCharsets.UTF_8), is(new String(frame, StandardCharsets.UTF_8)));
+                }
+            }
+            awaitUntil(() -> server.getConnections() == 0);
+            assertThat(server.getFrames(), is(3L));
+            assertThat(pool.getBytesOutstanding(), is(0L));
+        }
+    }
+
+    @Test
+    public void closeConnectionWithInvalidFrame() throws Exception {
+        try (FrameServer server = new FrameServer(LOCALHOST, (connection, frame) -> {
+        }, RamPool.heap(), 1024, 1000)) {
+            InetSocketAddress address = server.start();
+            try (SocketChannel client = SocketChannel.open(address)) {
+                client.write(ByteBuffer.wrap(frame("valid")));
+                client.write(ByteBuffer.wrap("obj1234".getBytes(StandardCharsets.US_ASCII)));
+                assertThat(client.read(ByteBuffer.allocate(1)), is(-1));
+            }
+            assertThat(server.getFrames(), is(1L));
+            assertThat(server.getInvalidConnections(), is(1L));
+            awaitUntil(() -> server.getConnections() == 0);
+        }
+    }
+
+    @Test
+    public void failingHandlerOnlyClosesItsConnection() throws Exception {
+        FrameServer.FrameHandler handler = (connection, frame) -> {
+            if (frame.getStringAt(0, (int) frame.size()).equals("fail")) {
+                throw new IllegalStateException("handler failed");
+            }
+            connection.send(ByteBuffer.wrap(new byte[]{'o', 'k'}));
+        };
+        try (FrameServer server = new FrameServer(LOCALHOST, handler, RamPool.heap(), 1024, 1000)) {
+            InetSocketAddress address = server.start();
+            try (SocketChannel failing = SocketChannel.open(address); SocketChannel client = SocketChannel.open(address)) {
+                failing.write(ByteBuffer.wrap(frame("fail")));
+                assertThat(failing.read(ByteBuffer.allocate(1)), is(-1));
+                client.write(ByteBuffer.wrap(frame("works")));
+                ByteBuffer response = ByteBuffer.allocate(FrameReader.HEADER_SIZE + 2);
+                while (response.hasRemaining()) {
+                    client.read(response);
+                }
+                assertThat(new String(response.array(), FrameReader.HEADER_SIZE, 2, StandardCharsets.US_ASCII), is("ok"));
+                assertThat(server.getInvalidConnections(), is(1L));
+                assertThat(server.getConnections(), is(1));
+            }
+            awaitUntil(() -> server.getConnections() == 0);
+        }
+    }
+
+    @Test
+    public void closeFromOtherThread() throws Exception {
+        List<FrameConnection> accepted = new ArrayList<>();
+        FrameServer.FrameHandler handler = (connection, frame) -> {
+            synchronized (accepted) {
+                accepted.add(connection);
+            }
+        };
+        try (FrameServer server = new FrameServer(LOCALHOST, handler, RamPool.heap(), 1024, 1000)) {
+            InetSocketAddress address = server.start();
+            try (SocketChannel client = SocketChannel.open(address)) {
+                client.write(ByteBuffer.wrap(frame("hello")));
+                awaitUntil(() -> server.getFrames() == 1);
+                FrameConnection connection;
+                synchronized (accepted) {
+                    connection = accepted.get(0);
+                }
+                connection.close();
+                connection.close();
+                assertThat(client.read(ByteBuffer.allocate(1)), is(-1));
+                awaitUntil(() -> server.getConnections() == 0);
+                assertThat(connection.isOpen(), is(false));
+            }
+            assertThat(server.getConnections(), is(0));
+        }
+    }
+
+    private static byte[] frame(String payload) {
+        byte[] bytes = payload.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer frame = ByteBuffer.allocate(FrameReader.HEADER_SIZE + bytes.length);
+        frame.put((byte) 's').put((byte) 'u').put((byte) 'n').putInt(bytes.length).put(bytes);
+        return frame.array();
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) throws InterruptedException {
+        long timeout = System.currentTimeMillis() + 60_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > timeout) {
+                throw new AssertionError("timeout");
+            }
+            Thread.sleep(1);
+        }
+    }
+}